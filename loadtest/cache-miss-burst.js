@@ -0,0 +1,69 @@
+// 外部APIへのキャッシュミスが集中したときの同時リクエスト上限を測る k6 シナリオ。
+//
+// 実行例（ログイン・OTP認証済みブラウザのセッションIDを渡す）:
+//   k6 run -e BASE_URL=http://localhost:8080 -e SESSION=<JSESSIONID> loadtest/cache-miss-burst.js
+//
+// 比較方法:
+//   1. application.properties の spring.threads.virtual.enabled=false で起動して実行
+//   2. true に戻して起動し、同じシナリオを実行
+//   3. 「unrelated_page_duration」の p95 と「dropped_iterations」を比較する
+//      （プラットフォームスレッドではキャッシュミスの待ちでスレッドが枯渇し、無関係なページも待たされる）
+// ピン留めの確認は -Djdk.tracePinnedThreads=short を付けて起動し、ログを確認する。
+import http from 'k6/http';
+import { check } from 'k6';
+import { Trend } from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const SESSION = __ENV.SESSION || '';
+const SYMBOLS = (__ENV.SYMBOLS || 'AAPL,MSFT,GOOGL,AMZN,META,NVDA,TSLA,NFLX').split(',');
+
+const unrelatedPageDuration = new Trend('unrelated_page_duration', true);
+
+export const options = {
+	scenarios: {
+		// 外部API・DBで待たされるリクエストを段階的に増やす
+		cache_miss_burst: {
+			executor: 'ramping-arrival-rate',
+			exec: 'cacheMiss',
+			startRate: 10,
+			timeUnit: '1s',
+			preAllocatedVUs: 200,
+			maxVUs: 2000,
+			stages: [
+				{ target: 100, duration: '30s' },
+				{ target: 400, duration: '30s' },
+				{ target: 800, duration: '30s' },
+				{ target: 0, duration: '10s' },
+			],
+		},
+		// 同時に、外部APIを呼ばない軽いページの応答時間を測る
+		unrelated_page: {
+			executor: 'constant-arrival-rate',
+			exec: 'unrelatedPage',
+			rate: 5,
+			timeUnit: '1s',
+			duration: '100s',
+			preAllocatedVUs: 10,
+		},
+	},
+	thresholds: {
+		unrelated_page_duration: ['p(95)<500'],
+		'http_req_failed{scenario:cache_miss_burst}': ['rate<0.05'],
+	},
+};
+
+const params = { headers: { Cookie: `JSESSIONID=${SESSION}` } };
+
+export function cacheMiss() {
+	// 毎回異なる outputsize を指定して candlesCache を外し、DB・外部APIまで到達させる
+	const symbol = SYMBOLS[Math.floor(Math.random() * SYMBOLS.length)];
+	const outputsize = 150 + Math.floor(Math.random() * 50);
+	const res = http.get(`${BASE_URL}/api/stocks/list?symbol=${symbol}&interval=1day&outputsize=${outputsize}`, params);
+	check(res, { 'status is 200': r => r.status === 200 });
+}
+
+export function unrelatedPage() {
+	const res = http.get(`${BASE_URL}/login`);
+	unrelatedPageDuration.add(res.timings.duration);
+	check(res, { 'login page is 200': r => r.status === 200 });
+}
@@ -1,10 +1,13 @@
 package com.example.stock.config;
 
 import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import com.google.cloud.vision.v1.ImageAnnotatorClient;
@@ -14,9 +17,19 @@ import okhttp3.OkHttpClient;
 @Configuration
 public class AppConfig {
 
+	/**
+	 * 外部API（Twelve Data）呼び出し用のRestTemplate。
+	 * JDK標準のHttpClientを使い、仮想スレッド上で待機してもキャリアスレッドを占有しないようにする。
+	 * 接続・読み取りにタイムアウトを設定し、応答しない上流でスレッドが滞留しないようにする。
+	 */
 	@Bean
 	RestTemplate restTemplate() {
-		return new RestTemplate();
+		HttpClient httpClient = HttpClient.newBuilder()
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+		factory.setReadTimeout(Duration.ofSeconds(10));
+		return new RestTemplate(factory);
 	}
 
 	@Bean
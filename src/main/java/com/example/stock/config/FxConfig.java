@@ -0,0 +1,43 @@
+package com.example.stock.config;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.stock.fx.FixedFxRateSource;
+import com.example.stock.fx.FxRateSource;
+import com.example.stock.fx.TwelveDataFxRateSource;
+import com.example.stock.service.FxRateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Configuration
+public class FxConfig {
+
+	/**
+	 * Twelve Data API から為替レートを取得する（fx.source=twelvedata、既定）。
+	 * テストでは外部APIを呼ばないよう、下の設定値の取得元を使う。
+	 */
+	@Bean
+	@Profile("!test")
+	@ConditionalOnProperty(name = "fx.source", havingValue = "twelvedata", matchIfMissing = true)
+	FxRateSource twelveDataFxRateSource(RestTemplate restTemplate, ObjectMapper objectMapper,
+			@Value("${api.key}") String apiKey) {
+		return new TwelveDataFxRateSource(restTemplate, objectMapper, apiKey);
+	}
+
+	/**
+	 * 設定値（fx.fixed.usd-jpy）の為替レートを返す（fx.source=fixed・テスト）。
+	 */
+	@Bean
+	@ConditionalOnMissingBean(FxRateSource.class)
+	FxRateSource fixedFxRateSource(@Value("${fx.fixed.usd-jpy:143.07}") BigDecimal usdJpyRate) {
+		return new FixedFxRateSource(Map.of(FxRateService.USD_JPY, usdJpyRate));
+	}
+}
@@ -9,10 +9,14 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import com.example.stock.service.AccountCacheService;
+import com.example.stock.service.QuoteStreamService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -90,4 +94,16 @@ public class RedisConfig {
 		template.afterPropertiesSet();
 		return template;
 	}
-}
\ No newline at end of file
+
+	// 最新株価のPub/Subを購読し、各ノードのSSE接続へ配信する
+	// あわせて他ノードからの残高・保有株のキャッシュ破棄の通知を購読する
+	@Bean
+	RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+			QuoteStreamService quoteStreamService, AccountCacheService accountCacheService) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(quoteStreamService, new ChannelTopic(QuoteStreamService.QUOTE_CHANNEL));
+		container.addMessageListener(accountCacheService, new ChannelTopic(AccountCacheService.INVALIDATE_CHANNEL));
+		return container;
+	}
+}
@@ -0,0 +1,70 @@
+package com.example.stock.controller;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.stock.dto.BasketOrderRequestDto;
+import com.example.stock.dto.BasketOrderResultDto;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.BasketOrderService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class BasketOrderController {
+	private final BasketOrderService basketOrderService;
+	private final PasswordEncoder passwordEncoder;
+	private final SecurityUtils securityUtils;
+
+	/**
+	 * 複数銘柄の注文をまとめて発注する（すべて約定するか、すべて取り消されるか）。
+	 * 取引暗証番号の確認はバスケット全体で1回だけ行う。
+	 *
+	 * @param dto バスケット注文
+	 * @param result 入力チェックの結果
+	 * @return 成功時は取引ID、失敗時は400とエラーメッセージ
+	 */
+	@PostMapping("/basket")
+	public ResponseEntity<BasketOrderResultDto> submitBasket(@Valid @RequestBody BasketOrderRequestDto dto,
+			BindingResult result) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+
+		// 入力エラー
+		if (result.hasErrors()) {
+			StringBuilder errorMessages = new StringBuilder();
+			result.getAllErrors().forEach(error -> errorMessages.append(error.getDefaultMessage()));
+			return badRequest(errorMessages.toString());
+		}
+
+		// パスワード確認（バスケット全体で1回）
+		if (!passwordEncoder.matches(dto.getTradingPin(), user.getPassword())) {
+			return badRequest("パスワードが正しくありません。");
+		}
+
+		try {
+			List<Long> tradeIds = basketOrderService.submitBasket(user, dto.getLegs()).stream()
+					.map(Trade::getId)
+					.toList();
+			return ResponseEntity.ok(new BasketOrderResultDto(tradeIds, null));
+		} catch (IllegalStateException e) {
+			return badRequest(e.getMessage());
+		}
+	}
+
+	private ResponseEntity<BasketOrderResultDto> badRequest(String message) {
+		return ResponseEntity.badRequest().body(new BasketOrderResultDto(List.of(), message));
+	}
+}
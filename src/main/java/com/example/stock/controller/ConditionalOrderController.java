@@ -0,0 +1,95 @@
+package com.example.stock.controller;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.stock.dto.ConditionalOrderDto;
+import com.example.stock.dto.ConditionalOrderRequestDto;
+import com.example.stock.dto.ConditionalOrderResultDto;
+import com.example.stock.model.ConditionalOrder;
+import com.example.stock.model.Users;
+import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.ConditionalOrderService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/orders/conditional")
+@RequiredArgsConstructor
+public class ConditionalOrderController {
+	private final ConditionalOrderService conditionalOrderService;
+	private final PasswordEncoder passwordEncoder;
+	private final SecurityUtils securityUtils;
+
+	/**
+	 * 条件付き注文（逆指値・利益確定・トレーリングストップ）を受け付ける。
+	 *
+	 * @param dto 条件付き注文
+	 * @param result 入力チェックの結果
+	 * @return 成功時は条件付き注文のID、失敗時は400とエラーメッセージ
+	 */
+	@PostMapping
+	public ResponseEntity<ConditionalOrderResultDto> place(@Valid @RequestBody ConditionalOrderRequestDto dto,
+			BindingResult result) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+
+		// 入力エラー
+		if (result.hasErrors()) {
+			StringBuilder errorMessages = new StringBuilder();
+			result.getAllErrors().forEach(error -> errorMessages.append(error.getDefaultMessage()));
+			return badRequest(errorMessages.toString());
+		}
+
+		// パスワード確認
+		if (!passwordEncoder.matches(dto.getTradingPin(), user.getPassword())) {
+			return badRequest("パスワードが正しくありません。");
+		}
+
+		try {
+			ConditionalOrder order = conditionalOrderService.place(user, dto);
+			return ResponseEntity.ok(new ConditionalOrderResultDto(order.getId(), null));
+		} catch (IllegalStateException e) {
+			return badRequest(e.getMessage());
+		}
+	}
+
+	/**
+	 * ログイン中のユーザーの条件付き注文を新しい順に返す。
+	 */
+	@GetMapping
+	public List<ConditionalOrderDto> list() {
+		return conditionalOrderService.getOrders(securityUtils.getLoggedInUserOrThrow());
+	}
+
+	/**
+	 * 待機中の条件付き注文を取り消す。
+	 *
+	 * @param id 条件付き注文のID
+	 * @return 成功時は取り消した注文のID、失敗時は400とエラーメッセージ
+	 */
+	@PostMapping("/{id}/cancel")
+	public ResponseEntity<ConditionalOrderResultDto> cancel(@PathVariable Long id) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+		try {
+			conditionalOrderService.cancel(user, id);
+			return ResponseEntity.ok(new ConditionalOrderResultDto(id, null));
+		} catch (IllegalStateException e) {
+			return badRequest(e.getMessage());
+		}
+	}
+
+	private ResponseEntity<ConditionalOrderResultDto> badRequest(String message) {
+		return ResponseEntity.badRequest().body(new ConditionalOrderResultDto(null, message));
+	}
+}
@@ -15,8 +15,10 @@ import com.example.stock.dto.FlexibleIndicatorDto;
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
 import com.example.stock.model.StockCandle;
 import com.example.stock.model.TechnicalIndicatorValue;
+import com.example.stock.service.ChartAxisService;
 import com.example.stock.service.StockService;
 import com.example.stock.service.TechnicalService;
+import com.example.stock.util.DownsamplingUtil;
 
 import lombok.RequiredArgsConstructor;
 
@@ -26,6 +28,7 @@ import lombok.RequiredArgsConstructor;
 public class GetDataController {
 	private final StockService stockService;
 	private final TechnicalService technicalService;
+	private final ChartAxisService chartAxisService;
 	private final StockCandleConverter stockCandleConverter;
 	private final TechnicalIndicatorConverter technicalIndicatorConverter;
 
@@ -38,15 +41,21 @@ public class GetDataController {
 	 * @param symbol     銘柄コード（例: "AAPL"）。デフォルトは "AAPL"
 	 * @param interval   データの時間間隔（例: "1day", "1week"）。デフォルトは "1day"
 	 * @param outputsize 必要なデータ件数（例: 200）。デフォルトは 200
+	 * @param maxPoints  返却する最大本数（任意）。指定時は連続する足をまとめて本数を減らす
 	 * @return 株価ローソク足データのリスト（JSON形式で返される）
 	 *         - 正常：200 OK + データリスト
+	 *         - maxPoints が不正な場合：400 Bad Request + エラーメッセージ
 	 *         - データが取得できない場合：404 Not Found + エラーメッセージ
 	 */
 	@GetMapping("/list")
 	public ResponseEntity<?> getSavedCandles(
 			@RequestParam(defaultValue = "AAPL") String symbol,
 			@RequestParam(defaultValue = "1day") String interval,
-			@RequestParam(defaultValue = "200") int outputsize) {
+			@RequestParam(defaultValue = "200") int outputsize,
+			@RequestParam(required = false) Integer maxPoints) {
+		if (maxPoints != null && maxPoints < DownsamplingUtil.MIN_POINTS) {
+			return invalidMaxPoints();
+		}
 
 		// データベースから取得
 		List<StockCandle> candles = stockService.getSavedCandles(symbol, interval, outputsize);
@@ -62,6 +71,11 @@ public class GetDataController {
 			}
 		}
 
+		// 表示本数より多い場合はまとめた足を返す
+		if (maxPoints != null && candles.size() > maxPoints) {
+			return ResponseEntity.ok(stockService.getDownsampledCandles(symbol, interval, outputsize, maxPoints));
+		}
+
 		// DTO化して返す
 		List<StockCandleWithPrevCloseDto> dtoList = candles.stream()
 				.map(candle -> stockCandleConverter.fromEntity(candle))
@@ -80,6 +94,7 @@ public class GetDataController {
 	 * @param interval データの時間間隔（例：1min, 5min, 1day など）
 	 * @param timeperiod 移動平均を算出する期間（例：10, 20など）
 	 * @param outputsize 出力されるデータの件数（例：30, 500など）
+	 * @param maxPoints 返却する最大点数（任意）。指定時はLTTBで点数を減らす
 	 * @return SMAデータを含むHTTPレスポンス（成功時は200 OK, 失敗時は502 Bad Gateway）
 	 */
 	@GetMapping("/technical/SMA")
@@ -87,7 +102,11 @@ public class GetDataController {
 			@RequestParam(defaultValue = "AAPL") String symbol,
 			@RequestParam(defaultValue = "1day") String interval,
 			@RequestParam(defaultValue = "5") Integer timeperiod,
-			@RequestParam(defaultValue = "200") Integer outputsize) {
+			@RequestParam(defaultValue = "200") Integer outputsize,
+			@RequestParam(required = false) Integer maxPoints) {
+		if (maxPoints != null && maxPoints < DownsamplingUtil.MIN_POINTS) {
+			return invalidMaxPoints();
+		}
 		// データベースから取得
 		List<TechnicalIndicatorValue> sma = technicalService.getSavedSMA(symbol, interval, timeperiod, outputsize);
 		if (sma.size() < outputsize) {
@@ -99,9 +118,36 @@ public class GetDataController {
 						"message", "指定された条件のデータが見つかりませんでした"));
 			}
 		}
+		// 表示点数より多い場合は間引いた線を返す
+		if (maxPoints != null && sma.size() > maxPoints) {
+			return ResponseEntity.ok(
+					technicalService.getDownsampledSMA(symbol, interval, timeperiod, outputsize, maxPoints));
+		}
+
 		// DTOに変換して返却
 		List<FlexibleIndicatorDto> dtoList = technicalIndicatorConverter.fromEntities(sma);
 		return ResponseEntity.ok(dtoList);
 	}
 
+	/**
+	 * チャートのX軸に使う共通の日付軸を取得します。
+	 * 取引カレンダーと取り込み済みの足から作成され、どの銘柄の系列もこの軸に合わせて表示できます。
+	 *
+	 * @param interval   データの時間間隔（例: "1day", "1week"）。デフォルトは "1day"
+	 * @param outputsize 軸の件数（例: 200）。デフォルトは 200
+	 * @return "yyyy-MM-dd" 形式の日付リスト（古い順）
+	 */
+	@GetMapping("/axis")
+	public ResponseEntity<List<String>> getDateAxis(
+			@RequestParam(defaultValue = "1day") String interval,
+			@RequestParam(defaultValue = "200") int outputsize) {
+		return ResponseEntity.ok(chartAxisService.getDateAxis(interval, outputsize));
+	}
+
+	private ResponseEntity<?> invalidMaxPoints() {
+		return ResponseEntity.badRequest().body(Map.of(
+				"error", "パラメータ不正",
+				"message", "maxPoints は" + DownsamplingUtil.MIN_POINTS + "以上を指定してください"));
+	}
+
 }
@@ -0,0 +1,156 @@
+package com.example.stock.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.stock.dto.ExportFilter;
+import com.example.stock.enums.ExportFormat;
+import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.HistoryExportService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 取引・ウォレット履歴のエクスポート。
+ * ログイン中のユーザーは自分の履歴を、管理者（/admin/**）は任意のユーザーまたは全ユーザーの履歴を取得できる。
+ * 結果は StreamingResponseBody で1行ずつ書き出す。
+ */
+@RestController
+@RequiredArgsConstructor
+public class HistoryExportController {
+	private final HistoryExportService historyExportService;
+	private final SecurityUtils securityUtils;
+
+	// 出力処理（取引履歴 or ウォレット履歴）
+	@FunctionalInterface
+	private interface Exporter {
+		long export(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException;
+	}
+
+	/**
+	 * ログイン中のユーザーの取引履歴をエクスポートする。
+	 *
+	 * @param format 出力形式（csv, jsonl）
+	 * @param from   開始日（この日を含む。省略時は制限なし）
+	 * @param to     終了日（この日を含む。省略時は制限なし）
+	 * @param ticker 銘柄コード（省略時は全銘柄）
+	 * @param gzip   gzip で圧縮するかどうか
+	 * @return 履歴のファイル（条件が不正な場合は400）
+	 */
+	@GetMapping("/api/export/trades")
+	public ResponseEntity<?> exportMyTrades(
+			@RequestParam(defaultValue = "csv") String format,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "") String ticker,
+			@RequestParam(defaultValue = "false") boolean gzip) {
+		Long userId = securityUtils.getLoggedInUserOrThrow().getId();
+		return export("trades", historyExportService::exportTrades, userId, format, from, to, ticker, gzip);
+	}
+
+	/**
+	 * ログイン中のユーザーのウォレットの入出金履歴をエクスポートする。
+	 *
+	 * @param format 出力形式（csv, jsonl）
+	 * @param from   開始日（この日を含む。省略時は制限なし）
+	 * @param to     終了日（この日を含む。省略時は制限なし）
+	 * @param ticker 銘柄コード（省略時は全銘柄）
+	 * @param gzip   gzip で圧縮するかどうか
+	 * @return 履歴のファイル（条件が不正な場合は400）
+	 */
+	@GetMapping("/api/export/wallet-logs")
+	public ResponseEntity<?> exportMyWalletLogs(
+			@RequestParam(defaultValue = "csv") String format,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "") String ticker,
+			@RequestParam(defaultValue = "false") boolean gzip) {
+		Long userId = securityUtils.getLoggedInUserOrThrow().getId();
+		return export("wallet-logs", historyExportService::exportWalletLogs, userId, format, from, to, ticker, gzip);
+	}
+
+	/**
+	 * 取引履歴をエクスポートする（管理者用）。
+	 *
+	 * @param userId 対象ユーザーのID（省略時は全ユーザー）
+	 * @return 履歴のファイル（条件が不正な場合は400）
+	 */
+	@GetMapping("/admin/export/trades")
+	public ResponseEntity<?> exportTrades(
+			@RequestParam(required = false) Long userId,
+			@RequestParam(defaultValue = "csv") String format,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "") String ticker,
+			@RequestParam(defaultValue = "false") boolean gzip) {
+		return export("trades", historyExportService::exportTrades, userId, format, from, to, ticker, gzip);
+	}
+
+	/**
+	 * ウォレットの入出金履歴をエクスポートする（管理者用）。
+	 *
+	 * @param userId 対象ユーザーのID（省略時は全ユーザー）
+	 * @return 履歴のファイル（条件が不正な場合は400）
+	 */
+	@GetMapping("/admin/export/wallet-logs")
+	public ResponseEntity<?> exportWalletLogs(
+			@RequestParam(required = false) Long userId,
+			@RequestParam(defaultValue = "csv") String format,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(defaultValue = "") String ticker,
+			@RequestParam(defaultValue = "false") boolean gzip) {
+		return export("wallet-logs", historyExportService::exportWalletLogs, userId, format, from, to, ticker, gzip);
+	}
+
+	private ResponseEntity<?> export(String name, Exporter exporter, Long userId, String formatParam,
+			LocalDate from, LocalDate to, String ticker, boolean gzip) {
+		ExportFormat format;
+		try {
+			format = ExportFormat.fromParam(formatParam);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+		if (!ticker.matches("^[a-zA-Z]*$")) {
+			return ResponseEntity.badRequest().body("銘柄コードは英字のみで入力してください");
+		}
+		if (from != null && to != null && from.isAfter(to)) {
+			return ResponseEntity.badRequest().body("開始日は終了日以前の日付を指定してください");
+		}
+		ExportFilter filter = new ExportFilter(userId, from, to, ticker);
+
+		StreamingResponseBody body = out -> {
+			if (gzip) {
+				GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+				exporter.export(filter, format, gzipOut);
+				gzipOut.finish();
+			} else {
+				exporter.export(filter, format, out);
+			}
+		};
+
+		String filename = name + "-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + "."
+				+ format.getExtension() + (gzip ? ".gz" : "");
+		MediaType mediaType = gzip
+				? MediaType.parseMediaType("application/gzip")
+				: MediaType.parseMediaType(format.getMediaType() + ";charset=UTF-8");
+		return ResponseEntity.ok()
+				.contentType(mediaType)
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename(filename).build().toString())
+				.body(body);
+	}
+}
@@ -1,6 +1,5 @@
 package com.example.stock.controller;
 
-import java.lang.reflect.Field;
 import java.math.BigDecimal;
 
 import jakarta.servlet.http.HttpSession;
@@ -17,12 +16,17 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import com.example.stock.converter.TradeConverter;
 import com.example.stock.dto.OrderPageDataDto;
+import com.example.stock.dto.TradeContext;
 import com.example.stock.dto.TradeRequestDto;
+import com.example.stock.model.Tickers;
 import com.example.stock.model.Trade;
 import com.example.stock.model.Users;
 import com.example.stock.repository.TradeRepository;
 import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.FxRateService;
+import com.example.stock.service.OpeningQueueService;
 import com.example.stock.service.OrderPageDataService;
+import com.example.stock.service.OrderPipelineService;
 import com.example.stock.service.TickersService;
 import com.example.stock.service.TradeService;
 
@@ -34,8 +38,11 @@ public class OrderController {
 
 	private final OrderPageDataService orderPageDataService;
 	private final TradeService tradeService;
+	private final OrderPipelineService orderPipelineService;
+	private final OpeningQueueService openingQueueService;
 	private final TickersService tickersService;
 	private final TradeConverter tradeConverter;
+	private final FxRateService fxRateService;
 	private final PasswordEncoder passwordEncoder;
 	private final SecurityUtils securityUtils;
 	private final TradeRepository tradeRepository;
@@ -51,7 +58,7 @@ public class OrderController {
 	public String showOrderPage(@RequestParam String orderType, @RequestParam String symbol, Model model) {
 		OrderPageDataDto data = orderPageDataService.getOrderPageData(symbol);
 
-		if (data == null || hasNullField(data)) {
+		if (data == null || !data.isComplete()) {
 			if (data != null) {
 				model.addAttribute("ticker", data.getTicker());
 				model.addAttribute("stock", data.getStock());
@@ -70,6 +77,7 @@ public class OrderController {
 		model.addAttribute("ticker", data.getTicker());
 		model.addAttribute("data", data);
 		model.addAttribute("orderType", orderType);
+		model.addAttribute("usdJpyRate", fxRateService.getUsdJpyRate());
 		return "order";
 	}
 
@@ -85,8 +93,10 @@ public class OrderController {
 			HttpSession session) {
 		Users user = securityUtils.getLoggedInUserOrThrow();
 
-		String symbol = tickersService.getTickerById(dto.getTickerId()).getTicker();
-		OrderPageDataDto data = orderPageDataService.getOrderPageData(symbol);
+		// 注文の検証・実行に必要な情報をまとめて1回だけ読み込み、以降はこれを使い回す
+		Tickers ticker = tickersService.getTickerById(dto.getTickerId());
+		TradeContext context = tradeService.loadContext(user, ticker);
+		OrderPageDataDto data = orderPageDataService.getOrderPageData(context);
 
 		// 入力エラー
 		if (result.hasErrors()) {
@@ -98,11 +108,10 @@ public class OrderController {
 			return returnToOrderPage(model, data, dto);
 		}
 
-		Trade newTrade = tradeConverter.toTradeEntity(dto);
 		boolean isTradeSuccess = true;
 
 		// 画面移動に必要なデータが足りない場合はstockへ戻る
-		if (data == null || hasNullField(data)) {
+		if (data == null || !data.isComplete()) {
 			if (data != null) {
 				model.addAttribute("ticker", data.getTicker());
 				model.addAttribute("stock", data.getStock());
@@ -110,6 +119,8 @@ public class OrderController {
 			return "stock";
 		}
 
+		Trade newTrade = tradeConverter.toTradeEntity(dto, context);
+
 		// パスワード確認
 		if (!passwordEncoder.matches(dto.getTradingPin(), user.getPassword())) {
 			isTradeSuccess = false;
@@ -119,7 +130,7 @@ public class OrderController {
 		// 業務バリデーション（残高・価格）
 		if (isTradeSuccess) {
 			try {
-				tradeService.validateTrade(newTrade);
+				tradeService.validateTrade(newTrade, context);
 			} catch (IllegalStateException e) {
 				isTradeSuccess = false;
 				model.addAttribute("errorMessage", e.getMessage());
@@ -131,11 +142,21 @@ public class OrderController {
 			return returnToOrderPage(model, data, dto);
 		}
 
-		// エラーがなければ、注文確定処理（DB保存）
-		tradeService.executeTrade(newTrade);
+		// エラーがなければ、注文を受付中として記録し、確定は注文パイプラインに任せる
+		// 立会時間外は前日終値で約定させず、寄付待ちとして記録して次の寄付でまとめて執行する
+		// 1分あたりの注文回数の上限を超える場合は入力画面に戻る
+		Long tradeId;
+		try {
+			tradeId = openingQueueService.isMarketClosed()
+					? openingQueueService.enqueue(newTrade)
+					: orderPipelineService.submit(newTrade, context);
+		} catch (IllegalStateException e) {
+			model.addAttribute("errorMessage", e.getMessage());
+			return returnToOrderPage(model, data, dto);
+		}
 
-		// tradeId を session に保存（確認画面で使用）
-		session.setAttribute("confirmedTradeId", newTrade.getId());
+		// tradeId を session に保存（確認画面で使用。確定結果は確認画面からポーリングする）
+		session.setAttribute("confirmedTradeId", tradeId);
 
 		// GETにリダイレクト（リロード対応のため）
 		return "redirect:/stock/order/check";
@@ -164,27 +185,12 @@ public class OrderController {
 		model.addAttribute("trade", trade);
 		OrderPageDataDto data = orderPageDataService.getOrderPageData(trade.getTicker().getTicker());
 		model.addAttribute("data", data);
-		model.addAttribute("ticker", data.getTicker());
+		// 一部の取得に失敗した場合も、銘柄は注文から表示する
+		model.addAttribute("ticker", data.getTicker() != null ? data.getTicker() : trade.getTicker());
 		model.addAttribute("stock", data.getStock());
 		return "order-check";
 	}
 
-	//dtoにnullがあるかをチェック
-	private Boolean hasNullField(Object dto) {
-		try {
-			for (Field field : dto.getClass().getDeclaredFields()) {
-				field.setAccessible(true);
-				Object value = field.get(dto);
-				if (value == null) {
-					return true;
-				}
-			}
-		} catch (IllegalAccessException e) {
-			e.printStackTrace();
-		}
-		return false;
-	}
-
 	//エラーになったときにorderページに戻るためのめぞ
 	private String returnToOrderPage(Model model, OrderPageDataDto data, TradeRequestDto dto) {
 		model.addAttribute("stock", data.getStock());
@@ -192,6 +198,7 @@ public class OrderController {
 		model.addAttribute("data", data);
 		model.addAttribute("orderType", dto.getSide());
 		model.addAttribute("trade", dto);
+		model.addAttribute("usdJpyRate", fxRateService.getUsdJpyRate());
 		return "order";
 	}
 
@@ -0,0 +1,35 @@
+package com.example.stock.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.stock.dto.OrderStatusDto;
+import com.example.stock.model.Users;
+import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.TradeService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class OrderStatusController {
+	private final TradeService tradeService;
+	private final SecurityUtils securityUtils;
+
+	/**
+	 * 注文の処理状況を取得する。受付中の注文が確定（または不成立）になるまで注文確認画面から定期的に呼ばれる。
+	 *
+	 * @param tradeId 取引ID
+	 * @return 処理状況（本人の注文でない、または存在しない場合は404）
+	 */
+	@GetMapping("/{tradeId}/status")
+	public ResponseEntity<OrderStatusDto> getStatus(@PathVariable Long tradeId) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+		OrderStatusDto status = tradeService.getOrderStatus(user, tradeId);
+		return status != null ? ResponseEntity.ok(status) : ResponseEntity.notFound().build();
+	}
+}
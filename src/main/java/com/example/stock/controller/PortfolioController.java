@@ -0,0 +1,32 @@
+package com.example.stock.controller;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import com.example.stock.model.Users;
+import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.PortfolioService;
+
+import lombok.RequiredArgsConstructor;
+
+@Controller
+@RequiredArgsConstructor
+public class PortfolioController {
+	private final PortfolioService portfolioService;
+	private final SecurityUtils securityUtils;
+
+	/**
+	 * ログイン中のユーザーの保有銘柄と評価額を表示する。
+	 * 評価額はメモリ上で更新済みのものを表示し、銘柄ごとの最新値の取得は行わない。
+	 *
+	 * @param model 画面に表示するためのデータを保持するオブジェクト
+	 * @return ポートフォリオ画面
+	 */
+	@GetMapping("/portfolio")
+	public String showPortfolio(Model model) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+		model.addAttribute("portfolio", portfolioService.getPortfolio(user));
+		return "portfolio";
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.stock.controller;
+
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.stock.dto.QuoteDto;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Users;
+import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.QuoteService;
+import com.example.stock.service.QuoteStreamService;
+import com.example.stock.service.TickersService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/stocks")
+@RequiredArgsConstructor
+public class QuoteController {
+	private final QuoteService quoteService;
+	private final QuoteStreamService quoteStreamService;
+	private final TickersService tickersService;
+	private final SecurityUtils securityUtils;
+
+	/**
+	 * 複数銘柄の最新値（終値・前日終値・前日比・騰落率）をまとめて取得する。
+	 * 銘柄一覧（ウォッチリスト）全体の価格を1回のリクエストで取得できる。
+	 *
+	 * @param symbols 取得する銘柄コード（カンマ区切り）
+	 * @param show    "favorite" の場合はログインユーザーのお気に入り銘柄を対象とする
+	 * @return 最新値のリスト（取得できなかった銘柄は含まれない）
+	 */
+	@GetMapping("/quotes")
+	public ResponseEntity<List<QuoteDto>> getQuotes(
+			@RequestParam(required = false) List<String> symbols,
+			@RequestParam(defaultValue = "all") String show) {
+		return ResponseEntity.ok(quoteService.getQuotes(resolveSymbols(symbols, show)));
+	}
+
+	/**
+	 * 最新株価の変化をServer-Sent Eventsで配信する。
+	 * ブラウザ1つにつき1本の接続で、一覧に表示中の銘柄（またはお気に入り）の更新を受け取る。
+	 *
+	 * @param symbols 購読する銘柄コード（カンマ区切り）
+	 * @param show    "favorite" の場合はログインユーザーのお気に入り銘柄を購読する
+	 * @return SSE接続（イベント名: quote）
+	 */
+	@GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamQuotes(
+			@RequestParam(required = false) List<String> symbols,
+			@RequestParam(defaultValue = "all") String show) {
+		return quoteStreamService.subscribe(resolveSymbols(symbols, show));
+	}
+
+	// 対象銘柄を決定する（お気に入り → 指定銘柄 → 全銘柄の順）
+	private List<String> resolveSymbols(List<String> symbols, String show) {
+		if ("favorite".equals(show)) {
+			Users user = securityUtils.getLoggedInUserOrThrow();
+			return tickersService.getFavoriteTickersByUser(user).stream()
+					.map(Tickers::getTicker)
+					.toList();
+		}
+		if (symbols != null && !symbols.isEmpty()) {
+			return symbols.stream().map(String::trim).filter(s -> !s.isEmpty()).distinct().toList();
+		}
+		return tickersService.getAllTickers().stream()
+				.map(Tickers::getTicker)
+				.toList();
+	}
+}
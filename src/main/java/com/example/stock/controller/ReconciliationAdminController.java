@@ -0,0 +1,39 @@
+package com.example.stock.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.stock.dto.ReconciliationProgressDto;
+import com.example.stock.service.ReconciliationService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+public class ReconciliationAdminController {
+	private final ReconciliationService reconciliationService;
+
+	/**
+	 * ウォレット残高・保有株数の突き合わせを別スレッドで開始する（管理者用）。
+	 *
+	 * @return 開始した場合は202、実行中の場合は409（どちらも現在の進捗を返す）
+	 */
+	@PostMapping("/admin/reconciliation/run")
+	public ResponseEntity<ReconciliationProgressDto> run() {
+		HttpStatus status = reconciliationService.start() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+		return ResponseEntity.status(status).body(reconciliationService.getProgress());
+	}
+
+	/**
+	 * 実行中または直前の突き合わせの進捗を取得する（管理者用）。
+	 *
+	 * @return 進捗（未実行の場合は空の進捗）
+	 */
+	@GetMapping("/admin/reconciliation/progress")
+	public ResponseEntity<ReconciliationProgressDto> progress() {
+		return ResponseEntity.ok(reconciliationService.getProgress());
+	}
+}
@@ -1,16 +1,23 @@
 package com.example.stock.controller;
 
-import java.util.List;
+import java.time.LocalDateTime;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import com.example.stock.model.Trade;
+import com.example.stock.dto.TradeLogPageDto;
+import com.example.stock.enums.CostBasisMethod;
 import com.example.stock.model.Users;
 import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.TaxLotService;
 import com.example.stock.service.TradeService;
+import com.example.stock.service.TradeStatsService;
 
 import lombok.RequiredArgsConstructor;
 
@@ -19,18 +26,25 @@ import lombok.RequiredArgsConstructor;
 public class TradeController {
 	private final TradeService tradeService;
 	private final SecurityUtils securityUtils;
+	private final TaxLotService taxLotService;
+	private final TradeStatsService tradeStatsService;
+
+	// 取引統計の集計期間（当月を含む月数）
+	private static final int STATS_MONTHS = 12;
 
 	@GetMapping("/trade-log")
 	public String showTradeLog(Model model) {
 		Users user = securityUtils.getLoggedInUserOrThrow();
-		List<Trade> tradeList = tradeService.getTradesByUser(user);
-		model.addAttribute("trades", tradeList);
+		addTradeLogPage(model, tradeService.searchTrades(user, "all", ""));
+		model.addAttribute("realizedPnlTotal", taxLotService.getRealizedPnlTotal(user));
+		model.addAttribute("costBasisMethod", user.getCostBasisMethod());
+		model.addAttribute("tradeStats", tradeStatsService.getStats(user, STATS_MONTHS));
 		return "trade-log";
 	}
 
 	/**
 	 * 取引履歴の検索処理を行う。
-	 * ユーザーのログイン情報を元に、期間と銘柄コードに基づいてフィルタリングされた取引リストを取得し、対応するテンプレートを返す。
+	 * ユーザーのログイン情報を元に、期間と銘柄コードに基づいてフィルタリングされた取引の最初のページを取得し、対応するテンプレートを返す。
 	 *
 	 * @param date 検索対象の期間（today, 1week, 1month, all）
 	 * @param ticker 検索対象の銘柄コード（部分一致可）
@@ -46,18 +60,18 @@ public class TradeController {
 		// 現在ログイン中のユーザーを取得
 		Users user = securityUtils.getLoggedInUserOrThrow();
 
-		// ユーザー、日付、銘柄コードでフィルタされた取引リストを取得
-		List<Trade> trades = tradeService.searchTrades(user, date, ticker);
-		model.addAttribute("trades", trades);
-
-		// 銘柄コードが英字以外を含む場合はエラーメッセージを返す
+		// 銘柄コードが英字以外を含む場合は検索せずにエラーメッセージを返す
 		if (!ticker.matches("^[a-zA-Z]*$")) {
 			model.addAttribute("errorMessage", "銘柄コードは英字のみで入力してください");
 			return "fragments/order/trade-log-show :: trade-table-fragment";
 		}
 
+		// ユーザー、日付、銘柄コードでフィルタされた取引の最初のページを取得
+		TradeLogPageDto page = tradeService.searchTrades(user, date, ticker);
+		addTradeLogPage(model, page);
+
 		// 取引が存在しない場合のエラーメッセージ
-		if (trades.isEmpty()) {
+		if (page.getRows().isEmpty()) {
 			model.addAttribute("errorMessage", "該当する取引履歴はありません");
 		}
 
@@ -65,4 +79,71 @@ public class TradeController {
 		return "fragments/order/trade-log-show :: trade-table-fragment";
 	}
 
+	/**
+	 * 取引履歴の続きのページを取得する（「さらに表示」用）。
+	 *
+	 * @param date 検索対象の期間（today, 1week, 1month, all）
+	 * @param ticker 検索対象の銘柄コード（部分一致可）
+	 * @param beforeAt 前のページの最後の行の日時
+	 * @param beforeId 前のページの最後の行のID
+	 * @param model 画面に表示するためのデータを保持するオブジェクト
+	 * @return 追加する行のHTMLフラグメント
+	 */
+	@GetMapping("/trade-log/more")
+	public String moreTrades(
+			@RequestParam(defaultValue = "all") String date,
+			@RequestParam(defaultValue = "") String ticker,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeAt,
+			@RequestParam Long beforeId,
+			Model model) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+		if (ticker.matches("^[a-zA-Z]*$")) {
+			addTradeLogPage(model, tradeService.searchTrades(user, date, ticker, beforeAt, beforeId));
+		}
+		return "fragments/order/trade-log-show :: trade-rows-fragment";
+	}
+
+	// 取引履歴の1ページ分と、その行の実現損益をモデルに追加する
+	private void addTradeLogPage(Model model, TradeLogPageDto page) {
+		model.addAttribute("trades", page.getRows());
+		model.addAttribute("page", page);
+		model.addAttribute("realizedPnls", taxLotService.getRealizedPnlsForRows(page.getRows()));
+	}
+
+	/**
+	 * 板に残っている指値注文を取り消し、取引履歴画面へ戻る。
+	 *
+	 * @param tradeId 取り消す取引ID
+	 * @param redirectAttributes 取消できなかった場合のメッセージ
+	 * @return 取引履歴画面へのリダイレクト
+	 */
+	@PostMapping("/trade-log/{tradeId}/cancel")
+	public String cancelOrder(@PathVariable Long tradeId, RedirectAttributes redirectAttributes) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+		try {
+			tradeService.cancelOrder(user, tradeId);
+		} catch (IllegalStateException e) {
+			redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+		}
+		return "redirect:/trade-log";
+	}
+
+	/**
+	 * 売却時の取得原価の計算方法を変更し、取引履歴画面へ戻る。
+	 *
+	 * @param method 計算方法のコード（0:先入先出法, 1:移動平均法, 2:個別法）
+	 * @param redirectAttributes 変更できなかった場合のメッセージ
+	 * @return 取引履歴画面へのリダイレクト
+	 */
+	@PostMapping("/trade-log/cost-basis-method")
+	public String changeCostBasisMethod(@RequestParam int method, RedirectAttributes redirectAttributes) {
+		Users user = securityUtils.getLoggedInUserOrThrow();
+		try {
+			taxLotService.changeCostBasisMethod(user, CostBasisMethod.fromCode(method));
+		} catch (IllegalArgumentException e) {
+			redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+		}
+		return "redirect:/trade-log";
+	}
+
 }
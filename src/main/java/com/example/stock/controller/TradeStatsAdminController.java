@@ -0,0 +1,26 @@
+package com.example.stock.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.stock.service.TradeStatsService;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequiredArgsConstructor
+public class TradeStatsAdminController {
+	private final TradeStatsService tradeStatsService;
+
+	/**
+	 * 既存の注文から全ユーザーの取引統計を作り直す（管理者用）。
+	 *
+	 * @return 作成した集計行の件数
+	 */
+	@PostMapping("/admin/trade-stats/backfill")
+	public ResponseEntity<String> backfill() {
+		long rows = tradeStatsService.backfill();
+		return ResponseEntity.ok("取引統計を作り直しました（集計行: " + rows + " 件）");
+	}
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 import org.springframework.stereotype.Component;
 
+import com.example.stock.dto.QuoteDto;
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
 import com.example.stock.model.StockCandle;
 
@@ -54,4 +55,23 @@ public class StockCandleConverter {
 				candle.getPreviousClose());
 	}
 
+	/**
+	 * 前日終値付きのローソク足DTOから、一覧表示用の最新値 {@link QuoteDto} を作成します。
+	 * 前日終値が0（取得できていない）の場合、騰落率は0とします。
+	 *
+	 * @param dto 前日終値付きの株価ローソク足データDTO
+	 * @return 前日比・騰落率を計算済みの最新値
+	 */
+	public static QuoteDto toQuote(StockCandleWithPrevCloseDto dto) {
+		double change = dto.getClose() - dto.getPrevClose();
+		double changePercent = dto.getPrevClose() == 0 ? 0 : change / dto.getPrevClose() * 100;
+		return new QuoteDto(
+				dto.getSymbol(),
+				dto.getDatetime(),
+				dto.getClose(),
+				dto.getPrevClose(),
+				change,
+				changePercent);
+	}
+
 }
@@ -8,11 +8,13 @@ import java.util.Map;
 import org.springframework.stereotype.Component;
 
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
 import com.example.stock.dto.TradeRequestDto;
 import com.example.stock.model.Tickers;
 import com.example.stock.model.Trade;
 import com.example.stock.model.Users;
 import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.FxRateService;
 import com.example.stock.service.StockService;
 import com.example.stock.service.TickersService;
 
@@ -21,6 +23,7 @@ import lombok.AllArgsConstructor;
 /**
  * TradeRequestDto を Trade エンティティに変換するためのコンバータークラス。
  * ログイン中のユーザー情報は SecurityUtils から取得される。
+ * 円決済の為替レートは画面から送られた値ではなく、FxRateService の最新の値を使い、注文に記録する。
  */
 @Component
 @AllArgsConstructor
@@ -29,6 +32,7 @@ public class TradeConverter {
 	private final SecurityUtils securityUtils;
 	private final TickersService tickersService;
 	private final StockService stockService;
+	private final FxRateService fxRateService;
 
 	private static final Map<String, Integer> ORDER_TYPE_MAP = Map.of(
 			"buy", 0,
@@ -47,8 +51,6 @@ public class TradeConverter {
 	 */
 	public Trade toTradeEntity(TradeRequestDto dto) {
 
-		Trade trade = new Trade();
-
 		//必須情報を取得
 		Users user = securityUtils.getLoggedInUserOrThrow();
 		Tickers ticker = tickersService.getTickerById(dto.getTickerId());
@@ -56,8 +58,28 @@ public class TradeConverter {
 		//現在値を取得
 		String symbol = ticker.getTicker();
 		StockCandleWithPrevCloseDto latest = stockService.getLatestStockWithPrevClose(symbol);
+
+		return buildTrade(dto, user, ticker, latest);
+	}
+
+	/**
+	 * 読み込み済みの注文コンテキスト（ユーザー・銘柄・現在値）を使って Trade エンティティに変換します。
+	 *
+	 * @param dto     注文情報（数量、価格、通貨など）
+	 * @param context 注文コンテキスト
+	 * @return 生成された Trade エンティティ（DB保存可能な形式）
+	 */
+	public Trade toTradeEntity(TradeRequestDto dto, TradeContext context) {
+		return buildTrade(dto, context.getUser(), context.getTicker(), context.getQuote());
+	}
+
+	private Trade buildTrade(TradeRequestDto dto, Users user, Tickers ticker, StockCandleWithPrevCloseDto latest) {
+
+		Trade trade = new Trade();
+
 		BigDecimal latestClose = BigDecimal.valueOf(latest.getClose());
 		BigDecimal resolvedUnitPrice = resolveUnitPrice(dto, latestClose);//成行の値段計算±10％
+		BigDecimal rate = fxRateService.getSettlementRate(dto.getSettlementCurrency());
 
 		trade.setUser(user);
 		trade.setTicker(ticker);
@@ -65,12 +87,14 @@ public class TradeConverter {
 		trade.setUnitPrice(resolvedUnitPrice);
 
 		//総受渡金額を計算し保存
-		trade.setTotalPrice(calculateTotalPrice(dto, resolvedUnitPrice));
+		trade.setTotalPrice(calculateTotalPrice(dto.getQuantity(), resolvedUnitPrice, rate,
+				dto.getSettlementCurrency()));
 		trade.setCurrency("USD");
 		trade.setSettlementCurrency(dto.getSettlementCurrency());
-		trade.setExchangeRate(dto.getExchangeRate());
+		trade.setExchangeRate(rate); // 適用した為替レート（米ドル決済は1）
 		trade.setSide(ORDER_TYPE_MAP.get(dto.getSide()));
 		trade.setType(PRICE_TYPE_MAP.get(dto.getType()));
+		trade.setLotId(dto.getLotId());
 		trade.setStatus(4); // デフォルトは完成
 		trade.setCreateAt(LocalDateTime.now());
 		trade.setUpdateAt(LocalDateTime.now());
@@ -78,19 +102,25 @@ public class TradeConverter {
 		return trade;
 	}
 
-	//総受渡金額を計算する
-	private BigDecimal calculateTotalPrice(TradeRequestDto dto, BigDecimal resolvedUnitPrice) {
-		BigDecimal quantity = dto.getQuantity();
-
-		//thymeleafで手動で設定した為替レート
-		BigDecimal rate = dto.getExchangeRate();
+	/**
+	 * 注文の単価を指定した価格に置き換え、執行時点の為替レートで総受渡金額を計算し直します（寄付での成行注文の執行など）。
+	 *
+	 * @param trade     対象の注文
+	 * @param unitPrice 新しい単価
+	 */
+	public void reprice(Trade trade, BigDecimal unitPrice) {
+		BigDecimal rate = fxRateService.getSettlementRate(trade.getSettlementCurrency());
+		trade.setUnitPrice(unitPrice);
+		trade.setExchangeRate(rate);
+		trade.setTotalPrice(calculateTotalPrice(trade.getQuantity(), unitPrice, rate, trade.getSettlementCurrency()));
+	}
 
+	//総受渡金額を計算する
+	private BigDecimal calculateTotalPrice(BigDecimal quantity, BigDecimal resolvedUnitPrice, BigDecimal rate,
+			String settlementCurrency) {
 		//基準となる通貨をusdに設定（米国株のため）
 		String currency = "USD";
 
-		//決済通貨を取得
-		String settlementCurrency = dto.getSettlementCurrency();
-
 		// 基準通貨と決済通貨一緒なら為替レートを1に設定
 		if (currency.equalsIgnoreCase(settlementCurrency)) {
 			rate = BigDecimal.ONE;
@@ -0,0 +1,54 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * あるユーザーのウォレット残高と保有株数をまとめたもの（注文ページの表示用キャッシュの値）。
+ * 変更不可で、増減を反映するときは新しいインスタンスを作成する。
+ */
+@Getter
+@AllArgsConstructor
+public class AccountSnapshot {
+	private final BigDecimal jpyBalance;
+	private final BigDecimal usdBalance;
+	// 銘柄コード → 保有株数
+	private final Map<String, BigDecimal> holdings;
+
+	/**
+	 * 指定銘柄の保有株数を返す（保有していない場合は BigDecimal.ZERO）。
+	 */
+	public BigDecimal getHoldingQuantity(String symbol) {
+		return holdings.getOrDefault(symbol, BigDecimal.ZERO);
+	}
+
+	/**
+	 * 残高を増減させたスナップショットを返す。
+	 *
+	 * @param currency "JPY" または "USD"
+	 * @param delta 増減額
+	 */
+	public AccountSnapshot withBalanceDelta(String currency, BigDecimal delta) {
+		return "JPY".equalsIgnoreCase(currency)
+				? new AccountSnapshot(jpyBalance.add(delta), usdBalance, holdings)
+				: new AccountSnapshot(jpyBalance, usdBalance.add(delta), holdings);
+	}
+
+	/**
+	 * 保有株数を増減させたスナップショットを返す（0になった銘柄は取り除く）。
+	 */
+	public AccountSnapshot withHoldingDelta(String symbol, BigDecimal delta) {
+		Map<String, BigDecimal> next = new HashMap<>(holdings);
+		BigDecimal quantity = next.getOrDefault(symbol, BigDecimal.ZERO).add(delta);
+		if (quantity.signum() == 0) {
+			next.remove(symbol);
+		} else {
+			next.put(symbol, quantity);
+		}
+		return new AccountSnapshot(jpyBalance, usdBalance, Map.copyOf(next));
+	}
+}
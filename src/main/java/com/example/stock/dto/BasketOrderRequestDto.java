@@ -0,0 +1,29 @@
+package com.example.stock.dto;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * バスケット注文（複数銘柄の注文をまとめて発注する）のリクエストDTOクラス。
+ * 取引暗証番号はバスケット全体で1回だけ確認するため、各注文の tradingPin は使わない。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketOrderRequestDto {
+
+	@NotBlank(message = "パスワードを入力してください")
+	private String tradingPin;
+
+	@NotEmpty(message = "注文を1件以上指定してください")
+	@Size(max = 20, message = "1回に発注できる注文は20件までです")
+	private List<@Valid TradeRequestDto> legs;
+}
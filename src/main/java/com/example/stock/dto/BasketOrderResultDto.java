@@ -0,0 +1,18 @@
+package com.example.stock.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * バスケット注文の結果。成功時は注文ごとの取引ID、失敗時はエラーメッセージを持つ。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BasketOrderResultDto {
+	private List<Long> tradeIds; // 取引ID（リクエストの注文と同じ順）
+	private String errorMessage;
+}
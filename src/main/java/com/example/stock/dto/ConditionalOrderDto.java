@@ -0,0 +1,29 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 条件付き注文の一覧表示用DTO。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConditionalOrderDto {
+	private Long id;
+	private String symbol;
+	private int side; // 0=買い, 1=売り
+	private String triggerTypeLabel;
+	private BigDecimal quantity;
+	private BigDecimal triggerPrice; // 待機中のトレーリングストップは現在の発動価格
+	private BigDecimal trailAmount;
+	private int status; // 0=待機中, 1=発注済み, 2=取消, 3=発注失敗
+	private String statusLabel;
+	private Long tradeId; // 発注した注文（発注済みの場合のみ）
+	private String failReason;
+	private LocalDateTime createAt;
+}
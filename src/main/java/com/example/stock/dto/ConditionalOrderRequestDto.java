@@ -0,0 +1,56 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 条件付き注文（逆指値・利益確定・トレーリングストップ）のリクエストDTOクラス。
+ * 発動価格・値幅は米ドル。トレーリングストップは値幅のみ、それ以外は発動価格のみを指定する。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConditionalOrderRequestDto {
+
+	@NotNull(message = "銘柄IDは必須です。")
+	@Positive(message = "銘柄IDは正の数である必要があります。")
+	private Long tickerId;
+
+	@NotNull(message = "売買区分は必須です。")
+	@Pattern(regexp = "buy|sell", message = "売買区分が不正です。")
+	private String side;
+
+	@NotNull(message = "条件の種類は必須です。")
+	@Pattern(regexp = "STOP_LOSS|TAKE_PROFIT|TRAILING_STOP", message = "条件の種類が不正です。")
+	private String triggerType;
+
+	@NotNull(message = "数量を入力してください")
+	@Positive(message = "数量は正の数を入力してください")
+	private BigDecimal quantity;
+
+	@DecimalMin(value = "0.01", message = "発動価格は0.01以上を入力してください")
+	private BigDecimal triggerPrice;
+
+	@DecimalMin(value = "0.01", message = "値幅は0.01以上を入力してください")
+	private BigDecimal trailAmount;
+
+	@NotNull(message = "決済通貨は必須です。")
+	@Pattern(regexp = "JPY|USD", message = "決済通貨が不正です。")
+	private String settlementCurrency;
+
+	@NotNull(message = "為替レートは必須です。")
+	@DecimalMin(value = "0.01", message = "為替レートは0.01以上を入力してください。")
+	private BigDecimal exchangeRate;
+
+	@NotBlank(message = "パスワードを入力してください")
+	private String tradingPin;
+}
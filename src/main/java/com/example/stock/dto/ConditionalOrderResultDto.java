@@ -0,0 +1,16 @@
+package com.example.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 条件付き注文の受付結果。成功時は条件付き注文のID、失敗時はエラーメッセージを持つ。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConditionalOrderResultDto {
+	private Long orderId;
+	private String errorMessage;
+}
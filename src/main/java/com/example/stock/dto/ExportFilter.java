@@ -0,0 +1,20 @@
+package com.example.stock.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 取引・ウォレット履歴のエクスポート条件。null の項目は絞り込まない。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportFilter {
+	private Long userId; // 対象ユーザー（管理者のエクスポートで null の場合は全ユーザー）
+	private LocalDate from; // 開始日（この日を含む）
+	private LocalDate to; // 終了日（この日を含む）
+	private String ticker; // 銘柄コード（完全一致）
+}
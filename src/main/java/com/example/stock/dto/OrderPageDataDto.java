@@ -20,4 +20,12 @@ public class OrderPageDataDto {
 	private BigDecimal jpyBalance;
 	private BigDecimal usdBalance;
 	private BigDecimal quantity;
+
+	/**
+	 * 注文ページの表示に必要な項目がすべて揃っているか（一部の取得に失敗した場合は false）。
+	 */
+	public boolean isComplete() {
+		return user != null && ticker != null && stock != null
+				&& jpyBalance != null && usdBalance != null && quantity != null;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 注文の処理状況（注文確認画面のポーリング用）。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusDto {
+	private Long id;
+	private int status; // 0=受付中, 1=注文中, 2=一部約定, 3=取消, 4=約定, 5=不成立, 6=寄付待ち
+	private String statusLabel;
+	private BigDecimal filledQuantity;
+	private String rejectReason; // 不成立の理由（不成立の場合のみ）
+}
@@ -0,0 +1,26 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ポートフォリオ画面に表示する保有銘柄と評価額の合計。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioDto {
+	private List<PortfolioPositionDto> positions;
+	private BigDecimal marketValueUsd;
+	private BigDecimal marketValueJpy;
+	private BigDecimal dayChangeUsd;
+	private BigDecimal dayChangeJpy;
+	private BigDecimal dayChangeRate; // 前日比（%）
+	private BigDecimal costBasisUsd; // 取得原価の合計
+	private BigDecimal unrealizedPnlUsd; // 評価損益の合計
+	private BigDecimal usdJpyRate; // 円換算に使った為替レート（円/USドル）
+}
@@ -0,0 +1,26 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ポートフォリオ画面に表示する保有銘柄1件分の評価額。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioPositionDto {
+	private String symbol;
+	private String brand;
+	private BigDecimal quantity;
+	private BigDecimal close; // 最新の終値（米ドル、不明な場合は null）
+	private BigDecimal averageCost; // 平均取得単価（米ドル）
+	private BigDecimal marketValueUsd;
+	private BigDecimal marketValueJpy;
+	private BigDecimal dayChangeUsd;
+	private BigDecimal dayChangeRate; // 前日比（%）
+	private BigDecimal unrealizedPnlUsd; // 評価損益（最新値が不明な場合は null）
+}
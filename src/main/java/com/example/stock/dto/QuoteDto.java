@@ -0,0 +1,21 @@
+package com.example.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 銘柄一覧・ウォッチリスト表示用の最新値。
+ * 終値と前日終値に加え、前日比（差額・騰落率）を持つ。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuoteDto {
+	private String symbol;
+	private String datetime;
+	private double close;
+	private double prevClose;
+	private double change; // 前日比（close - prevClose）
+	private double changePercent; // 騰落率（%）
+}
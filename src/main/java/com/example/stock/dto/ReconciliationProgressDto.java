@@ -0,0 +1,24 @@
+package com.example.stock.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ウォレット残高・保有株数の突き合わせの進捗（管理者用）。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationProgressDto {
+	private String runId;
+	private String status; // RUNNING, COMPLETED, FAILED（未実行なら null）
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt; // 実行中は null
+	private long totalChunks;
+	private long processedChunks; // 失敗したチャンクを含む
+	private long failedChunks;
+	private long discrepancies;
+}
@@ -0,0 +1,30 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+
+import com.example.stock.model.Tickers;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 1件の注文の検証・実行に必要な情報を、注文受付時に1回だけ読み込んでまとめたもの。
+ * 注文ページの表示データ作成・Trade への変換・業務バリデーション・注文実行で同じものを使い回す。
+ *
+ * 残高・保有数は読み込んだ時点の値であり、確定時の最終チェックは確定するトランザクション内で行う（残高は台帳、保有数は条件付き更新）。
+ */
+@Getter
+@AllArgsConstructor
+public class TradeContext {
+	private Users user;
+	private Tickers ticker;
+	// 現在値（取得できなかった場合は null）
+	private StockCandleWithPrevCloseDto quote;
+	// 値幅制限の下限・上限（現在値が無い場合は null）
+	private BigDecimal lowerLimit;
+	private BigDecimal upperLimit;
+	private UserWallet wallet;
+	private BigDecimal holdingQuantity;
+}
@@ -0,0 +1,25 @@
+package com.example.stock.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 取引履歴の1ページ分と、次のページを取得するためのカーソル。
+ * 次のページがない場合、カーソルは null になる。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeLogPageDto {
+	private List<TradeLogRowDto> rows;
+	private LocalDateTime nextBeforeAt; // このページの最後の行の日時
+	private Long nextBeforeId; // このページの最後の行のID
+
+	public boolean hasNext() {
+		return nextBeforeId != null;
+	}
+}
@@ -0,0 +1,29 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 取引履歴の1行分（画面に表示する列だけを取得する）。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeLogRowDto {
+	private Long id;
+	private LocalDateTime createAt;
+	private String symbol; // 銘柄コード
+	private BigDecimal quantity;
+	private BigDecimal unitPrice;
+	private BigDecimal totalPrice;
+	private String currency;
+	private String settlementCurrency;
+	private BigDecimal exchangeRate;
+	private int side; // 0=購入, 1=売却
+	private int status;
+	private BigDecimal filledQuantity;
+}
@@ -34,7 +34,7 @@ public class TradeRequestDto {
 	@NotNull(message = "決済通貨は必須です。")
 	private String settlementCurrency;
 
-	@NotNull(message = "為替レートは必須です。")
+	// 画面に表示した参考為替レート（受渡金額の計算には FxRateService の最新の値を使う）
 	@DecimalMin(value = "0.01", message = "為替レートは0.01以上を入力してください。")
 	private BigDecimal exchangeRate;
 
@@ -48,4 +48,7 @@ public class TradeRequestDto {
 
 	private String tradingPin;
 
+	// 個別法で売却するロットのID（任意）
+	private Long lotId;
+
 }
@@ -0,0 +1,29 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 取引履歴画面に表示する取引統計（集計期間内の約定した注文）。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeStatsDto {
+	private LocalDate from; // 集計開始月（その月の1日）
+	private long buyCount; // 約定した買い注文の件数
+	private long sellCount; // 約定した売り注文の件数
+	private Map<LocalDate, Long> monthlyCounts; // 月 → 約定した注文の件数（古い順）
+	private Map<String, BigDecimal> buyAmounts; // 決済通貨 → 買付金額
+	private Map<String, BigDecimal> sellAmounts; // 決済通貨 → 売却金額
+	private Map<String, Long> topTickers; // 銘柄コード → 約定した注文の件数（多い順）
+
+	public long getTradeCount() {
+		return buyCount + sellCount;
+	}
+}
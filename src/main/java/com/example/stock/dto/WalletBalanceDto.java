@@ -0,0 +1,20 @@
+package com.example.stock.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 指定時点のウォレット残高（台帳から復元したもの）。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceDto {
+	private BigDecimal jpyBalance;
+	private BigDecimal usdBalance;
+	private LocalDateTime asOf;
+}
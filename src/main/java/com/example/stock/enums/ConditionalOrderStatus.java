@@ -0,0 +1,36 @@
+package com.example.stock.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 条件付き注文のステータス（conditional_order.status の値）
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ConditionalOrderStatus {
+
+	WAITING(0, "待機中"),
+	TRIGGERED(1, "発注済み"),
+	CANCELLED(2, "取消"),
+	FAILED(3, "発注失敗");
+
+	private final int code;
+	private final String label;
+
+	/**
+	 * conditional_order.status の値からステータスを取得する。
+	 *
+	 * @param code status の値
+	 * @return 対応するステータス
+	 * @throws IllegalArgumentException 未定義の値の場合
+	 */
+	public static ConditionalOrderStatus fromCode(int code) {
+		for (ConditionalOrderStatus status : values()) {
+			if (status.code == code) {
+				return status;
+			}
+		}
+		throw new IllegalArgumentException("不正な条件付き注文のステータスです: " + code);
+	}
+}
@@ -0,0 +1,35 @@
+package com.example.stock.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 売却時の取得原価の計算方法（users.cost_basis_method の値）
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CostBasisMethod {
+
+	FIFO(0, "先入先出法"), // 古いロットから順に売却する
+	AVERAGE(1, "移動平均法"), // 保有株の平均取得単価で売却する
+	SPECIFIC(2, "個別法"); // 注文で指定したロットから売却する（未指定分は先入先出）
+
+	private final int code;
+	private final String label;
+
+	/**
+	 * users.cost_basis_method の値から計算方法を取得する。
+	 *
+	 * @param code cost_basis_method の値
+	 * @return 対応する計算方法
+	 * @throws IllegalArgumentException 未定義の値の場合
+	 */
+	public static CostBasisMethod fromCode(int code) {
+		for (CostBasisMethod method : values()) {
+			if (method.code == code) {
+				return method;
+			}
+		}
+		throw new IllegalArgumentException("不正な取得原価の計算方法です: " + code);
+	}
+}
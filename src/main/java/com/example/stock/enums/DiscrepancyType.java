@@ -0,0 +1,18 @@
+package com.example.stock.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 突き合わせで見つかった不一致の種別（reconciliation_discrepancy.type の値）
+ */
+@Getter
+@RequiredArgsConstructor
+public enum DiscrepancyType {
+
+	WALLET_BALANCE(1, "ウォレット残高"), // user_wallet の残高 ≠ user_wallet_log の変化額の合計
+	HOLDING(2, "保有株数"); // user_stock の株数 ≠ trade の約定数量（買い − 売り）
+
+	private final int code;
+	private final String label;
+}
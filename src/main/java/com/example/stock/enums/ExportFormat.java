@@ -0,0 +1,34 @@
+package com.example.stock.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 履歴のエクスポート形式
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+
+	CSV("csv", "text/csv"),
+	JSONL("jsonl", "application/x-ndjson"); // 1行に1件のJSON（JSON Lines）
+
+	private final String extension;
+	private final String mediaType;
+
+	/**
+	 * リクエストパラメータの値から形式を取得する。
+	 *
+	 * @param value "csv" または "jsonl"（大文字・小文字は区別しない）
+	 * @return 対応する形式
+	 * @throws IllegalArgumentException 未定義の値の場合
+	 */
+	public static ExportFormat fromParam(String value) {
+		for (ExportFormat format : values()) {
+			if (format.extension.equalsIgnoreCase(value)) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("エクスポート形式は csv または jsonl を指定してください");
+	}
+}
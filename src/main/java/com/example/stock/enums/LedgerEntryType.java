@@ -0,0 +1,37 @@
+package com.example.stock.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ウォレット台帳の記帳種別（wallet_ledger_entry.entry_type の値）
+ */
+@Getter
+@RequiredArgsConstructor
+public enum LedgerEntryType {
+
+	TRADE_DEBIT(1, "買付"),
+	TRADE_CREDIT(2, "売却"),
+	DEPOSIT(3, "入金"),
+	WITHDRAWAL(4, "出金"),
+	FEE(5, "手数料");
+
+	private final int code;
+	private final String label;
+
+	/**
+	 * wallet_ledger_entry.entry_type の値から記帳種別を取得する。
+	 *
+	 * @param code entry_type の値
+	 * @return 対応する記帳種別
+	 * @throws IllegalArgumentException 未定義の値の場合
+	 */
+	public static LedgerEntryType fromCode(int code) {
+		for (LedgerEntryType type : values()) {
+			if (type.code == code) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("不正な記帳種別です: " + code);
+	}
+}
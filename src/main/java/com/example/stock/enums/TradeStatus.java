@@ -0,0 +1,53 @@
+package com.example.stock.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 注文のステータス（trade.status の値）
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TradeStatus {
+
+	PENDING(0, "受付中"),
+	OPEN(1, "注文中"),
+	PARTIALLY_FILLED(2, "一部約定"),
+	CANCELLED(3, "取消"),
+	FILLED(4, "約定"),
+	REJECTED(5, "不成立"),
+	QUEUED(6, "寄付待ち"); // 立会時間外に受け付け、次の寄付でまとめて執行する
+
+	private final int code;
+	private final String label;
+
+	/**
+	 * trade.status の値からステータスを取得する。
+	 *
+	 * @param code trade.status の値
+	 * @return 対応するステータス
+	 * @throws IllegalArgumentException 未定義の値の場合
+	 */
+	public static TradeStatus fromCode(int code) {
+		for (TradeStatus status : values()) {
+			if (status.code == code) {
+				return status;
+			}
+		}
+		throw new IllegalArgumentException("不正な注文ステータスです: " + code);
+	}
+
+	/**
+	 * 板に残っている（約定・取消の対象になる）ステータスかどうか。
+	 */
+	public boolean isResting() {
+		return this == OPEN || this == PARTIALLY_FILLED;
+	}
+
+	/**
+	 * 利用者が取り消せるステータスかどうか（板に残っている注文と寄付待ちの注文）。
+	 */
+	public boolean isCancellable() {
+		return isResting() || this == QUEUED;
+	}
+}
@@ -0,0 +1,44 @@
+package com.example.stock.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 条件付き注文の種類（conditional_order.trigger_type の値）
+ */
+@Getter
+@RequiredArgsConstructor
+public enum TriggerType {
+
+	STOP_LOSS(0, "逆指値"), // 売り：発動価格以下に下がったら / 買い：発動価格以上に上がったら成行で発注
+	TAKE_PROFIT(1, "利益確定"), // 売り：発動価格以上に上がったら / 買い：発動価格以下に下がったら成行で発注
+	TRAILING_STOP(2, "トレーリングストップ"); // 売り：発注後の高値 − 値幅 / 買い：発注後の安値 ＋ 値幅 を発動価格とする逆指値
+
+	private final int code;
+	private final String label;
+
+	/**
+	 * conditional_order.trigger_type の値から種類を取得する。
+	 *
+	 * @param code trigger_type の値
+	 * @return 対応する種類
+	 * @throws IllegalArgumentException 未定義の値の場合
+	 */
+	public static TriggerType fromCode(int code) {
+		for (TriggerType type : values()) {
+			if (type.code == code) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("不正な条件付き注文の種類です: " + code);
+	}
+
+	/**
+	 * 価格が下がって発動する注文かどうか（売りの逆指値・トレーリングストップ、買いの利益確定）。
+	 *
+	 * @param side 売買区分（0=買い, 1=売り）
+	 */
+	public boolean firesOnFall(int side) {
+		return this == TAKE_PROFIT ? side == 0 : side == 1;
+	}
+}
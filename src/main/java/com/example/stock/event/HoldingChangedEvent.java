@@ -0,0 +1,20 @@
+package com.example.stock.event;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 約定によってユーザーの保有株数が増減したことを通知するイベント。
+ * 保有株の更新と同じトランザクション内で発行し、購読者にはコミット後に通知される。
+ */
+@Getter
+@AllArgsConstructor
+public class HoldingChangedEvent {
+	private final Long userId;
+	private final String symbol;
+	private final String brand;
+	private final BigDecimal quantityDelta; // 買い：プラス、売り：マイナス
+	private final BigDecimal costDelta; // 取得原価の増減（米ドル。買い：プラス、売り：マイナス）
+}
@@ -0,0 +1,17 @@
+package com.example.stock.event;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 取り込み処理（saveStockCandles）で新しい日足が保存されたことを通知するイベント。
+ * 最新の足（前日終値付き）を保持する。
+ */
+@Getter
+@AllArgsConstructor
+public class QuoteUpdatedEvent {
+	private final String symbol;
+	private final StockCandleWithPrevCloseDto latest;
+}
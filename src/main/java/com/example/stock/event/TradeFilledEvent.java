@@ -0,0 +1,20 @@
+package com.example.stock.event;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 注文が（一部または全部）約定したことを通知するイベント。
+ * 保有株の更新と同じトランザクション内で発行し、購読者にはコミット後に通知される。
+ */
+@Getter
+@AllArgsConstructor
+public class TradeFilledEvent {
+	private final Long userId;
+	private final String symbol;
+	private final int side; // 0：買い、1：売り
+	private final BigDecimal quantity; // 約定株数
+	private final BigDecimal notional; // 約定代金（米ドル。株数 × 単価）
+}
@@ -0,0 +1,18 @@
+package com.example.stock.event;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 約定によってユーザーのウォレット残高が増減したことを通知するイベント。
+ * 残高の更新と同じトランザクション内で発行する。
+ */
+@Getter
+@AllArgsConstructor
+public class WalletChangedEvent {
+	private final Long userId;
+	private final String currency; // "JPY" または "USD"
+	private final BigDecimal amountDelta; // 入金：プラス、出金：マイナス
+}
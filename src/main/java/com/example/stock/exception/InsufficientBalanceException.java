@@ -0,0 +1,11 @@
+package com.example.stock.exception;
+
+/**
+ * 約定の精算時に残高・保有株数が足りない場合の例外。
+ * 注文自体を続けられない（取り消す）失敗を、ロック待ちのタイムアウトや一時的なDBエラーと区別するために使う。
+ */
+public class InsufficientBalanceException extends IllegalStateException {
+	public InsufficientBalanceException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,11 @@
+package com.example.stock.exception;
+
+/**
+ * 注文・約定が売買代金・建玉などのリスク管理の上限を超える場合の例外。
+ * 板での約定時に、注文を取り消す失敗を一時的なDBエラーなどと区別するために使う。
+ */
+public class RiskLimitExceededException extends IllegalStateException {
+	public RiskLimitExceededException(String message) {
+		super(message);
+	}
+}
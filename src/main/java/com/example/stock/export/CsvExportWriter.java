@@ -0,0 +1,53 @@
+package com.example.stock.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+
+/**
+ * CSV（RFC 4180）形式のライター。
+ * カンマ・ダブルクォート・改行を含む値だけをダブルクォートで囲む。
+ */
+public class CsvExportWriter implements ExportWriter {
+
+	private final Writer out;
+
+	public CsvExportWriter(Writer out) {
+		this.out = out;
+	}
+
+	@Override
+	public void writeHeader(String[] columns) throws IOException {
+		writeRow(columns);
+	}
+
+	@Override
+	public void writeRow(Object[] values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				out.write(',');
+			}
+			writeValue(values[i]);
+		}
+		out.write("\r\n");
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			return;
+		}
+		String text = value instanceof BigDecimal d ? d.toPlainString() : value.toString();
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			out.write(text);
+			return;
+		}
+		out.write('"');
+		out.write(text.replace("\"", "\"\""));
+		out.write('"');
+	}
+}
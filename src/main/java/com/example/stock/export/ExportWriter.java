@@ -0,0 +1,46 @@
+package com.example.stock.export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.example.stock.enums.ExportFormat;
+
+/**
+ * エクスポートする行を1件ずつ書き出すライター。
+ * 行は受け取ったその場で書き出し、保持しないため、件数によらずメモリ使用量は一定になる。
+ */
+public interface ExportWriter {
+
+	/**
+	 * 列名を書き出す（最初に1回だけ呼ぶ）。
+	 *
+	 * @param columns 列名
+	 */
+	void writeHeader(String[] columns) throws IOException;
+
+	/**
+	 * 1行分の値を書き出す。
+	 *
+	 * @param values 列の順に並べた値（null 可）
+	 */
+	void writeRow(Object[] values) throws IOException;
+
+	/**
+	 * バッファに残っている内容を書き出す（出力先は閉じない）。
+	 */
+	void flush() throws IOException;
+
+	/**
+	 * 形式に応じたライターを生成する。
+	 *
+	 * @param format 出力形式
+	 * @param out    出力先
+	 * @return ライター
+	 */
+	static ExportWriter of(ExportFormat format, Writer out) throws IOException {
+		return switch (format) {
+		case CSV -> new CsvExportWriter(out);
+		case JSONL -> new JsonLinesExportWriter(out);
+		};
+	}
+}
@@ -0,0 +1,72 @@
+package com.example.stock.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+/**
+ * JSON Lines 形式のライター。1行に1件、列名をキーにしたJSONオブジェクトを書き出す。
+ * 金額は誤差が出ないよう、指数表記を使わない数値のまま書き出す。
+ */
+public class JsonLinesExportWriter implements ExportWriter {
+
+	private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+			.disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+			.disable(StreamWriteFeature.FLUSH_PASSED_TO_STREAM) // 1行ごとに出力先までフラッシュしない
+			.enable(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)
+			.build();
+
+	private final Writer out;
+	private final JsonGenerator generator;
+	private String[] columns;
+
+	public JsonLinesExportWriter(Writer out) throws IOException {
+		this.out = out;
+		this.generator = JSON_FACTORY.createGenerator(out);
+		// 行の区切りは自前で改行を書き出す
+		this.generator.setRootValueSeparator(null);
+	}
+
+	@Override
+	public void writeHeader(String[] columns) {
+		this.columns = columns;
+	}
+
+	@Override
+	public void writeRow(Object[] values) throws IOException {
+		generator.writeStartObject();
+		for (int i = 0; i < values.length; i++) {
+			generator.writeFieldName(columns[i]);
+			writeValue(values[i]);
+		}
+		generator.writeEndObject();
+		generator.flush();
+		out.write('\n');
+	}
+
+	@Override
+	public void flush() throws IOException {
+		generator.flush();
+		out.flush();
+	}
+
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			generator.writeNull();
+		} else if (value instanceof BigDecimal d) {
+			generator.writeNumber(d);
+		} else if (value instanceof BigInteger n) {
+			generator.writeNumber(n);
+		} else if (value instanceof Long || value instanceof Integer || value instanceof Short
+				|| value instanceof Byte) {
+			generator.writeNumber(((Number) value).longValue());
+		} else {
+			generator.writeString(value.toString());
+		}
+	}
+}
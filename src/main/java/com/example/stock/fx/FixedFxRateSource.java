@@ -0,0 +1,26 @@
+package com.example.stock.fx;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * 設定値の為替レートを返す取得元（テスト・外部APIを使わない環境用）。
+ */
+public class FixedFxRateSource implements FxRateSource {
+
+	// 通貨ペア → 為替レート
+	private final Map<String, BigDecimal> rates;
+
+	public FixedFxRateSource(Map<String, BigDecimal> rates) {
+		this.rates = Map.copyOf(rates);
+	}
+
+	@Override
+	public BigDecimal fetchRate(String pair) {
+		BigDecimal rate = rates.get(pair);
+		if (rate == null) {
+			throw new IllegalArgumentException("為替レートが設定されていない通貨ペアです: " + pair);
+		}
+		return rate;
+	}
+}
@@ -0,0 +1,19 @@
+package com.example.stock.fx;
+
+import java.math.BigDecimal;
+
+/**
+ * 為替レートの取得元。
+ * 取得は {@link com.example.stock.service.FxRateService} の定期更新からのみ呼ばれ、注文・評価の処理からは呼ばれない。
+ */
+public interface FxRateSource {
+
+	/**
+	 * 通貨ペアの最新の為替レートを取得する。
+	 *
+	 * @param pair 通貨ペア（例: "USD/JPY" → 1USドルあたりの円）
+	 * @return 為替レート
+	 * @throws RuntimeException 取得に失敗した場合
+	 */
+	BigDecimal fetchRate(String pair);
+}
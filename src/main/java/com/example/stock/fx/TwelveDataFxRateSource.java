@@ -0,0 +1,52 @@
+package com.example.stock.fx;
+
+import java.math.BigDecimal;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.example.stock.exception.StockApiException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Twelve Data API（/exchange_rate）から為替レートを取得する取得元。
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class TwelveDataFxRateSource implements FxRateSource {
+
+	private final RestTemplate restTemplate;
+	private final ObjectMapper objectMapper;
+	private final String apiKey;
+
+	@Override
+	public BigDecimal fetchRate(String pair) {
+		String url = UriComponentsBuilder.newInstance()
+				.scheme("https")
+				.host("api.twelvedata.com")
+				.path("/exchange_rate")
+				.queryParam("symbol", pair)
+				.queryParam("apikey", apiKey)
+				.toUriString();
+
+		try {
+			ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
+			JsonNode body = objectMapper.readTree(response.getBody());
+			// エラー時は {"code":..., "message":..., "status":"error"} が返る
+			JsonNode rate = body.get("rate");
+			if (rate == null || rate.isNull()) {
+				throw new StockApiException("為替レートが含まれていません: " + body.path("message").asText());
+			}
+			return new BigDecimal(rate.asText());
+		} catch (StockApiException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new StockApiException("為替レートの取得に失敗しました: " + pair, e);
+		}
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.stock.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * 条件付き注文（逆指値・利益確定・トレーリングストップ）。
+ * 待機中の注文は銘柄ごとの索引（メモリ上）で発動判定し、発動したら成行注文として発注する。
+ */
+@Entity
+@Table(name = "conditional_order", indexes = {
+		@Index(name = "idx_conditional_order_status", columnList = "status"),
+		@Index(name = "idx_conditional_order_user", columnList = "user_id, create_at")
+})
+@Data
+public class ConditionalOrder {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "user_id", nullable = false)
+	private Users user;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "ticker_id", nullable = false)
+	private Tickers ticker;
+
+	/** 売買区分（0=買い, 1=売り） */
+	@Column(name = "side", nullable = false, columnDefinition = "TINYINT UNSIGNED")
+	private int side;
+
+	/** 種類（0=逆指値, 1=利益確定, 2=トレーリングストップ） */
+	@Column(name = "trigger_type", nullable = false, columnDefinition = "TINYINT UNSIGNED")
+	private int triggerType;
+
+	/** 株数 */
+	@Column(name = "quantity", precision = 18, scale = 2, nullable = false)
+	private BigDecimal quantity;
+
+	/** 発動価格（米ドル。トレーリングストップは発注時点の値） */
+	@Column(name = "trigger_price", precision = 18, scale = 2, nullable = false)
+	private BigDecimal triggerPrice;
+
+	/** トレーリングストップの値幅（米ドル、トレーリングストップのみ） */
+	@Column(name = "trail_amount", precision = 18, scale = 2)
+	private BigDecimal trailAmount;
+
+	/** トレーリングストップの基準値（売りは発注後の高値、買いは安値。停止時に保存し、再起動時に引き継ぐ） */
+	@Column(name = "anchor_price", precision = 18, scale = 2)
+	private BigDecimal anchorPrice;
+
+	/** 決済通貨（JPYまたはUSD） */
+	@Column(name = "settlement_currency", nullable = false, length = 3)
+	private String settlementCurrency;
+
+	/** 為替レート */
+	@Column(name = "exchange_rate", nullable = false, precision = 18, scale = 2)
+	private BigDecimal exchangeRate;
+
+	/** ステータス（0=待機中, 1=発注済み, 2=取消, 3=発注失敗） */
+	@Column(name = "status", nullable = false, columnDefinition = "TINYINT UNSIGNED")
+	private int status;
+
+	/** 発動して発注した注文（発注済みの場合のみ） */
+	@ManyToOne
+	@JoinColumn(name = "trade_id")
+	private Trade trade;
+
+	/** 発注できなかった理由（発注失敗の場合のみ） */
+	@Column(name = "fail_reason", length = 255)
+	private String failReason;
+
+	@Column(name = "create_at", nullable = false)
+	private LocalDateTime createAt;
+
+	@Column(name = "update_at", nullable = false)
+	private LocalDateTime updateAt;
+}
@@ -0,0 +1,69 @@
+package com.example.stock.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * 売却1件（指値注文の一部約定を含む）の実現損益（米ドル）。
+ * 売却時の取得原価の計算方法に従って求め、以降は更新しない。
+ */
+@Entity
+@Table(name = "realized_pnl", indexes = {
+		@Index(name = "idx_realized_pnl_user_create_at", columnList = "user_id, create_at"),
+		@Index(name = "idx_realized_pnl_trade", columnList = "trade_id")
+})
+@Data
+public class RealizedPnl {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "user_id", nullable = false)
+	private Users user;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "ticker_id", nullable = false)
+	private Tickers ticker;
+
+	/** 売り注文 */
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "trade_id", nullable = false)
+	private Trade trade;
+
+	/** 売却株数 */
+	@Column(name = "quantity", precision = 18, scale = 2, nullable = false)
+	private BigDecimal quantity;
+
+	/** 売却代金（株数 × 単価） */
+	@Column(name = "proceeds", precision = 18, scale = 4, nullable = false)
+	private BigDecimal proceeds;
+
+	/** 取得原価 */
+	@Column(name = "cost_basis", precision = 18, scale = 4, nullable = false)
+	private BigDecimal costBasis;
+
+	/** 実現損益（売却代金 − 取得原価） */
+	@Column(name = "realized_pnl", precision = 18, scale = 4, nullable = false)
+	private BigDecimal realizedPnl;
+
+	/** 取得原価の計算方法（CostBasisMethod） */
+	@Column(name = "cost_basis_method", nullable = false, columnDefinition = "TINYINT UNSIGNED")
+	private int costBasisMethod;
+
+	@Column(name = "create_at", nullable = false)
+	private LocalDateTime createAt;
+}
@@ -0,0 +1,63 @@
+package com.example.stock.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * ウォレット残高・保有株数の突き合わせで見つかった不一致（1回の突き合わせ・ユーザー・通貨または銘柄ごとに1行）。
+ * 突き合わせのジョブが書き込み、調査用に参照する（残高・保有株は自動では直さない）。
+ */
+@Entity
+@Table(name = "reconciliation_discrepancy", indexes = {
+		@Index(name = "idx_reconciliation_discrepancy_run", columnList = "run_id")
+})
+@Data
+public class ReconciliationDiscrepancy {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	/** 突き合わせの実行ID */
+	@Column(name = "run_id", length = 36, nullable = false)
+	private String runId;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "user_id", nullable = false)
+	private Users user;
+
+	/** 種別（{@link com.example.stock.enums.DiscrepancyType} のコード） */
+	@Column(name = "type", nullable = false)
+	private int type;
+
+	/** 通貨（ウォレット残高）または銘柄コード（保有株数） */
+	@Column(name = "item", length = 16, nullable = false)
+	private String item;
+
+	/** 履歴から求めた値（変化額の合計・約定数量の合計） */
+	@Column(name = "expected", precision = 18, scale = 2, nullable = false)
+	private BigDecimal expected;
+
+	/** 現在の値（残高・保有株数） */
+	@Column(name = "actual", precision = 18, scale = 2, nullable = false)
+	private BigDecimal actual;
+
+	/** 差額（現在の値 − 履歴から求めた値） */
+	@Column(name = "difference", precision = 18, scale = 2, nullable = false)
+	private BigDecimal difference;
+
+	@Column(name = "create_at", nullable = false)
+	private LocalDateTime createAt;
+}
@@ -0,0 +1,63 @@
+package com.example.stock.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * 保有株のロット（買い注文の約定1件分）。
+ * 売却のたびに残株数を減らし、残株数が0になったロットは残したまま参照しない。
+ */
+@Entity
+@Table(name = "tax_lot", indexes = {
+		@Index(name = "idx_tax_lot_user_ticker_open", columnList = "user_id, ticker_id, open_quantity")
+})
+@Data
+public class TaxLot {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "user_id", nullable = false)
+	private Users user;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "ticker_id", nullable = false)
+	private Tickers ticker;
+
+	/** 取得した買い注文 */
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "trade_id", nullable = false)
+	private Trade trade;
+
+	/** 取得株数 */
+	@Column(name = "quantity", precision = 18, scale = 2, nullable = false)
+	private BigDecimal quantity;
+
+	/** 残株数 */
+	@Column(name = "open_quantity", precision = 18, scale = 2, nullable = false)
+	private BigDecimal openQuantity;
+
+	/** 1株あたりの取得単価（米ドル） */
+	@Column(name = "unit_cost", precision = 18, scale = 2, nullable = false)
+	private BigDecimal unitCost;
+
+	@Column(name = "create_at", nullable = false)
+	private LocalDateTime createAt;
+
+	@Column(name = "update_at", nullable = false)
+	private LocalDateTime updateAt;
+}
@@ -8,6 +8,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
@@ -23,7 +24,9 @@ import jakarta.validation.constraints.Size;
 import lombok.Data;
 
 @Entity
-@Table(name = "trade")
+@Table(name = "trade", indexes = {
+		@Index(name = "idx_trade_user_create_at_id", columnList = "user_id, create_at, id")
+})
 @Data
 public class Trade {
 
@@ -86,10 +89,22 @@ public class Trade {
 	@Column(name = "type", nullable = false, columnDefinition = "TINYINT UNSIGNED")
 	private int type;
 
-	/** ステータス（デフォルト：4　成功） */
+	/** ステータス（0=受付中, 1=注文中, 2=一部約定, 3=取消, 4=約定, 5=不成立, 6=寄付待ち / デフォルト：4） */
 	@Column(name = "status", nullable = false, columnDefinition = "TINYINT UNSIGNED")
 	private int status = 4;
 
+	/** 約定済みの株数（指値注文が板に残っている間は株数未満） */
+	@Column(name = "filled_quantity", nullable = false, precision = 18, scale = 2, columnDefinition = "DECIMAL(18,2) NOT NULL DEFAULT 0")
+	private BigDecimal filledQuantity = BigDecimal.ZERO;
+
+	/** 売却するロット（個別法で売り注文の場合のみ・任意） */
+	@Column(name = "lot_id")
+	private Long lotId;
+
+	/** 不成立の理由（不成立の場合のみ） */
+	@Column(name = "reject_reason", length = 255)
+	private String rejectReason;
+
 	/** 登録日時 */
 	@NotNull
 	@Column(name = "create_at", nullable = false)
@@ -0,0 +1,75 @@
+package com.example.stock.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * ユーザー・月・銘柄・決済通貨ごとの約定の集計（取引統計の表示用）。
+ * 約定のたびに同じトランザクションで加算し、取引統計は trade を走査せずにこのテーブルだけから求める。
+ * 月は注文の受付日時の月（その月の1日）とする。
+ */
+@Entity
+@Table(name = "trade_stat_monthly", uniqueConstraints = {
+		@UniqueConstraint(columnNames = { "user_id", "month", "ticker_id", "currency" })
+})
+@Data
+public class TradeStatMonthly {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "user_id", nullable = false)
+	private Users user;
+
+	/** 集計月（その月の1日） */
+	@Column(name = "month", nullable = false)
+	private LocalDate month;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "ticker_id", nullable = false)
+	private Tickers ticker;
+
+	/** 決済通貨 */
+	@Column(name = "currency", length = 3, nullable = false)
+	private String currency;
+
+	/** 約定した買い注文の件数（一部約定の注文も1件と数える） */
+	@Column(name = "buy_count", nullable = false)
+	private long buyCount;
+
+	/** 約定した売り注文の件数（一部約定の注文も1件と数える） */
+	@Column(name = "sell_count", nullable = false)
+	private long sellCount;
+
+	@Column(name = "buy_quantity", precision = 18, scale = 2, nullable = false)
+	private BigDecimal buyQuantity;
+
+	@Column(name = "sell_quantity", precision = 18, scale = 2, nullable = false)
+	private BigDecimal sellQuantity;
+
+	/** 買付金額の合計（決済通貨） */
+	@Column(name = "buy_amount", precision = 18, scale = 2, nullable = false)
+	private BigDecimal buyAmount;
+
+	/** 売却金額の合計（決済通貨） */
+	@Column(name = "sell_amount", precision = 18, scale = 2, nullable = false)
+	private BigDecimal sellAmount;
+
+	@Column(name = "update_at", nullable = false)
+	private LocalDateTime updateAt;
+}
@@ -11,6 +11,7 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import lombok.Data;
 
@@ -35,10 +36,19 @@ public class UserStock {
 	@Column(name = "quantity", precision = 18, scale = 2, nullable = false)
 	private BigDecimal quantity;
 
+	/** 保有株の取得原価の合計（米ドル。売却のたびに取得原価の計算方法に従って減らす） */
+	@Column(name = "cost_basis", nullable = false, precision = 18, scale = 4, columnDefinition = "DECIMAL(18,4) NOT NULL DEFAULT 0")
+	private BigDecimal costBasis = BigDecimal.ZERO;
+
 	@Column(name = "create_at", nullable = false)
 	private LocalDateTime createAt;
 
 	@Column(name = "update_at", nullable = false)
 	private LocalDateTime updateAt;
 
+	/** 楽観ロック用のバージョン（更新のたびに加算。並行更新による上書きを検出する） */
+	@Version
+	@Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+	private Long version;
+
 }
\ No newline at end of file
@@ -11,6 +11,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.Formula;
 
 import lombok.Data;
 
@@ -37,4 +40,40 @@ public class UserWallet {
 
 	@Column(name = "update_at", nullable = false)
 	private LocalDateTime updateAt;
-}
\ No newline at end of file
+
+	/**
+	 * 残高列に反映済みの台帳（wallet_ledger_entry）の最後の連番。
+	 * 残高列はこの連番までの記帳を反映した残高で、以降の記帳は定期的にまとめて反映する（注文ごとには更新しない）。
+	 */
+	@Column(name = "ledger_seq", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+	private long ledgerSeq;
+
+	/** 残高列に未反映のJPYの記帳の合計（読み込み時に集計する。作成直後のエンティティは null） */
+	@Formula("(SELECT COALESCE(SUM(e.amount), 0) FROM wallet_ledger_entry e"
+			+ " WHERE e.user_wallet_id = id AND e.seq > ledger_seq AND e.currency = 'JPY')")
+	private BigDecimal pendingJpy;
+
+	/** 残高列に未反映のUSDの記帳の合計（読み込み時に集計する。作成直後のエンティティは null） */
+	@Formula("(SELECT COALESCE(SUM(e.amount), 0) FROM wallet_ledger_entry e"
+			+ " WHERE e.user_wallet_id = id AND e.seq > ledger_seq AND e.currency = 'USD')")
+	private BigDecimal pendingUsd;
+
+	/** 楽観ロック用のバージョン（更新のたびに加算。並行更新による上書きを検出する） */
+	@Version
+	@Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+	private Long version;
+
+	/**
+	 * 現在のJPY残高（残高列 + 未反映の記帳）。
+	 */
+	public BigDecimal getCurrentJpyBalance() {
+		return pendingJpy != null ? jpyBalance.add(pendingJpy) : jpyBalance;
+	}
+
+	/**
+	 * 現在のUSD残高（残高列 + 未反映の記帳）。
+	 */
+	public BigDecimal getCurrentUsdBalance() {
+		return pendingUsd != null ? usdBalance.add(pendingUsd) : usdBalance;
+	}
+}
@@ -70,6 +70,10 @@ public class Users implements UserDetails {
 	@Column(name = "lock_time")
 	private LocalDateTime lockTime;
 
+	// 売却時の取得原価の計算方法（0=先入先出法, 1=移動平均法, 2=個別法 / CostBasisMethod）
+	@Column(name = "cost_basis_method", nullable = false, columnDefinition = "TINYINT UNSIGNED NOT NULL DEFAULT 0")
+	private int costBasisMethod = 0;
+
 	// 権限情報（簡単に空リストを返す）
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
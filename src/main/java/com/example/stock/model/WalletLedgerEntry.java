@@ -0,0 +1,62 @@
+package com.example.stock.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * ウォレット台帳の記帳（追記のみ・更新/削除しない）。
+ * ウォレットごとの連番 seq の順に金額を足し合わせると、その時点の残高になる。
+ */
+@Entity
+@Table(name = "wallet_ledger_entry", uniqueConstraints = {
+		@UniqueConstraint(columnNames = { "user_wallet_id", "seq" })
+}, indexes = {
+		@Index(name = "idx_wallet_ledger_entry_wallet_create_at", columnList = "user_wallet_id, create_at")
+})
+@Data
+public class WalletLedgerEntry {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "user_wallet_id", nullable = false)
+	private UserWallet userWallet;
+
+	/** ウォレットごとの連番（1から。直前の記帳の次の番号で追記し、一意制約で並行する追記の競合を検出する） */
+	@Column(name = "seq", nullable = false)
+	private long seq;
+
+	/** 記帳種別（1=買付, 2=売却, 3=入金, 4=出金, 5=手数料） */
+	@Column(name = "entry_type", nullable = false, columnDefinition = "TINYINT UNSIGNED")
+	private int entryType;
+
+	@Column(name = "currency", length = 3, nullable = false)
+	private String currency;
+
+	/** 金額（入金方向がプラス、出金方向がマイナス） */
+	@Column(name = "amount", precision = 18, scale = 2, nullable = false)
+	private BigDecimal amount;
+
+	/** 取引による記帳の場合の取引 */
+	@ManyToOne
+	@JoinColumn(name = "trade_id")
+	private Trade trade;
+
+	@Column(name = "create_at", nullable = false)
+	private LocalDateTime createAt;
+}
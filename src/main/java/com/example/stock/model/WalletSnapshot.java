@@ -0,0 +1,50 @@
+package com.example.stock.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * ウォレット台帳のスナップショット（連番 seq までの記帳を反映した残高）。
+ * 任意時点の残高は、直近のスナップショットから前後の記帳だけを足し引きして求める。
+ */
+@Entity
+@Table(name = "wallet_snapshot", uniqueConstraints = {
+		@UniqueConstraint(columnNames = { "user_wallet_id", "seq" })
+})
+@Data
+public class WalletSnapshot {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@ManyToOne(optional = false)
+	@JoinColumn(name = "user_wallet_id", nullable = false)
+	private UserWallet userWallet;
+
+	/** 反映済みの最後の記帳の連番 */
+	@Column(name = "seq", nullable = false)
+	private long seq;
+
+	@Column(name = "jpy_balance", precision = 18, scale = 2, nullable = false)
+	private BigDecimal jpyBalance;
+
+	@Column(name = "usd_balance", precision = 18, scale = 2, nullable = false)
+	private BigDecimal usdBalance;
+
+	/** 取得日時（seq までの記帳はすべてこの日時以前） */
+	@Column(name = "create_at", nullable = false)
+	private LocalDateTime createAt;
+}
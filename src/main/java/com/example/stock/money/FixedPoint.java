@@ -0,0 +1,155 @@
+package com.example.stock.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 小数点以下2桁の固定小数点数（×100 の long）の演算。
+ *
+ * 金額・単価・株数の列（DECIMAL(18,2)）と同じ桁数・範囲を long で扱い、演算ごとにオブジェクトを生成しない。
+ * 端数が出る演算は丸め方を必ず指定し、範囲を超える場合は {@link ArithmeticException} をスローする。
+ */
+public final class FixedPoint {
+
+	// 小数点以下の桁数
+	public static final int SCALE = 2;
+	// 1.00 を表す値
+	public static final long ONE = 100;
+	// DECIMAL(18,2) で表せる最大値（×100）
+	public static final long MAX_UNITS = 999_999_999_999_999_999L;
+
+	private static final long[] POWERS_OF_TEN = { 1, 10, 100 };
+
+	// double のまま丸める値の上限（×100 しても2進の誤差が HALF_MARGIN より十分小さい範囲）
+	private static final double FAST_PATH_LIMIT = 1e9;
+	// 端数がこれより 0.5 に近い場合は BigDecimal で丸める
+	private static final double HALF_MARGIN = 1e-4;
+
+	private FixedPoint() {
+	}
+
+	/**
+	 * BigDecimal を ×100 の整数にする。
+	 *
+	 * @param value 変換する値
+	 * @param rounding 小数点以下3桁目以降の丸め方
+	 * @return ×100 の整数
+	 * @throws ArithmeticException DECIMAL(18,2) の範囲を超える場合
+	 */
+	public static long toUnits(BigDecimal value, RoundingMode rounding) {
+		return checkRange(value.movePointRight(SCALE).setScale(0, rounding).longValueExact());
+	}
+
+	/**
+	 * double（外部APIの価格など）を ×100 の整数にする。10進表記の値を丸める（2進の誤差で丸めがずれない）。
+	 *
+	 * 四捨五入系の丸めで端数が 0.5 から十分に離れている場合は double のまま丸め、BigDecimal を生成しない
+	 * （2進の誤差で丸めの向きが変わりうる 0.5 付近と、大きな値は BigDecimal で丸める）。
+	 */
+	public static long toUnits(double value, RoundingMode rounding) {
+		boolean halfRounding = rounding == RoundingMode.HALF_UP || rounding == RoundingMode.HALF_DOWN
+				|| rounding == RoundingMode.HALF_EVEN;
+		if (halfRounding && Math.abs(value) < FAST_PATH_LIMIT) {
+			double scaled = value * ONE;
+			double floor = Math.floor(scaled);
+			double fraction = scaled - floor;
+			if (Math.abs(fraction - 0.5) > HALF_MARGIN) {
+				return (long) floor + (fraction > 0.5 ? 1 : 0);
+			}
+		}
+		return toUnits(BigDecimal.valueOf(value), rounding);
+	}
+
+	/**
+	 * ×100 の整数を BigDecimal（小数点以下2桁）にする。
+	 */
+	public static BigDecimal toBigDecimal(long units) {
+		return BigDecimal.valueOf(units, SCALE);
+	}
+
+	public static long add(long a, long b) {
+		return checkRange(Math.addExact(a, b));
+	}
+
+	public static long subtract(long a, long b) {
+		return checkRange(Math.subtractExact(a, b));
+	}
+
+	/**
+	 * 固定小数点数どうしの積（単価 × 株数など）。
+	 */
+	public static long multiply(long a, long b, RoundingMode rounding) {
+		return checkRange(divide(Math.multiplyExact(a, b), ONE, rounding));
+	}
+
+	/**
+	 * 百分率を掛ける（値幅制限の ±10% など）。
+	 *
+	 * @param units ×100 の整数
+	 * @param percent 百分率（90 なら 90%）
+	 */
+	public static long percent(long units, long percent, RoundingMode rounding) {
+		return checkRange(divide(Math.multiplyExact(units, percent), 100, rounding));
+	}
+
+	/**
+	 * a × b ÷ c を小数点以下 digits 桁に丸める（受渡金額の按分など）。
+	 *
+	 * @param digits 丸める桁数（0～2。円なら 0）
+	 * @return ×100 の整数
+	 */
+	public static long multiplyDivide(long a, long b, long c, int digits, RoundingMode rounding) {
+		long step = POWERS_OF_TEN[SCALE - digits];
+		long quotient = divide(Math.multiplyExact(a, b), Math.multiplyExact(c, step), rounding);
+		return checkRange(Math.multiplyExact(quotient, step));
+	}
+
+	/**
+	 * 小数点以下 digits 桁に丸める（円の金額を整数にするなど）。
+	 *
+	 * @param digits 丸める桁数（0～2）
+	 */
+	public static long round(long units, int digits, RoundingMode rounding) {
+		long step = POWERS_OF_TEN[SCALE - digits];
+		return checkRange(Math.multiplyExact(divide(units, step, rounding), step));
+	}
+
+	/**
+	 * 整数の割り算を指定した丸め方で行う（BigDecimal の丸めと同じ結果になる）。
+	 *
+	 * @throws ArithmeticException 割り切れないのに RoundingMode.UNNECESSARY を指定した場合
+	 */
+	public static long divide(long dividend, long divisor, RoundingMode rounding) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (remainder == 0) {
+			return quotient;
+		}
+		int sign = (dividend < 0) == (divisor < 0) ? 1 : -1;
+		boolean increment = switch (rounding) {
+		case UNNECESSARY -> throw new ArithmeticException("割り切れないため丸めが必要です");
+		case DOWN -> false;
+		case UP -> true;
+		case FLOOR -> sign < 0;
+		case CEILING -> sign > 0;
+		default -> {
+			// 端数と 0.5 の比較（|余り| と |除数| − |余り| の比較で、2倍によるあふれを避ける）
+			long r = Math.abs(remainder);
+			int half = Long.compare(r, Math.abs(divisor) - r);
+			if (half != 0) {
+				yield half > 0;
+			}
+			yield rounding == RoundingMode.HALF_UP
+					|| (rounding == RoundingMode.HALF_EVEN && (quotient & 1) != 0);
+		}
+		};
+		return increment ? quotient + sign : quotient;
+	}
+
+	private static long checkRange(long units) {
+		if (units > MAX_UNITS || units < -MAX_UNITS) {
+			throw new ArithmeticException("DECIMAL(18,2) の範囲を超えています: " + units);
+		}
+		return units;
+	}
+}
@@ -0,0 +1,150 @@
+package com.example.stock.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 通貨付きの金額（不変）。小数点以下2桁の固定小数点数（×100 の long）で保持する。
+ *
+ * 演算は {@link FixedPoint} で行い、通貨の異なる金額どうしの加減算・比較は {@link IllegalArgumentException} をスローする。
+ */
+public final class Money implements Comparable<Money> {
+
+	private final long units;
+	private final String currency;
+
+	private Money(long units, String currency) {
+		if (currency == null) {
+			throw new IllegalArgumentException("通貨を指定してください");
+		}
+		this.units = units;
+		this.currency = currency;
+	}
+
+	/**
+	 * ×100 の整数から金額を作る。
+	 */
+	public static Money ofUnits(long units, String currency) {
+		return new Money(units, currency.toUpperCase());
+	}
+
+	/**
+	 * BigDecimal から金額を作る（小数点以下3桁目以降は四捨五入）。
+	 */
+	public static Money of(BigDecimal amount, String currency) {
+		return of(amount, currency, RoundingMode.HALF_UP);
+	}
+
+	public static Money of(BigDecimal amount, String currency, RoundingMode rounding) {
+		return ofUnits(FixedPoint.toUnits(amount, rounding), currency);
+	}
+
+	public static Money zero(String currency) {
+		return ofUnits(0, currency);
+	}
+
+	/**
+	 * 通貨ごとの小数点以下の桁数（円は 0、それ以外は 2）。
+	 */
+	public static int digits(String currency) {
+		return "JPY".equalsIgnoreCase(currency) ? 0 : FixedPoint.SCALE;
+	}
+
+	public Money plus(Money other) {
+		requireSameCurrency(other);
+		return new Money(FixedPoint.add(units, other.units), currency);
+	}
+
+	public Money minus(Money other) {
+		requireSameCurrency(other);
+		return new Money(FixedPoint.subtract(units, other.units), currency);
+	}
+
+	public Money negate() {
+		return new Money(-units, currency);
+	}
+
+	/**
+	 * 数量（×100 の整数）を掛ける（単価 × 株数）。
+	 */
+	public Money times(long quantityUnits, RoundingMode rounding) {
+		return new Money(FixedPoint.multiply(units, quantityUnits, rounding), currency);
+	}
+
+	/**
+	 * 百分率を掛ける（90 なら 90%）。
+	 */
+	public Money percent(long percent, RoundingMode rounding) {
+		return new Money(FixedPoint.percent(units, percent, rounding), currency);
+	}
+
+	/**
+	 * 金額を part ÷ whole の割合で按分し、通貨の桁数に丸める（約定数量に応じた受渡金額など）。
+	 *
+	 * @param part 按分する数量（×100 の整数）
+	 * @param whole 全体の数量（×100 の整数）
+	 */
+	public Money prorate(long part, long whole, RoundingMode rounding) {
+		return new Money(FixedPoint.multiplyDivide(units, part, whole, digits(currency), rounding), currency);
+	}
+
+	/**
+	 * 通貨の桁数に丸める。
+	 */
+	public Money roundToCurrency(RoundingMode rounding) {
+		return new Money(FixedPoint.round(units, digits(currency), rounding), currency);
+	}
+
+	public boolean isNegative() {
+		return units < 0;
+	}
+
+	public boolean isLessThan(Money other) {
+		return compareTo(other) < 0;
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		requireSameCurrency(other);
+		return Long.compare(units, other.units);
+	}
+
+	public long getUnits() {
+		return units;
+	}
+
+	public String getCurrency() {
+		return currency;
+	}
+
+	public BigDecimal toBigDecimal() {
+		return FixedPoint.toBigDecimal(units);
+	}
+
+	private void requireSameCurrency(Money other) {
+		if (!currency.equals(other.currency)) {
+			throw new IllegalArgumentException("通貨が一致しません: " + currency + " / " + other.currency);
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Money other)) {
+			return false;
+		}
+		return units == other.units && currency.equals(other.currency);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Long.hashCode(units) + currency.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString() + " " + currency;
+	}
+}
@@ -0,0 +1,21 @@
+package com.example.stock.orderbook;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 板の照合で発生した約定。価格・数量は {@link RestingOrder} と同じ固定小数点の整数。
+ */
+@Getter
+@AllArgsConstructor
+public class Fill {
+	private final long orderId;
+	private final long userId;
+	private final int side;
+	// 約定価格（指値）
+	private final long price;
+	// 今回の約定数量
+	private final long quantity;
+	// 約定後の未約定数量（0なら全量約定）
+	private final long remainingQuantity;
+}
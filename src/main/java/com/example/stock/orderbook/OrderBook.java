@@ -0,0 +1,152 @@
+package com.example.stock.orderbook;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 1銘柄分の指値注文の板（価格優先・時間優先）。
+ *
+ * 注文はユーザー同士ではなく市場価格と照合する。新しい足が届いたら、
+ * 安値以上の買い指値と高値以下の売り指値を、有利な価格 → 受付順に約定させる。
+ * 1回の照合で約定できる数量は片側ごとに {@code liquidity} までとし、超えた分は一部約定として板に残す。
+ *
+ * スレッドセーフではないため、呼び出し側で銘柄ごとに排他すること。
+ */
+public class OrderBook {
+
+	private final String symbol;
+	private final PriceLevels bids = new PriceLevels();
+	private final PriceLevels asks = new PriceLevels();
+	private final Map<Long, RestingOrder> orders = new HashMap<>();
+	private long nextSequence;
+
+	public OrderBook(String symbol) {
+		this.symbol = symbol;
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * 板に残っている注文数
+	 */
+	public int size() {
+		return orders.size();
+	}
+
+	public boolean contains(long orderId) {
+		return orders.containsKey(orderId);
+	}
+
+	/**
+	 * 注文を板に追加する。同じ注文IDが既にある場合は何もしない。
+	 *
+	 * @param order 追加する注文
+	 * @return 追加した場合は true
+	 */
+	public boolean add(RestingOrder order) {
+		if (orders.putIfAbsent(order.getOrderId(), order) != null) {
+			return false;
+		}
+		order.assignSequence(nextSequence++);
+		(order.getSide() == RestingOrder.BUY ? bids : asks).add(order);
+		return true;
+	}
+
+	/**
+	 * 注文を板から取り除く。
+	 *
+	 * @param orderId 注文ID
+	 * @return 取り除いた場合は true（既に約定・取消済みなら false）
+	 */
+	public boolean cancel(long orderId) {
+		RestingOrder order = orders.remove(orderId);
+		if (order == null) {
+			return false;
+		}
+		return (order.getSide() == RestingOrder.BUY ? bids : asks).remove(order);
+	}
+
+	/**
+	 * 精算できなかった約定を板に戻し、照合前と同じ価格・受付順の位置に残す。
+	 * 約定し切って板から外れた注文は、同じ価格の注文の先頭に戻す（照合は先頭から行うため、元の位置と同じになる）。
+	 * 1回の照合の約定を複数戻す場合は、照合の逆順に呼ぶこと。
+	 *
+	 * @param fill 戻す約定
+	 */
+	public void restore(Fill fill) {
+		RestingOrder order = orders.get(fill.getOrderId());
+		if (order != null) {
+			order.fill(-fill.getQuantity());
+			return;
+		}
+		order = new RestingOrder(fill.getOrderId(), fill.getUserId(), fill.getSide(), fill.getPrice(),
+				fill.getQuantity());
+		orders.put(order.getOrderId(), order);
+		(order.getSide() == RestingOrder.BUY ? bids : asks).addFirst(order);
+	}
+
+	/**
+	 * 新しい価格で板を照合する。
+	 *
+	 * @param low       期間中の安値（これ以上の買い指値が約定）
+	 * @param high      期間中の高値（これ以下の売り指値が約定）
+	 * @param liquidity 片側で約定できる数量の上限（0以下なら無制限）
+	 * @return 約定のリスト（買い → 売りの順、それぞれ価格優先・時間優先）
+	 */
+	public List<Fill> match(long low, long high, long liquidity) {
+		long limit = liquidity > 0 ? liquidity : Long.MAX_VALUE;
+		List<Fill> fills = new ArrayList<>();
+		matchBids(low, limit, fills);
+		matchAsks(high, limit, fills);
+		return fills;
+	}
+
+	// 高い買い指値から順に約定させる
+	private void matchBids(long low, long liquidity, List<Fill> fills) {
+		int end = bids.size();
+		int index = end - 1;
+		for (; index >= 0 && liquidity > 0 && bids.priceAt(index) >= low; index--) {
+			liquidity = fillQueue(bids.queueAt(index), liquidity, fills);
+			if (!bids.queueAt(index).isEmpty()) {
+				break;
+			}
+		}
+		// 約定し切った価格帯（index より高い側）をまとめて取り除く
+		bids.removeLevels(index + 1, end);
+	}
+
+	// 安い売り指値から順に約定させる
+	private void matchAsks(long high, long liquidity, List<Fill> fills) {
+		int index = 0;
+		for (; index < asks.size() && liquidity > 0 && asks.priceAt(index) <= high; index++) {
+			liquidity = fillQueue(asks.queueAt(index), liquidity, fills);
+			if (!asks.queueAt(index).isEmpty()) {
+				break;
+			}
+		}
+		// 約定し切った価格帯（index より安い側）をまとめて取り除く
+		asks.removeLevels(0, index);
+	}
+
+	// 同じ価格の注文を受付順に約定させ、残りの約定可能数量を返す
+	private long fillQueue(ArrayDeque<RestingOrder> queue, long liquidity, List<Fill> fills) {
+		while (liquidity > 0 && !queue.isEmpty()) {
+			RestingOrder order = queue.peekFirst();
+			long quantity = Math.min(order.getRemainingQuantity(), liquidity);
+			order.fill(quantity);
+			liquidity -= quantity;
+			fills.add(new Fill(order.getOrderId(), order.getUserId(), order.getSide(), order.getPrice(), quantity,
+					order.getRemainingQuantity()));
+			if (order.getRemainingQuantity() == 0) {
+				queue.pollFirst();
+				orders.remove(order.getOrderId());
+			}
+		}
+		return liquidity;
+	}
+}
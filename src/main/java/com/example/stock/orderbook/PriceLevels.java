@@ -0,0 +1,91 @@
+package com.example.stock.orderbook;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * 板の片側（買い or 売り）の価格帯。
+ * 価格を昇順の long 配列で持ち、同じ価格の注文は受付順のキューで保持する（価格優先・時間優先）。
+ * 価格帯の数は注文数に比べて少ないため、挿入は二分探索＋配列コピーで十分に速い。
+ */
+class PriceLevels {
+
+	private long[] prices = new long[16];
+	// ジェネリクスの配列は作れないため、要素の型は queueAt で戻す（RestingOrder のキューしか入れない）
+	private ArrayDeque<?>[] queues = new ArrayDeque<?>[16];
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	long priceAt(int index) {
+		return prices[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	ArrayDeque<RestingOrder> queueAt(int index) {
+		return (ArrayDeque<RestingOrder>) queues[index];
+	}
+
+	void add(RestingOrder order) {
+		int index = Arrays.binarySearch(prices, 0, size, order.getPrice());
+		if (index < 0) {
+			index = -index - 1;
+			insertLevel(index, order.getPrice());
+		}
+		queueAt(index).addLast(order);
+	}
+
+	// 同じ価格の注文より優先する位置（キューの先頭）に追加する
+	void addFirst(RestingOrder order) {
+		int index = Arrays.binarySearch(prices, 0, size, order.getPrice());
+		if (index < 0) {
+			index = -index - 1;
+			insertLevel(index, order.getPrice());
+		}
+		queueAt(index).addFirst(order);
+	}
+
+	boolean remove(RestingOrder order) {
+		int index = Arrays.binarySearch(prices, 0, size, order.getPrice());
+		if (index < 0 || !queueAt(index).remove(order)) {
+			return false;
+		}
+		if (queueAt(index).isEmpty()) {
+			removeLevel(index);
+		}
+		return true;
+	}
+
+	// 空になった価格帯を [from, to) の範囲でまとめて取り除く
+	void removeLevels(int from, int to) {
+		if (from >= to) {
+			return;
+		}
+		System.arraycopy(prices, to, prices, from, size - to);
+		System.arraycopy(queues, to, queues, from, size - to);
+		Arrays.fill(queues, size - (to - from), size, null);
+		size -= to - from;
+	}
+
+	void removeLevel(int index) {
+		removeLevels(index, index + 1);
+	}
+
+	private void insertLevel(int index, long price) {
+		if (size == prices.length) {
+			prices = Arrays.copyOf(prices, size * 2);
+			queues = Arrays.copyOf(queues, size * 2);
+		}
+		System.arraycopy(prices, index, prices, index + 1, size - index);
+		System.arraycopy(queues, index, queues, index + 1, size - index);
+		prices[index] = price;
+		queues[index] = new ArrayDeque<>();
+		size++;
+	}
+}
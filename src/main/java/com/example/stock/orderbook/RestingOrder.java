@@ -0,0 +1,47 @@
+package com.example.stock.orderbook;
+
+import lombok.Getter;
+
+/**
+ * 板に残っている指値注文。
+ * 価格・数量は小数点以下2桁を固定小数点の整数（×100）で保持する。
+ */
+@Getter
+public class RestingOrder {
+
+	public static final int BUY = 0;
+	public static final int SELL = 1;
+
+	private final long orderId;
+	private final long userId;
+	// 0=買い, 1=売り（trade.side と同じ）
+	private final int side;
+	// 指値（セント単位）
+	private final long price;
+	// 未約定の数量（0.01株単位）
+	private long remainingQuantity;
+	// 板に入った順番（時間優先に使う）
+	private long sequence;
+
+	public RestingOrder(long orderId, long userId, int side, long price, long remainingQuantity) {
+		if (side != BUY && side != SELL) {
+			throw new IllegalArgumentException("売買区分が不正です: " + side);
+		}
+		if (price <= 0 || remainingQuantity <= 0) {
+			throw new IllegalArgumentException("価格と数量は正の値である必要があります");
+		}
+		this.orderId = orderId;
+		this.userId = userId;
+		this.side = side;
+		this.price = price;
+		this.remainingQuantity = remainingQuantity;
+	}
+
+	void fill(long quantity) {
+		remainingQuantity -= quantity;
+	}
+
+	void assignSequence(long sequence) {
+		this.sequence = sequence;
+	}
+}
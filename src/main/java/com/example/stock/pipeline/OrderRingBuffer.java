@@ -0,0 +1,102 @@
+package com.example.stock.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 複数スレッドから書き込み、1スレッドだけが読み出す固定長のリングバッファ。
+ *
+ * スロットは生成時にすべて確保し、書き込み側はスロットの中身を書き換えて公開する（注文ごとの割り当てを行わない）。
+ * 書き込み側は連番をCASで確保し、書き込み後にスロットの公開番号を更新する。
+ * 読み出し側は公開済みのスロットを連番順にまとめて処理し、処理済みの位置を進めてスロットを再利用可能にする。
+ *
+ * @param <E> スロットの型
+ */
+public class OrderRingBuffer<E> {
+
+	private final Object[] slots;
+	private final int mask;
+	// スロットごとの公開済みの連番（未公開は -1）
+	private final AtomicLongArray published;
+	// 次に確保する連番
+	private final AtomicLong claimed = new AtomicLong();
+	// 次に読み出す連番（読み出し側スレッドのみが更新する）
+	private volatile long consumed;
+
+	/**
+	 * @param capacity スロット数（2のべき乗）
+	 * @param factory  スロットの生成関数
+	 */
+	public OrderRingBuffer(int capacity, Supplier<E> factory) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("容量は2のべき乗である必要があります: " + capacity);
+		}
+		this.slots = new Object[capacity];
+		this.mask = capacity - 1;
+		this.published = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = factory.get();
+			published.set(i, -1);
+		}
+	}
+
+	public int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * 未処理の件数（概算）
+	 */
+	public int size() {
+		return (int) (claimed.get() - consumed);
+	}
+
+	/**
+	 * スロットを1つ確保して書き込み、公開する。
+	 *
+	 * @param writer スロットへの書き込み処理
+	 * @return 満杯で書き込めなかった場合は false
+	 */
+	@SuppressWarnings("unchecked")
+	public boolean tryPublish(Consumer<E> writer) {
+		long sequence;
+		do {
+			sequence = claimed.get();
+			if (sequence - consumed >= slots.length) {
+				return false;
+			}
+		} while (!claimed.compareAndSet(sequence, sequence + 1));
+
+		int index = (int) (sequence & mask);
+		writer.accept((E) slots[index]);
+		published.set(index, sequence);
+		return true;
+	}
+
+	/**
+	 * 公開済みのスロットを連番順に最大 {@code maxItems} 件処理する（読み出し側スレッドからのみ呼ぶこと）。
+	 * 処理中のスロットは上書きされないため、ハンドラーはスロットの中身をそのまま読んでよい。
+	 *
+	 * @param maxItems 最大件数
+	 * @param handler  スロットごとの処理
+	 * @return 処理した件数
+	 */
+	@SuppressWarnings("unchecked")
+	public int drain(int maxItems, Consumer<E> handler) {
+		long next = consumed;
+		int count = 0;
+		while (count < maxItems) {
+			int index = (int) (next & mask);
+			if (published.get(index) != next) {
+				break;
+			}
+			handler.accept((E) slots[index]);
+			next++;
+			count++;
+		}
+		consumed = next;
+		return count;
+	}
+}
@@ -0,0 +1,183 @@
+package com.example.stock.portfolio;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 1ユーザー分の保有銘柄と評価額・取得原価（米ドル建て）。
+ *
+ * 保有数の増減と最新値の更新のたびに、該当する銘柄の評価額・前日比だけを計算し直し、
+ * 合計は差分で更新する（表示のたびに全銘柄を集計し直さない）。
+ *
+ * スレッドセーフではないため、呼び出し側でユーザーごとに排他すること。
+ */
+public class Portfolio {
+
+	// 銘柄コード → 保有銘柄（銘柄コード順）
+	private final Map<String, Position> positions = new TreeMap<>();
+	private BigDecimal marketValue = BigDecimal.ZERO;
+	private BigDecimal dayChange = BigDecimal.ZERO;
+	private BigDecimal costBasis = BigDecimal.ZERO;
+
+	/**
+	 * 保有数と取得原価を増減する。保有数が0以下になった銘柄は取り除く。
+	 *
+	 * @param symbol 銘柄コード
+	 * @param brand 銘柄名
+	 * @param delta 増減する株数（買い：プラス、売り：マイナス）
+	 * @param costDelta 増減する取得原価（買い：プラス、売り：マイナス）
+	 * @param close 最新の終値（不明な場合は null）
+	 * @param prevClose 前日終値（不明な場合は null）
+	 * @return 増減後も保有している場合は true
+	 */
+	public boolean applyQuantity(String symbol, String brand, BigDecimal delta, BigDecimal costDelta,
+			BigDecimal close, BigDecimal prevClose) {
+		Position position = positions.get(symbol);
+		if (position == null) {
+			position = new Position(symbol, brand);
+			position.reprice(close, prevClose);
+			positions.put(symbol, position);
+		}
+		subtract(position);
+		position.quantity = position.quantity.add(delta);
+		position.costBasis = position.costBasis.add(costDelta);
+		if (position.quantity.signum() <= 0) {
+			positions.remove(symbol);
+			return false;
+		}
+		position.revalue();
+		add(position);
+		return true;
+	}
+
+	/**
+	 * 最新値で保有銘柄の評価額・前日比を計算し直す。保有していない銘柄は無視する。
+	 *
+	 * @param symbol 銘柄コード
+	 * @param close 最新の終値
+	 * @param prevClose 前日終値
+	 */
+	public void applyQuote(String symbol, BigDecimal close, BigDecimal prevClose) {
+		Position position = positions.get(symbol);
+		if (position == null) {
+			return;
+		}
+		subtract(position);
+		position.reprice(close, prevClose);
+		position.revalue();
+		add(position);
+	}
+
+	public boolean contains(String symbol) {
+		return positions.containsKey(symbol);
+	}
+
+	/**
+	 * 保有銘柄（銘柄コード順）。呼び出し側の排他の範囲内で参照すること。
+	 */
+	public Collection<Position> getPositions() {
+		return positions.values();
+	}
+
+	/**
+	 * 評価額の合計（米ドル）
+	 */
+	public BigDecimal getMarketValue() {
+		return marketValue;
+	}
+
+	/**
+	 * 前日比の合計（米ドル）
+	 */
+	public BigDecimal getDayChange() {
+		return dayChange;
+	}
+
+	/**
+	 * 取得原価の合計（米ドル）
+	 */
+	public BigDecimal getCostBasis() {
+		return costBasis;
+	}
+
+	private void subtract(Position position) {
+		marketValue = marketValue.subtract(position.marketValue);
+		dayChange = dayChange.subtract(position.dayChange);
+		costBasis = costBasis.subtract(position.costBasis);
+	}
+
+	private void add(Position position) {
+		marketValue = marketValue.add(position.marketValue);
+		dayChange = dayChange.add(position.dayChange);
+		costBasis = costBasis.add(position.costBasis);
+	}
+
+	/**
+	 * 保有銘柄1件分（株数・取得原価と、最新値での評価額・前日比）。
+	 */
+	public static class Position {
+		private final String symbol;
+		private final String brand;
+		private BigDecimal quantity = BigDecimal.ZERO;
+		private BigDecimal costBasis = BigDecimal.ZERO;
+		private BigDecimal close;
+		private BigDecimal prevClose;
+		private BigDecimal marketValue = BigDecimal.ZERO;
+		private BigDecimal dayChange = BigDecimal.ZERO;
+
+		Position(String symbol, String brand) {
+			this.symbol = symbol;
+			this.brand = brand;
+		}
+
+		private void reprice(BigDecimal close, BigDecimal prevClose) {
+			this.close = close;
+			this.prevClose = prevClose;
+		}
+
+		// 最新値が不明な銘柄は評価額0として扱う
+		private void revalue() {
+			if (close == null) {
+				marketValue = BigDecimal.ZERO;
+				dayChange = BigDecimal.ZERO;
+				return;
+			}
+			marketValue = quantity.multiply(close);
+			dayChange = prevClose != null ? quantity.multiply(close.subtract(prevClose)) : BigDecimal.ZERO;
+		}
+
+		public String getSymbol() {
+			return symbol;
+		}
+
+		public String getBrand() {
+			return brand;
+		}
+
+		public BigDecimal getQuantity() {
+			return quantity;
+		}
+
+		public BigDecimal getCostBasis() {
+			return costBasis;
+		}
+
+		public BigDecimal getClose() {
+			return close;
+		}
+
+		public BigDecimal getPrevClose() {
+			return prevClose;
+		}
+
+		public BigDecimal getMarketValue() {
+			return marketValue;
+		}
+
+		public BigDecimal getDayChange() {
+			return dayChange;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.stock.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.model.ConditionalOrder;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+
+@Repository
+public interface ConditionalOrderRepository extends JpaRepository<ConditionalOrder, Long> {
+
+	// 起動時に索引を復元するため、指定したステータスの注文を受付順に取得する
+	List<ConditionalOrder> findByStatusOrderByIdAsc(int status);
+
+	List<ConditionalOrder> findByUserOrderByCreateAtDesc(Users user);
+
+	// 待機中の場合のみステータスを変える（更新件数0 = 既に発動・取消済み）
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE ConditionalOrder o SET o.status = :status, o.updateAt = :now "
+			+ "WHERE o.id = :id AND o.user = :user AND o.status = 0")
+	int updateWaitingStatus(@Param("id") Long id, @Param("user") Users user, @Param("status") int status,
+			@Param("now") LocalDateTime now);
+
+	// 発動後の結果（発注した注文、または発注できなかった理由）を記録する
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE ConditionalOrder o SET o.status = :status, o.trade = :trade, o.failReason = :failReason, "
+			+ "o.updateAt = :now WHERE o.id = :id")
+	int recordResult(@Param("id") Long id, @Param("status") int status, @Param("trade") Trade trade,
+			@Param("failReason") String failReason, @Param("now") LocalDateTime now);
+
+	// トレーリングストップの基準値を保存する
+	@Modifying
+	@Query("UPDATE ConditionalOrder o SET o.anchorPrice = :anchor WHERE o.id = :id AND o.status = 0")
+	int updateAnchor(@Param("id") Long id, @Param("anchor") BigDecimal anchor);
+}
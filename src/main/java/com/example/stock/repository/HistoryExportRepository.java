@@ -0,0 +1,131 @@
+package com.example.stock.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.dto.ExportFilter;
+import com.example.stock.export.ExportWriter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 取引・ウォレット履歴を、前方向のみのカーソルで1行ずつ読みながらエクスポートするリポジトリ。
+ * MySQL Connector/J はフェッチサイズに Integer.MIN_VALUE を指定するとサーバーから1行ずつ受け取るため、
+ * 結果の全件をメモリに載せずに済む（読み終わるまで接続を専有する）。
+ */
+@Repository
+@RequiredArgsConstructor
+public class HistoryExportRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private static final String TRADE_SQL = """
+			SELECT t.id, t.create_at, t.user_id, k.ticker AS symbol, t.side, t.type, t.status, t.quantity,
+				t.unit_price, t.total_price, t.currency, t.settlement_currency, t.exchange_rate, t.filled_quantity
+			FROM trade t JOIN tickers k ON k.id = t.ticker_id
+			""";
+
+	private static final String WALLET_LOG_SQL = """
+			SELECT l.id, l.create_at, w.user_id, l.trade_id, k.ticker AS symbol, l.currency, l.before_balance,
+				l.after_balance, l.change_amount
+			FROM user_wallet_log l
+				JOIN user_wallet w ON w.id = l.user_wallet_id
+				JOIN trade t ON t.id = l.trade_id
+				JOIN tickers k ON k.id = t.ticker_id
+			""";
+
+	/**
+	 * 条件に合う取引を古い順に書き出す。
+	 *
+	 * @param filter 絞り込み条件
+	 * @param writer 書き出し先
+	 * @return 書き出した件数
+	 */
+	public long streamTrades(ExportFilter filter, ExportWriter writer) {
+		return stream(TRADE_SQL, "t.user_id", "t.create_at", " ORDER BY t.create_at, t.id", filter, writer);
+	}
+
+	/**
+	 * 条件に合うウォレットの入出金履歴を古い順に書き出す。
+	 *
+	 * @param filter 絞り込み条件
+	 * @param writer 書き出し先
+	 * @return 書き出した件数
+	 */
+	public long streamWalletLogs(ExportFilter filter, ExportWriter writer) {
+		return stream(WALLET_LOG_SQL, "w.user_id", "l.create_at", " ORDER BY l.id", filter, writer);
+	}
+
+	private long stream(String select, String userColumn, String createAtColumn, String orderBy,
+			ExportFilter filter, ExportWriter writer) {
+		StringBuilder sql = new StringBuilder(select).append(" WHERE 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (filter.getUserId() != null) {
+			sql.append(" AND ").append(userColumn).append(" = ?");
+			args.add(filter.getUserId());
+		}
+		if (filter.getFrom() != null) {
+			sql.append(" AND ").append(createAtColumn).append(" >= ?");
+			args.add(Timestamp.valueOf(filter.getFrom().atStartOfDay()));
+		}
+		if (filter.getTo() != null) {
+			sql.append(" AND ").append(createAtColumn).append(" < ?");
+			args.add(Timestamp.valueOf(filter.getTo().plusDays(1).atStartOfDay()));
+		}
+		if (filter.getTicker() != null && !filter.getTicker().isBlank()) {
+			sql.append(" AND k.ticker = ?");
+			args.add(filter.getTicker().toUpperCase());
+		}
+		sql.append(orderBy);
+
+		Long count = jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(Integer.MIN_VALUE);
+			for (int i = 0; i < args.size(); i++) {
+				ps.setObject(i + 1, args.get(i));
+			}
+			return ps;
+		}, rs -> {
+			try {
+				return writeAll(rs, writer);
+			} catch (IOException e) {
+				// クライアントの切断など。読み残しの行は接続を返す前にドライバが読み捨てる
+				throw new UncheckedIOException(e);
+			}
+		});
+		return count != null ? count : 0;
+	}
+
+	private long writeAll(ResultSet rs, ExportWriter writer) throws SQLException, IOException {
+		ResultSetMetaData meta = rs.getMetaData();
+		int columnCount = meta.getColumnCount();
+		String[] columns = new String[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			columns[i] = meta.getColumnLabel(i + 1);
+		}
+		writer.writeHeader(columns);
+
+		long count = 0;
+		Object[] values = new Object[columnCount];
+		while (rs.next()) {
+			for (int i = 0; i < columnCount; i++) {
+				Object value = rs.getObject(i + 1);
+				values[i] = value instanceof Timestamp ts ? ts.toLocalDateTime() : value;
+			}
+			writer.writeRow(values);
+			count++;
+		}
+		return count;
+	}
+}
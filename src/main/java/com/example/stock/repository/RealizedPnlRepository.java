@@ -0,0 +1,33 @@
+package com.example.stock.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.model.RealizedPnl;
+import com.example.stock.model.Users;
+
+@Repository
+public interface RealizedPnlRepository extends JpaRepository<RealizedPnl, Long> {
+
+	// 売り注文ごとの実現損益の合計
+	interface TradePnl {
+		Long getTradeId();
+
+		BigDecimal getRealizedPnl();
+	}
+
+	// ユーザーの実現損益の合計（売却がなければ0）
+	@Query("SELECT COALESCE(SUM(r.realizedPnl), 0) FROM RealizedPnl r WHERE r.user = :user")
+	BigDecimal sumByUser(@Param("user") Users user);
+
+	// 指定した売り注文ごとの実現損益（一部約定が複数あれば合計する）
+	@Query("SELECT r.trade.id AS tradeId, SUM(r.realizedPnl) AS realizedPnl FROM RealizedPnl r "
+			+ "WHERE r.trade.id IN :tradeIds GROUP BY r.trade.id")
+	List<TradePnl> sumByTradeIds(@Param("tradeIds") Collection<Long> tradeIds);
+}
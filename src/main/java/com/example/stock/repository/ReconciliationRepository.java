@@ -0,0 +1,168 @@
+package com.example.stock.repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.enums.DiscrepancyType;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * ウォレット残高・保有株数の突き合わせ用に、ユーザーIDの範囲ごとに現在値と履歴の集計を読み込むリポジトリ。
+ * どのクエリも user_id の範囲で絞り込み、ロックを取らない読み取りだけを行う（注文の処理を待たせない）。
+ * 同じチャンクのクエリは1つの読み取り専用トランザクションで実行し、同じ時点の値どうしを比べること。
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReconciliationRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private static final RowMapper<Amount> AMOUNT_MAPPER = (rs, i) -> new Amount(rs.getLong("user_id"),
+			rs.getString("item"), rs.getBigDecimal("amount"));
+
+	/**
+	 * ユーザーIDの最小値・最大値を返す。
+	 *
+	 * @return 最小値と最大値（ユーザーがいない場合は null）
+	 */
+	public IdRange findUserIdRange() {
+		return jdbcTemplate.queryForObject("SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM users",
+				(rs, i) -> rs.getObject("min_id") == null ? null
+						: new IdRange(rs.getLong("min_id"), rs.getLong("max_id")));
+	}
+
+	/**
+	 * ウォレットの現在の残高（残高列 + 未反映の台帳の記帳）を通貨ごとに返す。
+	 */
+	public List<Amount> findWalletBalances(long fromUserId, long toUserId) {
+		return jdbcTemplate.query("""
+				SELECT w.user_id, c.item,
+					CASE WHEN c.item = 'JPY' THEN w.jpy_balance ELSE w.usd_balance END
+						+ COALESCE((SELECT SUM(e.amount) FROM wallet_ledger_entry e
+							WHERE e.user_wallet_id = w.id AND e.seq > w.ledger_seq AND e.currency = c.item), 0) AS amount
+				FROM user_wallet w
+					CROSS JOIN (SELECT 'JPY' AS item UNION ALL SELECT 'USD') c
+				WHERE w.user_id BETWEEN ? AND ?
+				""", AMOUNT_MAPPER, fromUserId, toUserId);
+	}
+
+	/**
+	 * ウォレットログの変化額を通貨ごとに合計して返す。
+	 */
+	public List<Amount> sumWalletLogs(long fromUserId, long toUserId) {
+		return jdbcTemplate.query("""
+				SELECT w.user_id, l.currency AS item, SUM(l.change_amount) AS amount
+				FROM user_wallet w
+					JOIN user_wallet_log l ON l.user_wallet_id = w.id
+				WHERE w.user_id BETWEEN ? AND ?
+				GROUP BY w.user_id, l.currency
+				""", AMOUNT_MAPPER, fromUserId, toUserId);
+	}
+
+	/**
+	 * 保有株数を銘柄ごとに返す。
+	 */
+	public List<Amount> findHoldings(long fromUserId, long toUserId) {
+		return jdbcTemplate.query("""
+				SELECT s.user_id, k.ticker AS item, s.quantity AS amount
+				FROM user_stock s
+					JOIN tickers k ON k.id = s.ticker_id
+				WHERE s.user_id BETWEEN ? AND ?
+				""", AMOUNT_MAPPER, fromUserId, toUserId);
+	}
+
+	/**
+	 * 約定数量から求めた保有株数（買い − 売り）を銘柄ごとに返す。
+	 * 約定済みで約定数量が0の注文は、数量の全部が約定したものとして扱う。
+	 */
+	public List<Amount> sumPositions(long fromUserId, long toUserId) {
+		return jdbcTemplate.query("""
+				SELECT t.user_id, k.ticker AS item,
+					SUM(CASE WHEN t.side = 0 THEN 1 ELSE -1 END
+						* CASE WHEN t.status = 4 AND t.filled_quantity = 0 THEN t.quantity ELSE t.filled_quantity END)
+						AS amount
+				FROM trade t
+					JOIN tickers k ON k.id = t.ticker_id
+				WHERE t.user_id BETWEEN ? AND ? AND (t.status = 4 OR t.filled_quantity > 0)
+				GROUP BY t.user_id, k.ticker
+				""", AMOUNT_MAPPER, fromUserId, toUserId);
+	}
+
+	/**
+	 * 不一致をまとめて保存する。
+	 *
+	 * @param runId 突き合わせの実行ID
+	 * @param discrepancies 不一致
+	 * @param now 作成日時
+	 */
+	public void insertDiscrepancies(String runId, List<Discrepancy> discrepancies, LocalDateTime now) {
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO reconciliation_discrepancy
+					(run_id, user_id, type, item, expected, actual, difference, create_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+				""", new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				Discrepancy d = discrepancies.get(i);
+				ps.setString(1, runId);
+				ps.setLong(2, d.getUserId());
+				ps.setInt(3, d.getType().getCode());
+				ps.setString(4, d.getItem());
+				ps.setBigDecimal(5, d.getExpected());
+				ps.setBigDecimal(6, d.getActual());
+				ps.setBigDecimal(7, d.getActual().subtract(d.getExpected()));
+				ps.setTimestamp(8, Timestamp.valueOf(now));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return discrepancies.size();
+			}
+		});
+	}
+
+	/**
+	 * IDの範囲（両端を含む）。
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public static class IdRange {
+		private final long min;
+		private final long max;
+	}
+
+	/**
+	 * ユーザー・通貨または銘柄ごとの金額・株数。
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public static class Amount {
+		private final long userId;
+		private final String item;
+		private final BigDecimal amount;
+	}
+
+	/**
+	 * 突き合わせで見つかった不一致。
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public static class Discrepancy {
+		private final long userId;
+		private final DiscrepancyType type;
+		private final String item;
+		private final BigDecimal expected;
+		private final BigDecimal actual;
+	}
+}
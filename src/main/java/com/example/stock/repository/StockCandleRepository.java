@@ -1,12 +1,15 @@
 package com.example.stock.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.stock.model.StockCandle;
@@ -22,4 +25,12 @@ public interface StockCandleRepository extends JpaRepository<StockCandle, Long>
 
 	List<StockCandle> findAllBySymbolAndIntervalAndDatetimeIn(String symbol, String interval,
 			List<LocalDateTime> datetimes);
+
+	// 複数銘柄の同一日時のデータをまとめて取得（最新値の一括取得用）
+	List<StockCandle> findAllBySymbolInAndIntervalAndDatetime(Collection<String> symbols, String interval,
+			LocalDateTime datetime);
+
+	// 全銘柄で取り込み済みの日時（チャートの日付軸用）を新しい順に取得
+	@Query("SELECT DISTINCT c.datetime FROM StockCandle c WHERE c.interval = :interval ORDER BY c.datetime DESC")
+	List<LocalDateTime> findDistinctDatetimesByInterval(@Param("interval") String interval, Pageable pageable);
 }
\ No newline at end of file
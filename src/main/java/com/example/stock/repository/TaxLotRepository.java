@@ -0,0 +1,39 @@
+package com.example.stock.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.model.TaxLot;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Users;
+
+@Repository
+public interface TaxLotRepository extends JpaRepository<TaxLot, Long> {
+
+	// 売却に必要なロットの項目だけ（ユーザー・銘柄・取得した注文は読み込まない）
+	interface OpenLot {
+		Long getId();
+
+		BigDecimal getOpenQuantity();
+
+		BigDecimal getUnitCost();
+	}
+
+	// 残株数のあるロットを取得順に取得する
+	@Query("SELECT l.id AS id, l.openQuantity AS openQuantity, l.unitCost AS unitCost FROM TaxLot l "
+			+ "WHERE l.user = :user AND l.ticker = :ticker AND l.openQuantity > 0 ORDER BY l.id")
+	List<OpenLot> findOpenLots(@Param("user") Users user, @Param("ticker") Tickers ticker);
+
+	// 残株数が足りる場合のみ減らす（更新件数0 = 並行して売却された）
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE TaxLot l SET l.openQuantity = l.openQuantity - :quantity, l.updateAt = :now "
+			+ "WHERE l.id = :id AND l.openQuantity >= :quantity")
+	int consume(@Param("id") Long id, @Param("quantity") BigDecimal quantity, @Param("now") LocalDateTime now);
+}
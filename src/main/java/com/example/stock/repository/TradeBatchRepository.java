@@ -0,0 +1,241 @@
+package com.example.stock.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.enums.LedgerEntryType;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.model.Trade;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 複数の注文（バスケット注文・寄付でまとめて執行する注文）の保存・更新・ウォレットログ・台帳の記帳・保有株（株数・取得原価）の更新・取引統計の加算を、JDBCのバッチ更新でまとめて行うリポジトリ。
+ * trade の主キーは IDENTITY のため JPA ではINSERTをまとめられないので、JdbcTemplate で1往復にまとめる。
+ * JPAのトランザクション内で呼び出すこと（同じ接続・同じトランザクションで実行される）。
+ */
+@Repository
+@RequiredArgsConstructor
+public class TradeBatchRepository {
+
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * 注文をまとめて保存し、採番したIDを各 Trade に設定する。
+	 *
+	 * @param trades 保存する注文
+	 */
+	public void insertTrades(List<Trade> trades) {
+		KeyHolder keyHolder = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(con -> con.prepareStatement("""
+				INSERT INTO trade (user_id, ticker_id, quantity, unit_price, total_price, currency,
+					settlement_currency, exchange_rate, side, type, status, filled_quantity, lot_id, create_at,
+					update_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+				""", new String[] { "id" }), new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				Trade trade = trades.get(i);
+				ps.setLong(1, trade.getUser().getId());
+				ps.setLong(2, trade.getTicker().getId());
+				ps.setBigDecimal(3, trade.getQuantity());
+				ps.setBigDecimal(4, trade.getUnitPrice());
+				ps.setBigDecimal(5, trade.getTotalPrice());
+				ps.setString(6, trade.getCurrency());
+				ps.setString(7, trade.getSettlementCurrency());
+				ps.setBigDecimal(8, trade.getExchangeRate());
+				ps.setInt(9, trade.getSide());
+				ps.setInt(10, trade.getType());
+				ps.setInt(11, trade.getStatus());
+				ps.setBigDecimal(12, trade.getFilledQuantity());
+				ps.setObject(13, trade.getLotId(), Types.BIGINT);
+				ps.setTimestamp(14, Timestamp.valueOf(trade.getCreateAt()));
+				ps.setTimestamp(15, Timestamp.valueOf(trade.getUpdateAt()));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return trades.size();
+			}
+		}, keyHolder);
+
+		List<Map<String, Object>> keys = keyHolder.getKeyList();
+		for (int i = 0; i < trades.size(); i++) {
+			trades.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+		}
+	}
+
+	/**
+	 * 寄付待ちの注文をまとめて受付中にする（寄付待ちの注文のみ更新される）。
+	 * 更新した行は執行のトランザクションが終わるまでロックされるため、同時に行われた取消は更新件数0になる。
+	 *
+	 * @param trades 寄付待ちの注文
+	 * @param now 更新日時
+	 * @return 注文ごとの更新件数（trades の順。0 = 既に取消済み）
+	 */
+	public int[] claimQueued(List<Trade> trades, LocalDateTime now) {
+		List<Object[]> rows = new ArrayList<>(trades.size());
+		for (Trade trade : trades) {
+			rows.add(new Object[] { TradeStatus.PENDING.getCode(), Timestamp.valueOf(now), trade.getId(),
+					TradeStatus.QUEUED.getCode() });
+		}
+		return jdbcTemplate.batchUpdate("UPDATE trade SET status = ?, update_at = ? WHERE id = ? AND status = ?",
+				rows);
+	}
+
+	/**
+	 * 執行した注文の単価・総受渡金額・ステータス・約定数量・不成立理由をまとめて更新する。
+	 *
+	 * @param trades 執行した注文
+	 * @param now 更新日時
+	 */
+	public void updateSettlements(List<Trade> trades, LocalDateTime now) {
+		List<Object[]> rows = new ArrayList<>(trades.size());
+		for (Trade trade : trades) {
+			rows.add(new Object[] { trade.getUnitPrice(), trade.getTotalPrice(), trade.getStatus(),
+					trade.getFilledQuantity(), trade.getRejectReason(), Timestamp.valueOf(now), trade.getId() });
+		}
+		jdbcTemplate.batchUpdate("""
+				UPDATE trade SET unit_price = ?, total_price = ?, status = ?, filled_quantity = ?, reject_reason = ?,
+					update_at = ?
+				WHERE id = ?
+				""", rows);
+	}
+
+	/**
+	 * 注文ごとのウォレットログをまとめて保存する。
+	 *
+	 * @param walletId ウォレットID
+	 * @param trades 保存済みの注文
+	 * @param beforeBalances 注文ごとの取引前残高（trades と同じ順）
+	 * @param changeAmounts 注文ごとの変化額（買い：マイナス、売り：プラス）
+	 * @param now 記録日時
+	 */
+	public void insertWalletLogs(Long walletId, List<Trade> trades, List<BigDecimal> beforeBalances,
+			List<BigDecimal> changeAmounts, LocalDateTime now) {
+		List<Object[]> rows = new ArrayList<>(trades.size());
+		for (int i = 0; i < trades.size(); i++) {
+			Trade trade = trades.get(i);
+			rows.add(new Object[] { walletId, trade.getId(), trade.getSettlementCurrency().toUpperCase(),
+					beforeBalances.get(i), beforeBalances.get(i).add(changeAmounts.get(i)), changeAmounts.get(i),
+					Timestamp.valueOf(now) });
+		}
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO user_wallet_log
+					(user_wallet_id, trade_id, currency, before_balance, after_balance, change_amount, create_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?)
+				""", rows);
+	}
+
+	/**
+	 * 注文ごとの台帳の記帳をまとめて保存する。
+	 *
+	 * @param walletId ウォレットID
+	 * @param trades 保存済みの注文
+	 * @param changeAmounts 注文ごとの変化額（買い：マイナス、売り：プラス）
+	 * @param firstSeq 最初の注文の連番（以降の注文は1ずつ進める）
+	 * @param now 記帳日時
+	 */
+	public void insertLedgerEntries(Long walletId, List<Trade> trades, List<BigDecimal> changeAmounts,
+			long firstSeq, LocalDateTime now) {
+		List<Object[]> rows = new ArrayList<>(trades.size());
+		for (int i = 0; i < trades.size(); i++) {
+			Trade trade = trades.get(i);
+			LedgerEntryType type = trade.getSide() == 0
+					? LedgerEntryType.TRADE_DEBIT
+					: LedgerEntryType.TRADE_CREDIT;
+			rows.add(new Object[] { walletId, firstSeq + i, type.getCode(),
+					trade.getSettlementCurrency().toUpperCase(), changeAmounts.get(i), trade.getId(),
+					Timestamp.valueOf(now) });
+		}
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO wallet_ledger_entry (user_wallet_id, seq, entry_type, currency, amount, trade_id, create_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?)
+				""", rows);
+	}
+
+	/**
+	 * 銘柄ごとの株数と取得原価をまとめて減らす（保有数が足りる銘柄のみ更新される）。
+	 *
+	 * @param userId ユーザーID
+	 * @param quantities 銘柄ID → 減らす株数
+	 * @param costs 銘柄ID → 減らす取得原価
+	 * @param now 更新日時
+	 * @return 銘柄ごとの更新件数（quantities の順。0 = 保有数不足または保有なし）
+	 */
+	public int[] decreaseQuantities(Long userId, Map<Long, BigDecimal> quantities, Map<Long, BigDecimal> costs,
+			LocalDateTime now) {
+		List<Object[]> rows = new ArrayList<>(quantities.size());
+		quantities.forEach((tickerId, quantity) -> rows.add(new Object[] { quantity, costs.get(tickerId),
+				Timestamp.valueOf(now), userId, tickerId, quantity }));
+		return jdbcTemplate.batchUpdate("""
+				UPDATE user_stock SET quantity = quantity - ?, cost_basis = cost_basis - ?, update_at = ?,
+					version = version + 1
+				WHERE user_id = ? AND ticker_id = ? AND quantity >= ?
+				""", rows);
+	}
+
+	/**
+	 * 銘柄ごとの株数と取得原価をまとめて加算する（保有がなければ新規に作成する）。
+	 *
+	 * @param userId ユーザーID
+	 * @param quantities 銘柄ID → 加算する株数
+	 * @param costs 銘柄ID → 加算する取得原価
+	 * @param now 更新日時
+	 */
+	public void increaseQuantities(Long userId, Map<Long, BigDecimal> quantities, Map<Long, BigDecimal> costs,
+			LocalDateTime now) {
+		List<Object[]> rows = new ArrayList<>(quantities.size());
+		quantities.forEach((tickerId, quantity) -> rows.add(new Object[] { userId, tickerId, quantity,
+				costs.get(tickerId), Timestamp.valueOf(now), Timestamp.valueOf(now) }));
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO user_stock (user_id, ticker_id, quantity, cost_basis, create_at, update_at, version)
+				VALUES (?, ?, ?, ?, ?, ?, 0)
+				ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), cost_basis = cost_basis + VALUES(cost_basis),
+					update_at = VALUES(update_at), version = version + 1
+				""", rows);
+	}
+
+	/**
+	 * 全量約定した注文を、月・銘柄・決済通貨ごとの取引統計にまとめて加算する。
+	 *
+	 * @param trades 全量約定した注文（受付日時が設定済みであること）
+	 * @param now    更新日時
+	 */
+	public void addTradeStats(List<Trade> trades, LocalDateTime now) {
+		List<Object[]> rows = new ArrayList<>(trades.size());
+		for (Trade trade : trades) {
+			boolean buy = trade.getSide() == 0;
+			rows.add(new Object[] { trade.getUser().getId(), Date.valueOf(trade.getCreateAt().toLocalDate().withDayOfMonth(1)),
+					trade.getTicker().getId(), trade.getSettlementCurrency().toUpperCase(), buy ? 1 : 0, buy ? 0 : 1,
+					buy ? trade.getQuantity() : BigDecimal.ZERO, buy ? BigDecimal.ZERO : trade.getQuantity(),
+					buy ? trade.getTotalPrice() : BigDecimal.ZERO, buy ? BigDecimal.ZERO : trade.getTotalPrice(),
+					Timestamp.valueOf(now) });
+		}
+		jdbcTemplate.batchUpdate("""
+				INSERT INTO trade_stat_monthly (user_id, month, ticker_id, currency, buy_count, sell_count,
+					buy_quantity, sell_quantity, buy_amount, sell_amount, update_at)
+				VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+				ON DUPLICATE KEY UPDATE buy_count = buy_count + VALUES(buy_count),
+					sell_count = sell_count + VALUES(sell_count),
+					buy_quantity = buy_quantity + VALUES(buy_quantity),
+					sell_quantity = sell_quantity + VALUES(sell_quantity),
+					buy_amount = buy_amount + VALUES(buy_amount), sell_amount = sell_amount + VALUES(sell_amount),
+					update_at = VALUES(update_at)
+				""", rows);
+	}
+}
@@ -1,19 +1,139 @@
 package com.example.stock.repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.stock.dto.TradeLogRowDto;
 import com.example.stock.model.Trade;
 import com.example.stock.model.Users;
 
 @Repository
 public interface TradeRepository extends JpaRepository<Trade, Long> {
 
-	List<Trade> findByUserOrderByCreateAtDesc(Users user);
+	// ユーザーごとの集計値（リスク管理のカウンターの作り直し用）
+	interface UserAmountRow {
+		Long getUserId();
 
-	List<Trade> findByUserAndCreateAtAfterOrderByCreateAtDesc(Users user, LocalDateTime from);
+		BigDecimal getAmount();
+	}
 
+	// ユーザー・銘柄ごとの建玉（リスク管理のカウンターの作り直し用）
+	interface PositionRow {
+		Long getUserId();
+
+		String getSymbol();
+
+		BigDecimal getQuantity();
+	}
+
+	// 取引履歴の1ページ分を表示する列だけで取得する（(user_id, create_at, id) のキーセットで前のページの続きから）
+	// symbol は \ でエスケープ済みの LIKE パターン
+	@Query("""
+			SELECT new com.example.stock.dto.TradeLogRowDto(t.id, t.createAt, k.ticker, t.quantity, t.unitPrice,
+				t.totalPrice, t.currency, t.settlementCurrency, t.exchangeRate, t.side, t.status, t.filledQuantity)
+			FROM Trade t JOIN t.ticker k
+			WHERE t.user = :user AND t.createAt >= :from
+				AND (t.createAt < :beforeAt OR (t.createAt = :beforeAt AND t.id < :beforeId))
+				AND (:symbol IS NULL OR UPPER(k.ticker) LIKE :symbol ESCAPE '\\')
+			ORDER BY t.createAt DESC, t.id DESC
+			""")
+	List<TradeLogRowDto> findTradeLogPage(@Param("user") Users user, @Param("from") LocalDateTime from,
+			@Param("beforeAt") LocalDateTime beforeAt, @Param("beforeId") Long beforeId,
+			@Param("symbol") String symbol, Pageable pageable);
+
+	// 指定ステータスの注文を受付順に取得する（再起動時の受付中注文の再投入用）
+	List<Trade> findByStatusOrderByIdAsc(int status);
+
+	// 注文のステータス・約定数量・不成立理由を更新する
+	@Modifying(flushAutomatically = true)
+	@Query("""
+			UPDATE Trade t
+			SET t.status = :status, t.filledQuantity = :filledQuantity, t.rejectReason = :rejectReason,
+				t.updateAt = :now
+			WHERE t.id = :id
+			""")
+	int updateStatus(@Param("id") Long id, @Param("status") int status,
+			@Param("filledQuantity") BigDecimal filledQuantity, @Param("rejectReason") String rejectReason,
+			@Param("now") LocalDateTime now);
+
+	// 指値注文の約定数量・ステータスを更新する（板に残っていて、約定数量が板から求めた約定前の値のままの場合のみ。
+	// 更新件数0 = 他のノード・処理が同じ約定を先に精算した、または取り消された）
+	@Modifying(flushAutomatically = true)
+	@Query("""
+			UPDATE Trade t
+			SET t.status = :status, t.filledQuantity = :filledAfter, t.updateAt = :now
+			WHERE t.id = :id AND t.filledQuantity = :filledBefore AND t.status IN (1, 2)
+			""")
+	int recordFill(@Param("id") Long id, @Param("filledBefore") BigDecimal filledBefore,
+			@Param("filledAfter") BigDecimal filledAfter, @Param("status") int status,
+			@Param("now") LocalDateTime now);
+
+	// 寄付待ちの注文を取り消す（寄付待ちの場合のみ。更新件数0 = 寄付待ちでない）
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("""
+			UPDATE Trade t SET t.status = 3, t.updateAt = :now
+			WHERE t.id = :id AND t.user = :user AND t.status = 6
+			""")
+	int cancelQueued(@Param("id") Long id, @Param("user") Users user, @Param("now") LocalDateTime now);
+
+	// 指定ステータスの注文がある銘柄（寄付での執行対象の銘柄の取得用）
+	@Query("SELECT DISTINCT t.ticker.ticker FROM Trade t WHERE t.status = :status")
+	List<String> findSymbolsByStatus(@Param("status") int status);
+
+	// 指定日時より前に受け付けた、銘柄の指定ステータスの注文を受付順に取得する（寄付での執行用）
+	List<Trade> findByTicker_TickerAndStatusAndCreateAtBeforeOrderByIdAsc(String symbol, int status,
+			LocalDateTime before);
+
+	// 板に残っている指値注文を受付順に取得する（再起動時の板の復元用）
+	List<Trade> findByTypeAndStatusInOrderByCreateAtAscIdAsc(int type, Collection<Integer> statuses);
+
+	// 注文のあるユーザーIDの最小値・最大値（取引統計の作り直しの分割用）
+	@Query("SELECT MIN(t.user.id) FROM Trade t")
+	Long findMinUserId();
+
+	@Query("SELECT MAX(t.user.id) FROM Trade t")
+	Long findMaxUserId();
+
+	// 指定日時以降に約定した注文の約定代金（米ドル）をユーザーごとに合計する
+	// 約定済みで約定数量が0の行（約定数量の導入前の注文）は注文株数を約定数量とみなす
+	@Query(nativeQuery = true, value = """
+			SELECT t.user_id AS userId,
+				SUM(CASE WHEN t.status = 4 AND t.filled_quantity = 0 THEN t.quantity ELSE t.filled_quantity END
+					* t.unit_price) AS amount
+			FROM trade t
+			WHERE t.update_at >= :from AND (t.status = 4 OR t.filled_quantity > 0)
+			GROUP BY t.user_id
+			""")
+	List<UserAmountRow> sumFilledNotionalSince(@Param("from") LocalDateTime from);
+
+	// 指定日時以降に受け付けた注文の件数をユーザーごとに数える
+	@Query(nativeQuery = true, value = """
+			SELECT t.user_id AS userId, COUNT(*) AS amount
+			FROM trade t
+			WHERE t.create_at >= :from
+			GROUP BY t.user_id
+			""")
+	List<UserAmountRow> countOrdersSince(@Param("from") LocalDateTime from);
+
+	// 約定数量から、ユーザー・銘柄ごとの建玉（買い − 売り）を求める
+	@Query(nativeQuery = true, value = """
+			SELECT t.user_id AS userId, k.ticker AS symbol,
+				SUM(CASE WHEN t.side = 0 THEN 1 ELSE -1 END
+					* CASE WHEN t.status = 4 AND t.filled_quantity = 0 THEN t.quantity ELSE t.filled_quantity END)
+					AS quantity
+			FROM trade t
+			JOIN tickers k ON k.id = t.ticker_id
+			WHERE t.status = 4 OR t.filled_quantity > 0
+			GROUP BY t.user_id, k.ticker
+			""")
+	List<PositionRow> sumPositions();
 }
@@ -0,0 +1,95 @@
+package com.example.stock.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.model.TradeStatMonthly;
+import com.example.stock.model.Users;
+
+@Repository
+public interface TradeStatMonthlyRepository extends JpaRepository<TradeStatMonthly, Long> {
+
+	// 取引統計の1行（月・銘柄・決済通貨ごと）
+	interface StatRow {
+		LocalDate getMonth();
+
+		String getSymbol();
+
+		String getCurrency();
+
+		long getBuyCount();
+
+		long getSellCount();
+
+		BigDecimal getBuyAmount();
+
+		BigDecimal getSellAmount();
+	}
+
+	// ユーザーの指定月以降の集計を、銘柄コードと合わせて取得する（ユニーク制約の (user_id, month) で絞り込む）
+	@Query("SELECT s.month AS month, k.ticker AS symbol, s.currency AS currency, s.buyCount AS buyCount, "
+			+ "s.sellCount AS sellCount, s.buyAmount AS buyAmount, s.sellAmount AS sellAmount "
+			+ "FROM TradeStatMonthly s JOIN s.ticker k WHERE s.user = :user AND s.month >= :from")
+	List<StatRow> findRows(@Param("user") Users user, @Param("from") LocalDate from);
+
+	// 約定を集計に加算する。集計行がなければ新規に作成する（ユニーク制約を利用）
+	@Modifying
+	@Query(nativeQuery = true, value = """
+			INSERT INTO trade_stat_monthly (user_id, month, ticker_id, currency, buy_count, sell_count,
+				buy_quantity, sell_quantity, buy_amount, sell_amount, update_at)
+			VALUES (:userId, :month, :tickerId, :currency, :buyCount, :sellCount,
+				:buyQuantity, :sellQuantity, :buyAmount, :sellAmount, :now)
+			ON DUPLICATE KEY UPDATE buy_count = buy_count + :buyCount, sell_count = sell_count + :sellCount,
+				buy_quantity = buy_quantity + :buyQuantity, sell_quantity = sell_quantity + :sellQuantity,
+				buy_amount = buy_amount + :buyAmount, sell_amount = sell_amount + :sellAmount, update_at = :now
+			""")
+	int add(@Param("userId") Long userId, @Param("month") LocalDate month, @Param("tickerId") Long tickerId,
+			@Param("currency") String currency, @Param("buyCount") long buyCount, @Param("sellCount") long sellCount,
+			@Param("buyQuantity") BigDecimal buyQuantity, @Param("sellQuantity") BigDecimal sellQuantity,
+			@Param("buyAmount") BigDecimal buyAmount, @Param("sellAmount") BigDecimal sellAmount,
+			@Param("now") LocalDateTime now);
+
+	// 指定範囲のユーザーの集計を削除する（集計の作り直し用）
+	@Modifying
+	@Query(nativeQuery = true, value = "DELETE FROM trade_stat_monthly WHERE user_id BETWEEN :fromUserId AND :toUserId")
+	int deleteByUserRange(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId);
+
+	// 指定範囲のユーザーの約定済みの注文から集計を作る（一部約定は約定分の金額を按分する。按分の端数処理は板での約定と同じ）
+	// filled_quantity を持たない古い約定済みの注文は、全量約定として数える
+	@Modifying
+	@Query(nativeQuery = true, value = """
+			INSERT INTO trade_stat_monthly (user_id, month, ticker_id, currency, buy_count, sell_count,
+				buy_quantity, sell_quantity, buy_amount, sell_amount, update_at)
+			SELECT f.user_id, f.month, f.ticker_id, f.currency,
+				SUM(f.side = 0), SUM(f.side = 1),
+				SUM(CASE WHEN f.side = 0 THEN f.filled ELSE 0 END),
+				SUM(CASE WHEN f.side = 1 THEN f.filled ELSE 0 END),
+				SUM(CASE WHEN f.side = 0 THEN f.amount ELSE 0 END),
+				SUM(CASE WHEN f.side = 1 THEN f.amount ELSE 0 END),
+				:now
+			FROM (
+				SELECT t.user_id, DATE_FORMAT(t.create_at, '%Y-%m-01') AS month, t.ticker_id,
+					UPPER(t.settlement_currency) AS currency, t.side,
+					CASE WHEN t.status = 4 THEN t.quantity ELSE t.filled_quantity END AS filled,
+					CASE
+						WHEN t.status = 4 OR t.filled_quantity >= t.quantity THEN t.total_price
+						WHEN UPPER(t.settlement_currency) = 'JPY'
+							THEN CEIL(t.total_price * t.filled_quantity / t.quantity)
+						ELSE ROUND(t.total_price * t.filled_quantity / t.quantity, 2)
+					END AS amount
+				FROM trade t
+				WHERE t.user_id BETWEEN :fromUserId AND :toUserId AND (t.status = 4 OR t.filled_quantity > 0)
+			) f
+			GROUP BY f.user_id, f.month, f.ticker_id, f.currency
+			""")
+	int rebuildByUserRange(@Param("fromUserId") long fromUserId, @Param("toUserId") long toUserId,
+			@Param("now") LocalDateTime now);
+}
@@ -1,8 +1,15 @@
 package com.example.stock.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.stock.model.Tickers;
@@ -11,5 +18,51 @@ import com.example.stock.model.Users;
 
 @Repository
 public interface UserStockRepository extends JpaRepository<UserStock, Long> {
+
+	// 保有株1件分（ポートフォリオの読み込み用）
+	interface HoldingRow {
+		Long getUserId();
+
+		String getSymbol();
+
+		String getBrand();
+
+		BigDecimal getQuantity();
+
+		BigDecimal getCostBasis();
+	}
+
 	Optional<UserStock> findByUserAndTicker(Users user, Tickers ticker);
+
+	// 複数銘柄の保有をまとめて取得する（バスケット注文の検証用）
+	List<UserStock> findByUserAndTickerIn(Users user, Collection<Tickers> tickers);
+
+	// 保有数が足りる場合のみ株数と取得原価を減らす（更新件数0 = 保有数不足または保有なし）
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE UserStock s SET s.quantity = s.quantity - :quantity, s.costBasis = s.costBasis - :cost, "
+			+ "s.version = s.version + 1, s.updateAt = :now "
+			+ "WHERE s.user = :user AND s.ticker = :ticker AND s.quantity >= :quantity")
+	int decreaseQuantity(@Param("user") Users user, @Param("ticker") Tickers ticker,
+			@Param("quantity") BigDecimal quantity, @Param("cost") BigDecimal cost, @Param("now") LocalDateTime now);
+
+	// 株数と取得原価を加算する。保有がなければ新規に作成する（user_id, ticker_id のユニーク制約を利用）
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(nativeQuery = true, value = """
+			INSERT INTO user_stock (user_id, ticker_id, quantity, cost_basis, create_at, update_at, version)
+			VALUES (:userId, :tickerId, :quantity, :cost, :now, :now, 0)
+			ON DUPLICATE KEY UPDATE quantity = quantity + :quantity, cost_basis = cost_basis + :cost,
+				update_at = :now, version = version + 1
+			""")
+	int increaseQuantity(@Param("userId") Long userId, @Param("tickerId") Long tickerId,
+			@Param("quantity") BigDecimal quantity, @Param("cost") BigDecimal cost, @Param("now") LocalDateTime now);
+
+	// 全ユーザーの保有株を銘柄と合わせて取得する（起動時のポートフォリオ読み込み用、ユーザー・銘柄を個別に読み込まない）
+	@Query("SELECT s.user.id AS userId, t.ticker AS symbol, t.brand AS brand, s.quantity AS quantity, "
+			+ "s.costBasis AS costBasis FROM UserStock s JOIN s.ticker t WHERE s.quantity > 0")
+	List<HoldingRow> findAllHoldings();
+
+	// 指定ユーザーの保有株を銘柄と合わせて取得する（注文ページのキャッシュの読み込み用）
+	@Query("SELECT s.user.id AS userId, t.ticker AS symbol, t.brand AS brand, s.quantity AS quantity, "
+			+ "s.costBasis AS costBasis FROM UserStock s JOIN s.ticker t WHERE s.user = :user AND s.quantity > 0")
+	List<HoldingRow> findHoldingsByUser(@Param("user") Users user);
 }
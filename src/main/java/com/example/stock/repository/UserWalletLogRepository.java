@@ -1,10 +1,31 @@
 package com.example.stock.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.stock.model.UserWalletLog;
 
 @Repository
 public interface UserWalletLogRepository extends JpaRepository<UserWalletLog, Long> {
+
+	// 取引前の残高と変化額から、取引前後の残高を記録する
+	// 指値注文の分割約定など、同じ取引で2回目以降の場合は変化額を合算し、取引後残高を更新する
+	@Modifying(flushAutomatically = true)
+	@Query(nativeQuery = true, value = """
+			INSERT INTO user_wallet_log
+				(user_wallet_id, trade_id, currency, before_balance, after_balance, change_amount, create_at)
+			VALUES (:walletId, :tradeId, :currency, :beforeBalance, :beforeBalance + :changeAmount, :changeAmount, :now)
+			ON DUPLICATE KEY UPDATE
+				change_amount = change_amount + VALUES(change_amount),
+				after_balance = VALUES(after_balance)
+			""")
+	int insertTradeLog(@Param("walletId") Long walletId, @Param("tradeId") Long tradeId,
+			@Param("currency") String currency, @Param("beforeBalance") BigDecimal beforeBalance,
+			@Param("changeAmount") BigDecimal changeAmount, @Param("now") LocalDateTime now);
 }
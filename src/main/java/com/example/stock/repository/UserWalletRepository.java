@@ -1,6 +1,11 @@
 package com.example.stock.repository;
 
+import java.time.LocalDateTime;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.stock.model.UserWallet;
@@ -10,4 +15,23 @@ import com.example.stock.model.Users;
 public interface UserWalletRepository extends JpaRepository<UserWallet, Long> {
 
 	UserWallet findByUser(Users user);
-}
\ No newline at end of file
+
+	// 前回の反映から interval 件以上記帳されたウォレットについて、未反映の記帳を残高列へまとめて反映する
+	// 反映する記帳は集計時点で確定済みのものだけで、集計後に追記された記帳は次回に持ち越す
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(nativeQuery = true, value = """
+			UPDATE user_wallet w
+				JOIN (SELECT e.user_wallet_id,
+						COALESCE(SUM(CASE WHEN e.currency = 'JPY' THEN e.amount END), 0) AS jpy,
+						COALESCE(SUM(CASE WHEN e.currency = 'USD' THEN e.amount END), 0) AS usd,
+						MAX(e.seq) AS last_seq
+					FROM wallet_ledger_entry e
+						JOIN user_wallet uw ON uw.id = e.user_wallet_id
+					WHERE e.seq > uw.ledger_seq
+					GROUP BY e.user_wallet_id
+					HAVING COUNT(*) >= :interval) t ON t.user_wallet_id = w.id
+			SET w.jpy_balance = w.jpy_balance + t.jpy, w.usd_balance = w.usd_balance + t.usd,
+				w.ledger_seq = t.last_seq, w.version = w.version + 1, w.update_at = :now
+			""")
+	int foldLedger(@Param("interval") long interval, @Param("now") LocalDateTime now);
+}
@@ -3,9 +3,17 @@ package com.example.stock.repository;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.example.stock.model.Users;
 
 public interface UsersRepository extends JpaRepository<Users, Long> {
 	Optional<Users> findByEmail(String email);
+
+	// 売却時の取得原価の計算方法を変更する
+	@Modifying
+	@Query("UPDATE Users u SET u.costBasisMethod = :method WHERE u.id = :id")
+	int updateCostBasisMethod(@Param("id") Long id, @Param("method") int method);
 }
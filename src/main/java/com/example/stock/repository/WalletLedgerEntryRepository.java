@@ -0,0 +1,81 @@
+package com.example.stock.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.model.WalletLedgerEntry;
+
+@Repository
+public interface WalletLedgerEntryRepository extends JpaRepository<WalletLedgerEntry, Long> {
+
+	// 通貨ごとの合計金額
+	interface LedgerSum {
+		BigDecimal getJpy();
+
+		BigDecimal getUsd();
+	}
+
+	// ウォレットの現在の残高（残高列 + 未反映の記帳）と、最後の記帳の連番
+	interface LedgerBalance {
+		Long getWalletId();
+
+		BigDecimal getJpy();
+
+		BigDecimal getUsd();
+
+		Long getLastSeq();
+
+		default BigDecimal get(String currency) {
+			return "JPY".equalsIgnoreCase(currency) ? getJpy() : getUsd();
+		}
+	}
+
+	// 残高列に、連番が ledger_seq より後の記帳を足して現在の残高を求める（ウォレットが無い場合は null）
+	@Query(nativeQuery = true, value = """
+			SELECT w.id AS walletId,
+				w.jpy_balance + COALESCE(SUM(CASE WHEN e.currency = 'JPY' THEN e.amount END), 0) AS jpy,
+				w.usd_balance + COALESCE(SUM(CASE WHEN e.currency = 'USD' THEN e.amount END), 0) AS usd,
+				GREATEST(w.ledger_seq, COALESCE(MAX(e.seq), 0)) AS lastSeq
+			FROM user_wallet w
+				LEFT JOIN wallet_ledger_entry e ON e.user_wallet_id = w.id AND e.seq > w.ledger_seq
+			WHERE w.user_id = :userId
+			GROUP BY w.id, w.jpy_balance, w.usd_balance, w.ledger_seq
+			""")
+	LedgerBalance findBalance(@Param("userId") Long userId);
+
+	// 指定した連番で記帳を追記する（連番が使用済みの場合は一意制約違反になる）
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query(nativeQuery = true, value = """
+			INSERT INTO wallet_ledger_entry (user_wallet_id, seq, entry_type, currency, amount, trade_id, create_at)
+			VALUES (:walletId, :seq, :entryType, :currency, :amount, :tradeId, :now)
+			""")
+	int append(@Param("walletId") Long walletId, @Param("seq") long seq, @Param("entryType") int entryType,
+			@Param("currency") String currency, @Param("amount") BigDecimal amount, @Param("tradeId") Long tradeId,
+			@Param("now") LocalDateTime now);
+
+	// 連番 afterSeq より後で、指定日時以前の記帳の合計（スナップショットから先へ足し込む分）
+	@Query(nativeQuery = true, value = """
+			SELECT COALESCE(SUM(CASE WHEN currency = 'JPY' THEN amount END), 0) AS jpy,
+				COALESCE(SUM(CASE WHEN currency = 'USD' THEN amount END), 0) AS usd
+			FROM wallet_ledger_entry
+			WHERE user_wallet_id = :walletId AND seq > :afterSeq AND create_at <= :at
+			""")
+	LedgerSum sumAfter(@Param("walletId") Long walletId, @Param("afterSeq") long afterSeq,
+			@Param("at") LocalDateTime at);
+
+	// 連番 upToSeq 以前で、指定日時より後の記帳の合計（スナップショットから遡って差し引く分）
+	@Query(nativeQuery = true, value = """
+			SELECT COALESCE(SUM(CASE WHEN currency = 'JPY' THEN amount END), 0) AS jpy,
+				COALESCE(SUM(CASE WHEN currency = 'USD' THEN amount END), 0) AS usd
+			FROM wallet_ledger_entry
+			WHERE user_wallet_id = :walletId AND seq <= :upToSeq AND create_at > :at
+			""")
+	LedgerSum sumSince(@Param("walletId") Long walletId, @Param("upToSeq") long upToSeq,
+			@Param("at") LocalDateTime at);
+}
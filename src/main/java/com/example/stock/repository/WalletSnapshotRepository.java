@@ -0,0 +1,37 @@
+package com.example.stock.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.WalletSnapshot;
+
+@Repository
+public interface WalletSnapshotRepository extends JpaRepository<WalletSnapshot, Long> {
+
+	// 指定日時以前で最新のスナップショット
+	Optional<WalletSnapshot> findTopByUserWalletAndCreateAtLessThanEqualOrderBySeqDesc(UserWallet userWallet,
+			LocalDateTime at);
+
+	// 指定日時より後で最も古いスナップショット
+	Optional<WalletSnapshot> findTopByUserWalletAndCreateAtGreaterThanOrderBySeqAsc(UserWallet userWallet,
+			LocalDateTime at);
+
+	// 前回のスナップショットから interval 件以上の記帳を残高列へ反映したウォレットの残高列を、まとめてスナップショットにする
+	// （記帳を残高列へ反映した直後に実行する。取得日時は、反映した日時より前にならないようにする）
+	@Modifying
+	@Query(nativeQuery = true, value = """
+			INSERT INTO wallet_snapshot (user_wallet_id, seq, jpy_balance, usd_balance, create_at)
+			SELECT w.id, w.ledger_seq, w.jpy_balance, w.usd_balance, GREATEST(:now, w.update_at)
+			FROM user_wallet w
+			WHERE w.ledger_seq >= :interval + COALESCE(
+				(SELECT MAX(s.seq) FROM wallet_snapshot s WHERE s.user_wallet_id = w.id), 0)
+			""")
+	int takeSnapshots(@Param("interval") long interval, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,89 @@
+package com.example.stock.risk;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 期間（分・日など）ごとに値を積み上げるカウンター。期間が変わると0から数え直す。
+ *
+ * 期間と値の組を変更不可のオブジェクトとして持ち、compareAndSet で置き換えるため、ロックを使わずに
+ * 「上限を超えない場合のみ加算する」を原子的に行える。
+ */
+public final class WindowCounter {
+
+	private final AtomicReference<Window> current = new AtomicReference<>(new Window(Long.MIN_VALUE, 0));
+
+	/**
+	 * 指定した期間の値を返す（別の期間の値が入っている場合は0）。
+	 *
+	 * @param window 期間の番号（エポックからの分数・日数など）
+	 */
+	public long get(long window) {
+		Window w = current.get();
+		return w.window == window ? w.value : 0;
+	}
+
+	/**
+	 * 加算後の値が上限以下の場合のみ加算する。
+	 *
+	 * @param window 期間の番号
+	 * @param amount 加算する値
+	 * @param limit 上限（0以下の場合は上限なし）
+	 * @return 加算した場合は true
+	 */
+	public boolean tryAdd(long window, long amount, long limit) {
+		while (true) {
+			Window w = current.get();
+			long base = w.window == window ? w.value : 0;
+			// 古い期間の加算が遅れて届いた場合は、新しい期間を巻き戻さない
+			if (w.window > window) {
+				return limit <= 0 || amount <= limit;
+			}
+			long next = base + amount;
+			if (limit > 0 && next > limit) {
+				return false;
+			}
+			if (current.compareAndSet(w, new Window(window, next))) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 上限を確認せずに加算する（約定の反映など、既に確定した値の加算に使う）。
+	 */
+	public void add(long window, long amount) {
+		tryAdd(window, amount, 0);
+	}
+
+	/**
+	 * 指定した期間の値から減らす（加算した予約の取り消しに使う）。既に次の期間に移っている場合は何もしない。
+	 */
+	public void release(long window, long amount) {
+		while (true) {
+			Window w = current.get();
+			if (w.window != window) {
+				return;
+			}
+			if (current.compareAndSet(w, new Window(window, Math.max(w.value - amount, 0)))) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 指定した期間の値を置き換える（DBからの作り直し・突き合わせに使う）。
+	 */
+	public void set(long window, long value) {
+		current.set(new Window(window, value));
+	}
+
+	private static final class Window {
+		private final long window;
+		private final long value;
+
+		private Window(long window, long value) {
+			this.window = window;
+			this.value = value;
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package com.example.stock.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.stock.dto.AccountSnapshot;
+import com.example.stock.event.HoldingChangedEvent;
+import com.example.stock.event.WalletChangedEvent;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 注文ページの表示に使うウォレット残高・保有株数のキャッシュ（ユーザー単位、ノードごとのメモリ上）。
+ *
+ * 初回のみDBから読み込み、以降は約定による増減（{@link WalletChangedEvent}・{@link HoldingChangedEvent}）を
+ * コミット時にキャッシュへ書き込むため、定常状態では残高・保有株のクエリを発行しない。
+ *
+ * 更新中のトランザクションがあるユーザーは、コミット（またはロールバック）が終わるまでキャッシュを使わずDBから読む。
+ * これにより、自分の約定のコミット直後にキャッシュの古い値が見えることはない。
+ * 他ノードへは Redis Pub/Sub で更新の開始・終了を通知し、受信したノードはそのユーザーのキャッシュを破棄する。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountCacheService implements MessageListener {
+
+	/** 更新の開始・終了の通知に使うRedisチャンネル名 */
+	public static final String INVALIDATE_CHANNEL = "stock:account-invalidate";
+
+	// 更新中の印の有効期限（終了の通知が届かなかった場合でも、この時間が過ぎればキャッシュを使い直す）
+	private static final long PENDING_TIMEOUT_MILLIS = 60_000L;
+	// 通知の取りこぼしに備え、読み込みからこの時間が過ぎたキャッシュはDBから読み直す
+	private static final long MAX_AGE_MILLIS = 10 * 60 * 1000L;
+
+	private static final String BEGIN = "begin";
+	private static final String END = "end";
+	private static final String EVICT = "evict";
+
+	private final UserWalletService userWalletService;
+	private final UserStockService userStockService;
+	private final StringRedisTemplate stringRedisTemplate;
+
+	// 自ノードの識別子（自ノードが配信した通知を無視するため）
+	private final String nodeId = UUID.randomUUID().toString();
+
+	// ユーザーID → キャッシュの状態（置き換えは compute で行い、ユーザー単位で原子的に更新する）
+	private final Map<Long, CacheState> states = new ConcurrentHashMap<>();
+
+	/**
+	 * 指定ユーザーの残高・保有株数を返す。
+	 * キャッシュが無い、または更新中の場合はDBから読み込む（更新中でなければ読み込んだ値をキャッシュする）。
+	 *
+	 * @param user ユーザー
+	 * @return 残高・保有株数（ウォレットが取得できない場合は null）
+	 */
+	public AccountSnapshot getSnapshot(Users user) {
+		Long userId = user.getId();
+		CacheState state = states.get(userId);
+		if (state != null && state.isUsable(System.currentTimeMillis())) {
+			return state.snapshot;
+		}
+
+		// 読み込み中に更新が始まった場合は世代が進むため、読み込んだ値はキャッシュしない
+		long generation = state != null ? state.generation : 0;
+		AccountSnapshot loaded = load(user);
+		if (loaded == null) {
+			return null;
+		}
+		states.compute(userId, (k, current) -> {
+			long now = System.currentTimeMillis();
+			long currentGeneration = current != null ? current.generation : 0;
+			if (currentGeneration != generation || (current != null && current.isPending(now))) {
+				return current;
+			}
+			return new CacheState(currentGeneration, 0, 0, loaded, now);
+		});
+		return loaded;
+	}
+
+	private AccountSnapshot load(Users user) {
+		UserWallet wallet = userWalletService.getWalletByUser(user);
+		if (wallet == null) {
+			return null;
+		}
+		return new AccountSnapshot(wallet.getCurrentJpyBalance(), wallet.getCurrentUsdBalance(),
+				Map.copyOf(userStockService.getHoldingQuantities(user)));
+	}
+
+	/**
+	 * 残高の増減を記録する（更新と同じトランザクション内で呼ばれ、コミット時にキャッシュへ反映する）。
+	 */
+	@EventListener
+	public void onWalletChanged(WalletChangedEvent event) {
+		record(event.getUserId(), s -> s.withBalanceDelta(event.getCurrency(), event.getAmountDelta()));
+	}
+
+	/**
+	 * 保有株数の増減を記録する（更新と同じトランザクション内で呼ばれ、コミット時にキャッシュへ反映する）。
+	 */
+	@EventListener
+	public void onHoldingChanged(HoldingChangedEvent event) {
+		record(event.getUserId(), s -> s.withHoldingDelta(event.getSymbol(), event.getQuantityDelta()));
+	}
+
+	private void record(Long userId, UnaryOperator<AccountSnapshot> change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			// トランザクション外の更新は既に反映済み → キャッシュを破棄する
+			evict(userId);
+			publish(EVICT, userId);
+			return;
+		}
+
+		PendingChanges pending = currentPendingChanges();
+		if (pending == null) {
+			pending = new PendingChanges();
+			TransactionSynchronizationManager.registerSynchronization(pending);
+		}
+		// このトランザクションで最初の更新なら、コミットまでキャッシュを使わないよう印を付ける
+		if (pending.add(userId, change)) {
+			states.compute(userId, (k, current) -> current == null
+					? new CacheState(1, 1, System.currentTimeMillis(), null, 0)
+					: new CacheState(current.generation + 1, current.pending + 1, System.currentTimeMillis(),
+							current.snapshot, current.loadedAt));
+			publish(BEGIN, userId);
+		}
+	}
+
+	// 現在のトランザクションに登録済みの記録（REQUIRES_NEW で中断中の外側のものは含まれない）
+	private PendingChanges currentPendingChanges() {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			if (synchronization instanceof PendingChanges changes && changes.owner() == this) {
+				return changes;
+			}
+		}
+		return null;
+	}
+
+	// 更新中の印を外し、コミットされていれば増減をキャッシュへ書き込む
+	private void complete(Long userId, UnaryOperator<AccountSnapshot> change) {
+		states.computeIfPresent(userId, (k, current) -> {
+			AccountSnapshot next = change != null && current.snapshot != null
+					? change.apply(current.snapshot)
+					: current.snapshot;
+			return new CacheState(current.generation + 1, Math.max(current.pending - 1, 0), current.pendingSince,
+					next, current.loadedAt);
+		});
+		publish(END, userId);
+	}
+
+	private void evict(Long userId) {
+		states.computeIfPresent(userId,
+				(k, current) -> new CacheState(current.generation + 1, current.pending, current.pendingSince, null, 0));
+	}
+
+	private void publish(String type, Long userId) {
+		try {
+			stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, type + ":" + nodeId + ":" + userId);
+		} catch (Exception e) {
+			// 通知の失敗で約定処理を止めない（他ノードのキャッシュは有効期限で読み直される）
+			log.warn("キャッシュ破棄の通知に失敗しました: ユーザーID {} -> {}", userId, e.getMessage());
+		}
+	}
+
+	/**
+	 * 他ノードからの通知を受信し、該当ユーザーのキャッシュを破棄する。
+	 * 更新の開始を受信してから終了を受信するまでは、そのユーザーのキャッシュを使わない。
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+		if (parts.length != 3 || nodeId.equals(parts[1])) {
+			return;
+		}
+		Long userId;
+		try {
+			userId = Long.valueOf(parts[2]);
+		} catch (NumberFormatException e) {
+			log.error("キャッシュ破棄の通知を解析できませんでした: {}", parts[2]);
+			return;
+		}
+
+		switch (parts[0]) {
+		case BEGIN -> states.compute(userId, (k, current) -> current == null
+				? new CacheState(1, 1, System.currentTimeMillis(), null, 0)
+				: new CacheState(current.generation + 1, current.pending + 1, System.currentTimeMillis(), null, 0));
+		case END -> states.computeIfPresent(userId, (k, current) -> new CacheState(current.generation + 1,
+				Math.max(current.pending - 1, 0), current.pendingSince, null, 0));
+		case EVICT -> evict(userId);
+		default -> log.warn("不明なキャッシュ破棄の通知です: {}", parts[0]);
+		}
+	}
+
+	/**
+	 * ユーザーごとのキャッシュの状態（変更不可）。
+	 */
+	private static final class CacheState {
+		// 更新の開始・終了・破棄のたびに進む（読み込み中に更新があったかの判定に使う）
+		private final long generation;
+		// 更新中のトランザクション数（自ノード・他ノードの合計）
+		private final int pending;
+		private final long pendingSince;
+		// キャッシュした値（未読み込み・破棄済みは null）
+		private final AccountSnapshot snapshot;
+		private final long loadedAt;
+
+		private CacheState(long generation, int pending, long pendingSince, AccountSnapshot snapshot,
+				long loadedAt) {
+			this.generation = generation;
+			this.pending = pending;
+			this.pendingSince = pendingSince;
+			this.snapshot = snapshot;
+			this.loadedAt = loadedAt;
+		}
+
+		private boolean isPending(long now) {
+			return pending > 0 && now - pendingSince < PENDING_TIMEOUT_MILLIS;
+		}
+
+		private boolean isUsable(long now) {
+			return snapshot != null && !isPending(now) && now - loadedAt < MAX_AGE_MILLIS;
+		}
+	}
+
+	/**
+	 * 1つのトランザクション内でのユーザーごとの増減の記録。完了時にまとめてキャッシュへ反映する。
+	 */
+	private final class PendingChanges implements TransactionSynchronization {
+		private final Map<Long, UnaryOperator<AccountSnapshot>> changes = new LinkedHashMap<>();
+
+		private AccountCacheService owner() {
+			return AccountCacheService.this;
+		}
+
+		// 増減を追加する（このユーザーの最初の増減なら true）
+		private boolean add(Long userId, UnaryOperator<AccountSnapshot> change) {
+			UnaryOperator<AccountSnapshot> previous = changes.get(userId);
+			if (previous == null) {
+				changes.put(userId, change);
+				return true;
+			}
+			changes.put(userId, s -> change.apply(previous.apply(s)));
+			return false;
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			boolean committed = status == STATUS_COMMITTED;
+			changes.forEach((userId, change) -> complete(userId, committed ? change : null));
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.stock.converter.TradeConverter;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
+import com.example.stock.dto.TradeRequestDto;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.event.HoldingChangedEvent;
+import com.example.stock.event.TradeFilledEvent;
+import com.example.stock.event.WalletChangedEvent;
+import com.example.stock.exception.InsufficientBalanceException;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TradeBatchRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository.LedgerBalance;
+import com.example.stock.util.TradeValidationUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 複数銘柄の注文（バスケット注文）をまとめて検証・確定するサービス。
+ *
+ * 銘柄・現在値・ウォレット・保有株はバスケット全体で1回ずつ読み込み、すべての注文を同じスナップショットで検証する。
+ * 確定は1トランザクションで行い、注文・ウォレットログ・台帳・保有株はJDBCのバッチ更新でまとめる（ウォレットの行は更新しない）。
+ * ロットと実現損益は注文ごとに {@link TaxLotService} で更新する。
+ * どれか1件でも確定できなければ、バスケット全体をロールバックする。
+ * 全件をその場で約定させるため、立会時間外（現在値が前日の終値）は受け付けない。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BasketOrderService {
+
+	private final TickersService tickersService;
+	private final QuoteService quoteService;
+	private final UserWalletService userWalletService;
+	private final UserStockService userStockService;
+	private final TradeService tradeService;
+	private final TradeConverter tradeConverter;
+	private final TradeLockService tradeLockService;
+	private final TransactionTemplate transactionTemplate;
+	private final WalletLedgerService walletLedgerService;
+	private final TradeBatchRepository tradeBatchRepository;
+	private final TaxLotService taxLotService;
+	private final ApplicationEventPublisher eventPublisher;
+	private final RiskLimitService riskLimitService;
+	private final OpeningQueueService openingQueueService;
+
+	/**
+	 * バスケット注文を検証し、すべての注文をまとめて約定させる。
+	 * 現在値で約定しない指値注文は、板に残すと全体の成否が決まらないため受け付けない。
+	 * 立会時間外は、寄付待ちにすると全体の成否が寄付まで決まらないため受け付けない。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @param legs 注文（1銘柄につき1件とは限らない）
+	 * @return 約定した注文（リクエストと同じ順）
+	 * @throws IllegalStateException 立会時間外の場合、いずれかの注文が検証・確定できない場合（何も反映されず、注文回数にも数えない）
+	 */
+	public List<Trade> submitBasket(Users user, List<TradeRequestDto> legs) {
+		if (openingQueueService.isMarketClosed()) {
+			throw new IllegalStateException("立会時間外のため、バスケット注文は受け付けられません。立会時間中に注文してください。");
+		}
+		riskLimitService.acquireOrders(user, legs.size());
+		List<Trade> trades;
+		try {
+			trades = tradeLockService.executeWithUserLock(user.getId(),
+					() -> transactionTemplate.execute(status -> {
+						List<Trade> prepared = prepare(user, legs);
+						settle(user, prepared);
+						return prepared;
+					}));
+		} catch (OptimisticLockingFailureException e) {
+			// ロックの外（別ノードなど）からの記帳と競合した（全体がロールバック済み）
+			riskLimitService.releaseOrders(user, legs.size());
+			throw new IllegalStateException("他の処理と競合したため注文を確定できませんでした。再度お試しください。", e);
+		} catch (RuntimeException e) {
+			// 何も記録していないバスケットは注文回数に数えない
+			riskLimitService.releaseOrders(user, legs.size());
+			throw e;
+		}
+		log.info("【バスケット注文完了】ユーザーID: {}, 件数: {}", user.getId(), trades.size());
+		return trades;
+	}
+
+	// 1回ずつの読み込みで全注文を組み立てて検証する
+	private List<Trade> prepare(Users user, List<TradeRequestDto> legs) {
+		Set<Long> tickerIds = new LinkedHashSet<>();
+		for (TradeRequestDto leg : legs) {
+			tickerIds.add(leg.getTickerId());
+		}
+		Map<Long, Tickers> tickers = tickersService.getTickersByIds(tickerIds);
+		Map<String, StockCandleWithPrevCloseDto> quotes = quoteService.getLatestStocks(
+				tickers.values().stream().map(Tickers::getTicker).toList());
+		UserWallet wallet = userWalletService.getWalletByUser(user);
+		Map<Long, BigDecimal> holdings = userStockService.getStockQuantities(user, tickers.values());
+
+		Map<Long, TradeContext> contexts = new HashMap<>();
+		for (Tickers ticker : tickers.values()) {
+			StockCandleWithPrevCloseDto quote = quotes.get(ticker.getTicker());
+			BigDecimal[] range = quote != null
+					? TradeValidationUtil.getPriceLimitRange(quote.getClose())
+					: new BigDecimal[] { null, null };
+			contexts.put(ticker.getId(), new TradeContext(user, ticker, quote, range[0], range[1], wallet,
+					holdings.getOrDefault(ticker.getId(), BigDecimal.ZERO)));
+		}
+
+		List<Trade> trades = new ArrayList<>(legs.size());
+		for (TradeRequestDto leg : legs) {
+			TradeContext context = contexts.get(leg.getTickerId());
+			String symbol = context.getTicker().getTicker();
+			if (context.getQuote() == null) {
+				throw new IllegalStateException(symbol + "：現在値を取得できないため、注文できません。");
+			}
+			if (!"JPY".equalsIgnoreCase(leg.getSettlementCurrency())
+					&& !"USD".equalsIgnoreCase(leg.getSettlementCurrency())) {
+				throw new IllegalStateException(symbol + "：未対応の通貨です: " + leg.getSettlementCurrency());
+			}
+
+			Trade trade = tradeConverter.toTradeEntity(leg, context);
+			try {
+				tradeService.validateTrade(trade, context);
+			} catch (IllegalStateException e) {
+				throw new IllegalStateException(symbol + "：" + e.getMessage(), e);
+			}
+			if (tradeService.isRestingLimitOrder(trade, context)) {
+				throw new IllegalStateException(symbol + "：バスケット注文では現在値で約定しない指値は指定できません。");
+			}
+			trade.setStatus(TradeStatus.FILLED.getCode());
+			trade.setFilledQuantity(trade.getQuantity());
+			trades.add(trade);
+		}
+
+		validateTotals(trades, wallet, holdings);
+
+		// 全注文の合計で売買代金・建玉の上限を確認して予約する（確定できなかった場合はロールバック時に戻る）
+		for (Trade trade : trades) {
+			try {
+				riskLimitService.reserve(trade);
+			} catch (IllegalStateException e) {
+				throw new IllegalStateException(trade.getTicker().getTicker() + "：" + e.getMessage(), e);
+			}
+		}
+		return trades;
+	}
+
+	// 注文ごとの検証に加えて、買いの合計が残高以内・同じ銘柄の売りの合計が保有数以内であることを確認する
+	private void validateTotals(List<Trade> trades, UserWallet wallet, Map<Long, BigDecimal> holdings) {
+		Map<String, BigDecimal> buyTotals = new HashMap<>();
+		Map<Long, BigDecimal> sellTotals = new HashMap<>();
+		for (Trade trade : trades) {
+			if (trade.getSide() == 0) {
+				buyTotals.merge(trade.getSettlementCurrency().toUpperCase(), trade.getTotalPrice(), BigDecimal::add);
+			} else {
+				sellTotals.merge(trade.getTicker().getId(), trade.getQuantity(), BigDecimal::add);
+			}
+		}
+
+		BigDecimal jpyTotal = buyTotals.getOrDefault("JPY", BigDecimal.ZERO);
+		BigDecimal usdTotal = buyTotals.getOrDefault("USD", BigDecimal.ZERO);
+		if (wallet.getCurrentJpyBalance().compareTo(jpyTotal) < 0
+				|| wallet.getCurrentUsdBalance().compareTo(usdTotal) < 0) {
+			throw new IllegalStateException("買い注文の合計金額に対して残高不足です。注文を修正してください。");
+		}
+		sellTotals.forEach((tickerId, quantity) -> {
+			if (holdings.getOrDefault(tickerId, BigDecimal.ZERO).compareTo(quantity) < 0) {
+				throw new IllegalStateException("売り注文の合計株数に対して保有株数が不足です。注文を修正してください。");
+			}
+		});
+	}
+
+	// 注文の保存 → 残高の確認（通貨ごと）→ ウォレットログ → 台帳 → 保有株更新 → 取引統計 → 保有数の増減を通知
+	private void settle(Users user, List<Trade> trades) {
+		LocalDateTime now = LocalDateTime.now();
+
+		// 1. 注文をまとめて保存
+		tradeBatchRepository.insertTrades(trades);
+
+		// 2. 現在の残高（残高列 + 未反映の記帳）で、通貨ごとの買い合計が残高以内か確認する
+		Map<String, BigDecimal[]> totals = new LinkedHashMap<>(); // 通貨 → [買い合計, 売り合計]
+		for (Trade trade : trades) {
+			String currency = trade.getSettlementCurrency().toUpperCase();
+			BigDecimal[] total = totals.computeIfAbsent(currency,
+					k -> new BigDecimal[] { BigDecimal.ZERO, BigDecimal.ZERO });
+			total[trade.getSide()] = total[trade.getSide()].add(trade.getTotalPrice());
+		}
+		LedgerBalance balance = walletLedgerService.getCurrentBalance(user);
+		totals.forEach((currency, total) -> {
+			if (balance.get(currency).compareTo(total[0]) < 0) {
+				log.error("【残高エラー】ユーザーID: {}, 通貨: {}, 買い合計: {}", user.getId(), currency, total[0]);
+				throw new InsufficientBalanceException("【最終検証】残高不足");
+			}
+			eventPublisher.publishEvent(new WalletChangedEvent(user.getId(), currency, total[1].subtract(total[0])));
+		});
+
+		// 3. 現在の残高から、注文順に取引前後の残高を求めてログを保存
+		Map<String, BigDecimal> running = new HashMap<>();
+		totals.keySet().forEach(currency -> running.put(currency, balance.get(currency)));
+		List<BigDecimal> beforeBalances = new ArrayList<>(trades.size());
+		List<BigDecimal> changeAmounts = new ArrayList<>(trades.size());
+		for (Trade trade : trades) {
+			String currency = trade.getSettlementCurrency().toUpperCase();
+			BigDecimal change = trade.getSide() == 0 ? trade.getTotalPrice().negate() : trade.getTotalPrice();
+			BigDecimal before = running.get(currency);
+			beforeBalances.add(before);
+			changeAmounts.add(change);
+			running.put(currency, before.add(change));
+		}
+		tradeBatchRepository.insertWalletLogs(balance.getWalletId(), trades, beforeBalances, changeAmounts, now);
+
+		// 4. 台帳に注文順で記帳（読み込んだ残高の次の連番から。他の処理の記帳と競合した場合は例外）
+		walletLedgerService.appendTradeEntries(balance, trades, changeAmounts, now);
+
+		// 5. ロットを更新し（売り → 買いの順）、保有株の株数・取得原価を銘柄ごとにまとめて更新（売りは保有数が足りる場合のみ）
+		Map<Long, BigDecimal> sells = new LinkedHashMap<>();
+		Map<Long, BigDecimal> buys = new LinkedHashMap<>();
+		Map<Long, BigDecimal> sellCosts = new HashMap<>();
+		Map<Long, BigDecimal> buyCosts = new HashMap<>();
+		BigDecimal[] costs = new BigDecimal[trades.size()]; // 注文ごとの取得原価（trades と同じ順）
+		for (int i = 0; i < trades.size(); i++) {
+			Trade trade = trades.get(i);
+			if (trade.getSide() == 1) {
+				costs[i] = taxLotService.consumeLots(trade, now);
+				sells.merge(trade.getTicker().getId(), trade.getQuantity(), BigDecimal::add);
+				sellCosts.merge(trade.getTicker().getId(), costs[i], BigDecimal::add);
+			}
+		}
+		for (int i = 0; i < trades.size(); i++) {
+			Trade trade = trades.get(i);
+			if (trade.getSide() == 0) {
+				costs[i] = taxLotService.addLot(trade, now);
+				buys.merge(trade.getTicker().getId(), trade.getQuantity(), BigDecimal::add);
+				buyCosts.merge(trade.getTicker().getId(), costs[i], BigDecimal::add);
+			}
+		}
+		if (!sells.isEmpty()) {
+			for (int updated : tradeBatchRepository.decreaseQuantities(user.getId(), sells, sellCosts, now)) {
+				if (updated == 0) {
+					log.error("【保有株エラー】ユーザーID: {}, 売り注文: {}", user.getId(), sells);
+					throw new IllegalStateException("【最終検証】保有株数が不足しています");
+				}
+			}
+		}
+		if (!buys.isEmpty()) {
+			tradeBatchRepository.increaseQuantities(user.getId(), buys, buyCosts, now);
+		}
+
+		// 6. 取引統計に加算
+		tradeBatchRepository.addTradeStats(trades, now);
+
+		// 7. 注文ごとの保有数・取得原価の増減と約定を通知（コミット後にポートフォリオ・リスク管理へ反映される）
+		for (int i = 0; i < trades.size(); i++) {
+			Trade trade = trades.get(i);
+			boolean sell = trade.getSide() == 1;
+			eventPublisher.publishEvent(new HoldingChangedEvent(user.getId(), trade.getTicker().getTicker(),
+					trade.getTicker().getBrand(), sell ? trade.getQuantity().negate() : trade.getQuantity(),
+					sell ? costs[i].negate() : costs[i]));
+			eventPublisher.publishEvent(new TradeFilledEvent(user.getId(), trade.getTicker().getTicker(),
+					trade.getSide(), trade.getQuantity(), trade.getQuantity().multiply(trade.getUnitPrice())));
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.example.stock.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.example.stock.repository.StockCandleRepository;
+import com.example.stock.util.TradingCalendarUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * チャートのX軸に使う、足の種類ごとの共通日付軸を提供するサービス。
+ *
+ * 取引カレンダーから生成した日付と、取り込み済みの全銘柄の足の日時を合わせて作成するため、
+ * データ件数の少ない銘柄でも別銘柄のデータを取得せずに軸を揃えられる。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChartAxisService {
+
+	private final StockCandleRepository stockCandleRepository;
+
+	/**
+	 * 指定した足の種類の日付軸を取得する。
+	 * 取り込み済みの日時を優先し、取り込まれていない期間は取引カレンダーで補う。
+	 *
+	 * @param interval   足の種類（例: "1day", "1week", "1month"）
+	 * @param outputsize 軸の件数（チャートの本数）
+	 * @return "yyyy-MM-dd" 形式の日付のリスト（古い順）
+	 */
+	@Cacheable(value = "dateAxisCache", key = "#interval + ':' + #outputsize")
+	public List<String> getDateAxis(String interval, int outputsize) {
+		List<LocalDateTime> ingested = stockCandleRepository
+				.findDistinctDatetimesByInterval(interval, PageRequest.of(0, outputsize));
+
+		// 軸の終端：取り込み済みの最新日。未取り込みなら直近の取引日
+		LocalDate end = ingested.isEmpty()
+				? TradingCalendarUtil.previousTradingDay(LocalDate.now())
+				: ingested.get(0).toLocalDate();
+
+		// 足の開始日 → 軸に表示する日付。まずカレンダーで埋め、取り込み済みの日時で上書きする
+		Map<LocalDate, LocalDate> axis = new TreeMap<>(Collections.reverseOrder());
+		for (LocalDate bucket : TradingCalendarUtil.buildBuckets(interval, end, outputsize)) {
+			axis.put(bucket, bucket);
+		}
+		for (LocalDateTime datetime : ingested) {
+			LocalDate date = datetime.toLocalDate();
+			axis.put(TradingCalendarUtil.bucketOf(date, interval), date);
+		}
+
+		List<String> labels = new ArrayList<>(outputsize);
+		for (LocalDate date : axis.values()) {
+			if (labels.size() == outputsize) {
+				break;
+			}
+			labels.add(date.toString());
+		}
+		Collections.reverse(labels);
+
+		log.debug("日付軸を作成しました: interval={}, 件数={}", interval, labels.size());
+		return labels;
+	}
+}
@@ -0,0 +1,369 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.stock.converter.TradeConverter;
+import com.example.stock.dto.ConditionalOrderDto;
+import com.example.stock.dto.ConditionalOrderRequestDto;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
+import com.example.stock.dto.TradeRequestDto;
+import com.example.stock.enums.ConditionalOrderStatus;
+import com.example.stock.enums.TriggerType;
+import com.example.stock.event.QuoteUpdatedEvent;
+import com.example.stock.model.ConditionalOrder;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.money.FixedPoint;
+import com.example.stock.repository.ConditionalOrderRepository;
+import com.example.stock.trigger.TriggerIndex;
+import com.example.stock.trigger.TriggerOrder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 条件付き注文（逆指値・利益確定・トレーリングストップ）を受け付け、発動したら成行注文として発注するサービス。
+ *
+ * 待機中の注文は銘柄ごとの索引（{@link TriggerIndex}）に発動価格の順で保持し、
+ * 新しい足の取り込み時には安値・高値をまたいだ注文だけを取り出す（待機中の注文をすべて調べることはしない）。
+ * 発動した注文は取り込み処理とは別のスレッドで {@link TradeService#executeTrade} に渡し、通常の注文と同じ検証・精算を行う。
+ * 立会時間外に発動した場合（引け後の足の取り込みなど）は、通常の注文と同じく寄付待ちにして次の寄付で執行する。
+ * 再起動時は待機中の注文を読み込んで索引を復元する。
+ * トレーリングストップの基準値は索引の中で動くため、動いたものだけを定期的に保存する（再起動・異常終了後も引き継ぐ）。
+ */
+@Slf4j
+@Service
+public class ConditionalOrderService {
+
+	private final ConditionalOrderRepository conditionalOrderRepository;
+	private final TickersService tickersService;
+	private final TradeService tradeService;
+	private final TradeConverter tradeConverter;
+	private final OpeningQueueService openingQueueService;
+	private final TransactionTemplate transactionTemplate;
+
+	private final Map<String, TriggerIndex> indexes = new ConcurrentHashMap<>();
+	// トレーリングストップごとの保存済みの基準値（注文ID → 基準値。保存が必要かの判定用）
+	private final Map<Long, Long> savedAnchors = new ConcurrentHashMap<>();
+	// 発動した注文の発注（取り込み処理のスレッド・トランザクションから切り離す）
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	public ConditionalOrderService(ConditionalOrderRepository conditionalOrderRepository,
+			TickersService tickersService, TradeService tradeService, TradeConverter tradeConverter,
+			OpeningQueueService openingQueueService, PlatformTransactionManager transactionManager) {
+		this.conditionalOrderRepository = conditionalOrderRepository;
+		this.tickersService = tickersService;
+		this.tradeService = tradeService;
+		this.tradeConverter = tradeConverter;
+		this.openingQueueService = openingQueueService;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * 条件付き注文を受け付ける。
+	 * 発動価格が既に条件を満たしている場合（すぐに発動してしまう場合）は受け付けない。
+	 *
+	 * @param user 注文するユーザー
+	 * @param dto 条件付き注文
+	 * @return 保存した条件付き注文
+	 * @throws IllegalStateException 現在値が取得できない、保有株数が不足している、発動価格・値幅が不正な場合
+	 */
+	public ConditionalOrder place(Users user, ConditionalOrderRequestDto dto) {
+		Tickers ticker = tickersService.getTickerById(dto.getTickerId());
+		TriggerType type = TriggerType.valueOf(dto.getTriggerType());
+		int side = "buy".equalsIgnoreCase(dto.getSide()) ? 0 : 1;
+		boolean fireOnFall = type.firesOnFall(side);
+
+		TradeContext context = tradeService.loadContext(user, ticker);
+		if (context.getQuote() == null) {
+			throw new IllegalStateException("現在値を取得できないため、注文できません。");
+		}
+		if (side == 1 && context.getHoldingQuantity().compareTo(dto.getQuantity()) < 0) {
+			throw new IllegalStateException("保有株数が不足です。注文を修正してください。");
+		}
+		BigDecimal close = BigDecimal.valueOf(context.getQuote().getClose()).setScale(2, RoundingMode.HALF_UP);
+
+		ConditionalOrder order = new ConditionalOrder();
+		if (type == TriggerType.TRAILING_STOP) {
+			if (dto.getTrailAmount() == null) {
+				throw new IllegalStateException("トレーリングストップは値幅を指定してください。");
+			}
+			BigDecimal trail = dto.getTrailAmount().setScale(2, RoundingMode.HALF_UP);
+			BigDecimal triggerPrice = fireOnFall ? close.subtract(trail) : close.add(trail);
+			if (triggerPrice.signum() <= 0) {
+				throw new IllegalStateException("値幅は現在値より小さく指定してください。");
+			}
+			order.setTriggerPrice(triggerPrice);
+			order.setTrailAmount(trail);
+			order.setAnchorPrice(close);
+		} else {
+			if (dto.getTriggerPrice() == null) {
+				throw new IllegalStateException("発動価格を指定してください。");
+			}
+			BigDecimal triggerPrice = dto.getTriggerPrice().setScale(2, RoundingMode.HALF_UP);
+			int compared = triggerPrice.compareTo(close);
+			if (fireOnFall ? compared >= 0 : compared <= 0) {
+				throw new IllegalStateException(String.format("発動価格は現在値（%s）より%s価格を指定してください。",
+						close.toPlainString(), fireOnFall ? "安い" : "高い"));
+			}
+			order.setTriggerPrice(triggerPrice);
+		}
+
+		LocalDateTime now = LocalDateTime.now();
+		order.setUser(user);
+		order.setTicker(ticker);
+		order.setSide(side);
+		order.setTriggerType(type.getCode());
+		order.setQuantity(dto.getQuantity());
+		order.setSettlementCurrency(dto.getSettlementCurrency());
+		order.setExchangeRate(dto.getExchangeRate());
+		order.setStatus(ConditionalOrderStatus.WAITING.getCode());
+		order.setCreateAt(now);
+		order.setUpdateAt(now);
+		conditionalOrderRepository.save(order);
+
+		register(order);
+		log.info("【条件付き注文受付】ID: {}, ユーザーID: {}, 銘柄: {}, 種類: {}, 発動価格: {}",
+				order.getId(), user.getId(), ticker.getTicker(), type.getLabel(), order.getTriggerPrice());
+		return order;
+	}
+
+	/**
+	 * 待機中の条件付き注文を取り消す。
+	 *
+	 * @param user 取り消すユーザー（注文者本人であること）
+	 * @param orderId 条件付き注文のID
+	 * @throws IllegalStateException 本人の注文でない、または既に発動・取消済みの場合
+	 */
+	public void cancel(Users user, Long orderId) {
+		ConditionalOrder order = conditionalOrderRepository.findById(orderId)
+				.filter(o -> o.getUser().getId().equals(user.getId()))
+				.orElseThrow(() -> new IllegalStateException("注文が見つかりません"));
+		Integer updated = transactionTemplate.execute(status -> conditionalOrderRepository.updateWaitingStatus(
+				orderId, user, ConditionalOrderStatus.CANCELLED.getCode(), LocalDateTime.now()));
+		if (updated == null || updated == 0) {
+			throw new IllegalStateException("発動済み、または取消済みの注文は取り消せません");
+		}
+
+		TriggerIndex index = indexes.get(order.getTicker().getTicker());
+		if (index != null) {
+			synchronized (index) {
+				index.cancel(orderId);
+			}
+		}
+		log.info("【条件付き注文取消】ID: {}, ユーザーID: {}", orderId, user.getId());
+	}
+
+	/**
+	 * ユーザーの条件付き注文を新しい順に取得する。待機中のトレーリングストップは現在の発動価格を返す。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @return 条件付き注文の一覧
+	 */
+	public List<ConditionalOrderDto> getOrders(Users user) {
+		return conditionalOrderRepository.findByUserOrderByCreateAtDesc(user).stream()
+				.map(order -> new ConditionalOrderDto(order.getId(), order.getTicker().getTicker(), order.getSide(),
+						TriggerType.fromCode(order.getTriggerType()).getLabel(), order.getQuantity(),
+						currentTriggerPrice(order), order.getTrailAmount(), order.getStatus(),
+						ConditionalOrderStatus.fromCode(order.getStatus()).getLabel(),
+						order.getTrade() != null ? order.getTrade().getId() : null, order.getFailReason(),
+						order.getCreateAt()))
+				.toList();
+	}
+
+	/**
+	 * 索引に入っている条件付き注文の数を取得する。
+	 *
+	 * @param symbol 銘柄コード
+	 * @return 注文数（索引が無い場合は0）
+	 */
+	public int getWaitingOrderCount(String symbol) {
+		TriggerIndex index = indexes.get(symbol);
+		if (index == null) {
+			return 0;
+		}
+		synchronized (index) {
+			return index.size();
+		}
+	}
+
+	/**
+	 * 起動時に、待機中の条件付き注文を受付順に読み込んで索引を復元する。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recover() {
+		List<ConditionalOrder> waiting = conditionalOrderRepository
+				.findByStatusOrderByIdAsc(ConditionalOrderStatus.WAITING.getCode());
+		for (ConditionalOrder order : waiting) {
+			register(order);
+		}
+		log.info("条件付き注文の索引を復元しました: {} 件", waiting.size());
+	}
+
+	/**
+	 * 新しい足が保存されたら（コミット後に）該当銘柄の発動判定を行い、発動した注文を発注する。
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onQuoteUpdated(QuoteUpdatedEvent event) {
+		TriggerIndex index = indexes.get(event.getSymbol());
+		if (index == null) {
+			return;
+		}
+
+		StockCandleWithPrevCloseDto latest = event.getLatest();
+		List<TriggerOrder> fired;
+		synchronized (index) {
+			fired = index.onPrice(
+					FixedPoint.toUnits(latest.getLow(), RoundingMode.HALF_UP),
+					FixedPoint.toUnits(latest.getHigh(), RoundingMode.HALF_UP));
+		}
+		for (TriggerOrder order : fired) {
+			log.info("【条件付き注文発動】ID: {}, 銘柄: {}, 発動価格: {}", order.getOrderId(), event.getSymbol(),
+					FixedPoint.toBigDecimal(order.getTriggerPrice()));
+			executor.execute(() -> execute(order.getOrderId()));
+		}
+	}
+
+	/**
+	 * トレーリングストップの基準値のうち、前回の保存から動いたものを保存する。
+	 * 足の取り込みごとには保存せず、一定間隔でまとめて保存する（異常終了時に失うのは直近の間隔分だけ）。
+	 */
+	@Scheduled(fixedDelayString = "${conditional.anchor-flush-interval-ms:10000}",
+			initialDelayString = "${conditional.anchor-flush-interval-ms:10000}")
+	public void flushAnchors() {
+		Set<Long> waiting = new HashSet<>();
+		int saved = 0;
+		for (TriggerIndex index : indexes.values()) {
+			List<TriggerOrder> trailing;
+			synchronized (index) {
+				trailing = index.getTrailingOrders();
+			}
+			for (TriggerOrder order : trailing) {
+				long anchor = order.getAnchor();
+				waiting.add(order.getOrderId());
+				Long savedAnchor = savedAnchors.get(order.getOrderId());
+				if (savedAnchor != null && savedAnchor == anchor) {
+					continue;
+				}
+				transactionTemplate.executeWithoutResult(status -> conditionalOrderRepository.updateAnchor(
+						order.getOrderId(), FixedPoint.toBigDecimal(anchor)));
+				savedAnchors.put(order.getOrderId(), anchor);
+				saved++;
+			}
+		}
+		// 発動・取消で索引から外れた注文は追跡しない
+		savedAnchors.keySet().retainAll(waiting);
+		if (saved > 0) {
+			log.debug("トレーリングストップの基準値を保存しました: {} 件", saved);
+		}
+	}
+
+	/**
+	 * 停止時に、発動待ちの発注を終えてから、まだ保存していないトレーリングストップの基準値を保存する。
+	 */
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(10, TimeUnit.SECONDS);
+		flushAnchors();
+	}
+
+	// 発動した注文を成行注文として発注し（立会時間外は寄付待ちにし）、結果を記録する
+	private void execute(Long orderId) {
+		ConditionalOrder order = conditionalOrderRepository.findById(orderId).orElse(null);
+		if (order == null) {
+			return;
+		}
+		// 発動と取消が重なった場合は、先に待機中でなくした方だけが有効
+		Integer claimed = transactionTemplate.execute(status -> conditionalOrderRepository.updateWaitingStatus(
+				orderId, order.getUser(), ConditionalOrderStatus.TRIGGERED.getCode(), LocalDateTime.now()));
+		if (claimed == null || claimed == 0) {
+			return;
+		}
+
+		try {
+			TradeRequestDto dto = new TradeRequestDto(order.getTicker().getId(), order.getQuantity(), null,
+					order.getSettlementCurrency(), order.getExchangeRate(), order.getSide() == 0 ? "buy" : "sell",
+					"MARKET", null, null);
+			TradeContext context = tradeService.loadContext(order.getUser(), order.getTicker());
+			if (context.getQuote() == null) {
+				throw new IllegalStateException("現在値を取得できないため、注文できません。");
+			}
+			Trade trade = tradeConverter.toTradeEntity(dto, context);
+			boolean queued = openingQueueService.isMarketClosed();
+			if (queued) {
+				tradeService.validateTrade(trade, context);
+				openingQueueService.enqueue(trade);
+			} else {
+				tradeService.executeTrade(trade);
+			}
+			transactionTemplate.executeWithoutResult(status -> conditionalOrderRepository.recordResult(orderId,
+					ConditionalOrderStatus.TRIGGERED.getCode(), trade, null, LocalDateTime.now()));
+			log.info("【条件付き注文発注】ID: {}, 取引ID: {}{}", orderId, trade.getId(), queued ? "（寄付待ち）" : "");
+		} catch (RuntimeException e) {
+			log.warn("【条件付き注文発注失敗】ID: {}, 理由: {}", orderId, e.getMessage());
+			transactionTemplate.executeWithoutResult(status -> conditionalOrderRepository.recordResult(orderId,
+					ConditionalOrderStatus.FAILED.getCode(), null, failReason(e), LocalDateTime.now()));
+		}
+	}
+
+	private void register(ConditionalOrder order) {
+		boolean fireOnFall = TriggerType.fromCode(order.getTriggerType()).firesOnFall(order.getSide());
+		TriggerOrder triggerOrder = order.getTrailAmount() != null
+				? TriggerOrder.trailing(order.getId(), order.getUser().getId(), fireOnFall,
+						toUnits(order.getAnchorPrice()), toUnits(order.getTrailAmount()))
+				: TriggerOrder.fixed(order.getId(), order.getUser().getId(), fireOnFall,
+						toUnits(order.getTriggerPrice()));
+
+		TriggerIndex index = indexes.computeIfAbsent(order.getTicker().getTicker(), TriggerIndex::new);
+		synchronized (index) {
+			index.add(triggerOrder);
+		}
+		if (triggerOrder.isTrailing()) {
+			savedAnchors.put(order.getId(), triggerOrder.getAnchor());
+		}
+	}
+
+	// 待機中のトレーリングストップは索引の発動価格（基準値に追従している）を返す
+	private BigDecimal currentTriggerPrice(ConditionalOrder order) {
+		TriggerIndex index = indexes.get(order.getTicker().getTicker());
+		if (order.getTrailAmount() == null || index == null) {
+			return order.getTriggerPrice();
+		}
+		synchronized (index) {
+			TriggerOrder triggerOrder = index.get(order.getId());
+			return triggerOrder != null ? FixedPoint.toBigDecimal(triggerOrder.getTriggerPrice())
+					: order.getTriggerPrice();
+		}
+	}
+
+	private static long toUnits(BigDecimal value) {
+		return FixedPoint.toUnits(value, RoundingMode.HALF_UP);
+	}
+
+	private static String failReason(RuntimeException e) {
+		String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+		return message.length() > 255 ? message.substring(0, 255) : message;
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.stock.fx.FxRateSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 最新の為替レートをメモリ上に保持するサービス。
+ *
+ * 為替レートは起動時と一定間隔で {@link FxRateSource} から取得し、注文の受渡金額の計算・ポートフォリオの円換算では
+ * メモリ上の値だけを参照する（換算のたびに外部APIを呼ばない）。
+ * 取得に失敗した場合は直前の値（未取得なら設定の既定値）を使い続ける。
+ */
+@Slf4j
+@Service
+public class FxRateService {
+
+	/** 米ドル/円（1USドルあたりの円） */
+	public static final String USD_JPY = "USD/JPY";
+
+	// 定期的に取得する通貨ペア
+	private static final List<String> PAIRS = List.of(USD_JPY);
+
+	private final FxRateSource fxRateSource;
+
+	// 通貨ペア → 最新の為替レート
+	private final Map<String, FxRate> rates = new ConcurrentHashMap<>();
+
+	public FxRateService(FxRateSource fxRateSource,
+			@Value("${fx.default.usd-jpy:143.07}") BigDecimal defaultUsdJpyRate) {
+		this.fxRateSource = fxRateSource;
+		rates.put(USD_JPY, new FxRate(defaultUsdJpyRate, null));
+	}
+
+	/**
+	 * 最新の米ドル/円の為替レートを返す（DB・外部APIへのアクセスなし）。
+	 *
+	 * @return 1USドルあたりの円
+	 */
+	public BigDecimal getUsdJpyRate() {
+		return rates.get(USD_JPY).rate;
+	}
+
+	/**
+	 * 米ドル建ての金額を決済通貨に換算する為替レートを返す。
+	 *
+	 * @param settlementCurrency 決済通貨（"USD" または "JPY"）
+	 * @return 為替レート（米ドル決済は1）
+	 * @throws IllegalArgumentException 対応していない決済通貨の場合
+	 */
+	public BigDecimal getSettlementRate(String settlementCurrency) {
+		if ("USD".equalsIgnoreCase(settlementCurrency)) {
+			return BigDecimal.ONE;
+		}
+		if ("JPY".equalsIgnoreCase(settlementCurrency)) {
+			return getUsdJpyRate();
+		}
+		throw new IllegalArgumentException("対応していない決済通貨です: " + settlementCurrency);
+	}
+
+	/**
+	 * 最新の米ドル/円の為替レートを取得した日時を返す。
+	 *
+	 * @return 取得日時（起動後まだ取得できていない場合は null）
+	 */
+	public LocalDateTime getUsdJpyFetchedAt() {
+		return rates.get(USD_JPY).fetchedAt;
+	}
+
+	/**
+	 * 起動時に為替レートを取得する。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		refresh();
+	}
+
+	/**
+	 * 為替レートを取得し直す。取得できなかった通貨ペアは直前の値のままにする。
+	 */
+	@Scheduled(fixedDelayString = "${fx.refresh-interval-ms:60000}",
+			initialDelayString = "${fx.refresh-interval-ms:60000}")
+	public void refresh() {
+		for (String pair : PAIRS) {
+			try {
+				BigDecimal rate = fxRateSource.fetchRate(pair);
+				if (rate == null || rate.signum() <= 0) {
+					log.warn("為替レートが不正なため更新しません: {} -> {}", pair, rate);
+					continue;
+				}
+				rates.put(pair, new FxRate(rate, LocalDateTime.now()));
+			} catch (RuntimeException e) {
+				log.warn("為替レートを取得できませんでした（{} のまま使います）: {} -> {}", rates.get(pair).rate, pair,
+						e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * 為替レートと取得日時（変更不可）。
+	 */
+	private static final class FxRate {
+		private final BigDecimal rate;
+		// 既定値の場合は null
+		private final LocalDateTime fetchedAt;
+
+		private FxRate(BigDecimal rate, LocalDateTime fetchedAt) {
+			this.rate = rate;
+			this.fetchedAt = fetchedAt;
+		}
+	}
+}
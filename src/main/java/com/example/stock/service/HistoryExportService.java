@@ -0,0 +1,71 @@
+package com.example.stock.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.stereotype.Service;
+
+import com.example.stock.dto.ExportFilter;
+import com.example.stock.enums.ExportFormat;
+import com.example.stock.export.ExportWriter;
+import com.example.stock.repository.HistoryExportRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 取引・ウォレット履歴をファイルとしてエクスポートするサービス。
+ * DBから1行読むごとに出力先へ書き出すため、件数が多くてもメモリ使用量は一定になる。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HistoryExportService {
+
+	// 出力先への書き出しをまとめるバッファの大きさ
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final HistoryExportRepository historyExportRepository;
+
+	/**
+	 * 取引履歴を書き出す。
+	 *
+	 * @param filter 絞り込み条件
+	 * @param format 出力形式
+	 * @param out    出力先（閉じない）
+	 * @return 書き出した件数
+	 */
+	public long exportTrades(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+		ExportWriter exportWriter = ExportWriter.of(format, writer);
+		long start = System.currentTimeMillis();
+		long count = historyExportRepository.streamTrades(filter, exportWriter);
+		exportWriter.flush();
+		log.info("【エクスポート】取引履歴: 条件: {}, 形式: {}, 件数: {}, 所要時間: {}ms",
+				filter, format, count, System.currentTimeMillis() - start);
+		return count;
+	}
+
+	/**
+	 * ウォレットの入出金履歴を書き出す。
+	 *
+	 * @param filter 絞り込み条件
+	 * @param format 出力形式
+	 * @param out    出力先（閉じない）
+	 * @return 書き出した件数
+	 */
+	public long exportWalletLogs(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+		ExportWriter exportWriter = ExportWriter.of(format, writer);
+		long start = System.currentTimeMillis();
+		long count = historyExportRepository.streamWalletLogs(filter, exportWriter);
+		exportWriter.flush();
+		log.info("【エクスポート】ウォレット履歴: 条件: {}, 形式: {}, 件数: {}, 所要時間: {}ms",
+				filter, format, count, System.currentTimeMillis() - start);
+		return count;
+	}
+}
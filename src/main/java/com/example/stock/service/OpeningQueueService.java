@@ -0,0 +1,284 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.stock.converter.TradeConverter;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.event.QuoteUpdatedEvent;
+import com.example.stock.model.Trade;
+import com.example.stock.repository.TradeBatchRepository;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.util.TradingCalendarUtil;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 立会時間外に受け付けた注文を寄付待ちとして記録し、次の寄付で銘柄ごとにまとめて執行するサービス。
+ *
+ * 立会時間外の最新の足は前日の終値のため、その価格で即時に約定させず、次の立会の始値で執行する。
+ * 始値は取り込み処理と同じ時系列APIから取得し、寄付の直後（9:31 ET）に寄付待ちの注文がある銘柄をまとめて執行する。
+ * 取得できなかった銘柄は、取り込み処理でその日の足が保存されたとき（{@link QuoteUpdatedEvent}）に執行する。
+ *
+ * 1銘柄分の寄付待ちの注文は1トランザクションで執行し、注文の状態はJDBCのバッチ更新でまとめて書き込む。
+ * まとめて執行できなかった場合は1件ずつ執行し直し、執行できなかった注文だけを不成立にする。
+ */
+@Slf4j
+@Service
+public class OpeningQueueService {
+
+	private static final String FAILED_MESSAGE = "寄付で注文を執行できませんでした。";
+
+	private final TradeService tradeService;
+	private final TradeRepository tradeRepository;
+	private final TradeBatchRepository tradeBatchRepository;
+	private final TradeConverter tradeConverter;
+	private final StockService stockService;
+	private final OrderBookService orderBookService;
+	private final TradeLockService tradeLockService;
+	private final RiskLimitService riskLimitService;
+	// 寄付での執行は受付スレッドと別のスレッド（スケジューラ・取り込み処理のコミット後）で行うため、必ず新しいトランザクションで実行する
+	private final TransactionTemplate requiresNewTransaction;
+
+	public OpeningQueueService(TradeService tradeService, TradeRepository tradeRepository,
+			TradeBatchRepository tradeBatchRepository, TradeConverter tradeConverter, StockService stockService,
+			OrderBookService orderBookService, TradeLockService tradeLockService, RiskLimitService riskLimitService,
+			PlatformTransactionManager transactionManager) {
+		this.tradeService = tradeService;
+		this.tradeRepository = tradeRepository;
+		this.tradeBatchRepository = tradeBatchRepository;
+		this.tradeConverter = tradeConverter;
+		this.stockService = stockService;
+		this.orderBookService = orderBookService;
+		this.tradeLockService = tradeLockService;
+		this.riskLimitService = riskLimitService;
+		this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+		this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * 現在が立会時間外（注文を寄付待ちにする時間帯）かどうか。
+	 */
+	public boolean isMarketClosed() {
+		return !TradingCalendarUtil.isMarketOpen(ZonedDateTime.now());
+	}
+
+	/**
+	 * 注文を寄付待ちとして記録する。ウォレット・保有株は寄付での執行時に更新する。
+	 * 受け付けた注文は1分あたりの注文回数に数える（上限を超える場合は記録せずに例外）。
+	 *
+	 * @param trade 業務バリデーション済みの注文
+	 * @return 採番した取引ID
+	 * @throws IllegalStateException 1分あたりの注文回数の上限を超える場合
+	 */
+	public Long enqueue(Trade trade) {
+		riskLimitService.acquireOrders(trade.getUser(), 1);
+		trade.setStatus(TradeStatus.QUEUED.getCode());
+		trade.setFilledQuantity(BigDecimal.ZERO);
+		trade.setRejectReason(null);
+		try {
+			tradeRepository.save(trade);
+		} catch (RuntimeException e) {
+			// 記録できなかった注文は注文回数に数えない
+			riskLimitService.releaseOrders(trade.getUser(), 1);
+			throw e;
+		}
+		log.info("【寄付待ち注文受付】取引ID: {}, ユーザーID: {}, 銘柄: {}", trade.getId(), trade.getUser().getId(),
+				trade.getTicker().getTicker());
+		return trade.getId();
+	}
+
+	/**
+	 * 寄付の直後に、寄付待ちの注文がある銘柄の始値を取得し、銘柄ごとにまとめて執行する。
+	 */
+	@Scheduled(cron = "0 31 9 * * MON-FRI", zone = "America/New_York")
+	public void executeAtOpen() {
+		LocalDate session = LocalDate.now(TradingCalendarUtil.MARKET_ZONE);
+		if (!TradingCalendarUtil.isTradingDay(session)) {
+			return;
+		}
+		for (String symbol : tradeRepository.findSymbolsByStatus(TradeStatus.QUEUED.getCode())) {
+			try {
+				StockCandleWithPrevCloseDto bar = fetchSessionBar(symbol, session);
+				if (bar == null) {
+					log.warn("【寄付執行】始値を取得できませんでした（足の取り込み時に執行します）：銘柄: {}", symbol);
+					continue;
+				}
+				executeQueued(symbol, bar);
+			} catch (RuntimeException e) {
+				log.error("【寄付執行】執行に失敗しました：銘柄: {}", symbol, e);
+			}
+		}
+	}
+
+	/**
+	 * 新しい日足が保存されたら（コミット後に）、その足の寄付より前に受け付けた寄付待ちの注文を始値で執行する。
+	 * 寄付直後の執行で始値を取得できなかった場合や、その時刻に停止していた場合の取りこぼしを防ぐ。
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onQuoteUpdated(QuoteUpdatedEvent event) {
+		try {
+			executeQueued(event.getSymbol(), event.getLatest());
+		} catch (RuntimeException e) {
+			// 執行の失敗で取り込み処理を止めない
+			log.error("【寄付執行】執行に失敗しました：銘柄: {}", event.getSymbol(), e);
+		}
+	}
+
+	/**
+	 * 指定した足の寄付より前に受け付けた寄付待ちの注文を、その足の始値でまとめて執行する。
+	 * 成行注文は始値で約定し、指値注文は始値で約定しなければ注文中として板に残す。
+	 *
+	 * @param symbol 銘柄コード
+	 * @param bar 執行する立会の日足（始値・前日終値を使う）
+	 * @return 執行の対象になった注文数
+	 */
+	public int executeQueued(String symbol, StockCandleWithPrevCloseDto bar) {
+		LocalDate session = LocalDate.parse(bar.getDatetime().substring(0, 10));
+		List<Trade> queued = tradeRepository.findByTicker_TickerAndStatusAndCreateAtBeforeOrderByIdAsc(symbol,
+				TradeStatus.QUEUED.getCode(), TradingCalendarUtil.sessionOpen(session));
+		if (queued.isEmpty()) {
+			return 0;
+		}
+
+		// 始値を現在値とした足（値幅制限・指値の約定判定はこの価格で行う）
+		double open = BigDecimal.valueOf(bar.getOpen()).setScale(2, RoundingMode.HALF_UP).doubleValue();
+		StockCandleWithPrevCloseDto opening = new StockCandleWithPrevCloseDto(symbol, "1day", bar.getDatetime(),
+				open, open, open, open, 0, bar.getPrevClose());
+
+		List<Trade> settled;
+		try {
+			settled = requiresNewTransaction.execute(status -> settleBatch(queued, opening));
+		} catch (RuntimeException e) {
+			// 残高不足・保有数不足・デッドロックなどで全体がロールバックされた
+			log.warn("【寄付執行】まとめて執行できなかったため1件ずつ執行します：銘柄: {}, 件数: {}, 理由: {}",
+					symbol, queued.size(), e.getMessage());
+			for (Trade trade : queued) {
+				settleOne(trade, opening);
+			}
+			return queued.size();
+		}
+
+		log.info("【寄付執行】{} 件をまとめて執行しました：銘柄: {}, 始値: {}", settled.size(), symbol, open);
+		for (Trade trade : settled) {
+			registerIfResting(trade);
+		}
+		return settled.size();
+	}
+
+	// 寄付待ちの注文をまとめて受付中にし、検証 → ウォレット・保有株の更新 → 注文の状態をまとめて書き込む
+	private List<Trade> settleBatch(List<Trade> queued, StockCandleWithPrevCloseDto opening) {
+		LocalDateTime now = LocalDateTime.now();
+		int[] claimed = tradeBatchRepository.claimQueued(queued, now);
+
+		List<Trade> settled = new ArrayList<>(queued.size());
+		for (int i = 0; i < queued.size(); i++) {
+			// 更新件数0 = 受付後に取り消された
+			if (claimed[i] == 0) {
+				continue;
+			}
+			Trade trade = queued.get(i);
+			settle(trade, opening);
+			settled.add(trade);
+		}
+		tradeBatchRepository.updateSettlements(settled, now);
+		return settled;
+	}
+
+	// 1件だけで執行する（同じユーザーの他の処理とはユーザー単位のロックで直列化する）
+	private void settleOne(Trade trade, StockCandleWithPrevCloseDto opening) {
+		try {
+			Boolean executed = tradeLockService.executeWithUserLock(trade.getUser().getId(),
+					() -> requiresNewTransaction.execute(status -> {
+						LocalDateTime now = LocalDateTime.now();
+						if (tradeBatchRepository.claimQueued(List.of(trade), now)[0] == 0) {
+							return false;
+						}
+						settle(trade, opening);
+						tradeBatchRepository.updateSettlements(List.of(trade), now);
+						return true;
+					}));
+			if (Boolean.TRUE.equals(executed)) {
+				registerIfResting(trade);
+			}
+		} catch (RuntimeException e) {
+			reject(trade, reasonOf(e));
+		}
+	}
+
+	// 始値で単価を決め、検証できれば約定（または注文中）、できなければ不成立にする（trade テーブルへの書き込みは呼び出し元で行う）
+	private void settle(Trade trade, StockCandleWithPrevCloseDto opening) {
+		TradeContext context = tradeService.loadContext(trade.getUser(), trade.getTicker(), opening);
+		trade.setRejectReason(null);
+		if (trade.getType() == 1) {
+			tradeConverter.reprice(trade, BigDecimal.valueOf(opening.getOpen()).setScale(2, RoundingMode.HALF_UP));
+		}
+		try {
+			tradeService.validateTrade(trade, context);
+		} catch (IllegalStateException e) {
+			trade.setStatus(TradeStatus.REJECTED.getCode());
+			trade.setFilledQuantity(BigDecimal.ZERO);
+			trade.setRejectReason(reasonOf(e));
+			log.info("【注文不成立】取引ID: {}, 理由: {}", trade.getId(), trade.getRejectReason());
+			return;
+		}
+		// 残高・保有数が足りなければ例外（呼び出し元のトランザクションごとロールバック）
+		tradeService.applyPending(trade, context);
+	}
+
+	// 板に残す指値注文はコミット後に板へ追加する
+	private void registerIfResting(Trade trade) {
+		if (trade.getStatus() == TradeStatus.OPEN.getCode()) {
+			orderBookService.register(trade);
+		}
+	}
+
+	// 寄付待ちのまま残っている注文を不成立にする
+	private void reject(Trade trade, String reason) {
+		trade.setStatus(TradeStatus.REJECTED.getCode());
+		trade.setFilledQuantity(BigDecimal.ZERO);
+		trade.setRejectReason(reason);
+		try {
+			requiresNewTransaction.executeWithoutResult(status -> {
+				if (tradeBatchRepository.claimQueued(List.of(trade), LocalDateTime.now())[0] > 0) {
+					tradeBatchRepository.updateSettlements(List.of(trade), LocalDateTime.now());
+				}
+			});
+			log.info("【注文不成立】取引ID: {}, 理由: {}", trade.getId(), reason);
+		} catch (RuntimeException e) {
+			// 寄付待ちのまま残った注文は次の足の取り込み時に再度執行される
+			log.error("【注文不成立】ステータスを更新できませんでした：取引ID: {}", trade.getId(), e);
+		}
+	}
+
+	// 取り込み処理と同じ時系列APIから、指定した立会の日足（進行中の足）を取得する
+	private StockCandleWithPrevCloseDto fetchSessionBar(String symbol, LocalDate session) {
+		return stockService.getStockCandleWithPrevCloseDtoList(symbol, "1day", 2).stream()
+				.filter(bar -> bar.getDatetime().startsWith(session.toString()))
+				.findFirst()
+				.orElse(null);
+	}
+
+	// 画面に表示する不成立の理由（業務エラー以外は詳細を出さない）
+	private static String reasonOf(RuntimeException e) {
+		if (e instanceof IllegalStateException && e.getMessage() != null) {
+			String message = e.getMessage();
+			return message.length() > 255 ? message.substring(0, 255) : message;
+		}
+		return FAILED_MESSAGE;
+	}
+}
@@ -0,0 +1,280 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.event.QuoteUpdatedEvent;
+import com.example.stock.exception.InsufficientBalanceException;
+import com.example.stock.exception.RiskLimitExceededException;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.money.FixedPoint;
+import com.example.stock.money.Money;
+import com.example.stock.orderbook.Fill;
+import com.example.stock.orderbook.OrderBook;
+import com.example.stock.orderbook.RestingOrder;
+import com.example.stock.repository.TradeRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 指値注文の板を銘柄ごとにメモリ上で管理し、新しい足の取り込み時に照合・約定させるサービス。
+ *
+ * 板の内容は trade テーブル（status / filled_quantity）にも反映しているため、
+ * 再起動時は注文中・一部約定の指値注文を読み込んで板を復元する。
+ *
+ * 複数のノードがそれぞれ同じ板を持ち、同じ足で同じ約定を照合する。約定数量の更新は、約定前の数量が
+ * 板から求めた値のままの場合だけ行う条件付き更新とし、先に精算したノードの約定だけを反映する（二重に精算しない）。
+ */
+@Slf4j
+@Service
+public class OrderBookService {
+
+	private final TradeRepository tradeRepository;
+	private final UserWalletService userWalletService;
+	private final UserStockService userStockService;
+	private final TradeLockService tradeLockService;
+	private final TradeStatsService tradeStatsService;
+	private final RiskLimitService riskLimitService;
+	// 取り込み処理のコミット後に呼ばれるため、約定処理は必ず新しいトランザクションで行う
+	private final TransactionTemplate requiresNewTransaction;
+
+	private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+
+	public OrderBookService(TradeRepository tradeRepository, UserWalletService userWalletService,
+			UserStockService userStockService, TradeLockService tradeLockService,
+			TradeStatsService tradeStatsService, RiskLimitService riskLimitService,
+			PlatformTransactionManager transactionManager) {
+		this.tradeRepository = tradeRepository;
+		this.userWalletService = userWalletService;
+		this.userStockService = userStockService;
+		this.tradeLockService = tradeLockService;
+		this.tradeStatsService = tradeStatsService;
+		this.riskLimitService = riskLimitService;
+		this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+		this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * 保存済みの指値注文（注文中・一部約定）を板に追加する。
+	 *
+	 * @param trade 指値注文
+	 */
+	public void register(Trade trade) {
+		RestingOrder order = new RestingOrder(
+				trade.getId(),
+				trade.getUser().getId(),
+				trade.getSide(),
+				toFixedPoint(trade.getUnitPrice()),
+				toFixedPoint(trade.getQuantity().subtract(trade.getFilledQuantity())));
+
+		OrderBook book = books.computeIfAbsent(trade.getTicker().getTicker(), OrderBook::new);
+		synchronized (book) {
+			book.add(order);
+		}
+		log.info("【指値注文受付】取引ID: {}, 銘柄: {}, 指値: {}, 残数量: {}",
+				trade.getId(), trade.getTicker().getTicker(), trade.getUnitPrice(),
+				trade.getQuantity().subtract(trade.getFilledQuantity()));
+	}
+
+	/**
+	 * 指値注文を取り消す。
+	 *
+	 * @param user 取り消すユーザー（注文者本人であること）
+	 * @param tradeId 取引ID
+	 * @throws IllegalStateException 本人の注文でない、または既に約定・取消済みの場合
+	 */
+	public void cancel(Users user, Long tradeId) {
+		Trade cancelled = tradeLockService.executeWithUserLock(user.getId(),
+				() -> requiresNewTransaction.execute(status -> {
+					Trade trade = tradeRepository.findById(tradeId)
+							.filter(t -> t.getUser().getId().equals(user.getId()))
+							.orElseThrow(() -> new IllegalStateException("注文が見つかりません"));
+					if (!TradeStatus.fromCode(trade.getStatus()).isResting()) {
+						throw new IllegalStateException("約定済み、または取消済みの注文は取り消せません");
+					}
+					trade.setStatus(TradeStatus.CANCELLED.getCode());
+					return tradeRepository.save(trade);
+				}));
+
+		removeFromBook(cancelled.getTicker().getTicker(), cancelled.getId());
+		log.info("【指値注文取消】取引ID: {}, ユーザーID: {}", tradeId, user.getId());
+	}
+
+	/**
+	 * 板に残っている注文数を取得する。
+	 *
+	 * @param symbol 銘柄コード
+	 * @return 注文数（板が無い場合は0）
+	 */
+	public int getOpenOrderCount(String symbol) {
+		OrderBook book = books.get(symbol);
+		if (book == null) {
+			return 0;
+		}
+		synchronized (book) {
+			return book.size();
+		}
+	}
+
+	/**
+	 * 起動時に、注文中・一部約定の指値注文を受付順に読み込んで板を復元する。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void recover() {
+		List<Trade> openOrders = tradeRepository.findByTypeAndStatusInOrderByCreateAtAscIdAsc(0,
+				List.of(TradeStatus.OPEN.getCode(), TradeStatus.PARTIALLY_FILLED.getCode()));
+		for (Trade trade : openOrders) {
+			register(trade);
+		}
+		log.info("指値注文の板を復元しました: {} 件", openOrders.size());
+	}
+
+	/**
+	 * 新しい足が保存されたら（コミット後に）該当銘柄の板を照合し、約定分を精算する。
+	 * 足の安値以上の買い指値・高値以下の売り指値が約定し、1回で約定できる数量は足の出来高までとする。
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onQuoteUpdated(QuoteUpdatedEvent event) {
+		OrderBook book = books.get(event.getSymbol());
+		if (book == null) {
+			return;
+		}
+
+		StockCandleWithPrevCloseDto latest = event.getLatest();
+		List<Fill> fills;
+		synchronized (book) {
+			fills = book.match(
+					toFixedPoint(BigDecimal.valueOf(latest.getLow())),
+					toFixedPoint(BigDecimal.valueOf(latest.getHigh())),
+					latest.getVolume() * 100);
+		}
+
+		List<Fill> unsettled = new ArrayList<>();
+		for (Fill fill : fills) {
+			try {
+				settle(fill);
+			} catch (InsufficientBalanceException | RiskLimitExceededException e) {
+				// 残高・保有数が足りなくなった注文・リスク管理の上限を超える注文は取り消す（他の注文の約定は続ける）
+				log.warn("【約定失敗】取引ID: {}, 理由: {}", fill.getOrderId(), e.getMessage());
+				cancelAfterFailedFill(event.getSymbol(), fill);
+			} catch (RuntimeException e) {
+				// ロック待ちのタイムアウト・デッドロック・一時的なDBエラーでは取り消さず、板に戻して次の照合で約定させる
+				log.error("【約定保留】取引ID: {}, 理由: {}", fill.getOrderId(), e.getMessage(), e);
+				unsettled.add(fill);
+			}
+		}
+
+		if (!unsettled.isEmpty()) {
+			synchronized (book) {
+				for (int i = unsettled.size() - 1; i >= 0; i--) {
+					book.restore(unsettled.get(i));
+				}
+			}
+		}
+	}
+
+	// 1件の約定を精算する（注文の約定数量・ステータスの条件付き更新と、ウォレット・保有株の更新）
+	private void settle(Fill fill) {
+		tradeLockService.runWithUserLock(fill.getUserId(), () -> requiresNewTransaction.executeWithoutResult(status -> {
+			Trade trade = tradeRepository.findById(fill.getOrderId()).orElse(null);
+			if (trade == null || !TradeStatus.fromCode(trade.getStatus()).isResting()) {
+				return; // 照合後に取り消された注文
+			}
+
+			// 約定前の数量は板の未約定数量から求める（DBの値が違えば、他のノードが同じ約定を先に精算している）
+			BigDecimal fillQuantity = fromFixedPoint(fill.getQuantity());
+			BigDecimal filledBefore = trade.getQuantity()
+					.subtract(fromFixedPoint(fill.getRemainingQuantity() + fill.getQuantity()));
+			BigDecimal filledAfter = filledBefore.add(fillQuantity);
+			boolean completed = filledAfter.compareTo(trade.getQuantity()) >= 0;
+			int updated = tradeRepository.recordFill(trade.getId(), filledBefore, filledAfter,
+					completed ? TradeStatus.FILLED.getCode() : TradeStatus.PARTIALLY_FILLED.getCode(),
+					LocalDateTime.now());
+			if (updated == 0) {
+				log.info("【指値注文約定】精算済みのため飛ばします：取引ID: {}, 約定前の数量: {}", trade.getId(), filledBefore);
+				return;
+			}
+
+			// 今回の約定分だけの取引として精算する（受渡金額は累計の按分の差分とし、全量約定で注文の受渡金額に一致させる）
+			Trade execution = new Trade();
+			execution.setId(trade.getId());
+			execution.setUser(trade.getUser());
+			execution.setTicker(trade.getTicker());
+			execution.setSide(trade.getSide());
+			execution.setSettlementCurrency(trade.getSettlementCurrency());
+			execution.setQuantity(fillQuantity);
+			execution.setUnitPrice(trade.getUnitPrice());
+			execution.setLotId(trade.getLotId());
+			execution.setTotalPrice(amountFor(trade, filledAfter).subtract(amountFor(trade, filledBefore)));
+
+			// 同じ足で約定する他の注文と合わせて上限を超えないよう、売買代金・建玉を予約してから精算する
+			riskLimitService.reserve(execution);
+			userWalletService.applyTradeToWallet(execution);
+			userStockService.applyTradeToUserStock(execution);
+			tradeStatsService.recordFill(trade, fillQuantity, execution.getTotalPrice(), filledBefore.signum() == 0);
+
+			log.info("【指値注文約定】取引ID: {}, 約定数量: {}, 累計約定数量: {}, ステータス: {}",
+					trade.getId(), fillQuantity, filledAfter, completed ? "約定" : "一部約定");
+		}));
+	}
+
+	private void cancelAfterFailedFill(String symbol, Fill fill) {
+		try {
+			requiresNewTransaction.executeWithoutResult(status -> tradeRepository.findById(fill.getOrderId())
+					.filter(trade -> TradeStatus.fromCode(trade.getStatus()).isResting())
+					.ifPresent(trade -> {
+						trade.setStatus(TradeStatus.CANCELLED.getCode());
+						tradeRepository.save(trade);
+					}));
+		} finally {
+			removeFromBook(symbol, fill.getOrderId());
+		}
+	}
+
+	private void removeFromBook(String symbol, long orderId) {
+		OrderBook book = books.get(symbol);
+		if (book != null) {
+			synchronized (book) {
+				book.cancel(orderId);
+			}
+		}
+	}
+
+	// 約定数量に応じた受渡金額（注文の受渡金額を按分し、通貨ごとの桁数に丸める）
+	private BigDecimal amountFor(Trade trade, BigDecimal filledQuantity) {
+		if (filledQuantity.compareTo(trade.getQuantity()) >= 0) {
+			return trade.getTotalPrice();
+		}
+		RoundingMode rounding = "JPY".equalsIgnoreCase(trade.getSettlementCurrency())
+				? RoundingMode.CEILING
+				: RoundingMode.HALF_UP;
+		return Money.of(trade.getTotalPrice(), trade.getSettlementCurrency())
+				.prorate(toFixedPoint(filledQuantity), toFixedPoint(trade.getQuantity()), rounding)
+				.toBigDecimal();
+	}
+
+	// 小数点以下2桁の値を ×100 の整数にする
+	private static long toFixedPoint(BigDecimal value) {
+		return FixedPoint.toUnits(value, RoundingMode.HALF_UP);
+	}
+
+	private static BigDecimal fromFixedPoint(long value) {
+		return FixedPoint.toBigDecimal(value);
+	}
+}
@@ -1,63 +1,166 @@
 package com.example.stock.service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import jakarta.annotation.PreDestroy;
 
 import org.springframework.stereotype.Service;
 
+import com.example.stock.dto.AccountSnapshot;
 import com.example.stock.dto.OrderPageDataDto;
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
 import com.example.stock.model.Tickers;
 import com.example.stock.model.UserWallet;
 import com.example.stock.model.Users;
 import com.example.stock.security.SecurityUtils;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * 注文ページの表示データ（銘柄・現在値・残高・保有株数）をまとめて取得するサービス。
+ *
+ * 銘柄・現在値・残高／保有株数はそれぞれ独立した取得のため、仮想スレッドで同時に取得し、
+ * 表示までの時間を「各取得の合計」ではなく「最も遅い取得」にする。
+ * 待ちを打ち切った取得は仮想スレッドを割り込んで止め、返した後も外部API・DBへのアクセスを続けないようにする。
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderPageDataService {
 
+	// 全取得で共有する期限（この時間を過ぎても揃わない項目は null として返す）
+	private static final long LOOKUP_TIMEOUT_MILLIS = 3_000L;
+
 	private final SecurityUtils securityUtils;
 	private final TickersService tickersService;
-	private final UserWalletService userWalletService;
-	private final UserStockService userStockService;
+	private final AccountCacheService accountCacheService;
 	private final StockService stockService;
 
+	// 注文ページの各取得（リクエストのスレッドを塞がないよう、取得ごとに仮想スレッドを使う）
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
 	/**
-	 * 注文ページに必要な情報を取得し、DTOでまとめて返す。
-	 * 取得に失敗した場合は null を返す。
+	 * 注文ページに必要な情報を同時に取得し、DTOでまとめて返す。
+	 * 残高・保有株数はキャッシュから取得する（{@link AccountCacheService}）。
+	 *
+	 * いずれかの取得が失敗（null・例外）した時点で残りを待たずに返し、期限までに揃わなかった項目も null とする
+	 * （終わっていない取得は取り消す）。
+	 * 揃っているかは {@link OrderPageDataDto#isComplete()} で判定する。
+	 *
+	 * @param symbol 銘柄コード
+	 * @return 注文ページの表示データ（銘柄コードが空の場合は null）
 	 */
 	public OrderPageDataDto getOrderPageData(String symbol) {
 		if (symbol == null || symbol.trim().isEmpty()) {
 			return null;
 		}
 
+		// ログインユーザーはリクエストのスレッドのセキュリティコンテキストから取得する（DBアクセスなし）
 		Users user = securityUtils.getLoggedInUserOrThrow();
 		if (user == null)
 			return null;
 
-		Tickers ticker = tickersService.getTickersBySymbol(symbol);
-		if (ticker == null)
-			return null;
-
-		StockCandleWithPrevCloseDto stock = stockService.getLatestStockWithPrevClose(symbol);
-		if (stock == null)
-			return null;
+		CompletableFuture<Void> failed = new CompletableFuture<>();
+		List<Future<?>> tasks = new ArrayList<>(3);
+		CompletableFuture<Tickers> ticker = lookup("銘柄", () -> tickersService.getTickersBySymbol(symbol), failed,
+				tasks);
+		CompletableFuture<StockCandleWithPrevCloseDto> stock = lookup("現在値",
+				() -> stockService.getLatestStockWithPrevClose(symbol), failed, tasks);
+		CompletableFuture<AccountSnapshot> account = lookup("残高・保有株数",
+				() -> accountCacheService.getSnapshot(user), failed, tasks);
 
-		UserWallet wallet = userWalletService.getWalletByUser(user);
-		if (wallet == null)
-			return null;
+		try {
+			CompletableFuture.anyOf(CompletableFuture.allOf(ticker, stock, account), failed)
+					.get(LOOKUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			log.warn("注文ページの取得が期限内に揃いませんでした: 銘柄 {}, ユーザーID {}", symbol, user.getId());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			// 各取得の例外は lookup で null に置き換えているため発生しない
+			log.error("注文ページの取得に失敗しました: 銘柄 {}", symbol, e);
+		} finally {
+			// 失敗・期限切れで待ちを打ち切った場合、終わっていない取得を割り込んで止める（終わった取得には影響しない）
+			for (Future<?> task : tasks) {
+				task.cancel(true);
+			}
+		}
 
-		BigDecimal quantity = userStockService.getStockQuantityByUserAndTicker(user, symbol);
-		if (quantity == null)
-			quantity = BigDecimal.ZERO;
+		Tickers resolvedTicker = ticker.getNow(null);
+		AccountSnapshot resolvedAccount = account.getNow(null);
+		BigDecimal quantity = null;
+		if (resolvedAccount != null) {
+			// 保有していない銘柄は0（銘柄が取得できなかった場合は、指定された銘柄コードで引く）
+			quantity = resolvedAccount.getHoldingQuantity(
+					resolvedTicker != null ? resolvedTicker.getTicker() : symbol);
+		}
 
 		return new OrderPageDataDto(
 				user,
-				ticker,
-				stock,
-				wallet.getJpyBalance(),
-				wallet.getUsdBalance(),
+				resolvedTicker,
+				stock.getNow(null),
+				resolvedAccount != null ? resolvedAccount.getJpyBalance() : null,
+				resolvedAccount != null ? resolvedAccount.getUsdBalance() : null,
 				quantity);
 	}
-}
\ No newline at end of file
+
+	// 1件の取得を仮想スレッドで実行する。結果が null・例外の場合は null とし、failed を完了させて待ちを打ち切る
+	// （CompletableFuture の cancel では実行中のスレッドを止められないため、取り消し用に submit の Future を tasks に残す）
+	private <T> CompletableFuture<T> lookup(String name, Supplier<T> supplier, CompletableFuture<Void> failed,
+			List<Future<?>> tasks) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		tasks.add(executor.submit(() -> {
+			T value;
+			try {
+				value = supplier.get();
+			} catch (RuntimeException e) {
+				log.warn("注文ページの{}の取得に失敗しました: {}", name, e.getMessage());
+				value = null;
+			}
+			if (value == null) {
+				failed.complete(null);
+			}
+			result.complete(value);
+		}));
+		return result;
+	}
+
+	/**
+	 * 停止時に、実行中の取得を割り込んで仮想スレッドのエグゼキューターを閉じる。
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * 読み込み済みの注文コンテキストから注文ページの表示データを作成する（DBアクセスなし）。
+	 * 現在値が取得できていない場合は null を返す。
+	 */
+	public OrderPageDataDto getOrderPageData(TradeContext context) {
+		if (context.getQuote() == null) {
+			return null;
+		}
+
+		UserWallet wallet = context.getWallet();
+		return new OrderPageDataDto(
+				context.getUser(),
+				context.getTicker(),
+				context.getQuote(),
+				wallet.getCurrentJpyBalance(),
+				wallet.getCurrentUsdBalance(),
+				context.getHoldingQuantity());
+	}
+}
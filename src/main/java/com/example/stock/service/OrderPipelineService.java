@@ -0,0 +1,328 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.stock.dto.TradeContext;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.model.Trade;
+import com.example.stock.pipeline.OrderRingBuffer;
+import com.example.stock.repository.TradeRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 注文をリングバッファで受け付け、銘柄ごとのシャードで順番に確定するパイプライン。
+ *
+ * 注文は受付時に受付中（status=0）として trade テーブルに記録してから、銘柄のシャードのリングバッファへ投入する。
+ * 各シャードは専用の1スレッドだけが読み出し、受付順に最大 {@value #BATCH_SIZE} 件ずつ
+ * 1つのトランザクションでまとめて確定する（ウォレット・保有株の更新と注文ステータスの更新）。
+ * まとめての確定が失敗した場合は、そのバッチを1件ずつ確定し直し、確定できなかった注文だけを不成立にする。
+ *
+ * 受付中のまま停止した注文は、起動時に受付順に読み込んで再投入する。
+ */
+@Slf4j
+@Service
+public class OrderPipelineService {
+
+	// シャードごとのリングバッファの容量
+	private static final int RING_CAPACITY = 1024;
+	// 1トランザクションでまとめて確定する最大件数
+	static final int BATCH_SIZE = 64;
+	// 注文が無いときの待機時間（投入時は起こされるため、取りこぼし対策の上限）
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	// 停止時に処理中のバッチを待つ時間
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000;
+
+	private static final String BUSY_MESSAGE = "注文が混み合っているため受け付けられませんでした。再度お試しください。";
+	private static final String FAILED_MESSAGE = "注文を確定できませんでした。再度お試しください。";
+
+	private final TradeService tradeService;
+	private final TradeRepository tradeRepository;
+	private final OrderBookService orderBookService;
+	private final TradeLockService tradeLockService;
+	private final RiskLimitService riskLimitService;
+	// 確定処理は受付スレッドと別のスレッドで行うため、必ず新しいトランザクションで実行する
+	private final TransactionTemplate requiresNewTransaction;
+
+	private final Shard[] shards;
+	private volatile boolean running;
+
+	public OrderPipelineService(TradeService tradeService, TradeRepository tradeRepository,
+			OrderBookService orderBookService, TradeLockService tradeLockService, RiskLimitService riskLimitService,
+			PlatformTransactionManager transactionManager,
+			@Value("${order.pipeline.shards:4}") int shardCount) {
+		this.tradeService = tradeService;
+		this.riskLimitService = riskLimitService;
+		this.tradeRepository = tradeRepository;
+		this.orderBookService = orderBookService;
+		this.tradeLockService = tradeLockService;
+		this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+		this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) {
+			shards[i] = new Shard(i);
+		}
+	}
+
+	/**
+	 * 注文を受付中として記録し、確定待ちの列に投入する。確定結果は {@link TradeService#getOrderStatus} で確認する。
+	 * 列が満杯の場合は、その場で不成立とする。
+	 * 受け付けた注文は1分あたりの注文回数に数える（上限を超える場合は記録せずに例外）。
+	 *
+	 * @param trade 業務バリデーション済みの注文
+	 * @param context 注文受付時に読み込んだ注文コンテキスト
+	 * @return 採番した取引ID
+	 * @throws IllegalStateException 1分あたりの注文回数の上限を超える場合
+	 */
+	public Long submit(Trade trade, TradeContext context) {
+		riskLimitService.acquireOrders(trade.getUser(), 1);
+		trade.setStatus(TradeStatus.PENDING.getCode());
+		trade.setFilledQuantity(BigDecimal.ZERO);
+		trade.setRejectReason(null);
+		try {
+			tradeRepository.save(trade);
+		} catch (RuntimeException e) {
+			// 記録できなかった注文は注文回数に数えない
+			riskLimitService.releaseOrders(trade.getUser(), 1);
+			throw e;
+		}
+		log.info("【注文受付】取引ID: {}, ユーザーID: {}, 銘柄: {}", trade.getId(), trade.getUser().getId(),
+				trade.getTicker().getTicker());
+
+		Shard shard = shardFor(trade);
+		if (!shard.ring.tryPublish(slot -> slot.set(trade, context))) {
+			log.warn("【注文受付】確定待ちの列が満杯です：取引ID: {}, シャード: {}", trade.getId(), shard.index);
+			reject(trade, BUSY_MESSAGE);
+			return trade.getId();
+		}
+		LockSupport.unpark(shard.worker);
+		return trade.getId();
+	}
+
+	/**
+	 * 確定待ちの注文数を取得する。
+	 */
+	public int getPendingCount() {
+		int count = 0;
+		for (Shard shard : shards) {
+			count += shard.ring.size();
+		}
+		return count;
+	}
+
+	/**
+	 * 起動時に各シャードの確定スレッドを開始し、受付中のまま残っている注文を受付順に再投入する。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		for (Shard shard : shards) {
+			shard.worker = Thread.ofPlatform()
+					.name("order-pipeline-" + shard.index)
+					.daemon()
+					.start(() -> runShard(shard));
+		}
+
+		List<Trade> pending = tradeRepository.findByStatusOrderByIdAsc(TradeStatus.PENDING.getCode());
+		for (Trade trade : pending) {
+			Shard shard = shardFor(trade);
+			// 再投入は取りこぼせないため、空きができるまで待つ（コンテキストは確定時に読み込む）
+			while (!shard.ring.tryPublish(slot -> slot.set(trade, null))) {
+				LockSupport.unpark(shard.worker);
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+			}
+			LockSupport.unpark(shard.worker);
+		}
+		log.info("注文パイプラインを開始しました：シャード数: {}, 再投入: {} 件", shards.length, pending.size());
+	}
+
+	/**
+	 * 確定スレッドを停止する。列に残っている注文は確定してから停止する（時間切れの分は次回起動時に再投入される）。
+	 */
+	@PreDestroy
+	public void stop() {
+		running = false;
+		for (Shard shard : shards) {
+			LockSupport.unpark(shard.worker);
+		}
+		for (Shard shard : shards) {
+			if (shard.worker == null) {
+				continue;
+			}
+			try {
+				shard.worker.join(SHUTDOWN_TIMEOUT_MILLIS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	// シャードの確定スレッド（このスレッドだけがリングバッファを読み出す）
+	private void runShard(Shard shard) {
+		List<PendingOrder> batch = new ArrayList<>(BATCH_SIZE);
+		while (running || shard.ring.size() > 0) {
+			// スロットは読み出し後に再利用されるため、中身を取り出してから確定する
+			shard.ring.drain(BATCH_SIZE, slot -> {
+				batch.add(new PendingOrder(slot.trade, slot.context));
+				slot.clear();
+			});
+			if (batch.isEmpty()) {
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+				continue;
+			}
+			try {
+				settleBatch(batch);
+			} catch (RuntimeException e) {
+				log.error("【注文確定】バッチの処理に失敗しました：シャード: {}, 件数: {}", shard.index, batch.size(), e);
+			}
+			batch.clear();
+		}
+	}
+
+	// 検証 → まとめて確定 → 板への追加（まとめて確定できなければ1件ずつ確定する）
+	private void settleBatch(List<PendingOrder> batch) {
+		// 1. DBを使わない業務バリデーション（不成立の注文はバッチから外す）
+		List<PendingOrder> accepted = new ArrayList<>(batch.size());
+		for (PendingOrder order : batch) {
+			try {
+				if (order.context == null) {
+					order.context = tradeService.loadContext(order.trade.getUser(), order.trade.getTicker());
+				}
+				tradeService.validateTrade(order.trade, order.context);
+				accepted.add(order);
+			} catch (RuntimeException e) {
+				reject(order.trade, reasonOf(e));
+			}
+		}
+		if (accepted.isEmpty()) {
+			return;
+		}
+
+		// 2. まとめて確定（1トランザクション）
+		try {
+			requiresNewTransaction.executeWithoutResult(status -> {
+				for (PendingOrder order : accepted) {
+					tradeService.settlePending(order.trade, order.context);
+				}
+			});
+		} catch (RuntimeException e) {
+			// 残高不足・保有数不足・デッドロックなどでバッチ全体がロールバックされた
+			log.warn("【注文確定】まとめて確定できなかったため1件ずつ確定します：件数: {}, 理由: {}",
+					accepted.size(), e.getMessage());
+			for (PendingOrder order : accepted) {
+				settleOne(order);
+			}
+			return;
+		}
+
+		log.info("【注文確定】{} 件をまとめて確定しました", accepted.size());
+		for (PendingOrder order : accepted) {
+			registerIfResting(order.trade);
+		}
+	}
+
+	// 1件だけで確定する（同じユーザーの他の処理とはユーザー単位のロックで直列化する）
+	private void settleOne(PendingOrder order) {
+		try {
+			tradeLockService.runWithUserLock(order.trade.getUser().getId(),
+					() -> requiresNewTransaction.executeWithoutResult(
+							status -> tradeService.settlePending(order.trade, order.context)));
+			registerIfResting(order.trade);
+		} catch (RuntimeException e) {
+			reject(order.trade, reasonOf(e));
+		}
+	}
+
+	// 板に残す指値注文はコミット後に板へ追加する
+	private void registerIfResting(Trade trade) {
+		if (trade.getStatus() == TradeStatus.OPEN.getCode()) {
+			orderBookService.register(trade);
+		}
+	}
+
+	// 注文を不成立にする
+	private void reject(Trade trade, String reason) {
+		trade.setStatus(TradeStatus.REJECTED.getCode());
+		trade.setFilledQuantity(BigDecimal.ZERO);
+		trade.setRejectReason(reason);
+		try {
+			requiresNewTransaction.executeWithoutResult(status -> tradeRepository.updateStatus(trade.getId(),
+					TradeStatus.REJECTED.getCode(), BigDecimal.ZERO, reason, LocalDateTime.now()));
+			log.info("【注文不成立】取引ID: {}, 理由: {}", trade.getId(), reason);
+		} catch (RuntimeException e) {
+			// 受付中のまま残った注文は次回起動時に再投入される
+			log.error("【注文不成立】ステータスを更新できませんでした：取引ID: {}", trade.getId(), e);
+		}
+	}
+
+	// 画面に表示する不成立の理由（業務エラー以外は詳細を出さない）
+	private static String reasonOf(RuntimeException e) {
+		if (e instanceof IllegalStateException && e.getMessage() != null) {
+			String message = e.getMessage();
+			return message.length() > 255 ? message.substring(0, 255) : message;
+		}
+		return FAILED_MESSAGE;
+	}
+
+	private Shard shardFor(Trade trade) {
+		return shards[Math.floorMod(trade.getTicker().getTicker().hashCode(), shards.length)];
+	}
+
+	// 銘柄シャード（リングバッファと、それを読み出す1本のスレッド）
+	private static class Shard {
+		private final int index;
+		private final OrderRingBuffer<Slot> ring = new OrderRingBuffer<>(RING_CAPACITY, Slot::new);
+		private volatile Thread worker;
+
+		Shard(int index) {
+			this.index = index;
+		}
+	}
+
+	// リングバッファのスロット（生成時に確保し、中身だけを書き換えて使い回す）
+	private static class Slot {
+		private Trade trade;
+		private TradeContext context;
+
+		void set(Trade trade, TradeContext context) {
+			this.trade = trade;
+			this.context = context;
+		}
+
+		void clear() {
+			this.trade = null;
+			this.context = null;
+		}
+	}
+
+	// 確定待ちの注文（コンテキストは再投入時のみ確定スレッドで読み込む）
+	private static class PendingOrder {
+		private final Trade trade;
+		private TradeContext context;
+
+		PendingOrder(Trade trade, TradeContext context) {
+			this.trade = trade;
+			this.context = context;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.stock.dto.PortfolioDto;
+import com.example.stock.dto.PortfolioPositionDto;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.event.HoldingChangedEvent;
+import com.example.stock.event.QuoteUpdatedEvent;
+import com.example.stock.model.Users;
+import com.example.stock.portfolio.Portfolio;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UserStockRepository.HoldingRow;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ユーザーごとの保有銘柄と評価額（時価評価）・取得原価をメモリ上に保持するサービス。
+ *
+ * 起動時に全ユーザーの保有株と最新値を1回ずつまとめて読み込み、以降は
+ * 約定（{@link HoldingChangedEvent}）と最新値の取り込み（{@link QuoteUpdatedEvent}）のたびに、
+ * 該当するユーザー・銘柄の評価額だけを更新する。
+ * ポートフォリオ画面の表示は保有銘柄数に比例する処理だけで済み、銘柄ごとのDB・キャッシュへの問い合わせは行わない。
+ */
+@Slf4j
+@Service
+public class PortfolioService {
+
+	private final UserStockRepository userStockRepository;
+	private final QuoteService quoteService;
+	// 円換算に使う為替レート（円/USドル）の取得元
+	private final FxRateService fxRateService;
+
+	// ユーザーID → ポートフォリオ（ユーザーごとにインスタンスで排他する）
+	private final Map<Long, Portfolio> portfolios = new ConcurrentHashMap<>();
+	// 銘柄コード → その銘柄を保有しているユーザーID（最新値の更新先）
+	private final Map<String, Set<Long>> holders = new ConcurrentHashMap<>();
+	// 銘柄コード → 最新の日足
+	private final Map<String, StockCandleWithPrevCloseDto> latestQuotes = new ConcurrentHashMap<>();
+
+	public PortfolioService(UserStockRepository userStockRepository, QuoteService quoteService,
+			FxRateService fxRateService) {
+		this.userStockRepository = userStockRepository;
+		this.quoteService = quoteService;
+		this.fxRateService = fxRateService;
+	}
+
+	/**
+	 * 起動時に全ユーザーの保有株と、保有されている銘柄の最新値を読み込む。
+	 * 約定を処理し始める前（注文パイプラインの開始前）に読み込むため、他の起動処理より先に実行する。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(0)
+	public void load() {
+		List<HoldingRow> rows = userStockRepository.findAllHoldings();
+		Set<String> symbols = new LinkedHashSet<>();
+		for (HoldingRow row : rows) {
+			symbols.add(row.getSymbol());
+		}
+		latestQuotes.putAll(fetchQuotes(symbols));
+
+		for (HoldingRow row : rows) {
+			apply(row.getUserId(), row.getSymbol(), row.getBrand(), row.getQuantity(), row.getCostBasis());
+		}
+		log.info("ポートフォリオを読み込みました：保有 {} 件, 銘柄 {} 件", rows.size(), symbols.size());
+	}
+
+	/**
+	 * 約定による保有数の増減を反映する（コミット後に通知される）。
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onHoldingChanged(HoldingChangedEvent event) {
+		// 初めて保有された銘柄のみ、最新値を1回だけ取得する
+		if (!latestQuotes.containsKey(event.getSymbol())) {
+			StockCandleWithPrevCloseDto quote = fetchQuotes(List.of(event.getSymbol())).get(event.getSymbol());
+			if (quote != null) {
+				latestQuotes.putIfAbsent(event.getSymbol(), quote);
+			}
+		}
+		apply(event.getUserId(), event.getSymbol(), event.getBrand(), event.getQuantityDelta(), event.getCostDelta());
+	}
+
+	/**
+	 * 新しい足が保存されたら、その銘柄を保有しているユーザーの評価額を更新する（コミット後に通知される）。
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onQuoteUpdated(QuoteUpdatedEvent event) {
+		StockCandleWithPrevCloseDto quote = event.getLatest();
+		// 先に最新値を差し替えてから保有者を辿る（並行して保有した場合も、どちらかで新しい値が反映される）
+		latestQuotes.put(event.getSymbol(), quote);
+		Set<Long> userIds = holders.get(event.getSymbol());
+		if (userIds == null) {
+			return;
+		}
+		for (Long userId : userIds) {
+			Portfolio portfolio = portfolios.get(userId);
+			if (portfolio == null) {
+				continue;
+			}
+			synchronized (portfolio) {
+				portfolio.applyQuote(event.getSymbol(), close(quote), prevClose(quote));
+			}
+		}
+	}
+
+	/**
+	 * ユーザーのポートフォリオ（保有銘柄と評価額）を取得する。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @return 保有銘柄（銘柄コード順）と合計（保有がなければ空）
+	 */
+	public PortfolioDto getPortfolio(Users user) {
+		// 1回の表示では同じ為替レートで換算する
+		BigDecimal usdJpyRate = fxRateService.getUsdJpyRate();
+		Portfolio portfolio = portfolios.get(user.getId());
+		if (portfolio == null) {
+			return new PortfolioDto(List.of(), BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO,
+					BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, usdJpyRate);
+		}
+		synchronized (portfolio) {
+			List<PortfolioPositionDto> positions = new ArrayList<>(portfolio.getPositions().size());
+			// 評価損益は最新値が分かっている銘柄だけで合計する
+			BigDecimal unrealizedPnl = BigDecimal.ZERO;
+			for (Portfolio.Position position : portfolio.getPositions()) {
+				BigDecimal positionPnl = position.getClose() != null
+						? position.getMarketValue().subtract(position.getCostBasis())
+						: null;
+				if (positionPnl != null) {
+					unrealizedPnl = unrealizedPnl.add(positionPnl);
+				}
+				positions.add(new PortfolioPositionDto(position.getSymbol(), position.getBrand(),
+						position.getQuantity(), position.getClose(), averageCost(position), usd(position.getMarketValue()),
+						jpy(position.getMarketValue(), usdJpyRate), usd(position.getDayChange()),
+						changeRate(position.getMarketValue(), position.getDayChange()),
+						positionPnl != null ? usd(positionPnl) : null));
+			}
+			return new PortfolioDto(positions, usd(portfolio.getMarketValue()),
+					jpy(portfolio.getMarketValue(), usdJpyRate), usd(portfolio.getDayChange()),
+					jpy(portfolio.getDayChange(), usdJpyRate),
+					changeRate(portfolio.getMarketValue(), portfolio.getDayChange()), usd(portfolio.getCostBasis()),
+					usd(unrealizedPnl), usdJpyRate);
+		}
+	}
+
+	// 保有数を増減し、保有者の索引を合わせて更新する
+	// 索引の更新と最新値の参照はポートフォリオの排他の中で行い、最新値の更新と取りこぼしなく噛み合わせる
+	private void apply(Long userId, String symbol, String brand, BigDecimal delta, BigDecimal costDelta) {
+		Portfolio portfolio = portfolios.computeIfAbsent(userId, k -> new Portfolio());
+		synchronized (portfolio) {
+			holders.computeIfAbsent(symbol, k -> ConcurrentHashMap.newKeySet()).add(userId);
+			StockCandleWithPrevCloseDto quote = latestQuotes.get(symbol);
+			boolean holding = portfolio.applyQuantity(symbol, brand, delta, costDelta, close(quote), prevClose(quote));
+			if (!holding) {
+				// 空になった集合は残す（他のユーザーが並行して追加した分を取りこぼさないため）
+				holders.get(symbol).remove(userId);
+			}
+		}
+	}
+
+	// 最新値を取得できなくても評価額0として保有数は反映する（次の最新値の更新で評価される）
+	private Map<String, StockCandleWithPrevCloseDto> fetchQuotes(Collection<String> symbols) {
+		try {
+			return quoteService.getLatestStocks(symbols);
+		} catch (RuntimeException e) {
+			log.warn("ポートフォリオの最新値を取得できませんでした: {} -> {}", symbols, e.getMessage());
+			return Map.of();
+		}
+	}
+
+	private static BigDecimal close(StockCandleWithPrevCloseDto quote) {
+		return quote != null ? BigDecimal.valueOf(quote.getClose()) : null;
+	}
+
+	private static BigDecimal prevClose(StockCandleWithPrevCloseDto quote) {
+		return quote != null ? BigDecimal.valueOf(quote.getPrevClose()) : null;
+	}
+
+	// 平均取得単価 ＝ 取得原価 ÷ 株数
+	private static BigDecimal averageCost(Portfolio.Position position) {
+		return position.getCostBasis().divide(position.getQuantity(), 2, RoundingMode.HALF_UP);
+	}
+
+	private static BigDecimal usd(BigDecimal amount) {
+		return amount.setScale(2, RoundingMode.HALF_UP);
+	}
+
+	private static BigDecimal jpy(BigDecimal amount, BigDecimal usdJpyRate) {
+		return amount.multiply(usdJpyRate).setScale(0, RoundingMode.HALF_UP);
+	}
+
+	// 前日比（%）＝ 前日比 ÷ 前日の評価額 × 100（前日の評価額が0なら0）
+	private static BigDecimal changeRate(BigDecimal marketValue, BigDecimal dayChange) {
+		BigDecimal previous = marketValue.subtract(dayChange);
+		if (previous.signum() == 0) {
+			return BigDecimal.ZERO.setScale(2);
+		}
+		return dayChange.multiply(BigDecimal.valueOf(100)).divide(previous, 2, RoundingMode.HALF_UP);
+	}
+}
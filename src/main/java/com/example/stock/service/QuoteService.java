@@ -0,0 +1,148 @@
+package com.example.stock.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import com.example.stock.converter.StockCandleConverter;
+import com.example.stock.dto.QuoteDto;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.exception.StockApiException;
+import com.example.stock.model.StockCandle;
+import com.example.stock.repository.StockCandleRepository;
+import com.example.stock.util.TradingCalendarUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 複数銘柄の最新値をまとめて取得するサービス。
+ *
+ * 銘柄ごとに {@link StockService#getLatestStockWithPrevClose} を呼ぶと、
+ * 1銘柄につき Redis・DB への往復が発生するため、一覧表示では次の順でまとめて解決する。
+ * <ol>
+ * <li>symbolCache を Redis の MGET 1回で取得</li>
+ * <li>キャッシュに無い銘柄を IN 句のクエリ1回で取得し、キャッシュへ格納</li>
+ * <li>それでも無い銘柄のみ、従来通り外部APIから取得</li>
+ * </ol>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuoteService {
+
+	private static final String SYMBOL_CACHE = "symbolCache";
+	private static final String INTERVAL = "1day";
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final CacheManager cacheManager;
+	private final StockCandleRepository stockCandleRepository;
+	private final StockService stockService;
+
+	/**
+	 * 指定銘柄の最新値（終値・前日終値・前日比・騰落率）をまとめて取得する。
+	 * 取得できなかった銘柄は結果に含めない。
+	 *
+	 * @param symbols 銘柄コードのリスト
+	 * @return 最新値のリスト（指定した銘柄の順）
+	 */
+	public List<QuoteDto> getQuotes(List<String> symbols) {
+		return getLatestStocks(symbols).values().stream()
+				.map(StockCandleConverter::toQuote)
+				.toList();
+	}
+
+	/**
+	 * 指定銘柄の最新の日足（前日終値付き）をまとめて取得する。
+	 * 取得できなかった銘柄は結果に含めない。
+	 *
+	 * @param symbols 銘柄コードのリスト
+	 * @return 銘柄コード → 最新の日足（指定した銘柄の順）
+	 */
+	public Map<String, StockCandleWithPrevCloseDto> getLatestStocks(Collection<String> symbols) {
+		Map<String, StockCandleWithPrevCloseDto> found = new LinkedHashMap<>();
+		for (String symbol : symbols) {
+			found.put(symbol, null);
+		}
+		if (found.isEmpty()) {
+			return found;
+		}
+
+		// 1. Redisからまとめて取得
+		List<String> misses = fetchFromCache(found);
+
+		// 2. キャッシュに無い銘柄はDBからまとめて取得
+		if (!misses.isEmpty()) {
+			misses = fetchFromDatabase(found, misses);
+		}
+
+		// 3. DBにも無い銘柄のみAPIから取得（取得後はsymbolCacheに格納される）
+		for (String symbol : misses) {
+			try {
+				found.put(symbol, stockService.getLatestStockWithPrevClose(symbol));
+			} catch (StockApiException e) {
+				log.warn("最新値を取得できませんでした: {} -> {}", symbol, e.getMessage());
+			}
+		}
+
+		found.values().removeIf(dto -> dto == null);
+		return found;
+	}
+
+	// symbolCacheをMGETで取得し、見つからなかった銘柄を返す
+	private List<String> fetchFromCache(Map<String, StockCandleWithPrevCloseDto> found) {
+		List<String> symbols = new ArrayList<>(found.keySet());
+		List<String> keys = symbols.stream()
+				.map(symbol -> SYMBOL_CACHE + "::" + symbol)
+				.toList();
+
+		List<Object> cached;
+		try {
+			cached = redisTemplate.opsForValue().multiGet(keys);
+		} catch (Exception e) {
+			// キャッシュが使えない場合はDBから取得する
+			log.warn("symbolCacheの一括取得に失敗しました: {}", e.getMessage());
+			cached = null;
+		}
+
+		List<String> misses = new ArrayList<>();
+		for (int i = 0; i < symbols.size(); i++) {
+			Object value = cached != null ? cached.get(i) : null;
+			if (value instanceof StockCandleWithPrevCloseDto dto) {
+				found.put(symbols.get(i), dto);
+			} else {
+				misses.add(symbols.get(i));
+			}
+		}
+		return misses;
+	}
+
+	// 直近の取引日の日足をIN句でまとめて取得し、見つからなかった銘柄を返す
+	private List<String> fetchFromDatabase(Map<String, StockCandleWithPrevCloseDto> found, List<String> misses) {
+		LocalDateTime datetime = TradingCalendarUtil.previousTradingDay(LocalDate.now()).atStartOfDay();
+		List<StockCandle> candles = stockCandleRepository.findAllBySymbolInAndIntervalAndDatetime(misses, INTERVAL,
+				datetime);
+
+		Cache cache = cacheManager.getCache(SYMBOL_CACHE);
+		for (StockCandle candle : candles) {
+			StockCandleWithPrevCloseDto dto = StockCandleConverter.fromEntity(candle);
+			found.put(candle.getSymbol(), dto);
+			if (cache != null) {
+				cache.put(candle.getSymbol(), dto);
+			}
+		}
+
+		return misses.stream()
+				.filter(symbol -> found.get(symbol) == null)
+				.toList();
+	}
+}
@@ -0,0 +1,147 @@
+package com.example.stock.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.event.QuoteUpdatedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 最新株価をSSEでブラウザへプッシュするサービス。
+ *
+ * 取り込み処理で新しい足が保存されると Redis Pub/Sub のチャンネルへ配信し、
+ * 各ノードは受信したメッセージを自ノードに接続しているクライアントへ送信する。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuoteStreamService implements MessageListener {
+
+	/** 最新値の配信に使うRedisチャンネル名 */
+	public static final String QUOTE_CHANNEL = "stock:quotes";
+
+	/** 接続のタイムアウト（切断後はEventSourceが自動で再接続する） */
+	private static final long EMITTER_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+	private final StringRedisTemplate stringRedisTemplate;
+	private final ObjectMapper objectMapper;
+
+	// 銘柄 → その銘柄を購読している接続
+	private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+	/**
+	 * 指定銘柄の最新値を購読する接続を作成する。
+	 *
+	 * @param symbols 購読する銘柄コードのリスト
+	 * @return SSE接続
+	 */
+	public SseEmitter subscribe(Collection<String> symbols) {
+		SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+		Runnable cleanup = () -> unsubscribe(emitter, symbols);
+		emitter.onCompletion(cleanup);
+		emitter.onTimeout(cleanup);
+		emitter.onError(e -> cleanup.run());
+
+		for (String symbol : symbols) {
+			subscribers.computeIfAbsent(symbol, k -> new CopyOnWriteArraySet<>()).add(emitter);
+		}
+		log.debug("SSE購読開始: {}", symbols);
+		return emitter;
+	}
+
+	private void unsubscribe(SseEmitter emitter, Collection<String> symbols) {
+		for (String symbol : symbols) {
+			subscribers.computeIfPresent(symbol, (k, set) -> {
+				set.remove(emitter);
+				return set.isEmpty() ? null : set;
+			});
+		}
+	}
+
+	/**
+	 * 新しい足が保存されたら（コミット後に）Redisへ配信する。
+	 * 全ノードが同じチャンネルを購読しているため、自ノードへの送信もRedis経由で行う。
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onQuoteUpdated(QuoteUpdatedEvent event) {
+		try {
+			String json = objectMapper.writeValueAsString(event.getLatest());
+			stringRedisTemplate.convertAndSend(QUOTE_CHANNEL, json);
+		} catch (JsonProcessingException e) {
+			log.error("最新値のシリアライズに失敗しました: {}", event.getSymbol(), e);
+		} catch (Exception e) {
+			// 配信失敗で取り込み処理を止めない
+			log.warn("最新値の配信に失敗しました: {} -> {}", event.getSymbol(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Redisチャンネルからのメッセージを受信し、該当銘柄の購読者へ送信する。
+	 */
+	@Override
+	public void onMessage(Message message, byte[] pattern) {
+		try {
+			String json = new String(message.getBody(), StandardCharsets.UTF_8);
+			StockCandleWithPrevCloseDto quote = objectMapper.readValue(json, StockCandleWithPrevCloseDto.class);
+			dispatch(quote);
+		} catch (IOException e) {
+			log.error("最新値メッセージの解析に失敗しました", e);
+		}
+	}
+
+	/**
+	 * 自ノードで該当銘柄を購読している接続へ最新値を送信する。
+	 *
+	 * @param quote 最新値
+	 */
+	public void dispatch(StockCandleWithPrevCloseDto quote) {
+		Set<SseEmitter> emitters = subscribers.get(quote.getSymbol());
+		if (emitters == null) {
+			return;
+		}
+		for (SseEmitter emitter : emitters) {
+			try {
+				emitter.send(SseEmitter.event().name("quote").data(quote));
+			} catch (IOException | IllegalStateException e) {
+				// クライアント切断済み → 後片付けはonError/onCompletionで行われる
+				emitter.completeWithError(e);
+			}
+		}
+	}
+
+	/**
+	 * プロキシ等で接続が切られないよう、定期的にコメント行を送る。
+	 * 送信に失敗した接続はここで取り除かれる。
+	 */
+	@Scheduled(fixedRate = 30_000)
+	public void sendHeartbeat() {
+		subscribers.values().stream()
+				.flatMap(Set::stream)
+				.distinct()
+				.forEach(emitter -> {
+					try {
+						emitter.send(SseEmitter.event().comment("keep-alive"));
+					} catch (IOException | IllegalStateException e) {
+						emitter.completeWithError(e);
+					}
+				});
+	}
+}
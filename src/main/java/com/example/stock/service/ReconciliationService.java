@@ -0,0 +1,276 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.stock.dto.ReconciliationProgressDto;
+import com.example.stock.enums.DiscrepancyType;
+import com.example.stock.repository.ReconciliationRepository;
+import com.example.stock.repository.ReconciliationRepository.Amount;
+import com.example.stock.repository.ReconciliationRepository.Discrepancy;
+import com.example.stock.repository.ReconciliationRepository.IdRange;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ウォレット残高と保有株数を履歴と突き合わせ、不一致を reconciliation_discrepancy に記録するサービス。
+ *
+ * - ウォレット残高：現在の残高（user_wallet の残高列 + 未反映の台帳の記帳）と user_wallet_log の変化額の合計（通貨ごと）
+ * - 保有株数：user_stock の株数 と trade の約定数量の合計（買い − 売り、銘柄ごと）
+ *
+ * ユーザーIDを {@code reconcile.chunk-size} 件ずつの範囲（チャンク）に分け、専用の ForkJoinPool で並列に突き合わせる。
+ * チャンクごとに短い読み取り専用トランザクション（REPEATABLE READ）で読み込むため、同じ時点の値どうしを比べられ、
+ * ロックも取らないので注文の処理を待たせない。並列数（＝同時に使うDB接続数）は {@code reconcile.parallelism} で抑える。
+ * 失敗したチャンクは記録して飛ばし、残りのチャンクの突き合わせを続ける。
+ */
+@Slf4j
+@Service
+public class ReconciliationService {
+
+	private final ReconciliationRepository reconciliationRepository;
+	private final TransactionTemplate readOnlyTransaction;
+	private final long chunkSize;
+	private final int parallelism;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+	// 実行中または直前の突き合わせ（未実行なら null）
+	private final AtomicReference<Run> lastRun = new AtomicReference<>();
+
+	public ReconciliationService(ReconciliationRepository reconciliationRepository,
+			PlatformTransactionManager transactionManager,
+			@Value("${reconcile.chunk-size:1000}") long chunkSize,
+			@Value("${reconcile.parallelism:4}") int parallelism) {
+		this.reconciliationRepository = reconciliationRepository;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		this.chunkSize = chunkSize;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * 毎日定時に突き合わせる（実行中なら何もしない）。
+	 */
+	@Scheduled(cron = "${reconcile.cron:0 0 3 * * *}", zone = "Asia/Tokyo")
+	public void scheduledReconcile() {
+		reconcile();
+	}
+
+	/**
+	 * 別スレッドで突き合わせを開始する（管理者用）。
+	 *
+	 * @return 開始した場合は true（実行中の場合は false）
+	 */
+	public boolean start() {
+		if (!running.compareAndSet(false, true)) {
+			return false;
+		}
+		Run run = begin();
+		Thread.ofVirtual().name("reconciliation").start(() -> execute(run));
+		return true;
+	}
+
+	/**
+	 * 全ユーザーのウォレット残高・保有株数を突き合わせる（呼び出したスレッドで終わるまで待つ）。
+	 *
+	 * @return 実行した場合は進捗（実行中の場合は null）
+	 */
+	public ReconciliationProgressDto reconcile() {
+		if (!running.compareAndSet(false, true)) {
+			log.info("突き合わせは実行中のため、開始しませんでした");
+			return null;
+		}
+		execute(begin());
+		return getProgress();
+	}
+
+	/**
+	 * 実行中または直前の突き合わせの進捗を返す。
+	 */
+	public ReconciliationProgressDto getProgress() {
+		Run run = lastRun.get();
+		if (run == null) {
+			return new ReconciliationProgressDto();
+		}
+		return new ReconciliationProgressDto(run.runId, run.status, run.startedAt, run.finishedAt, run.totalChunks,
+				run.processedChunks.get(), run.failedChunks.get(), run.discrepancies.get());
+	}
+
+	// 突き合わせの範囲を決めて進捗を作る（running を取得してから呼ぶ。失敗した場合は running を戻す）
+	private Run begin() {
+		try {
+			IdRange range = reconciliationRepository.findUserIdRange();
+			long totalChunks = range != null ? (range.getMax() - range.getMin()) / chunkSize + 1 : 0;
+			Run run = new Run(UUID.randomUUID().toString(), range, totalChunks);
+			lastRun.set(run);
+			return run;
+		} catch (RuntimeException e) {
+			running.set(false);
+			throw e;
+		}
+	}
+
+	// 全チャンクを並列に突き合わせる（終わったら running を戻す）
+	private void execute(Run run) {
+		long start = System.currentTimeMillis();
+		try {
+			if (run.totalChunks > 0) {
+				ForkJoinPool pool = new ForkJoinPool(parallelism, ReconciliationService::newWorker, null, false);
+				try {
+					pool.invoke(new ChunkTask(run, 0, run.totalChunks));
+				} finally {
+					pool.shutdown();
+				}
+			}
+			run.finish(run.failedChunks.get() == 0 ? "COMPLETED" : "FAILED");
+			log.info("突き合わせが完了しました：実行ID {}, チャンク {} 件（失敗 {} 件）, 不一致 {} 件, {} ms", run.runId,
+					run.totalChunks, run.failedChunks.get(), run.discrepancies.get(),
+					System.currentTimeMillis() - start);
+		} catch (RuntimeException e) {
+			log.error("突き合わせに失敗しました：実行ID {}", run.runId, e);
+			run.finish("FAILED");
+		} finally {
+			running.set(false);
+		}
+	}
+
+	// 1チャンク（ユーザーIDの範囲）を突き合わせ、不一致を保存する
+	private void reconcileChunk(Run run, long fromUserId, long toUserId) {
+		try {
+			List<Discrepancy> found = readOnlyTransaction.execute(status -> findDiscrepancies(fromUserId, toUserId));
+			if (found != null && !found.isEmpty()) {
+				reconciliationRepository.insertDiscrepancies(run.runId, found, LocalDateTime.now());
+				run.discrepancies.addAndGet(found.size());
+			}
+		} catch (RuntimeException e) {
+			run.failedChunks.incrementAndGet();
+			log.error("突き合わせに失敗しました：ユーザーID {} ～ {}", fromUserId, toUserId, e);
+		} finally {
+			run.processedChunks.incrementAndGet();
+		}
+	}
+
+	private List<Discrepancy> findDiscrepancies(long fromUserId, long toUserId) {
+		List<Discrepancy> found = new ArrayList<>();
+		compare(DiscrepancyType.WALLET_BALANCE, reconciliationRepository.findWalletBalances(fromUserId, toUserId),
+				reconciliationRepository.sumWalletLogs(fromUserId, toUserId), found);
+		compare(DiscrepancyType.HOLDING, reconciliationRepository.findHoldings(fromUserId, toUserId),
+				reconciliationRepository.sumPositions(fromUserId, toUserId), found);
+		return found;
+	}
+
+	// 現在値と履歴の集計をユーザー・通貨または銘柄ごとに比べる（片方にしか無いものは0と比べる）
+	private static void compare(DiscrepancyType type, List<Amount> actualRows, List<Amount> expectedRows,
+			List<Discrepancy> found) {
+		Map<Long, Map<String, BigDecimal>> actual = index(actualRows);
+		Map<Long, Map<String, BigDecimal>> expected = index(expectedRows);
+		Set<Long> userIds = new HashSet<>(actual.keySet());
+		userIds.addAll(expected.keySet());
+
+		for (Long userId : userIds) {
+			Map<String, BigDecimal> actualItems = actual.getOrDefault(userId, Map.of());
+			Map<String, BigDecimal> expectedItems = expected.getOrDefault(userId, Map.of());
+			Set<String> items = new HashSet<>(actualItems.keySet());
+			items.addAll(expectedItems.keySet());
+			for (String item : items) {
+				BigDecimal a = actualItems.getOrDefault(item, BigDecimal.ZERO);
+				BigDecimal e = expectedItems.getOrDefault(item, BigDecimal.ZERO);
+				if (a.compareTo(e) != 0) {
+					found.add(new Discrepancy(userId, type, item, e, a));
+				}
+			}
+		}
+	}
+
+	private static Map<Long, Map<String, BigDecimal>> index(List<Amount> rows) {
+		Map<Long, Map<String, BigDecimal>> map = new HashMap<>();
+		for (Amount row : rows) {
+			BigDecimal amount = row.getAmount() != null ? row.getAmount() : BigDecimal.ZERO;
+			map.computeIfAbsent(row.getUserId(), k -> new HashMap<>()).merge(row.getItem(), amount, BigDecimal::add);
+		}
+		return map;
+	}
+
+	// 突き合わせのワーカースレッド（スレッドダンプ・ログで共通プールのスレッドと区別できる名前にする）
+	private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+		ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		worker.setName("reconciliation-worker-" + worker.getPoolIndex());
+		return worker;
+	}
+
+	/**
+	 * チャンク番号の範囲 [fromChunk, toChunk) を半分ずつに分け、1チャンクになったら突き合わせるタスク。
+	 */
+	private final class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Run run;
+		private final long fromChunk;
+		private final long toChunk;
+
+		private ChunkTask(Run run, long fromChunk, long toChunk) {
+			this.run = run;
+			this.fromChunk = fromChunk;
+			this.toChunk = toChunk;
+		}
+
+		@Override
+		protected void compute() {
+			if (toChunk - fromChunk == 1) {
+				long fromUserId = run.range.getMin() + fromChunk * chunkSize;
+				long toUserId = Math.min(fromUserId + chunkSize - 1, run.range.getMax());
+				reconcileChunk(run, fromUserId, toUserId);
+				return;
+			}
+			long mid = (fromChunk + toChunk) >>> 1;
+			invokeAll(new ChunkTask(run, fromChunk, mid), new ChunkTask(run, mid, toChunk));
+		}
+	}
+
+	/**
+	 * 1回の突き合わせの進捗。
+	 */
+	private static final class Run {
+		private final String runId;
+		// 突き合わせるユーザーIDの範囲（ユーザーがいない場合は null）
+		private final IdRange range;
+		private final LocalDateTime startedAt = LocalDateTime.now();
+		private final long totalChunks;
+		private final AtomicLong processedChunks = new AtomicLong();
+		private final AtomicLong failedChunks = new AtomicLong();
+		private final AtomicLong discrepancies = new AtomicLong();
+		private volatile String status = "RUNNING";
+		private volatile LocalDateTime finishedAt;
+
+		private Run(String runId, IdRange range, long totalChunks) {
+			this.runId = runId;
+			this.range = range;
+			this.totalChunks = totalChunks;
+		}
+
+		private void finish(String status) {
+			this.finishedAt = LocalDateTime.now();
+			this.status = status;
+		}
+	}
+}
@@ -0,0 +1,344 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.stock.event.TradeFilledEvent;
+import com.example.stock.exception.RiskLimitExceededException;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.money.FixedPoint;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.TradeRepository.PositionRow;
+import com.example.stock.repository.TradeRepository.UserAmountRow;
+import com.example.stock.risk.WindowCounter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 注文前のリスク管理（1回の注文金額・1日の売買代金・銘柄ごとの建玉・1分あたりの注文回数の上限）を行うサービス。
+ *
+ * 上限の判定はメモリ上のカウンターだけで行い、注文の処理にクエリを追加しない。
+ * カウンターは起動時に trade テーブルから作り直し、以降は約定（{@link TradeFilledEvent}）と注文の受付で加算する。
+ * 約定させる注文は確定するトランザクションの中で売買代金・建玉を予約し（{@link #reserve}）、完了時に予約を戻す。
+ * まとめて確定する注文・並行して確定する注文も予約を含めた合計で判定するため、合わせて上限を超えることはない。
+ * ロールバック・他ノードでの約定などによるずれは、定期的に trade テーブルと突き合わせて直す。
+ *
+ * 上限が0以下の項目は判定しない。金額（米ドル）・株数は {@link FixedPoint} の ×100 の整数で保持する。
+ */
+@Slf4j
+@Service
+public class RiskLimitService {
+
+	private final TradeRepository tradeRepository;
+
+	private final long maxOrderNotional;
+	private final long maxDailyTurnover;
+	private final long maxPosition;
+	private final long maxOrdersPerMinute;
+	private final long globalMaxDailyTurnover;
+	private final long globalMaxOrdersPerMinute;
+
+	// ユーザーID → カウンター
+	private final Map<Long, UserCounters> users = new ConcurrentHashMap<>();
+	// システム全体のカウンター
+	private final WindowCounter globalTurnover = new WindowCounter();
+	private final WindowCounter globalOrders = new WindowCounter();
+
+	public RiskLimitService(TradeRepository tradeRepository,
+			@Value("${risk.max-order-notional:0}") BigDecimal maxOrderNotional,
+			@Value("${risk.max-daily-turnover:0}") BigDecimal maxDailyTurnover,
+			@Value("${risk.max-position:0}") BigDecimal maxPosition,
+			@Value("${risk.max-orders-per-minute:0}") long maxOrdersPerMinute,
+			@Value("${risk.global.max-daily-turnover:0}") BigDecimal globalMaxDailyTurnover,
+			@Value("${risk.global.max-orders-per-minute:0}") long globalMaxOrdersPerMinute) {
+		this.tradeRepository = tradeRepository;
+		this.maxOrderNotional = toUnits(maxOrderNotional);
+		this.maxDailyTurnover = toUnits(maxDailyTurnover);
+		this.maxPosition = toUnits(maxPosition);
+		this.maxOrdersPerMinute = maxOrdersPerMinute;
+		this.globalMaxDailyTurnover = toUnits(globalMaxDailyTurnover);
+		this.globalMaxOrdersPerMinute = globalMaxOrdersPerMinute;
+	}
+
+	/**
+	 * 注文が金額・売買代金・建玉の上限に収まるかを確認する（DBアクセスなし、カウンターは変更しない）。
+	 * 確定中の他の注文の予約も含めて判定する。
+	 * 注文回数は受付時に {@link #acquireOrders} で数えるため、ここでは確認しない（執行時の再検証で数え直さないため）。
+	 *
+	 * @param trade 対象の注文
+	 * @throws IllegalStateException 上限を超える場合
+	 */
+	public void check(Trade trade) {
+		long notional = toUnits(trade.getQuantity().multiply(trade.getUnitPrice()));
+		UserCounters counters = counters(trade.getUser().getId());
+		long day = currentDay();
+
+		if (exceeds(notional, maxOrderNotional)) {
+			throw orderNotionalExceeded();
+		}
+		if (exceeds(counters.turnover.get(day) + notional, maxDailyTurnover)) {
+			throw turnoverExceeded();
+		}
+		if (exceeds(globalTurnover.get(day) + notional, globalMaxDailyTurnover)) {
+			throw globalTurnoverExceeded();
+		}
+		if (trade.getSide() == 0) {
+			long position = counters.position(trade.getTicker().getTicker()).get();
+			if (exceeds(position + toUnits(trade.getQuantity()), maxPosition)) {
+				throw positionExceeded();
+			}
+		}
+	}
+
+	/**
+	 * 約定させる注文の売買代金・建玉（買いのみ）を、上限を超えない場合のみ予約する（確定するトランザクション内で呼び出す）。
+	 * 予約はトランザクションの完了時に戻す。コミットした場合は約定が {@link #onTradeFilled} で反映され、
+	 * ロールバックした場合は何も数えない。上限を超える場合は何も予約せずに例外とし、呼び出し元でロールバックさせる。
+	 *
+	 * @param trade 約定させる注文
+	 * @throws RiskLimitExceededException 上限を超える場合
+	 * @throws IllegalStateException トランザクションの外から呼び出した場合
+	 */
+	public void reserve(Trade trade) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			throw new IllegalStateException("売買代金・建玉の予約はトランザクション内で行ってください");
+		}
+		long notional = toUnits(trade.getQuantity().multiply(trade.getUnitPrice()));
+		UserCounters counters = counters(trade.getUser().getId());
+		long day = currentDay();
+
+		if (exceeds(notional, maxOrderNotional)) {
+			throw orderNotionalExceeded();
+		}
+		if (!counters.turnover.tryAdd(day, notional, maxDailyTurnover)) {
+			throw turnoverExceeded();
+		}
+		if (!globalTurnover.tryAdd(day, notional, globalMaxDailyTurnover)) {
+			counters.turnover.release(day, notional);
+			throw globalTurnoverExceeded();
+		}
+		AtomicLong position = trade.getSide() == 0 ? counters.position(trade.getTicker().getTicker()) : null;
+		long quantity = position != null ? toUnits(trade.getQuantity()) : 0;
+		if (position != null && !tryAddPosition(position, quantity)) {
+			counters.turnover.release(day, notional);
+			globalTurnover.release(day, notional);
+			throw positionExceeded();
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				counters.turnover.release(day, notional);
+				globalTurnover.release(day, notional);
+				if (position != null) {
+					// 突き合わせで置き換えた後に戻す場合も、建玉を負にしない
+					position.accumulateAndGet(quantity, (current, reserved) -> Math.max(current - reserved, 0));
+				}
+			}
+		});
+	}
+
+	/**
+	 * 注文の受付を1分あたりの注文回数に数える（上限を超える場合は数えずに例外）。
+	 *
+	 * @param user 注文するユーザー
+	 * @param count 受け付ける注文数（バスケット注文は注文の件数）
+	 * @throws IllegalStateException 1分あたりの注文回数の上限を超える場合
+	 */
+	public void acquireOrders(Users user, int count) {
+		UserCounters counters = counters(user.getId());
+		long minute = currentMinute();
+		if (!counters.orders.tryAdd(minute, count, maxOrdersPerMinute)) {
+			throw new IllegalStateException(tooManyOrdersMessage());
+		}
+		if (!globalOrders.tryAdd(minute, count, globalMaxOrdersPerMinute)) {
+			// ユーザーの分は数えなかったことにする
+			counters.orders.release(minute, count);
+			throw new IllegalStateException("注文が集中しているため、受け付けられません。しばらくしてから再度お試しください。");
+		}
+	}
+
+	/**
+	 * {@link #acquireOrders} で数えた注文を数えなかったことにする（受付の記録に失敗した場合）。
+	 * 既に次の1分に移っている場合は何もしない。
+	 *
+	 * @param user 注文するユーザー
+	 * @param count 取り消す注文数
+	 */
+	public void releaseOrders(Users user, int count) {
+		long minute = currentMinute();
+		counters(user.getId()).orders.release(minute, count);
+		globalOrders.release(minute, count);
+	}
+
+	/**
+	 * 約定を売買代金・建玉に反映する（コミット後に通知される）。
+	 */
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onTradeFilled(TradeFilledEvent event) {
+		long day = currentDay();
+		long notional = toUnits(event.getNotional());
+		long quantity = toUnits(event.getQuantity());
+		UserCounters counters = counters(event.getUserId());
+		counters.turnover.add(day, notional);
+		globalTurnover.add(day, notional);
+		counters.position(event.getSymbol()).addAndGet(event.getSide() == 0 ? quantity : -quantity);
+	}
+
+	/**
+	 * 起動時に trade テーブルからカウンターを作り直す。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		reconcile();
+	}
+
+	/**
+	 * trade テーブルと突き合わせてカウンターを直す（ロールバックされた約定・他ノードでの約定の反映）。
+	 * 集計と置き換えの間に反映された約定・確定中の注文の予約は、次回の突き合わせまでずれることがある。
+	 */
+	@Scheduled(fixedDelayString = "${risk.reconcile-interval-ms:300000}",
+			initialDelayString = "${risk.reconcile-interval-ms:300000}")
+	public void reconcile() {
+		long start = System.currentTimeMillis();
+		LocalDateTime now = LocalDateTime.now();
+		long day = now.toLocalDate().toEpochDay();
+		LocalDateTime minuteStart = now.truncatedTo(ChronoUnit.MINUTES);
+		long minute = toEpochMinute(minuteStart);
+
+		Map<Long, Long> turnovers = new HashMap<>();
+		for (UserAmountRow row : tradeRepository.sumFilledNotionalSince(now.toLocalDate().atStartOfDay())) {
+			turnovers.put(row.getUserId(), toUnits(row.getAmount()));
+		}
+		Map<Long, Long> orders = new HashMap<>();
+		for (UserAmountRow row : tradeRepository.countOrdersSince(minuteStart)) {
+			orders.put(row.getUserId(), row.getAmount().longValue());
+		}
+		Map<Long, Map<String, Long>> positions = new HashMap<>();
+		for (PositionRow row : tradeRepository.sumPositions()) {
+			positions.computeIfAbsent(row.getUserId(), k -> new HashMap<>())
+					.put(row.getSymbol(), toUnits(row.getQuantity()));
+		}
+
+		turnovers.keySet().forEach(this::counters);
+		orders.keySet().forEach(this::counters);
+		positions.keySet().forEach(this::counters);
+		long totalTurnover = 0;
+		long totalOrders = 0;
+		for (Map.Entry<Long, UserCounters> entry : users.entrySet()) {
+			Long userId = entry.getKey();
+			UserCounters counters = entry.getValue();
+			long turnover = turnovers.getOrDefault(userId, 0L);
+			long count = orders.getOrDefault(userId, 0L);
+			counters.turnover.set(day, turnover);
+			counters.orders.set(minute, count);
+			totalTurnover += turnover;
+			totalOrders += count;
+
+			Map<String, Long> held = positions.getOrDefault(userId, Map.of());
+			counters.positions.forEach((symbol, position) -> position.set(held.getOrDefault(symbol, 0L)));
+			held.forEach((symbol, quantity) -> counters.position(symbol).set(quantity));
+		}
+		globalTurnover.set(day, totalTurnover);
+		globalOrders.set(minute, totalOrders);
+
+		log.info("リスク管理のカウンターを突き合わせました：ユーザー {} 件, {} ms", users.size(),
+				System.currentTimeMillis() - start);
+	}
+
+	private UserCounters counters(Long userId) {
+		return users.computeIfAbsent(userId, k -> new UserCounters());
+	}
+
+	// 加算後の建玉が上限以下の場合のみ加算する
+	private boolean tryAddPosition(AtomicLong position, long quantity) {
+		while (true) {
+			long current = position.get();
+			long next = current + quantity;
+			if (exceeds(next, maxPosition)) {
+				return false;
+			}
+			if (position.compareAndSet(current, next)) {
+				return true;
+			}
+		}
+	}
+
+	private RiskLimitExceededException orderNotionalExceeded() {
+		return new RiskLimitExceededException(String.format("1回の注文金額が上限（%s ドル）を超えています。",
+				FixedPoint.toBigDecimal(maxOrderNotional).toPlainString()));
+	}
+
+	private RiskLimitExceededException turnoverExceeded() {
+		return new RiskLimitExceededException(String.format("本日の売買代金が上限（%s ドル）を超えるため、注文できません。",
+				FixedPoint.toBigDecimal(maxDailyTurnover).toPlainString()));
+	}
+
+	private static RiskLimitExceededException globalTurnoverExceeded() {
+		return new RiskLimitExceededException("本日の取引の受付上限に達したため、注文を受け付けられません。");
+	}
+
+	private RiskLimitExceededException positionExceeded() {
+		return new RiskLimitExceededException(String.format("1銘柄あたりの保有上限（%s 株）を超えるため、注文できません。",
+				FixedPoint.toBigDecimal(maxPosition).toPlainString()));
+	}
+
+	private String tooManyOrdersMessage() {
+		return String.format("1分あたりの注文回数の上限（%d 回）を超えています。しばらくしてから再度お試しください。",
+				maxOrdersPerMinute);
+	}
+
+	private static boolean exceeds(long value, long limit) {
+		return limit > 0 && value > limit;
+	}
+
+	private static long currentDay() {
+		return LocalDate.now().toEpochDay();
+	}
+
+	private static long currentMinute() {
+		return toEpochMinute(LocalDateTime.now());
+	}
+
+	private static long toEpochMinute(LocalDateTime time) {
+		return time.toLocalDate().toEpochDay() * 24 * 60 + time.getHour() * 60 + time.getMinute();
+	}
+
+	// 金額（セント）・株数（0.01株）の単位の整数に換算する（端数は切り上げ）
+	private static long toUnits(BigDecimal value) {
+		return value == null ? 0 : FixedPoint.toUnits(value, RoundingMode.CEILING);
+	}
+
+	/**
+	 * ユーザーごとのカウンター。
+	 */
+	private static final class UserCounters {
+		// 1日の売買代金（セント）
+		private final WindowCounter turnover = new WindowCounter();
+		// 1分あたりの注文回数
+		private final WindowCounter orders = new WindowCounter();
+		// 銘柄コード → 建玉（0.01株）
+		private final Map<String, AtomicLong> positions = new ConcurrentHashMap<>();
+
+		private AtomicLong position(String symbol) {
+			return positions.computeIfAbsent(symbol, k -> new AtomicLong());
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package com.example.stock.service;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -19,6 +18,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,9 +29,12 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import com.example.stock.converter.StockCandleConverter;
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.event.QuoteUpdatedEvent;
 import com.example.stock.exception.StockApiException;
 import com.example.stock.model.StockCandle;
 import com.example.stock.repository.StockCandleRepository;
+import com.example.stock.util.DownsamplingUtil;
+import com.example.stock.util.TradingCalendarUtil;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -44,6 +47,7 @@ public class StockService {
 	private final ObjectMapper objectMapper;
 	private final StockCandleRepository stockCandleRepository;
 	private final StockCandleConverter stockCandleConverter;
+	private final ApplicationEventPublisher eventPublisher;
 
 	private static final Logger logger = LoggerFactory.getLogger(StockService.class);
 
@@ -161,21 +165,6 @@ public class StockService {
 		return dtoList;
 	}
 
-	//前営業日の取得
-	private LocalDate getPreviousBusinessDay(LocalDate base) {
-		DayOfWeek day = base.getDayOfWeek();
-
-		if (day == DayOfWeek.MONDAY) {
-			return base.minusDays(3); // → 金曜日
-		} else if (day == DayOfWeek.SUNDAY) {
-			return base.minusDays(2); // → 金曜日
-		} else if (day == DayOfWeek.SATURDAY) {
-			return base.minusDays(1); // → 金曜日
-		} else {
-			return base.minusDays(1); // 平日なら前日でOK
-		}
-	}
-
 	/**
 	 * 指定された銘柄の最新のローソク足データ（前日終値付き）を取得します。
 	 *
@@ -185,7 +174,7 @@ public class StockService {
 	@Cacheable(value = "symbolCache", key = "#symbol")
 	public StockCandleWithPrevCloseDto getLatestStockWithPrevClose(String symbol) {
 		String interval = "1day";
-		LocalDate targetDate = getPreviousBusinessDay(LocalDate.now());
+		LocalDate targetDate = TradingCalendarUtil.previousTradingDay(LocalDate.now());
 		LocalDateTime datetime = targetDate.atStartOfDay();
 
 		Optional<StockCandle> candleOpt = stockCandleRepository
@@ -209,6 +198,7 @@ public class StockService {
 	 * 指定された銘柄（symbol）、時間足（interval）、出力サイズ（outputsize）に基づいて、
 	 * 株価ローソク足データ（前日終値付き）を取得し、データベースに保存します。
 	 * 既に同じ日時のデータが存在する場合は保存をスキップします。
+	 * 日足で新しい足が保存された場合は {@link QuoteUpdatedEvent} を発行し、コミット後に購読者へ通知されます。
 	 *
 	 * このメソッドはトランザクション内で実行され、途中で例外が発生した場合はロールバックされます。
 	 *
@@ -219,7 +209,9 @@ public class StockService {
 	@Transactional
 	@Caching(evict = {
 			@CacheEvict(value = "symbolCache", key = "#symbol"),
-			@CacheEvict(value = "candlesCache", key = "#symbol + ':' + #interval + ':' + #outputsize")
+			@CacheEvict(value = "candlesCache", key = "#symbol + ':' + #interval + ':' + #outputsize"),
+			@CacheEvict(value = "dateAxisCache", allEntries = true),
+			@CacheEvict(value = "downsampledCache", allEntries = true)
 	})
 	public void saveStockCandles(String symbol, String interval, int outputsize) {
 		List<StockCandleWithPrevCloseDto> dtoList = getStockCandleWithPrevCloseDtoList(symbol, interval, outputsize);
@@ -252,6 +244,10 @@ public class StockService {
 
 		logger.info("保存件数: {} 件（銘柄: {}, interval: {}）", toSave.size(), symbol, interval);
 
+		// 6. 新しい日足が入った場合のみ最新値の更新を通知（dtoListは新しい順）
+		if (!toSave.isEmpty() && "1day".equals(interval)) {
+			eventPublisher.publishEvent(new QuoteUpdatedEvent(symbol, dtoList.get(0)));
+		}
 	}
 
 	/**
@@ -273,4 +269,27 @@ public class StockService {
 		return candles;
 	}
 
+	/**
+	 * 指定件数のローソク足を、最大 {@code maxPoints} 本にまとめて取得します。
+	 * 長期間のチャートでも表示幅に見合った本数だけを返すためのもので、
+	 * まとめた足は始値・高値・安値・終値・出来高を保持します。
+	 *
+	 * @param symbol     株式のシンボル（例: AAPL）
+	 * @param interval   データの時間間隔（例: 1day、1week など）
+	 * @param outputsize まとめる前のローソク足データの件数
+	 * @param maxPoints  返却する最大本数
+	 * @return まとめたローソク足データのリスト（新しい順）
+	 */
+	@Cacheable(value = "downsampledCache", key = "'candle:' + #symbol + ':' + #interval + ':' + #outputsize + ':' + #maxPoints", unless = "#result == null || #result.isEmpty()")
+	public List<StockCandleWithPrevCloseDto> getDownsampledCandles(String symbol, String interval, int outputsize,
+			int maxPoints) {
+		Pageable pageable = PageRequest.of(0, outputsize);
+		List<StockCandleWithPrevCloseDto> candles = stockCandleRepository
+				.findAllBySymbolAndIntervalOrderByDatetimeDesc(symbol, interval, pageable)
+				.getContent().stream()
+				.map(StockCandleConverter::fromEntity)
+				.toList();
+		return DownsamplingUtil.aggregateCandles(candles, maxPoints);
+	}
+
 }
@@ -0,0 +1,241 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.stock.dto.TradeLogRowDto;
+import com.example.stock.enums.CostBasisMethod;
+import com.example.stock.exception.InsufficientBalanceException;
+import com.example.stock.model.RealizedPnl;
+import com.example.stock.model.TaxLot;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.repository.RealizedPnlRepository;
+import com.example.stock.repository.RealizedPnlRepository.TradePnl;
+import com.example.stock.repository.TaxLotRepository;
+import com.example.stock.repository.TaxLotRepository.OpenLot;
+import com.example.stock.repository.UsersRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 保有株のロット（取得単位）と実現損益を管理するサービス。
+ *
+ * 買いの約定ごとにロットを追加し、売りの約定ではユーザーが選んだ計算方法（先入先出法・移動平均法・個別法）で
+ * ロットの残株数を減らして取得原価を求め、売却1件ごとの実現損益を記録する。
+ * 保有株の取得原価の合計は user_stock.cost_basis に保持するため、平均取得単価・評価損益・実現損益の照会で
+ * 取引履歴を集計し直す必要はない。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaxLotService {
+
+	// 株数の小数点以下の桁数（tax_lot.open_quantity と同じ）
+	private static final int QUANTITY_SCALE = 2;
+
+	private final TaxLotRepository taxLotRepository;
+	private final RealizedPnlRepository realizedPnlRepository;
+	private final UsersRepository usersRepository;
+
+	/**
+	 * 買いの約定をロットとして追加する。保有株の更新と同じトランザクション内で呼び出すこと。
+	 *
+	 * @param trade 買いの約定（数量は今回の約定分）
+	 * @param now 取得日時
+	 * @return 追加した取得原価（米ドル）
+	 */
+	public BigDecimal addLot(Trade trade, LocalDateTime now) {
+		TaxLot lot = new TaxLot();
+		lot.setUser(trade.getUser());
+		lot.setTicker(trade.getTicker());
+		lot.setTrade(trade);
+		lot.setQuantity(trade.getQuantity());
+		lot.setOpenQuantity(trade.getQuantity());
+		lot.setUnitCost(trade.getUnitPrice());
+		lot.setCreateAt(now);
+		lot.setUpdateAt(now);
+		taxLotRepository.save(lot);
+		return trade.getQuantity().multiply(trade.getUnitPrice());
+	}
+
+	/**
+	 * 売りの約定分だけロットの残株数を減らし、実現損益を記録する。保有株の更新と同じトランザクション内で呼び出すこと。
+	 * 先入先出法・個別法は売却するロットから順に、移動平均法は全ロットを残株数の比で減らす。
+	 * どの計算方法でも取得原価は減らしたロットの取得単価で求めるため、残ったロットの取得原価の合計は
+	 * 保有株の取得原価（ロットがある分）と常に一致し、途中で計算方法を変更しても食い違わない。
+	 * ロットが無い保有（ロット導入前から保有していた分）は取得原価が不明なため、売却代金を取得原価とする（損益0）。
+	 *
+	 * @param trade 売りの約定（数量は今回の約定分）
+	 * @param now 売却日時
+	 * @return 保有株の取得原価の合計から差し引く額（米ドル。ロットが無い分は取得原価に含まれていないため除く）
+	 * @throws IllegalStateException 個別法で指定したロットが売却できない、または並行して売却された場合
+	 */
+	public BigDecimal consumeLots(Trade trade, LocalDateTime now) {
+		CostBasisMethod method = CostBasisMethod.fromCode(trade.getUser().getCostBasisMethod());
+		List<OpenLot> lots = orderForSale(taxLotRepository.findOpenLots(trade.getUser(), trade.getTicker()),
+				method, trade.getLotId());
+		BigDecimal[] takes = method == CostBasisMethod.AVERAGE
+				? allocateProRata(lots, trade.getQuantity())
+				: allocateInOrder(lots, trade.getQuantity());
+
+		BigDecimal sold = BigDecimal.ZERO;
+		BigDecimal cost = BigDecimal.ZERO;
+		for (int i = 0; i < lots.size(); i++) {
+			if (takes[i].signum() <= 0) {
+				continue;
+			}
+			OpenLot lot = lots.get(i);
+			if (taxLotRepository.consume(lot.getId(), takes[i], now) == 0) {
+				throw new InsufficientBalanceException("【最終検証】ロットの残株数が不足しています");
+			}
+			cost = cost.add(takes[i].multiply(lot.getUnitCost()));
+			sold = sold.add(takes[i]);
+		}
+
+		BigDecimal remaining = trade.getQuantity().subtract(sold);
+		BigDecimal realizedCost = cost;
+		if (remaining.signum() > 0) {
+			log.warn("【ロット不足】取得原価が不明な保有を売却しました：取引ID: {}, 株数: {}", trade.getId(), remaining);
+			realizedCost = cost.add(remaining.multiply(trade.getUnitPrice()));
+		}
+
+		record(trade, method, realizedCost, now);
+		return cost;
+	}
+
+	// 売却するロットの順序（個別法で指定されたロット → 残りは取得順）
+	private List<OpenLot> orderForSale(List<OpenLot> lots, CostBasisMethod method, Long lotId) {
+		if (method != CostBasisMethod.SPECIFIC || lotId == null) {
+			return lots;
+		}
+		List<OpenLot> ordered = new ArrayList<>(lots.size());
+		for (OpenLot lot : lots) {
+			if (lot.getId().equals(lotId)) {
+				ordered.add(lot);
+			}
+		}
+		if (ordered.isEmpty()) {
+			throw new IllegalStateException("指定したロットは売却できません（ロットID: " + lotId + "）");
+		}
+		for (OpenLot lot : lots) {
+			if (!lot.getId().equals(lotId)) {
+				ordered.add(lot);
+			}
+		}
+		return ordered;
+	}
+
+	// 先入先出法・個別法：並べた順にロットの残株数を使い切りながら売却株数を割り当てる
+	private static BigDecimal[] allocateInOrder(List<OpenLot> lots, BigDecimal quantity) {
+		BigDecimal[] takes = new BigDecimal[lots.size()];
+		BigDecimal remaining = quantity;
+		for (int i = 0; i < lots.size(); i++) {
+			takes[i] = lots.get(i).getOpenQuantity().min(remaining);
+			remaining = remaining.subtract(takes[i]);
+		}
+		return takes;
+	}
+
+	// 移動平均法：売却株数を残株数の比で全ロットに割り当てる（売却分の取得単価は残ロットの平均取得単価になる）
+	// 株数の最小単位未満の切り捨て分は、取得順に残株数に余裕のあるロットへ割り当てる
+	private static BigDecimal[] allocateProRata(List<OpenLot> lots, BigDecimal quantity) {
+		BigDecimal[] takes = new BigDecimal[lots.size()];
+		BigDecimal open = BigDecimal.ZERO;
+		for (OpenLot lot : lots) {
+			open = open.add(lot.getOpenQuantity());
+		}
+		if (open.signum() <= 0) {
+			Arrays.fill(takes, BigDecimal.ZERO);
+			return takes;
+		}
+
+		BigDecimal target = quantity.min(open);
+		BigDecimal rest = target;
+		for (int i = 0; i < lots.size(); i++) {
+			takes[i] = lots.get(i).getOpenQuantity().multiply(target).divide(open, QUANTITY_SCALE, RoundingMode.DOWN);
+			rest = rest.subtract(takes[i]);
+		}
+		for (int i = 0; i < lots.size() && rest.signum() > 0; i++) {
+			BigDecimal add = rest.min(lots.get(i).getOpenQuantity().subtract(takes[i]));
+			takes[i] = takes[i].add(add);
+			rest = rest.subtract(add);
+		}
+		return takes;
+	}
+
+	private void record(Trade trade, CostBasisMethod method, BigDecimal cost, LocalDateTime now) {
+		BigDecimal proceeds = trade.getQuantity().multiply(trade.getUnitPrice());
+		RealizedPnl pnl = new RealizedPnl();
+		pnl.setUser(trade.getUser());
+		pnl.setTicker(trade.getTicker());
+		pnl.setTrade(trade);
+		pnl.setQuantity(trade.getQuantity());
+		pnl.setProceeds(proceeds);
+		pnl.setCostBasis(cost);
+		pnl.setRealizedPnl(proceeds.subtract(cost));
+		pnl.setCostBasisMethod(method.getCode());
+		pnl.setCreateAt(now);
+		realizedPnlRepository.save(pnl);
+		log.info("【実現損益】取引ID: {}, 売却代金: {}, 取得原価: {}, 計算方法: {}", trade.getId(), proceeds, cost,
+				method.getLabel());
+	}
+
+	/**
+	 * ユーザーの実現損益の合計（米ドル）を取得する。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @return 実現損益の合計（売却がなければ0）
+	 */
+	public BigDecimal getRealizedPnlTotal(Users user) {
+		return realizedPnlRepository.sumByUser(user);
+	}
+
+	/**
+	 * 取引履歴の行ごとの実現損益（米ドル）を取得する（取引履歴の表示用）。
+	 *
+	 * @param rows 表示する取引履歴の行
+	 * @return 取引ID → 実現損益（売りで約定済みの注文のみ）
+	 */
+	public Map<Long, BigDecimal> getRealizedPnlsForRows(Collection<TradeLogRowDto> rows) {
+		return getRealizedPnlsByTradeIds(rows.stream()
+				.filter(r -> r.getSide() == 1)
+				.map(TradeLogRowDto::getId)
+				.toList());
+	}
+
+	private Map<Long, BigDecimal> getRealizedPnlsByTradeIds(List<Long> sellIds) {
+		Map<Long, BigDecimal> pnls = new HashMap<>();
+		if (sellIds.isEmpty()) {
+			return pnls;
+		}
+		for (TradePnl row : realizedPnlRepository.sumByTradeIds(sellIds)) {
+			pnls.put(row.getTradeId(), row.getRealizedPnl());
+		}
+		return pnls;
+	}
+
+	/**
+	 * 売却時の取得原価の計算方法を変更する（以降の売却から適用する）。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @param method 計算方法
+	 */
+	@Transactional
+	public void changeCostBasisMethod(Users user, CostBasisMethod method) {
+		usersRepository.updateCostBasisMethod(user.getId(), method.getCode());
+		user.setCostBasisMethod(method.getCode());
+		log.info("【取得原価の計算方法変更】ユーザーID: {}, 計算方法: {}", user.getId(), method.getLabel());
+	}
+}
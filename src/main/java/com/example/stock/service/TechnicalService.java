@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
@@ -23,6 +24,7 @@ import com.example.stock.dto.FlexibleIndicatorDto;
 import com.example.stock.exception.StockApiException;
 import com.example.stock.model.TechnicalIndicatorValue;
 import com.example.stock.repository.TechnicalIndicatorValueRepository;
+import com.example.stock.util.DownsamplingUtil;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -94,7 +96,10 @@ public class TechnicalService {
 		}
 	}
 
-	@CacheEvict(value = "smaCache", key = "#symbol + ':' + #interval + ':' + #period + ':' + #outputsize")
+	@Caching(evict = {
+			@CacheEvict(value = "smaCache", key = "#symbol + ':' + #interval + ':' + #period + ':' + #outputsize"),
+			@CacheEvict(value = "downsampledCache", allEntries = true)
+	})
 	public void fetchAndSaveSMA(String symbol, String interval, int period, int outputsize) {
 		try {
 			// 1. APIからSMAデータ取得（Map形式）
@@ -158,4 +163,26 @@ public class TechnicalService {
 						symbol, interval, "SMA", "sma", period, pageable);
 	}
 
+	/**
+	 * 指定件数のSMAデータを、LTTBで最大 {@code maxPoints} 点に間引いて取得します。
+	 * 線の形状（山・谷）を保ったまま点数を減らすため、長期間のチャートでも見た目はほぼ変わりません。
+	 *
+	 * @param symbol     株式のシンボル（例: AAPL）
+	 * @param interval   データの時間間隔（例: 1day、1week など）
+	 * @param period     移動平均の期間（例: 25, 75 など）
+	 * @param outputsize 間引く前のデータの件数
+	 * @param maxPoints  返却する最大点数
+	 * @return 間引いたSMAのリスト（古い順）
+	 */
+	@Cacheable(value = "downsampledCache", key = "'sma:' + #symbol + ':' + #interval + ':' + #period + ':' + #outputsize + ':' + #maxPoints", unless = "#result == null || #result.isEmpty()")
+	public List<FlexibleIndicatorDto> getDownsampledSMA(String symbol, String interval, int period, int outputsize,
+			int maxPoints) {
+		Pageable pageable = PageRequest.of(0, outputsize);
+		List<TechnicalIndicatorValue> sma = technicalIndicatorValueRepository
+				.findAllBySymbolAndIntervalAndIndicatorAndLineNameAndPeriodOrderByDatetimeDesc(
+						symbol, interval, "SMA", "sma", period, pageable);
+		List<FlexibleIndicatorDto> dtoList = TechnicalIndicatorConverter.fromEntities(sma);
+		return DownsamplingUtil.lttb(dtoList, maxPoints, dto -> Double.parseDouble(dto.getIndicators().get("sma")));
+	}
+
 }
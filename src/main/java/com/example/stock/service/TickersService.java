@@ -1,7 +1,10 @@
 package com.example.stock.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.dao.DataAccessException;
@@ -44,6 +47,24 @@ public class TickersService {
 		return ticker;
 	}
 
+	/**
+	 * 複数の銘柄をIDでまとめて取得する（クエリ1回）。
+	 *
+	 * @param tickerIds 銘柄IDのリスト
+	 * @return 銘柄ID → 銘柄
+	 * @throws IllegalStateException 存在しない銘柄IDが含まれる場合
+	 */
+	public Map<Long, Tickers> getTickersByIds(Collection<Long> tickerIds) {
+		Map<Long, Tickers> tickers = new HashMap<>();
+		for (Tickers ticker : tickersRepository.findAllById(tickerIds)) {
+			tickers.put(ticker.getId(), ticker);
+		}
+		if (!tickers.keySet().containsAll(tickerIds)) {
+			throw new IllegalStateException("存在しない銘柄が含まれています。");
+		}
+		return tickers;
+	}
+
 	public List<Tickers> getFavoriteTickersByUser(Users user) throws TickersException {
 		List<Favorites> favorites = favoritesRepository.findByUser(user);
 		return convertFavoritesToTickers(favorites);
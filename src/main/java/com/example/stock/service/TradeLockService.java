@@ -0,0 +1,85 @@
+package com.example.stock.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ユーザー単位で注文処理を直列化するためのロック（ストライプロック）。
+ *
+ * ユーザーIDからハッシュで固定数のロックのいずれかを選ぶため、ロックの数はユーザー数に依存しない。
+ * 同じユーザーの注文は必ず同じロックを取るので1件ずつ処理され、
+ * 別ユーザーの注文は（同じストライプに当たらない限り）並行して処理される。
+ * ReentrantLockを使うため、仮想スレッドで待機してもキャリアスレッドを占有しない。
+ */
+@Slf4j
+@Service
+public class TradeLockService {
+
+	// ストライプ数（2の累乗）
+	private static final int STRIPES = 256;
+
+	// ロック待ちの上限（これを超えたら注文を受け付けない）
+	private static final long LOCK_TIMEOUT_SECONDS = 10;
+
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+	public TradeLockService() {
+		for (int i = 0; i < STRIPES; i++) {
+			locks[i] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * 指定ユーザーのロックを取得した状態で処理を実行する。
+	 *
+	 * @param userId ユーザーID
+	 * @param action 実行する処理
+	 * @return 処理の戻り値
+	 * @throws IllegalStateException 一定時間内にロックを取得できなかった場合
+	 */
+	public <T> T executeWithUserLock(Long userId, Supplier<T> action) {
+		ReentrantLock lock = lockFor(userId);
+		boolean acquired;
+		try {
+			acquired = lock.tryLock(LOCK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("注文処理が中断されました", e);
+		}
+		if (!acquired) {
+			log.warn("【ロック取得失敗】ユーザーID: {}", userId);
+			throw new IllegalStateException("他の注文を処理中です。しばらくしてから再度お試しください。");
+		}
+
+		try {
+			return action.get();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * 指定ユーザーのロックを取得した状態で処理を実行する（戻り値なし）。
+	 *
+	 * @param userId ユーザーID
+	 * @param action 実行する処理
+	 */
+	public void runWithUserLock(Long userId, Runnable action) {
+		executeWithUserLock(userId, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	// ユーザーIDに対応するロックを選ぶ（上位ビットも混ぜて偏りを抑える）
+	ReentrantLock lockFor(Long userId) {
+		int h = Long.hashCode(userId);
+		h ^= (h >>> 16);
+		return locks[h & (STRIPES - 1)];
+	}
+}
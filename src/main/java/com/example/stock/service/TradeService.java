@@ -1,16 +1,27 @@
 package com.example.stock.service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 import jakarta.validation.Valid;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
+import com.example.stock.dto.OrderStatusDto;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
+import com.example.stock.dto.TradeLogPageDto;
+import com.example.stock.dto.TradeLogRowDto;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.model.Tickers;
 import com.example.stock.model.Trade;
 import com.example.stock.model.UserWallet;
 import com.example.stock.model.Users;
@@ -33,41 +44,226 @@ public class TradeService {
 	private final UserWalletService userWalletService;
 	private final StockService stockService;
 	private final UserStockService userStockService;
+	private final TradeLockService tradeLockService;
+	private final TransactionTemplate transactionTemplate;
+	private final OrderBookService orderBookService;
+	private final TradeStatsService tradeStatsService;
+	private final RiskLimitService riskLimitService;
+
+	// 楽観ロックの競合時に注文処理を試行する最大回数
+	private static final int MAX_ATTEMPTS = 3;
+
+	// 取引履歴の1ページに表示する件数
+	public static final int TRADE_LOG_PAGE_SIZE = 50;
+
+	/**
+	 * 注文の検証・実行に必要な情報（現在値・値幅・ウォレット・保有数）を1回だけ読み込む。
+	 * 現在値が取得できない場合は、現在値・値幅を null としたコンテキストを返す。
+	 *
+	 * @param user 注文するユーザー
+	 * @param ticker 対象銘柄
+	 * @return 注文コンテキスト
+	 */
+	public TradeContext loadContext(Users user, Tickers ticker) {
+		return loadContext(user, ticker, stockService.getLatestStockWithPrevClose(ticker.getTicker()));
+	}
+
+	/**
+	 * 指定した価格を現在値として注文コンテキストを読み込む（寄付での執行など、最新の足以外の価格で執行する場合）。
+	 *
+	 * @param user 注文するユーザー
+	 * @param ticker 対象銘柄
+	 * @param quote 現在値として扱う足（null の場合は現在値・値幅を null とする）
+	 * @return 注文コンテキスト
+	 */
+	public TradeContext loadContext(Users user, Tickers ticker, StockCandleWithPrevCloseDto quote) {
+		BigDecimal[] range = quote != null
+				? TradeValidationUtil.getPriceLimitRange(quote.getClose())
+				: new BigDecimal[] { null, null };
+		UserWallet wallet = userWalletService.getWalletByUser(user);
+		BigDecimal holdingQuantity = userStockService.getStockQuantity(user, ticker);
+
+		return new TradeContext(user, ticker, quote, range[0], range[1], wallet, holdingQuantity);
+	}
 
 	/**
 	 * 注文を実行する（検証 → 保存 → 更新）。途中でエラーがあれば自動ロールバック。
+	 * 注文コンテキストはユーザー単位のロックを取得した後に読み込む。
+	 *
+	 * @param trade 対象取引
 	 */
-	@Transactional
 	public void executeTrade(@Valid Trade trade) {
+		executeWithUserLock(trade, () -> loadContext(trade.getUser(), trade.getTicker()));
+	}
+
+	/**
+	 * 読み込み済みの注文コンテキストを使って注文を実行する（検証 → 保存 → 更新）。
+	 * コンテキストの残高・保有数は事前チェックにのみ使い、確定可否は確定時の残高（台帳）と保有株の条件付き更新で判定する。
+	 *
+	 * @param trade 対象取引
+	 * @param context {@link #loadContext} で読み込んだ注文コンテキスト
+	 */
+	public void executeTrade(@Valid Trade trade, TradeContext context) {
+		executeWithUserLock(trade, () -> context);
+	}
+
+	/**
+	 * 同じユーザーの注文はユーザー単位のロックで1件ずつ処理し、別ユーザーの注文は並行して処理する。
+	 * ロックの外（別ノードなど）からの並行更新は台帳の連番の一意制約・保有株の楽観ロックで検出し、
+	 * トランザクションごとやり直す（最大 {@value #MAX_ATTEMPTS} 回）。
+	 * やり直しは全体がロールバックされた後に行うため、同じ注文が二重に反映されることはない。
+	 */
+	private void executeWithUserLock(Trade trade, Supplier<TradeContext> contextLoader) {
+		tradeLockService.runWithUserLock(trade.getUser().getId(), () -> {
+			for (int attempt = 1;; attempt++) {
+				try {
+					transactionTemplate.executeWithoutResult(status -> doExecuteTrade(trade, contextLoader.get()));
+					// 板に残す指値注文はコミット後に板へ追加する
+					if (trade.getStatus() == TradeStatus.OPEN.getCode()) {
+						orderBookService.register(trade);
+					}
+					return;
+				} catch (OptimisticLockingFailureException e) {
+					if (attempt >= MAX_ATTEMPTS) {
+						log.error("【取引失敗】並行更新が解消しませんでした：ユーザーID: {}, 試行回数: {}",
+								trade.getUser().getId(), attempt);
+						throw new IllegalStateException("他の処理と競合したため注文を確定できませんでした。再度お試しください。", e);
+					}
+					log.warn("【並行更新検出】再試行します：ユーザーID: {}, 試行回数: {}", trade.getUser().getId(), attempt);
+					// ロールバックされた保存結果（採番済みID）を破棄してやり直す
+					trade.setId(null);
+				}
+			}
+		});
+	}
+
+	// 1トランザクション分の注文処理（検証 → 保存 → ウォレット更新 → 保有株更新 → 取引統計の加算）
+	// 最終検証は確定時の残高（台帳）と保有株の条件付き更新（更新件数0なら例外）が担う
+	// 現在値で約定しない指値注文は、注文中として保存するだけで精算は板での約定時に行う
+	private void doExecuteTrade(Trade trade, TradeContext context) {
 		try {
 			log.info("【取引開始】ユーザーID: {}, 銘柄: {}, 数量: {}, 単価: {}, 通貨: {}, 側: {}",
 					trade.getUser().getId(), trade.getTicker().getTicker(), trade.getQuantity(),
 					trade.getUnitPrice(), trade.getSettlementCurrency(), trade.getSide());
 
 			// 1. 初期検証
-			validateTrade(trade);
+			validateTrade(trade, context);
+
+			if (isRestingLimitOrder(trade, context)) {
+				trade.setStatus(TradeStatus.OPEN.getCode());
+				trade.setFilledQuantity(BigDecimal.ZERO);
+				tradeRepository.save(trade);
+				log.info("【指値注文保存】成功：取引ID: {}", trade.getId());
+				return;
+			}
+			trade.setStatus(TradeStatus.FILLED.getCode());
+			trade.setFilledQuantity(trade.getQuantity());
+			// 売買代金・建玉を予約（上限を超えるなら例外、完了時に戻す）
+			riskLimitService.reserve(trade);
 
 			// 2. 取引保存
 			tradeRepository.save(trade);
 			log.info("【注文保存】成功：取引ID: {}", trade.getId());
 
-			// 3. 最終検証（並行処理に備える）
-			validateTrade(trade);
-
-			// 4. ウォレット更新
+			// 3. ウォレット更新（残高不足なら例外）
 			userWalletService.applyTradeToWallet(trade);
 
-			// 5. 保有株更新
+			// 4. 保有株更新（保有数不足なら例外）
 			userStockService.applyTradeToUserStock(trade);
 
+			// 5. 取引統計に加算
+			tradeStatsService.recordFill(trade, trade.getQuantity(), trade.getTotalPrice(), true);
+
 			log.info("【取引完了】取引ID: {}", trade.getId());
 
 		} catch (Exception e) {
 			log.error("【取引失敗】取引ID: {}, エラー: {}", trade.getId(), e.getMessage(), e);
-			throw e; // @Transactional によってロールバックされる
+			throw e; // TransactionTemplate によってロールバックされる
 		}
 	}
 
+	// 指値が現在値で約定しない（買いは現在値未満、売りは現在値超）指値注文かどうか
+	boolean isRestingLimitOrder(Trade trade, TradeContext context) {
+		if (trade.getType() != 0) {
+			return false;
+		}
+		BigDecimal latestClose = BigDecimal.valueOf(context.getQuote().getClose()).setScale(2, RoundingMode.HALF_UP);
+		int compared = trade.getUnitPrice().compareTo(latestClose);
+		return trade.getSide() == 0 ? compared < 0 : compared > 0;
+	}
+
+	/**
+	 * 受付中として記録済みの注文を確定する（業務バリデーション済みであること）。
+	 * 注文パイプラインが複数の注文をまとめて確定するため、トランザクションは呼び出し元で開始する。
+	 * 現在値で約定しない指値注文は注文中とし、それ以外はウォレット・保有株を更新して約定とする。
+	 *
+	 * @param trade 受付中の注文
+	 * @param context 注文コンテキスト
+	 * @throws IllegalStateException 残高・保有数が不足している場合
+	 */
+	public void settlePending(Trade trade, TradeContext context) {
+		applyPending(trade, context);
+		tradeRepository.updateStatus(trade.getId(), trade.getStatus(), trade.getFilledQuantity(), null,
+				LocalDateTime.now());
+		log.info("【注文確定】取引ID: {}, ステータス: {}", trade.getId(), TradeStatus.fromCode(trade.getStatus()).getLabel());
+	}
+
+	/**
+	 * 受付中の注文のウォレット・保有株・取引統計を更新し、注文のステータス・約定数量を設定する（trade テーブルへの書き込みは行わない）。
+	 * 寄付でまとめて執行する場合など、注文のステータスを呼び出し元でまとめて書き込むときに使う。
+	 * 約定させる注文は売買代金・建玉を予約するため、同じトランザクションでまとめて確定する注文も合計で上限を確認する。
+	 *
+	 * @param trade 受付中の注文（業務バリデーション済みであること）
+	 * @param context 注文コンテキスト
+	 * @throws IllegalStateException 残高・保有数が不足している場合、リスク管理の上限を超える場合
+	 */
+	void applyPending(Trade trade, TradeContext context) {
+		if (isRestingLimitOrder(trade, context)) {
+			trade.setStatus(TradeStatus.OPEN.getCode());
+			trade.setFilledQuantity(BigDecimal.ZERO);
+		} else {
+			riskLimitService.reserve(trade);
+			trade.setStatus(TradeStatus.FILLED.getCode());
+			trade.setFilledQuantity(trade.getQuantity());
+			userWalletService.applyTradeToWallet(trade);
+			userStockService.applyTradeToUserStock(trade);
+			tradeStatsService.recordFill(trade, trade.getQuantity(), trade.getTotalPrice(), true);
+		}
+	}
+
+	/**
+	 * 注文の処理状況を取得する（注文確認画面のポーリング用）。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @param tradeId 取引ID
+	 * @return 処理状況（本人の注文でない、または存在しない場合は null）
+	 */
+	public OrderStatusDto getOrderStatus(Users user, Long tradeId) {
+		return tradeRepository.findById(tradeId)
+				.filter(t -> t.getUser().getId().equals(user.getId()))
+				.map(t -> new OrderStatusDto(t.getId(), t.getStatus(),
+						TradeStatus.fromCode(t.getStatus()).getLabel(), t.getFilledQuantity(), t.getRejectReason()))
+				.orElse(null);
+	}
+
+	/**
+	 * 板に残っている指値注文、または寄付待ちの注文を取り消す。
+	 * 寄付待ちの注文は、寄付での執行と重ならないよう条件付き更新（寄付待ちの場合のみ取消）で取り消す。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @param tradeId 取引ID
+	 * @throws IllegalStateException 本人の注文でない、または既に約定・取消済みの場合
+	 */
+	public void cancelOrder(Users user, Long tradeId) {
+		Integer cancelled = transactionTemplate.execute(status -> tradeRepository.cancelQueued(tradeId, user,
+				LocalDateTime.now()));
+		if (cancelled != null && cancelled > 0) {
+			log.info("【寄付待ち注文取消】取引ID: {}, ユーザーID: {}", tradeId, user.getId());
+			return;
+		}
+		orderBookService.cancel(user, tradeId);
+	}
+
 	/**
 	 * 注文内容の検証を行う（残高チェック＋価格制限チェック）
 	 * 問題がある場合は IllegalStateException をスロー。
@@ -75,51 +271,96 @@ public class TradeService {
 	 * @param trade 対象取引
 	 */
 	public void validateTrade(Trade trade) {
-		UserWallet wallet = userWalletService.getWalletByUser(trade.getUser());
+		validateTrade(trade, loadContext(trade.getUser(), trade.getTicker()));
+	}
 
+	/**
+	 * 読み込み済みの注文コンテキストを使って注文内容の検証を行う（DBアクセスなし）。
+	 * 残高・値幅・保有数に加えて、リスク管理の上限（{@link RiskLimitService}）を確認する。
+	 * 問題がある場合は IllegalStateException をスロー。
+	 *
+	 * @param trade 対象取引
+	 * @param context 注文コンテキスト
+	 */
+	public void validateTrade(Trade trade, TradeContext context) {
 		// 買い注文 → 残高チェック
-		if (trade.getSide() == 0 && !TradeValidationUtil.isBalanceEnough(trade, wallet)) {
+		if (trade.getSide() == 0 && !TradeValidationUtil.isBalanceEnough(trade, context.getWallet())) {
 			throw new IllegalStateException("残高不足です。注文を修正してください。");
 		}
 
 		// 値幅チェック
-		if (!TradeValidationUtil.isWithinLimit(trade, stockService)) {
-			BigDecimal[] range = TradeValidationUtil.getPriceLimitRange(trade, stockService);
+		if (context.getQuote() == null) {
+			throw new IllegalStateException("現在値を取得できないため、注文できません。");
+		}
+		if (!TradeValidationUtil.isWithinLimit(trade, context.getLowerLimit(), context.getUpperLimit())) {
 			throw new IllegalStateException(String.format(
 					"注文価格が値幅制限を超えています（許容範囲: %s ～ %s）",
-					range[0].toPlainString(), range[1].toPlainString()));
+					context.getLowerLimit().toPlainString(), context.getUpperLimit().toPlainString()));
 		}
 
 		// 売り注文 → 保有数チェック
-		if (trade.getSide() == 1 && !TradeValidationUtil.isSellQuantityEnough(trade, userStockService)) {
+		if (trade.getSide() == 1 && !TradeValidationUtil.isSellQuantityEnough(trade, context.getHoldingQuantity())) {
 			throw new IllegalStateException("保有株数が不足です。注文を修正してください。");
 		}
+
+		// リスク管理の上限（注文金額・売買代金・建玉）
+		riskLimitService.check(trade);
 	}
 
-	public List<Trade> getTradesByUser(Users user) {
-		return tradeRepository.findByUserOrderByCreateAtDesc(user);
+	/**
+	 * ユーザーの取引履歴を検索します（最初のページ）。
+	 *
+	 * @param user ログイン中のユーザー
+	 * @param date フィルター対象の日付範囲（"today", "1week", "1month", "all"）
+	 * @param tickerKeyword ティッカーの検索キーワード（連続部分一致）
+	 * @return 該当する取引の最初のページ（新しい順）
+	 */
+	public TradeLogPageDto searchTrades(Users user, String date, String tickerKeyword) {
+		return searchTrades(user, date, tickerKeyword, null, null);
 	}
 
 	/**
 	 * ユーザーの取引履歴を検索します。
+	 * 前のページの最後の行（日時, ID）より古い取引から TRADE_LOG_PAGE_SIZE 件を返すため、
+	 * 履歴の件数が増えても1ページの取得にかかる時間は変わらない。
 	 *
 	 * @param user ログイン中のユーザー
 	 * @param date フィルター対象の日付範囲（"today", "1week", "1month", "all"）
 	 * @param tickerKeyword ティッカーの検索キーワード（連続部分一致）
-	 * @return 該当する取引リスト（新しい順）
+	 * @param beforeAt 前のページの最後の行の日時（最初のページは null）
+	 * @param beforeId 前のページの最後の行のID（最初のページは null）
+	 * @return 該当する取引の1ページ分（新しい順）
 	 */
-	public List<Trade> searchTrades(Users user, String date, String tickerKeyword) {
+	public TradeLogPageDto searchTrades(Users user, String date, String tickerKeyword, LocalDateTime beforeAt,
+			Long beforeId) {
 		LocalDateTime from = switch (date) {
 		case "today" -> LocalDate.now().atStartOfDay();
 		case "1week" -> LocalDate.now().with(java.time.DayOfWeek.MONDAY).atStartOfDay();
 		case "1month" -> LocalDate.now().withDayOfMonth(1).atStartOfDay();
 		default -> LocalDateTime.of(2000, 1, 1, 0, 0); // "all"
 		};
+		if (beforeAt == null || beforeId == null) {
+			beforeAt = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+			beforeId = Long.MAX_VALUE;
+		}
+		String symbol = tickerKeyword == null || tickerKeyword.isBlank()
+				? null
+				: "%" + escapeLike(tickerKeyword.toUpperCase()) + "%";
+
+		// 1件多く取得し、次のページがあるかを判定する
+		List<TradeLogRowDto> rows = tradeRepository.findTradeLogPage(user, from, beforeAt, beforeId, symbol,
+				PageRequest.of(0, TRADE_LOG_PAGE_SIZE + 1));
+		if (rows.size() <= TRADE_LOG_PAGE_SIZE) {
+			return new TradeLogPageDto(rows, null, null);
+		}
+		rows = rows.subList(0, TRADE_LOG_PAGE_SIZE);
+		TradeLogRowDto last = rows.get(rows.size() - 1);
+		return new TradeLogPageDto(rows, last.getCreateAt(), last.getId());
+	}
 
-		return tradeRepository.findByUserAndCreateAtAfterOrderByCreateAtDesc(user, from).stream()
-				.filter(t -> tickerKeyword == null || tickerKeyword.isBlank()
-						|| t.getTicker().getTicker().toLowerCase().contains(tickerKeyword.toLowerCase()))
-				.toList();
+	// キーワードの \ % _ を文字として扱うようにエスケープする（LIKE の ESCAPE '\' と対応）
+	private static String escapeLike(String keyword) {
+		return keyword.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
 	}
 
 }
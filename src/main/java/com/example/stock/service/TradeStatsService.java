@@ -0,0 +1,189 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.stock.dto.TradeStatsDto;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.TradeStatMonthlyRepository;
+import com.example.stock.repository.TradeStatMonthlyRepository.StatRow;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ユーザーごとの取引統計（月・銘柄・決済通貨ごとの約定件数・数量・金額）を管理するサービス。
+ * 約定のたびに注文処理と同じトランザクションで集計に加算するため、取引統計の表示は trade を走査しない。
+ * 既存の注文からの集計の作り直しは、ユーザーIDの範囲ごとに分割して並行に行う。
+ */
+@Slf4j
+@Service
+public class TradeStatsService {
+
+	// 作り直しで1回に処理するユーザーIDの幅
+	private static final long USERS_PER_CHUNK = 200;
+
+	// 作り直しの並行数（DB接続プールを使い切らないよう小さくする）
+	private static final int BACKFILL_PARALLELISM = 4;
+
+	// 取引統計に表示する銘柄の数
+	private static final int TOP_TICKERS = 5;
+
+	private final TradeStatMonthlyRepository tradeStatMonthlyRepository;
+	private final TradeRepository tradeRepository;
+	private final TransactionTemplate chunkTransaction;
+	private final boolean backfillOnStartup;
+
+	public TradeStatsService(TradeStatMonthlyRepository tradeStatMonthlyRepository, TradeRepository tradeRepository,
+			PlatformTransactionManager transactionManager,
+			@Value("${trade-stats.backfill-on-startup:false}") boolean backfillOnStartup) {
+		this.tradeStatMonthlyRepository = tradeStatMonthlyRepository;
+		this.tradeRepository = tradeRepository;
+		this.chunkTransaction = new TransactionTemplate(transactionManager);
+		this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.backfillOnStartup = backfillOnStartup;
+	}
+
+	/**
+	 * 注文の約定を取引統計に加算する（呼び出し元のトランザクションで実行する）。
+	 *
+	 * @param order     約定した注文（受付日時の月に集計する）
+	 * @param quantity  今回の約定数量
+	 * @param amount    今回の約定分の受渡金額（決済通貨）
+	 * @param firstFill 注文の最初の約定かどうか（注文の件数は最初の約定で1件数える）
+	 */
+	@Transactional
+	public void recordFill(Trade order, BigDecimal quantity, BigDecimal amount, boolean firstFill) {
+		boolean buy = order.getSide() == 0;
+		long count = firstFill ? 1 : 0;
+		LocalDateTime orderedAt = order.getCreateAt() != null ? order.getCreateAt() : LocalDateTime.now();
+		tradeStatMonthlyRepository.add(order.getUser().getId(), orderedAt.toLocalDate().withDayOfMonth(1),
+				order.getTicker().getId(), order.getSettlementCurrency().toUpperCase(),
+				buy ? count : 0, buy ? 0 : count,
+				buy ? quantity : BigDecimal.ZERO, buy ? BigDecimal.ZERO : quantity,
+				buy ? amount : BigDecimal.ZERO, buy ? BigDecimal.ZERO : amount,
+				LocalDateTime.now());
+	}
+
+	/**
+	 * 直近の指定した月数の取引統計を取得する（集計テーブルの1回の読み込みで求める）。
+	 *
+	 * @param user   ログイン中のユーザー
+	 * @param months 集計する月数（当月を含む）
+	 * @return 取引統計
+	 */
+	@Transactional(readOnly = true)
+	public TradeStatsDto getStats(Users user, int months) {
+		LocalDate from = LocalDate.now().withDayOfMonth(1).minusMonths(months - 1);
+
+		long buyCount = 0;
+		long sellCount = 0;
+		Map<LocalDate, Long> monthlyCounts = new TreeMap<>();
+		Map<String, BigDecimal> buyAmounts = new TreeMap<>();
+		Map<String, BigDecimal> sellAmounts = new TreeMap<>();
+		Map<String, Long> tickerCounts = new HashMap<>();
+		for (StatRow row : tradeStatMonthlyRepository.findRows(user, from)) {
+			long count = row.getBuyCount() + row.getSellCount();
+			buyCount += row.getBuyCount();
+			sellCount += row.getSellCount();
+			monthlyCounts.merge(row.getMonth(), count, Long::sum);
+			buyAmounts.merge(row.getCurrency(), row.getBuyAmount(), BigDecimal::add);
+			sellAmounts.merge(row.getCurrency(), row.getSellAmount(), BigDecimal::add);
+			tickerCounts.merge(row.getSymbol(), count, Long::sum);
+		}
+
+		Map<String, Long> topTickers = new LinkedHashMap<>();
+		tickerCounts.entrySet().stream()
+				.sorted(Map.Entry.<String, Long> comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+				.limit(TOP_TICKERS)
+				.forEach(e -> topTickers.put(e.getKey(), e.getValue()));
+
+		return new TradeStatsDto(from, buyCount, sellCount, monthlyCounts, buyAmounts, sellAmounts, topTickers);
+	}
+
+	/**
+	 * 設定（trade-stats.backfill-on-startup=true）で有効な場合、起動時に既存の注文から取引統計を作り直す。
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfillOnStartup() {
+		if (backfillOnStartup) {
+			Thread.startVirtualThread(this::backfill);
+		}
+	}
+
+	/**
+	 * 既存の注文から全ユーザーの取引統計を作り直す。
+	 *
+	 * @return 作成した集計行の件数
+	 */
+	public long backfill() {
+		Long minUserId = tradeRepository.findMinUserId();
+		Long maxUserId = tradeRepository.findMaxUserId();
+		if (minUserId == null) {
+			return 0;
+		}
+		return backfill(minUserId, maxUserId);
+	}
+
+	/**
+	 * 指定範囲のユーザーの取引統計を、既存の注文から作り直す。
+	 * ユーザーIDの範囲を {@value #USERS_PER_CHUNK} ずつに分け、範囲ごとに1トランザクション
+	 * （集計の削除 → 注文をDB上で集計して挿入）で並行に処理する。
+	 * 範囲ごとに対象の集計行が重ならないため、並行に処理しても行ロックは競合しない。
+	 * 削除した集計行の範囲はコミットまでロックされるので、作り直し中の約定はコミット後に加算される。
+	 *
+	 * @param minUserId 対象のユーザーIDの最小値
+	 * @param maxUserId 対象のユーザーIDの最大値
+	 * @return 作成した集計行の件数
+	 */
+	long backfill(long minUserId, long maxUserId) {
+		long start = System.currentTimeMillis();
+		List<Future<Integer>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(BACKFILL_PARALLELISM)) {
+			for (long from = minUserId; from <= maxUserId; from += USERS_PER_CHUNK) {
+				long chunkFrom = from;
+				long chunkTo = Math.min(from + USERS_PER_CHUNK - 1, maxUserId);
+				results.add(executor.submit(() -> chunkTransaction.execute(status -> {
+					tradeStatMonthlyRepository.deleteByUserRange(chunkFrom, chunkTo);
+					return tradeStatMonthlyRepository.rebuildByUserRange(chunkFrom, chunkTo, LocalDateTime.now());
+				})));
+			}
+		}
+
+		long rows = 0;
+		for (Future<Integer> result : results) {
+			try {
+				rows += result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("取引統計の作り直しが中断されました", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("取引統計の作り直しに失敗しました", e.getCause());
+			}
+		}
+		log.info("【取引統計作り直し】ユーザーID: {} ～ {}, 集計行: {} 件, 分割数: {}, 所要時間: {}ms",
+				minUserId, maxUserId, rows, results.size(), System.currentTimeMillis() - start);
+		return rows;
+	}
+}
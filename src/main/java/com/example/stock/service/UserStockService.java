@@ -2,10 +2,17 @@ package com.example.stock.service;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.stock.event.HoldingChangedEvent;
+import com.example.stock.event.TradeFilledEvent;
+import com.example.stock.exception.InsufficientBalanceException;
 import com.example.stock.model.Tickers;
 import com.example.stock.model.Trade;
 import com.example.stock.model.UserStock;
@@ -25,6 +32,8 @@ public class UserStockService {
 
 	private final UserStockRepository userStockRepository;
 	private final TickersService tickersService;
+	private final TaxLotService taxLotService;
+	private final ApplicationEventPublisher eventPublisher;
 
 	/**
 	 * 指定されたユーザーが特定の銘柄をどれだけ保有しているか（株数）を取得する。
@@ -36,57 +45,91 @@ public class UserStockService {
 	 */
 	public BigDecimal getStockQuantityByUserAndTicker(Users user, String symbol) {
 		Tickers ticker = tickersService.getTickersBySymbol(symbol);
+		return getStockQuantity(user, ticker);
+	}
 
+	/**
+	 * 指定されたユーザーが特定の銘柄をどれだけ保有しているか（株数）を取得する。
+	 * 銘柄エンティティを取得済みの場合はこちらを使い、銘柄の再検索を省く。
+	 *
+	 * @param user ユーザー
+	 * @param ticker 銘柄
+	 * @return 該当ユーザーの保有株数（存在しない場合は BigDecimal.ZERO）
+	 */
+	public BigDecimal getStockQuantity(Users user, Tickers ticker) {
 		return userStockRepository.findByUserAndTicker(user, ticker)
 				.map(UserStock::getQuantity)
 				.orElse(BigDecimal.ZERO);
 	}
 
+	/**
+	 * 複数銘柄の保有株数をまとめて取得する（クエリ1回）。
+	 *
+	 * @param user ユーザー
+	 * @param tickers 銘柄
+	 * @return 銘柄ID → 保有株数（保有していない銘柄は含まれない）
+	 */
+	public Map<Long, BigDecimal> getStockQuantities(Users user, Collection<Tickers> tickers) {
+		Map<Long, BigDecimal> quantities = new HashMap<>();
+		for (UserStock stock : userStockRepository.findByUserAndTickerIn(user, tickers)) {
+			quantities.put(stock.getTicker().getId(), stock.getQuantity());
+		}
+		return quantities;
+	}
+
+	/**
+	 * ユーザーの全保有銘柄の保有株数をまとめて取得する（クエリ1回）。
+	 *
+	 * @param user ユーザー
+	 * @return 銘柄コード → 保有株数（保有していない銘柄は含まれない）
+	 */
+	public Map<String, BigDecimal> getHoldingQuantities(Users user) {
+		Map<String, BigDecimal> quantities = new HashMap<>();
+		for (UserStockRepository.HoldingRow row : userStockRepository.findHoldingsByUser(user)) {
+			quantities.put(row.getSymbol(), row.getQuantity());
+		}
+		return quantities;
+	}
+
 	/**
 	 * 最終的に保有株数を更新する（買いなら加算、売りなら減算）
-	 * 売りのときは最終的に持株数チェックも行う
+	 * 売りのときは保有数が足りる場合のみ減らす条件付きのUPDATE文で、持株数チェック（最終検証）をDBで保証する。
+	 * 買いのときは保有がなければ新規作成、あれば加算を1文で行う。
+	 * あわせてロットと取得原価を更新し（買い：ロット追加、売り：ロットの売却と実現損益の記録）、
+	 * 更新後は {@link HoldingChangedEvent}・{@link TradeFilledEvent} を発行し、コミット後にポートフォリオ・リスク管理へ反映される。
 	 */
 	@Transactional
 	public void applyTradeToUserStock(Trade trade) {
 		Users user = trade.getUser();
 		Tickers ticker = trade.getTicker();
 		BigDecimal tradeQty = trade.getQuantity();
+		LocalDateTime now = LocalDateTime.now();
 
-		UserStock userStock = userStockRepository.findByUserAndTicker(user, ticker)
-				.orElseGet(() -> {
-					// 売り注文で保有がない場合はエラー
-					if (trade.getSide() == 1) {
-						throw new IllegalStateException("保有していない株式を売却することはできません");
-					}
-					UserStock newStock = new UserStock();
-					newStock.setUser(user);
-					newStock.setTicker(ticker);
-					newStock.setQuantity(BigDecimal.ZERO);
-					newStock.setCreateAt(LocalDateTime.now());
-					return newStock;
-				});
-
-		// 【売り注文】保有株数チェック（最終検証）
+		BigDecimal cost;
 		if (trade.getSide() == 1) {
-			BigDecimal currentQty = userStock.getQuantity();
-			if (currentQty.compareTo(tradeQty) < 0) {
+			// 【売り注文】ロットから取得原価を求め、保有数が足りる場合のみ減らす（更新件数0なら保有なし or 保有数不足）
+			cost = taxLotService.consumeLots(trade, now);
+			int updated = userStockRepository.decreaseQuantity(user, ticker, tradeQty, cost, now);
+			if (updated == 0) {
+				UserStock userStock = userStockRepository.findByUserAndTicker(user, ticker)
+						.orElseThrow(() -> new InsufficientBalanceException("保有していない株式を売却することはできません"));
 				log.error("【保有株エラー】取引ID：{}, ユーザーID: {}, 銘柄: {}, 売却数: {}, 保有数: {}",
-						trade.getId(), user.getId(), ticker.getTicker(), tradeQty, currentQty);
-				throw new IllegalStateException("【最終検証】保有株数が不足しています");
+						trade.getId(), user.getId(), ticker.getTicker(), tradeQty, userStock.getQuantity());
+				throw new InsufficientBalanceException("【最終検証】保有株数が不足しています");
 			}
+		} else if (trade.getSide() == 0) {
+			cost = taxLotService.addLot(trade, now);
+			userStockRepository.increaseQuantity(user.getId(), ticker.getId(), tradeQty, cost, now);
+		} else {
+			return;
 		}
 
-		// 株数の更新
-		if (trade.getSide() == 0) {
-			userStock.setQuantity(userStock.getQuantity().add(tradeQty));
-		} else if (trade.getSide() == 1) {
-			userStock.setQuantity(userStock.getQuantity().subtract(tradeQty));
-		}
-
-		userStock.setUpdateAt(LocalDateTime.now());
-		userStockRepository.save(userStock);
+		eventPublisher.publishEvent(new HoldingChangedEvent(user.getId(), ticker.getTicker(), ticker.getBrand(),
+				trade.getSide() == 1 ? tradeQty.negate() : tradeQty, trade.getSide() == 1 ? cost.negate() : cost));
+		eventPublisher.publishEvent(new TradeFilledEvent(user.getId(), ticker.getTicker(), trade.getSide(), tradeQty,
+				tradeQty.multiply(trade.getUnitPrice())));
 
-		log.info("【保有株更新】ユーザーID: {}, 銘柄: {}, 処理数量: {}, 残り: {}",
-				user.getId(), ticker.getTicker(), tradeQty, userStock.getQuantity());
+		log.info("【保有株更新】ユーザーID: {}, 銘柄: {}, 処理数量: {}, 売買区分: {}",
+				user.getId(), ticker.getTicker(), tradeQty, trade.getSide());
 	}
 }
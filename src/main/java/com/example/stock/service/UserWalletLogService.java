@@ -53,12 +53,31 @@ public class UserWalletLogService {
 		userWalletLogRepository.save(log);
 	}
 
+	/**
+	 * 取引前の残高と変化額から、取引前後の残高のログを保存する。
+	 * 台帳への記帳と同じトランザクション内で呼び出すこと。
+	 *
+	 * @param trade         取引情報（保存済みでIDが採番されていること）
+	 * @param walletId      ウォレットID
+	 * @param beforeBalance 取引前の残高（残高列 + 未反映の記帳）
+	 * @param changeAmount  残高の変化額（買い：マイナス、売り：プラス）
+	 */
+	public void createTradeLog(Trade trade, Long walletId, BigDecimal beforeBalance, BigDecimal changeAmount) {
+		userWalletLogRepository.insertTradeLog(
+				walletId,
+				trade.getId(),
+				trade.getSettlementCurrency().toUpperCase(),
+				beforeBalance,
+				changeAmount,
+				LocalDateTime.now());
+	}
+
 	//取引通貨を取得
 	private BigDecimal getCurrentBalance(UserWallet wallet, String currency) {
 		if ("JPY".equalsIgnoreCase(currency)) {
-			return wallet.getJpyBalance();
+			return wallet.getCurrentJpyBalance();
 		} else if ("USD".equalsIgnoreCase(currency)) {
-			return wallet.getUsdBalance();
+			return wallet.getCurrentUsdBalance();
 		}
 		throw new IllegalArgumentException("不正な通貨コード：" + currency);
 	}
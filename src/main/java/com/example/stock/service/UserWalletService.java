@@ -4,13 +4,18 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.stock.event.WalletChangedEvent;
+import com.example.stock.exception.InsufficientBalanceException;
 import com.example.stock.model.Trade;
 import com.example.stock.model.UserWallet;
 import com.example.stock.model.Users;
 import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository.LedgerBalance;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,6 +26,8 @@ import lombok.extern.slf4j.Slf4j;
 public class UserWalletService {
 	private final UserWalletRepository userWalletRepository;
 	private final UserWalletLogService userWalletLogService;
+	private final WalletLedgerService walletLedgerService;
+	private final ApplicationEventPublisher eventPublisher;
 	//	private final UserStockService userStockService;
 
 	/**
@@ -72,54 +79,61 @@ public class UserWalletService {
 
 	/**
 	 * 取引に応じてウォレットの残高を更新。
-	 * チェック失敗時はログのみ記録（画面へのエラー送出はしない）。
+	 * 現在の残高（残高列 + 未反映の記帳）を読み込んで買い注文の残高チェック（最終検証）を行い、台帳へ記帳する。
+	 * user_wallet の行は更新しない（記帳は定期的にまとめて残高列へ反映される）。
+	 * 読み込んだ後に他の処理が同じウォレットへ記帳していた場合は、連番の一意制約で検出して例外とする。
+	 * 取引前後の残高のログは、同じトランザクション内で保存する。
+	 * 更新後は {@link WalletChangedEvent} を発行し、コミット時に注文ページのキャッシュへ反映される。
 	 *
 	 * @param trade 対象取引
+	 * @throws IllegalStateException 未対応の通貨、または残高不足の場合
+	 * @throws org.springframework.dao.OptimisticLockingFailureException 同じウォレットへの記帳と競合した場合
 	 */
+	@Transactional
 	public void applyTradeToWallet(Trade trade) {
-		UserWallet wallet = getWalletByUser(trade.getUser());
+		Users user = trade.getUser();
 		BigDecimal amount = trade.getTotalPrice();
 		String currency = trade.getSettlementCurrency();
-		BigDecimal balance = "JPY".equalsIgnoreCase(currency) ? wallet.getJpyBalance() : wallet.getUsdBalance();
 
 		// 通貨チェック
 		if (!"JPY".equalsIgnoreCase(currency) && !"USD".equalsIgnoreCase(currency)) {
-			log.error("【通貨エラー】取引ID：{}, ユーザーID: {}, 未対応の通貨: {}", trade.getId(), trade.getUser().getId(), currency);
+			log.error("【通貨エラー】取引ID：{}, ユーザーID: {}, 未対応の通貨: {}", trade.getId(), user.getId(), currency);
 			throw new IllegalStateException("未対応の通貨です: " + currency);
 		}
+		boolean isJpy = "JPY".equalsIgnoreCase(currency);
+		LocalDateTime now = LocalDateTime.now();
 
-		// 【買い注文】残高チェック（最終検証）
-		if (trade.getSide() == 0) {
-			if (balance.compareTo(amount) < 0) {
-				log.error("【残高エラー】取引ID：{}, ユーザーID: {}, 通貨: {}, 必要金額: {}, 残高: {}",
-						trade.getId(), trade.getUser().getId(), currency, amount, balance);
-				throw new IllegalStateException("【最終検証】残高不足");
-			}
+		// 現在の残高を読み込む（ウォレットが未作成なら作成してから読み込む）
+		LedgerBalance balance = walletLedgerService.getCurrentBalance(user);
+		if (balance == null) {
+			getWalletByUser(user);
+			balance = walletLedgerService.getCurrentBalance(user);
 		}
+		BigDecimal beforeBalance = balance.get(currency);
 
-		// 残高の変更を行う
+		BigDecimal changeAmount;
 		if (trade.getSide() == 0) {
-			if ("JPY".equalsIgnoreCase(currency)) {
-				wallet.setJpyBalance(wallet.getJpyBalance().subtract(amount));
-			} else {
-				wallet.setUsdBalance(wallet.getUsdBalance().subtract(amount));
-			}
-		} else if (trade.getSide() == 1) {
-			if ("JPY".equalsIgnoreCase(currency)) {
-				wallet.setJpyBalance(wallet.getJpyBalance().add(amount));
-			} else {
-				wallet.setUsdBalance(wallet.getUsdBalance().add(amount));
+			// 【買い注文】残高が足りる場合のみ減らす
+			if (beforeBalance.compareTo(amount) < 0) {
+				log.error("【残高エラー】取引ID：{}, ユーザーID: {}, 通貨: {}, 必要金額: {}, 残高: {}",
+						trade.getId(), user.getId(), currency, amount, beforeBalance);
+				throw new InsufficientBalanceException("【最終検証】残高不足");
 			}
+			changeAmount = amount.negate();
+		} else {
+			// 【売り注文】残高を増やす
+			changeAmount = amount;
 		}
 
-		wallet.setUpdateAt(LocalDateTime.now());
-		// DB保存
-		userWalletRepository.save(wallet);
+		// 台帳に記帳（読み込んだ残高の次の連番で追記する）
+		walletLedgerService.appendTradeEntry(balance, trade, changeAmount, now);
+
 		// log作成・保存
-		userWalletLogService.createAndSaveLog(trade, wallet);
+		userWalletLogService.createTradeLog(trade, balance.getWalletId(), beforeBalance, changeAmount);
+
+		eventPublisher.publishEvent(new WalletChangedEvent(user.getId(), isJpy ? "JPY" : "USD", changeAmount));
 
-		log.info("【口座情報更新】ユーザーID: {}, 通貨: {}, 処理数量: {}, 残り: {}",
-				trade.getUser().getId(), currency, amount, balance);
+		log.info("【口座情報更新】ユーザーID: {}, 通貨: {}, 処理数量: {}", user.getId(), currency, changeAmount);
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.example.stock.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.stock.dto.WalletBalanceDto;
+import com.example.stock.enums.LedgerEntryType;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.model.WalletSnapshot;
+import com.example.stock.repository.TradeBatchRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository.LedgerBalance;
+import com.example.stock.repository.WalletLedgerEntryRepository.LedgerSum;
+import com.example.stock.repository.WalletSnapshotRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ウォレットの追記型の台帳（記帳とスナップショット）を管理するサービス。
+ *
+ * 残高の変化は wallet_ledger_entry への追記だけで記録し、注文ごとに user_wallet の行は更新しない。
+ * 現在の残高は user_wallet の残高列（連番 ledger_seq までの記帳を反映済み）に、それより後の記帳を足して求め、
+ * 残高不足の判定もこの残高で行う。同じウォレットへの並行する追記は、連番の一意制約で検出する。
+ * 前回から {@value #SNAPSHOT_INTERVAL} 件以上記帳されたウォレットは、定期的に記帳を残高列へまとめて反映してスナップショットを取り、
+ * 任意時点の残高は直近のスナップショットと、そこから指定時点までの記帳だけで求める。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WalletLedgerService {
+
+	// スナップショットを取る記帳件数の間隔
+	static final long SNAPSHOT_INTERVAL = 100;
+
+	private final WalletLedgerEntryRepository walletLedgerEntryRepository;
+	private final WalletSnapshotRepository walletSnapshotRepository;
+	private final UserWalletRepository userWalletRepository;
+	private final TradeBatchRepository tradeBatchRepository;
+
+	/**
+	 * ウォレットの現在の残高（残高列 + 未反映の記帳）と最後の記帳の連番を読み込む。
+	 * 残高不足の判定と記帳は、この値を読み込んだのと同じトランザクション内で行うこと。
+	 *
+	 * @param user ユーザー
+	 * @return 現在の残高（ウォレットが無い場合は null）
+	 */
+	public LedgerBalance getCurrentBalance(Users user) {
+		return walletLedgerEntryRepository.findBalance(user.getId());
+	}
+
+	/**
+	 * 取引による残高の変化を、読み込んだ残高の次の連番で記帳する。
+	 *
+	 * @param balance {@link #getCurrentBalance} で読み込んだ残高
+	 * @param trade 取引情報（保存済みでIDが採番されていること）
+	 * @param changeAmount 残高の変化額（買い：マイナス、売り：プラス）
+	 * @param now 記帳日時
+	 * @throws OptimisticLockingFailureException 読み込んだ後に他の処理が同じウォレットへ記帳していた場合
+	 */
+	public void appendTradeEntry(LedgerBalance balance, Trade trade, BigDecimal changeAmount, LocalDateTime now) {
+		try {
+			walletLedgerEntryRepository.append(balance.getWalletId(), balance.getLastSeq() + 1,
+					entryTypeOf(trade).getCode(), trade.getSettlementCurrency().toUpperCase(), changeAmount,
+					trade.getId(), now);
+		} catch (DataIntegrityViolationException e) {
+			throw conflict(balance, e);
+		}
+	}
+
+	/**
+	 * 複数の取引による残高の変化を、読み込んだ残高の次の連番から注文順にまとめて記帳する。
+	 *
+	 * @param balance {@link #getCurrentBalance} で読み込んだ残高
+	 * @param trades 保存済みの取引
+	 * @param changeAmounts 取引ごとの変化額（trades と同じ順）
+	 * @param now 記帳日時
+	 * @throws OptimisticLockingFailureException 読み込んだ後に他の処理が同じウォレットへ記帳していた場合
+	 */
+	public void appendTradeEntries(LedgerBalance balance, List<Trade> trades, List<BigDecimal> changeAmounts,
+			LocalDateTime now) {
+		try {
+			tradeBatchRepository.insertLedgerEntries(balance.getWalletId(), trades, changeAmounts,
+					balance.getLastSeq() + 1, now);
+		} catch (DataIntegrityViolationException e) {
+			throw conflict(balance, e);
+		}
+	}
+
+	private static LedgerEntryType entryTypeOf(Trade trade) {
+		return trade.getSide() == 0 ? LedgerEntryType.TRADE_DEBIT : LedgerEntryType.TRADE_CREDIT;
+	}
+
+	private static OptimisticLockingFailureException conflict(LedgerBalance balance, Exception cause) {
+		log.warn("【台帳の競合】ウォレットID: {}, 連番: {} 以降が他の処理で記帳済みです", balance.getWalletId(),
+				balance.getLastSeq() + 1);
+		return new OptimisticLockingFailureException("他の処理と同時に記帳されたため、残高を確定できませんでした", cause);
+	}
+
+	/**
+	 * 指定時点のウォレット残高を台帳から求める。
+	 * 指定時点以前のスナップショットがあればそこから記帳を足し込み、
+	 * 無ければ指定時点より後のスナップショット（無ければ残高列）を基準に、基準より前で指定時点より後の記帳を差し引き、
+	 * 基準より後で指定時点以前の記帳を足し込む。
+	 *
+	 * @param user ユーザー
+	 * @param at 時点
+	 * @return 指定時点の残高（ウォレットが無い場合は0）
+	 */
+	@Transactional(readOnly = true)
+	public WalletBalanceDto getBalanceAsOf(Users user, LocalDateTime at) {
+		UserWallet wallet = userWalletRepository.findByUser(user);
+		if (wallet == null) {
+			return new WalletBalanceDto(BigDecimal.ZERO, BigDecimal.ZERO, at);
+		}
+
+		Optional<WalletSnapshot> before = walletSnapshotRepository
+				.findTopByUserWalletAndCreateAtLessThanEqualOrderBySeqDesc(wallet, at);
+		if (before.isPresent()) {
+			WalletSnapshot snapshot = before.get();
+			LedgerSum tail = walletLedgerEntryRepository.sumAfter(wallet.getId(), snapshot.getSeq(), at);
+			return new WalletBalanceDto(snapshot.getJpyBalance().add(tail.getJpy()),
+					snapshot.getUsdBalance().add(tail.getUsd()), at);
+		}
+
+		WalletSnapshot after = walletSnapshotRepository
+				.findTopByUserWalletAndCreateAtGreaterThanOrderBySeqAsc(wallet, at)
+				.orElse(null);
+		long seq = after != null ? after.getSeq() : wallet.getLedgerSeq();
+		BigDecimal jpy = after != null ? after.getJpyBalance() : wallet.getJpyBalance();
+		BigDecimal usd = after != null ? after.getUsdBalance() : wallet.getUsdBalance();
+		LedgerSum since = walletLedgerEntryRepository.sumSince(wallet.getId(), seq, at);
+		LedgerSum tail = walletLedgerEntryRepository.sumAfter(wallet.getId(), seq, at);
+		return new WalletBalanceDto(jpy.subtract(since.getJpy()).add(tail.getJpy()),
+				usd.subtract(since.getUsd()).add(tail.getUsd()), at);
+	}
+
+	/**
+	 * 前回の反映から {@value #SNAPSHOT_INTERVAL} 件以上記帳されたウォレットについて、記帳を残高列へまとめて反映し、
+	 * 反映後の残高列のスナップショットを取る。
+	 */
+	@Scheduled(fixedDelay = 60_000)
+	@Transactional
+	public void takeSnapshots() {
+		LocalDateTime now = LocalDateTime.now();
+		int folded = userWalletRepository.foldLedger(SNAPSHOT_INTERVAL, now);
+		int count = walletSnapshotRepository.takeSnapshots(SNAPSHOT_INTERVAL, now);
+		if (folded > 0 || count > 0) {
+			log.info("ウォレットの記帳を残高に反映しました: {} 件, スナップショットを作成しました: {} 件", folded, count);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.stock.trigger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 価格が「基準値 − 値幅」以下になったら発動するトレーリングストップの索引。
+ * 基準値は発注後の高値に追従する（買いのトレーリングストップは符号を反転した価格で同じ索引を使う）。
+ *
+ * 高値を更新するたびに注文ごとの発動価格を書き換えると、値上がりが続く間は毎回すべての注文に触れることになる。
+ * そこで注文を基準値ごとのまとまり（{@link Bucket}）に分けて持つ。新しい高値を下回る基準値のまとまりは
+ * 高値到達後にはすべて同じ基準値になるため、1つにまとめて基準値だけを書き換える（小さい方を大きい方へ移す）。
+ * まとまりは最も高い発動価格の順にも並べておき、発動判定は発動するまとまり・注文にだけ触れる。
+ *
+ * スレッドセーフではないため、呼び出し側で銘柄ごとに排他すること。
+ */
+class TrailingStops {
+
+	/**
+	 * 基準値が同じトレーリングストップのまとまり。値幅の小さい順（＝発動価格の高い順）に並べる。
+	 */
+	static final class Bucket {
+		long anchor;
+		final TreeSet<TriggerOrder> byTrail = new TreeSet<>(
+				Comparator.comparingLong(TriggerOrder::getTrail).thenComparingLong(TriggerOrder::getSequence));
+
+		Bucket(long anchor) {
+			this.anchor = anchor;
+		}
+
+		// まとまりの中で最も高い発動価格
+		long level() {
+			return anchor - byTrail.first().getTrail();
+		}
+	}
+
+	// 基準値 → まとまり
+	private final TreeMap<Long, Bucket> byAnchor = new TreeMap<>();
+	// まとまりを最も高い発動価格の順に並べたもの（キーが変わる操作の前には必ず取り除くこと）
+	private final TreeSet<Bucket> byLevel = new TreeSet<>(
+			Comparator.comparingLong(Bucket::level).thenComparingLong(b -> b.anchor));
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	void add(TriggerOrder order, long anchor) {
+		Bucket bucket = byAnchor.get(anchor);
+		if (bucket == null) {
+			bucket = new Bucket(anchor);
+			byAnchor.put(anchor, bucket);
+		} else {
+			byLevel.remove(bucket);
+		}
+		bucket.byTrail.add(order);
+		order.bucket = bucket;
+		byLevel.add(bucket);
+		size++;
+	}
+
+	boolean remove(TriggerOrder order) {
+		Bucket bucket = order.bucket;
+		if (bucket == null) {
+			return false;
+		}
+		byLevel.remove(bucket);
+		bucket.byTrail.remove(order);
+		order.detach();
+		size--;
+		if (bucket.byTrail.isEmpty()) {
+			byAnchor.remove(bucket.anchor);
+		} else {
+			byLevel.add(bucket);
+		}
+		return true;
+	}
+
+	/**
+	 * 安値 low 以上の発動価格を持つ注文を発動させ、索引から取り除く。
+	 */
+	void fire(long low, List<TriggerOrder> fired) {
+		while (!byLevel.isEmpty() && byLevel.last().level() >= low) {
+			Bucket bucket = byLevel.pollLast();
+			// 基準値 − 値幅 >= 安値 ⇔ 値幅 <= 基準値 − 安値
+			long maxTrail = bucket.anchor - low;
+			while (!bucket.byTrail.isEmpty() && bucket.byTrail.first().getTrail() <= maxTrail) {
+				TriggerOrder order = bucket.byTrail.first();
+				order.detach();
+				bucket.byTrail.pollFirst();
+				fired.add(order);
+				size--;
+			}
+			if (bucket.byTrail.isEmpty()) {
+				byAnchor.remove(bucket.anchor);
+			} else {
+				byLevel.add(bucket);
+			}
+		}
+	}
+
+	/**
+	 * 高値 high を下回る基準値をすべて high に引き上げる（まとまりを1つにまとめる）。
+	 */
+	void raise(long high) {
+		NavigableMap<Long, Bucket> lower = byAnchor.headMap(high, false);
+		if (lower.isEmpty()) {
+			return;
+		}
+		List<Bucket> merging = new ArrayList<>(lower.values());
+		Bucket existing = byAnchor.get(high);
+		if (existing != null) {
+			merging.add(existing);
+		}
+
+		// 最も大きいまとまりを残し、他のまとまりの注文をそこへ移す
+		Bucket base = merging.get(0);
+		for (Bucket bucket : merging) {
+			byLevel.remove(bucket);
+			byAnchor.remove(bucket.anchor);
+			if (bucket.byTrail.size() > base.byTrail.size()) {
+				base = bucket;
+			}
+		}
+		for (Bucket bucket : merging) {
+			if (bucket == base) {
+				continue;
+			}
+			for (TriggerOrder order : bucket.byTrail) {
+				order.bucket = base;
+			}
+			base.byTrail.addAll(bucket.byTrail);
+		}
+		base.anchor = high;
+		byAnchor.put(high, base);
+		byLevel.add(base);
+	}
+}
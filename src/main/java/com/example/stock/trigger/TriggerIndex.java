@@ -0,0 +1,141 @@
+package com.example.stock.trigger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 1銘柄分の条件付き注文の索引（発動価格の順）。
+ *
+ * 発動価格が固定の注文は「下がって発動」「上がって発動」ごとに発動価格の順に並べ、
+ * 新しい足では安値・高値をまたいだ注文だけを端から取り出す。トレーリングストップは {@link TrailingStops} で管理する。
+ * 足1本あたりの処理は、発動する注文数を k、索引の注文数を n として O((k + 1) log n)
+ * （トレーリングストップの基準値の更新は、まとまりの統合を含めて償却で同程度）。
+ *
+ * スレッドセーフではないため、呼び出し側で銘柄ごとに排他すること。
+ */
+public class TriggerIndex {
+
+	private static final Comparator<TriggerOrder> BY_TRIGGER_PRICE = Comparator
+			.comparingLong(TriggerOrder::getTriggerPrice)
+			.thenComparingLong(TriggerOrder::getSequence);
+
+	private final String symbol;
+	// 発動価格以下で発動（売りの逆指値・買いの利益確定）
+	private final TreeSet<TriggerOrder> fallOrders = new TreeSet<>(BY_TRIGGER_PRICE);
+	// 発動価格以上で発動（買いの逆指値・売りの利益確定）
+	private final TreeSet<TriggerOrder> riseOrders = new TreeSet<>(BY_TRIGGER_PRICE);
+	// 売りのトレーリングストップ（高値に追従）
+	private final TrailingStops fallTrailing = new TrailingStops();
+	// 買いのトレーリングストップ（安値に追従。符号を反転した価格で管理する）
+	private final TrailingStops riseTrailing = new TrailingStops();
+	private final Map<Long, TriggerOrder> orders = new HashMap<>();
+	private long nextSequence;
+
+	public TriggerIndex(String symbol) {
+		this.symbol = symbol;
+	}
+
+	public String getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * 索引に入っている注文数
+	 */
+	public int size() {
+		return orders.size();
+	}
+
+	public boolean contains(long orderId) {
+		return orders.containsKey(orderId);
+	}
+
+	/**
+	 * 索引に入っている注文を取得する。
+	 *
+	 * @param orderId 注文ID
+	 * @return 注文（既に発動・取消済みなら null）
+	 */
+	public TriggerOrder get(long orderId) {
+		return orders.get(orderId);
+	}
+
+	/**
+	 * 注文を索引に追加する。同じ注文IDが既にある場合は何もしない。
+	 *
+	 * @param order 追加する注文
+	 * @return 追加した場合は true
+	 */
+	public boolean add(TriggerOrder order) {
+		if (orders.putIfAbsent(order.getOrderId(), order) != null) {
+			return false;
+		}
+		order.assignSequence(nextSequence++);
+		if (!order.isTrailing()) {
+			(order.isFireOnFall() ? fallOrders : riseOrders).add(order);
+		} else if (order.isFireOnFall()) {
+			fallTrailing.add(order, order.getAnchor());
+		} else {
+			riseTrailing.add(order, -order.getAnchor());
+		}
+		return true;
+	}
+
+	/**
+	 * 注文を索引から取り除く。
+	 *
+	 * @param orderId 注文ID
+	 * @return 取り除いた場合は true（既に発動・取消済みなら false）
+	 */
+	public boolean cancel(long orderId) {
+		TriggerOrder order = orders.remove(orderId);
+		if (order == null) {
+			return false;
+		}
+		if (!order.isTrailing()) {
+			return (order.isFireOnFall() ? fallOrders : riseOrders).remove(order);
+		}
+		return (order.isFireOnFall() ? fallTrailing : riseTrailing).remove(order);
+	}
+
+	/**
+	 * 新しい価格で発動判定を行い、発動した注文を索引から取り除いて返す。
+	 * トレーリングストップは、これまでの基準値で判定してから今回の高値・安値で基準値を更新する
+	 * （足の中で高値と安値のどちらが先かは分からないため、更新後の発動価格での判定は次の足で行う）。
+	 *
+	 * @param low  期間中の安値
+	 * @param high 期間中の高値
+	 * @return 発動した注文（発動価格以下で発動 → 以上で発動の順）
+	 */
+	public List<TriggerOrder> onPrice(long low, long high) {
+		List<TriggerOrder> fired = new ArrayList<>();
+
+		while (!fallOrders.isEmpty() && fallOrders.last().getTriggerPrice() >= low) {
+			fired.add(fallOrders.pollLast());
+		}
+		fallTrailing.fire(low, fired);
+		fallTrailing.raise(high);
+
+		while (!riseOrders.isEmpty() && riseOrders.first().getTriggerPrice() <= high) {
+			fired.add(riseOrders.pollFirst());
+		}
+		riseTrailing.fire(-high, fired);
+		riseTrailing.raise(-low);
+
+		for (TriggerOrder order : fired) {
+			orders.remove(order.getOrderId());
+		}
+		return fired;
+	}
+
+	/**
+	 * 索引に入っているトレーリングストップ（基準値の保存用）。
+	 */
+	public List<TriggerOrder> getTrailingOrders() {
+		return orders.values().stream().filter(TriggerOrder::isTrailing).toList();
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.stock.trigger;
+
+/**
+ * 発動を待っている条件付き注文（逆指値・利益確定・トレーリングストップ）。
+ * 価格は {@link com.example.stock.orderbook.RestingOrder} と同じく小数点以下2桁を固定小数点の整数（×100）で保持する。
+ *
+ * 価格が下がって発動価格以下になったら発動するもの（売りの逆指値・売りのトレーリングストップ・買いの利益確定）と、
+ * 上がって発動価格以上になったら発動するもの（買いの逆指値・買いのトレーリングストップ・売りの利益確定）がある。
+ */
+public class TriggerOrder {
+
+	private final long orderId;
+	private final long userId;
+	// true: 発動価格以下で発動 / false: 発動価格以上で発動
+	private final boolean fireOnFall;
+	// トレーリングストップの値幅（0なら発動価格は固定）
+	private final long trail;
+	// 固定の発動価格（トレーリングストップは索引から外れたときの発動価格）
+	private long triggerPrice;
+	// 索引に入った順番（同じ発動価格は受付順に発動する）
+	private long sequence;
+	// トレーリングストップが属している基準値のまとまり（索引にない場合は null）
+	TrailingStops.Bucket bucket;
+
+	/**
+	 * 発動価格が固定の条件付き注文
+	 */
+	public static TriggerOrder fixed(long orderId, long userId, boolean fireOnFall, long triggerPrice) {
+		if (triggerPrice <= 0) {
+			throw new IllegalArgumentException("発動価格は正の値である必要があります");
+		}
+		return new TriggerOrder(orderId, userId, fireOnFall, 0, triggerPrice);
+	}
+
+	/**
+	 * トレーリングストップ。発動価格は基準値（売りは発注後の高値、買いは安値）から値幅だけ離れた価格に追従する。
+	 *
+	 * @param anchor 発注時点の基準値（現在値）
+	 * @param trail 値幅
+	 */
+	public static TriggerOrder trailing(long orderId, long userId, boolean fireOnFall, long anchor, long trail) {
+		if (anchor <= 0 || trail <= 0) {
+			throw new IllegalArgumentException("基準値と値幅は正の値である必要があります");
+		}
+		return new TriggerOrder(orderId, userId, fireOnFall, trail, fireOnFall ? anchor - trail : anchor + trail);
+	}
+
+	private TriggerOrder(long orderId, long userId, boolean fireOnFall, long trail, long triggerPrice) {
+		this.orderId = orderId;
+		this.userId = userId;
+		this.fireOnFall = fireOnFall;
+		this.trail = trail;
+		this.triggerPrice = triggerPrice;
+	}
+
+	public long getOrderId() {
+		return orderId;
+	}
+
+	public long getUserId() {
+		return userId;
+	}
+
+	public boolean isFireOnFall() {
+		return fireOnFall;
+	}
+
+	public boolean isTrailing() {
+		return trail > 0;
+	}
+
+	public long getTrail() {
+		return trail;
+	}
+
+	long getSequence() {
+		return sequence;
+	}
+
+	void assignSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	/**
+	 * 現在の発動価格。トレーリングストップは基準値の更新に追従する。
+	 */
+	public long getTriggerPrice() {
+		if (bucket == null) {
+			return triggerPrice;
+		}
+		// 買い（上がって発動）のトレーリングストップは符号を反転した価格で索引に入っている
+		long level = bucket.anchor - trail;
+		return fireOnFall ? level : -level;
+	}
+
+	/**
+	 * トレーリングストップの現在の基準値（売りは発注後の高値、買いは安値）。
+	 */
+	public long getAnchor() {
+		long price = getTriggerPrice();
+		return fireOnFall ? price + trail : price - trail;
+	}
+
+	// 索引から外すときに、その時点の発動価格を固定する
+	void detach() {
+		triggerPrice = getTriggerPrice();
+		bucket = null;
+	}
+}
@@ -0,0 +1,130 @@
+package com.example.stock.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+
+/**
+ * 長期間のチャートデータを表示幅に合わせて間引くためのユーティリティ。
+ *
+ * ローソク足は連続する足をまとめて1本にし（始値・高値・安値・終値・出来高を保持）、
+ * テクニカル指標の線は Largest-Triangle-Three-Buckets（LTTB）で形状を保ったまま点数を減らす。
+ */
+public class DownsamplingUtil {
+
+	// LTTBは最初と最後の点を必ず残すため、3点未満には間引けない
+	public static final int MIN_POINTS = 3;
+
+	private DownsamplingUtil() {
+	}
+
+	/**
+	 * ローソク足を連続する足ごとにまとめ、最大 {@code maxPoints} 本に減らす。
+	 * まとめた足の日時はその中で最も新しい足の日時とし、最新の足が常に単独の区間の末尾になるよう新しい側から区切る。
+	 *
+	 * @param candles   ローソク足のリスト（新しい順）
+	 * @param maxPoints 最大本数
+	 * @return まとめたローソク足のリスト（新しい順）。本数が {@code maxPoints} 以下ならそのままのコピー
+	 */
+	public static List<StockCandleWithPrevCloseDto> aggregateCandles(List<StockCandleWithPrevCloseDto> candles,
+			int maxPoints) {
+		int size = candles.size();
+		if (maxPoints <= 0 || size <= maxPoints) {
+			return new ArrayList<>(candles);
+		}
+
+		int bucketSize = (size + maxPoints - 1) / maxPoints;
+		List<StockCandleWithPrevCloseDto> result = new ArrayList<>(maxPoints);
+
+		for (int start = 0; start < size; start += bucketSize) {
+			int end = Math.min(start + bucketSize, size);
+			StockCandleWithPrevCloseDto newest = candles.get(start);
+			StockCandleWithPrevCloseDto oldest = candles.get(end - 1);
+
+			double high = Double.NEGATIVE_INFINITY;
+			double low = Double.POSITIVE_INFINITY;
+			long volume = 0;
+			for (int i = start; i < end; i++) {
+				StockCandleWithPrevCloseDto c = candles.get(i);
+				high = Math.max(high, c.getHigh());
+				low = Math.min(low, c.getLow());
+				volume += c.getVolume();
+			}
+
+			result.add(new StockCandleWithPrevCloseDto(
+					newest.getSymbol(),
+					newest.getInterval(),
+					newest.getDatetime(),
+					oldest.getOpen(),
+					high,
+					low,
+					newest.getClose(),
+					volume,
+					oldest.getPrevClose())); // 区間の最初の足の前日終値 ＝ 1つ前の区間の終値
+		}
+		return result;
+	}
+
+	/**
+	 * Largest-Triangle-Three-Buckets で線グラフの点を最大 {@code threshold} 点に減らす。
+	 * X座標は並び順（インデックス）とし、最初と最後の点は必ず残す。
+	 *
+	 * @param points    点のリスト（時系列順）
+	 * @param threshold 最大点数（3未満の場合は間引かない）
+	 * @param valueOf   点からY座標（値）を取り出す関数
+	 * @return 間引いた点のリスト（元の並び順）
+	 */
+	public static <T> List<T> lttb(List<T> points, int threshold, ToDoubleFunction<T> valueOf) {
+		int size = points.size();
+		if (threshold < MIN_POINTS || size <= threshold) {
+			return new ArrayList<>(points);
+		}
+
+		List<T> sampled = new ArrayList<>(threshold);
+		// 最初と最後を除いた点を (threshold - 2) 個の区間に分ける
+		double bucketSize = (double) (size - 2) / (threshold - 2);
+
+		int a = 0; // 直前に選んだ点
+		sampled.add(points.get(a));
+
+		for (int i = 0; i < threshold - 2; i++) {
+			// 次の区間の平均点（三角形の3点目）
+			int avgStart = (int) Math.floor((i + 1) * bucketSize) + 1;
+			int avgEnd = Math.min((int) Math.floor((i + 2) * bucketSize) + 1, size);
+			double avgX = 0;
+			double avgY = 0;
+			for (int j = avgStart; j < avgEnd; j++) {
+				avgX += j;
+				avgY += valueOf.applyAsDouble(points.get(j));
+			}
+			int avgLength = avgEnd - avgStart;
+			avgX /= avgLength;
+			avgY /= avgLength;
+
+			// 現在の区間から、三角形の面積が最大になる点を選ぶ
+			int rangeStart = (int) Math.floor(i * bucketSize) + 1;
+			int rangeEnd = (int) Math.floor((i + 1) * bucketSize) + 1;
+			double ax = a;
+			double ay = valueOf.applyAsDouble(points.get(a));
+
+			double maxArea = -1;
+			int next = rangeStart;
+			for (int j = rangeStart; j < rangeEnd; j++) {
+				double area = Math.abs((ax - avgX) * (valueOf.applyAsDouble(points.get(j)) - ay)
+						- (ax - j) * (avgY - ay));
+				if (area > maxArea) {
+					maxArea = area;
+					next = j;
+				}
+			}
+
+			sampled.add(points.get(next));
+			a = next;
+		}
+
+		sampled.add(points.get(size - 1));
+		return sampled;
+	}
+}
@@ -5,6 +5,7 @@ import java.math.RoundingMode;
 
 import com.example.stock.model.Trade;
 import com.example.stock.model.UserWallet;
+import com.example.stock.money.FixedPoint;
 import com.example.stock.service.StockService;
 import com.example.stock.service.UserStockService;
 
@@ -27,8 +28,8 @@ public class TradeValidationUtil {
 		}
 
 		BigDecimal balance = "JPY".equalsIgnoreCase(trade.getSettlementCurrency())
-				? wallet.getJpyBalance()
-				: wallet.getUsdBalance();
+				? wallet.getCurrentJpyBalance()
+				: wallet.getCurrentUsdBalance();
 
 		return balance.compareTo(trade.getTotalPrice()) >= 0;
 	}
@@ -47,7 +48,11 @@ public class TradeValidationUtil {
 	}
 
 	/**
-	 * ※テスト用のメソッドです。本番コードでは {@link #isWithinLimit(Trade, StockService)} を使用してください。
+	 * 値幅制限チェック（事前に求めた下限・上限を使用）
+	 * @param trade 対象取引
+	 * @param lowerLimit 下限
+	 * @param upperLimit 上限
+	 * @return boolean（true: OK, false: 超過）
 	 */
 	public static boolean isWithinLimit(Trade trade, BigDecimal lowerLimit, BigDecimal upperLimit) {
 		BigDecimal unitPrice = trade.getUnitPrice();
@@ -62,14 +67,49 @@ public class TradeValidationUtil {
 	 */
 	public static BigDecimal[] getPriceLimitRange(Trade trade, StockService stockService) {
 		String symbol = trade.getTicker().getTicker();
-		BigDecimal closePrice = BigDecimal
-				.valueOf(stockService.getLatestStockWithPrevClose(symbol).getClose())
-				.setScale(2, RoundingMode.HALF_UP);
+		return getPriceLimitRange(stockService.getLatestStockWithPrevClose(symbol).getClose());
+	}
 
-		BigDecimal lower = closePrice.multiply(BigDecimal.valueOf(0.9)).setScale(2, RoundingMode.HALF_UP);
-		BigDecimal upper = closePrice.multiply(BigDecimal.valueOf(1.1)).setScale(2, RoundingMode.HALF_UP);
+	/**
+	 * 指定した現在値（外部APIの double）±10% の価格範囲を取得
+	 * @param latestClose 現在値
+	 * @return [下限, 上限]
+	 */
+	public static BigDecimal[] getPriceLimitRange(double latestClose) {
+		return toPriceLimitRange(FixedPoint.toUnits(latestClose, RoundingMode.HALF_UP));
+	}
 
-		return new BigDecimal[] { lower, upper };
+	/**
+	 * 指定した現在値 ±10% の価格範囲を取得
+	 * @param latestClose 現在値
+	 * @return [下限, 上限]
+	 */
+	public static BigDecimal[] getPriceLimitRange(BigDecimal latestClose) {
+		return toPriceLimitRange(FixedPoint.toUnits(latestClose, RoundingMode.HALF_UP));
+	}
+
+	private static BigDecimal[] toPriceLimitRange(long closeUnits) {
+		return new BigDecimal[] {
+				FixedPoint.toBigDecimal(lowerLimitUnits(closeUnits)),
+				FixedPoint.toBigDecimal(upperLimitUnits(closeUnits)) };
+	}
+
+	/**
+	 * 現在値 −10%（×100 の整数、小数点以下2桁に四捨五入）
+	 * @param closeUnits 現在値（×100 の整数）
+	 * @return 下限（×100 の整数）
+	 */
+	public static long lowerLimitUnits(long closeUnits) {
+		return FixedPoint.percent(closeUnits, 90, RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * 現在値 +10%（×100 の整数、小数点以下2桁に四捨五入）
+	 * @param closeUnits 現在値（×100 の整数）
+	 * @return 上限（×100 の整数）
+	 */
+	public static long upperLimitUnits(long closeUnits) {
+		return FixedPoint.percent(closeUnits, 110, RoundingMode.HALF_UP);
 	}
 
 	/**
@@ -86,6 +126,19 @@ public class TradeValidationUtil {
 
 		BigDecimal holdingQuantity = userStockService.getStockQuantityByUserAndTicker(trade.getUser(),
 				trade.getTicker().getTicker());
+		return isSellQuantityEnough(trade, holdingQuantity);
+	}
+
+	/**
+	 * 売り注文の場合、保有数以上の売却を防ぐチェック（事前に取得した保有数を使用）
+	 * @param trade 売り注文
+	 * @param holdingQuantity 該当ユーザーの保有株数
+	 * @return boolean（true: OK, false: 保有数不足）
+	 */
+	public static boolean isSellQuantityEnough(Trade trade, BigDecimal holdingQuantity) {
+		if (trade.getSide() != 1) {
+			return true; // 買い注文はチェック不要
+		}
 		return holdingQuantity.compareTo(trade.getQuantity()) >= 0;
 	}
 }
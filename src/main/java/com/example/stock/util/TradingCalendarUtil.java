@@ -0,0 +1,192 @@
+package com.example.stock.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 米国株式市場（NYSE）の取引カレンダー。
+ * 土日と取引所の休場日を除いた営業日の判定や、チャートの日付軸の生成に使用する。
+ */
+public class TradingCalendarUtil {
+
+	// 年 → その年の休場日（計算結果をキャッシュ）
+	private static final Map<Integer, Set<LocalDate>> HOLIDAYS_BY_YEAR = new ConcurrentHashMap<>();
+
+	private static final MonthDay JUNETEENTH = MonthDay.of(Month.JUNE, 19);
+
+	/** 取引所のタイムゾーン（夏時間は ZoneId が扱う） */
+	public static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+	/** 立会時間（通常取引）の開始・終了時刻（取引所の現地時刻） */
+	public static final LocalTime MARKET_OPEN = LocalTime.of(9, 30);
+	public static final LocalTime MARKET_CLOSE = LocalTime.of(16, 0);
+
+	private TradingCalendarUtil() {
+	}
+
+	/**
+	 * 指定日が取引日かどうかを判定する（土日・休場日は取引日ではない）。
+	 *
+	 * @param date 判定する日付
+	 * @return true: 取引日
+	 */
+	public static boolean isTradingDay(LocalDate date) {
+		DayOfWeek dow = date.getDayOfWeek();
+		if (dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY) {
+			return false;
+		}
+		return !HOLIDAYS_BY_YEAR.computeIfAbsent(date.getYear(), TradingCalendarUtil::holidaysOf).contains(date);
+	}
+
+	/**
+	 * 指定時刻が立会時間中（取引日の 9:30 ～ 16:00、取引所の現地時刻）かどうかを判定する。
+	 *
+	 * @param time 判定する時刻（タイムゾーンは問わない）
+	 * @return true: 立会時間中
+	 */
+	public static boolean isMarketOpen(ZonedDateTime time) {
+		ZonedDateTime local = time.withZoneSameInstant(MARKET_ZONE);
+		LocalTime clock = local.toLocalTime();
+		return isTradingDay(local.toLocalDate()) && !clock.isBefore(MARKET_OPEN) && clock.isBefore(MARKET_CLOSE);
+	}
+
+	/**
+	 * 指定した取引日の寄付（立会開始）の時刻を、サーバーのタイムゾーンの日時で返す。
+	 * 注文の受付日時（LocalDateTime）と比較するために使う。
+	 *
+	 * @param session 取引日
+	 * @return 寄付の日時（サーバーのタイムゾーン）
+	 */
+	public static LocalDateTime sessionOpen(LocalDate session) {
+		return ZonedDateTime.of(session, MARKET_OPEN, MARKET_ZONE)
+				.withZoneSameInstant(ZoneId.systemDefault())
+				.toLocalDateTime();
+	}
+
+	/**
+	 * 指定日より前の直近の取引日を返す（指定日自体は含まない）。
+	 *
+	 * @param base 基準日
+	 * @return 直近の取引日
+	 */
+	public static LocalDate previousTradingDay(LocalDate base) {
+		LocalDate date = base.minusDays(1);
+		while (!isTradingDay(date)) {
+			date = date.minusDays(1);
+		}
+		return date;
+	}
+
+	/**
+	 * 指定日が属する足の開始日を返す。
+	 * 日足はその日、週足はその週の月曜日、月足はその月の1日。
+	 *
+	 * @param date     日付
+	 * @param interval 足の種類（1day, 1week, 1month）
+	 * @return 足の開始日
+	 */
+	public static LocalDate bucketOf(LocalDate date, String interval) {
+		return switch (interval) {
+		case "1week" -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+		case "1month" -> date.withDayOfMonth(1);
+		default -> date;
+		};
+	}
+
+	/**
+	 * 指定日を最後とする取引カレンダー上の足の開始日を、新しい順に指定件数分生成する。
+	 * 日足は休場日を飛ばし、週足・月足は週／月ごとに1件とする。
+	 *
+	 * @param interval 足の種類（1day, 1week, 1month）
+	 * @param end      最後の日付（この日を含む足まで）
+	 * @param count    生成する件数
+	 * @return 足の開始日のリスト（新しい順）
+	 */
+	public static List<LocalDate> buildBuckets(String interval, LocalDate end, int count) {
+		List<LocalDate> buckets = new ArrayList<>(count);
+		LocalDate current = bucketOf(end, interval);
+		if ("1day".equals(interval) && !isTradingDay(current)) {
+			current = previousTradingDay(current);
+		}
+
+		while (buckets.size() < count) {
+			buckets.add(current);
+			current = switch (interval) {
+			case "1week" -> current.minusWeeks(1);
+			case "1month" -> current.minusMonths(1);
+			default -> previousTradingDay(current);
+			};
+		}
+		return buckets;
+	}
+
+	// 指定年のNYSE休場日を計算する
+	private static Set<LocalDate> holidaysOf(int year) {
+		Set<LocalDate> holidays = new HashSet<>();
+
+		// 元日（土曜日の場合は前年12/31に振替えない）
+		LocalDate newYear = LocalDate.of(year, Month.JANUARY, 1);
+		if (newYear.getDayOfWeek() != DayOfWeek.SATURDAY) {
+			holidays.add(observed(newYear));
+		}
+		holidays.add(nthDayOfWeek(year, Month.JANUARY, 3, DayOfWeek.MONDAY)); // キング牧師記念日
+		holidays.add(nthDayOfWeek(year, Month.FEBRUARY, 3, DayOfWeek.MONDAY)); // 大統領の日
+		holidays.add(easterSunday(year).minusDays(2)); // 聖金曜日
+		holidays.add(LocalDate.of(year, Month.MAY, 31).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))); // 戦没者追悼記念日
+		if (year >= 2022) {
+			holidays.add(observed(JUNETEENTH.atYear(year))); // ジューンティーンス
+		}
+		holidays.add(observed(LocalDate.of(year, Month.JULY, 4))); // 独立記念日
+		holidays.add(nthDayOfWeek(year, Month.SEPTEMBER, 1, DayOfWeek.MONDAY)); // 労働者の日
+		holidays.add(nthDayOfWeek(year, Month.NOVEMBER, 4, DayOfWeek.THURSDAY)); // 感謝祭
+		holidays.add(observed(LocalDate.of(year, Month.DECEMBER, 25))); // クリスマス
+
+		// 翌年の元日が土曜日の場合も12/31は休場にならないため、追加処理は不要
+		return Set.copyOf(holidays);
+	}
+
+	// 土曜日は前の金曜日、日曜日は翌月曜日に振替
+	private static LocalDate observed(LocalDate date) {
+		return switch (date.getDayOfWeek()) {
+		case SATURDAY -> date.minusDays(1);
+		case SUNDAY -> date.plusDays(1);
+		default -> date;
+		};
+	}
+
+	// 指定月の第n X曜日
+	private static LocalDate nthDayOfWeek(int year, Month month, int n, DayOfWeek dayOfWeek) {
+		return LocalDate.of(year, month, 1).with(TemporalAdjusters.dayOfWeekInMonth(n, dayOfWeek));
+	}
+
+	// イースター（グレゴリオ暦・匿名のアルゴリズム）
+	private static LocalDate easterSunday(int year) {
+		int a = year % 19;
+		int b = year / 100;
+		int c = year % 100;
+		int d = b / 4;
+		int e = b % 4;
+		int f = (b + 8) / 25;
+		int g = (b - f + 1) / 3;
+		int h = (19 * a + b - d - g + 15) % 30;
+		int i = c / 4;
+		int k = c % 4;
+		int l = (32 + 2 * e + 2 * i - h - k) % 7;
+		int m = (a + 11 * h + 22 * l) / 451;
+		int month = (h + l - 7 * m + 114) / 31;
+		int day = ((h + l - 7 * m + 114) % 31) + 1;
+		return LocalDate.of(year, month, day);
+	}
+}
@@ -1,4 +1,4 @@
-import { fetchStockData, fetchSMAData } from './stock-api.js';//chart.jsに使うデータをとってくる
+import { fetchStockData, fetchSMAData, fetchDateAxis } from './stock-api.js';//chart.jsに使うデータをとってくる
 import stockConfig from './config/stock-config.js';//銘柄に関する変数配置ファイルをimport
 import chartStyleConfig from './config/chart-style-config.js';//グラフに関する変数配置ファイルをimport
 import { trendlineAnnotations, enableTrendlineDrawing } from './trendline.js';　//トレンドラインのファイルを導入
@@ -22,21 +22,15 @@ export const renderCharts = async () => {
 		delete trendlineAnnotations[key];
 	}
 	const isSmaChecked = document.querySelector('input[value="sma"]').checked;
-	const data = await fetchStockData(); // データ取得
+	// データと共通の日付軸を並行して取得
+	// （間引いたデータは足の日付がまとめた区間の日付になるため、共通の軸は使わない）
+	const [data, axis] = await Promise.all([
+		fetchStockData(),
+		stockConfig.isDownsampled() ? Promise.resolve([]) : fetchDateAxis()
+	]);
 
-	// x軸用のラベル（日付）
-	if (data.length == stockConfig.outputsize) {
-		labels = data.map(d => d.datetime);
-	}
-	else {
-		//データの数が200より少ない場合はappleからlableをとる
-		const beforeSymbol = stockConfig.symbol;
-		stockConfig.symbol = "AAPL";
-		const appleData = await fetchStockData();
-		labels = appleData.map(d => d.datetime);
-
-		stockConfig.symbol = beforeSymbol;
-	}
+	// x軸用のラベル（日付）。軸が取得できない場合は銘柄自身の日付を使う
+	labels = axis.length > 0 ? axis : data.map(d => d.datetime);
 
 	// ローソク足用のデータ構造に整形
 	let candleData = data.map(d => ({
@@ -75,12 +69,15 @@ export const renderCharts = async () => {
 		volumeChart.destroy();
 	}
 
-	if (labels.length != candleData.length) {
-		console.log(candleData);
+	// 共通の日付軸に合わせて系列を揃える
+	if (axis.length > 0) {
 		candleData = padCandleDataToLabels(labels, candleData);
 		volumeData = padVolumeDataToLabels(labels, volumeData);
 
 		SMADatasets.forEach(ds => ds.data = padDataToLabels(labels, ds.data));
+	} else if (stockConfig.isDownsampled()) {
+		// 間引いた線の点を、その日付を含むまとめた足の位置に寄せる
+		SMADatasets.forEach(ds => ds.data = snapDataToBuckets(labels, ds.data));
 	}
 
 	// チャートを生成・描画
@@ -121,8 +118,8 @@ const createCandleChart = (labels, data, volumeData, SMADatasets) => {
 					display: true, //表示しますが透明化にする
 
 					//いくつのデータを最初に表示する設定
-					min: stockConfig.outputsize - chartStyleConfig.showAmount,
-					max: stockConfig.outputsize - 1,
+					min: labels.length - chartStyleConfig.showAmount,
+					max: labels.length - 1,
 					ticks: {
 						color: 'rgba(0,0,0,0)',//x軸のずれがないように、x軸を保留し透明化することで表示させない
 						maxRotation: 0,
@@ -282,8 +279,8 @@ const createVolumeChart = (labels, data) => {
 				x: {
 					type: "category",
 					labels: labels,
-					min: stockConfig.outputsize - chartStyleConfig.showAmount,
-					max: stockConfig.outputsize - 1,
+					min: labels.length - chartStyleConfig.showAmount,
+					max: labels.length - 1,
 					ticks: {
 						maxRotation: 0,
 						autoSkipPadding: chartStyleConfig.ticksSkipPadding,
@@ -363,25 +360,43 @@ const syncChangeScale = (sourceChart, targetChart) => {
 	}
 };
 
-const padDataToLabels = (labels, rawData) =>
-	labels.map(x => {
-		const found = rawData.find(d => d.x === x);
-		return { x, y: found ? found.y : null };
+// ラベルに合わせて系列を揃える（該当日がなければnull）
+const alignToLabels = (labels, rawData, toPoint, emptyPoint) => {
+	const byDate = new Map(rawData.map(d => [d.x, d]));
+	return labels.map(x => {
+		const found = byDate.get(x);
+		return found ? toPoint(x, found) : emptyPoint(x);
 	});
+};
+
+const padDataToLabels = (labels, rawData) =>
+	alignToLabels(labels, rawData, (x, d) => ({ x, y: d.y }), x => ({ x, y: null }));
 
 const padCandleDataToLabels = (labels, rawData) =>
-	labels.map(x => {
-		const found = rawData.find(d => d.x === x);
-		return found
-			? { x, o: found.o, h: found.h, l: found.l, c: found.c }
-			: { x, o: null, h: null, l: null, c: null };
-	});
+	alignToLabels(labels, rawData,
+		(x, d) => ({ x, o: d.o, h: d.h, l: d.l, c: d.c }),
+		x => ({ x, o: null, h: null, l: null, c: null }));
 
 const padVolumeDataToLabels = (labels, rawData) =>
-	labels.map(x => {
-		const found = rawData.find(d => d.x === x);
-		return { x, y: found?.y ?? null };
+	alignToLabels(labels, rawData, (x, d) => ({ x, y: d.y ?? null }), x => ({ x, y: null }));
+
+// まとめた足のラベル（区間内で最も新しい日付・昇順）に合わせて点を寄せる
+// 点の日付以上で最初のラベルがその点を含む区間。同じ区間に複数の点があれば後の点を使う
+const snapDataToBuckets = (labels, rawData) => {
+	const byLabel = new Map();
+	let i = 0;
+	rawData.forEach(d => {
+		while (i < labels.length && labels[i] < d.x) i++;
+		if (i < labels.length) byLabel.set(labels[i], d.y);
 	});
+	return labels.map(x => ({ x, y: byLabel.get(x) ?? null }));
+};
+
+// 期間変更時に outputsize を更新してチャート再描画
+document.getElementById("rangeSelector").addEventListener("change", (event) => {
+	stockConfig.outputsize = Number(event.target.value);
+	renderCharts();
+});
 
 // セレクタ変更時に interval を更新してチャート再描画
 document.getElementById("candleSelector").addEventListener("change", (event) => {
@@ -2,6 +2,7 @@ class StockConfig {
 	#symbol = 'AAPL'; // ＃symbolはsymbolをprivateに設定
 	#interval = '1day';
 	#outputsize = 200;
+	#maxPoints = 200; // これより長い期間はサーバー側で間引いて取得する
 	//移動平均線の設定、日足の場合は5,25,75の三本を表示する
 	#smaPeriodMap = {
 		"1day": [5, 25, 75],
@@ -15,6 +16,14 @@ class StockConfig {
 	set interval(v) { this.#interval = v; }
 	get outputsize() { return this.#outputsize; }
 	set outputsize(v) { this.#outputsize = v; }
+	get maxPoints() { return this.#maxPoints; }
+
+	/**
+	 * 取得する本数が表示上限を超え、サーバー側で間引いたデータを使うかどうか
+	 */
+	isDownsampled() {
+		return this.#outputsize > this.#maxPoints;
+	}
 
 	getSMAPeriods() {
 		return this.#smaPeriodMap[this.#interval] || [];
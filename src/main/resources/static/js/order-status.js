@@ -0,0 +1,42 @@
+// 処理状況を確認する間隔（ミリ秒）と、確認を続ける最大回数
+const POLL_INTERVAL_MS = 500;
+const MAX_POLLS = 120;
+
+// 受付中（注文パイプラインで確定待ち）
+const STATUS_PENDING = 0;
+
+/**
+ * 注文の処理状況を取得する非同期関数。
+ *
+ * @param {string} tradeId 取引ID
+ * @returns {Promise<Object|null>} 処理状況（id, status, statusLabel, filledQuantity, rejectReason）
+ */
+const fetchOrderStatus = async (tradeId) => {
+	const res = await fetch(`/api/orders/${tradeId}/status`);
+	if (!res.ok) return null;
+	return res.json();
+};
+
+/**
+ * 受付中の注文が確定（または不成立）になるまで処理状況を確認し、変わったら確認画面を再表示する。
+ */
+const pollOrderStatus = async () => {
+	const container = document.getElementById('order-show');
+	const tradeId = container?.dataset.tradeId;
+	if (!tradeId || Number(container.dataset.status) !== STATUS_PENDING) return;
+
+	for (let i = 0; i < MAX_POLLS; i++) {
+		await new Promise(resolve => setTimeout(resolve, POLL_INTERVAL_MS));
+		try {
+			const status = await fetchOrderStatus(tradeId);
+			if (status && status.status !== STATUS_PENDING) {
+				window.location.reload();
+				return;
+			}
+		} catch (e) {
+			console.error('注文の処理状況を取得できませんでした:', e);
+		}
+	}
+};
+
+pollOrderStatus();
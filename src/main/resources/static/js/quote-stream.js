@@ -0,0 +1,106 @@
+import stockConfig from './config/stock-config.js';
+import { fetchQuotes } from './stock-api.js';
+
+// 銘柄ごとの最新値（SSEで受信したもの）
+const latestQuotes = new Map();
+let eventSource = null;
+
+/**
+ * 一覧に表示中の銘柄コードを取得する。
+ *
+ * @returns {string[]} 銘柄コードの配列
+ */
+const getVisibleSymbols = () =>
+	Array.from(document.querySelectorAll('#stocksTB .clickable-row'))
+		.map(row => row.dataset.ticker)
+		.filter(Boolean);
+
+/**
+ * 当日情報欄に最新値を反映する。
+ *
+ * @param {Object} quote 最新値（symbol, open, high, low, close, prevClose）
+ * @param {string} [brand] 銘柄名（指定時は銘柄名欄も更新する）
+ */
+export const renderQuote = (quote, brand) => {
+	const setText = (id, value) => {
+		const el = document.getElementById(id);
+		if (el && value != null) el.textContent = Number(value).toFixed(4);
+	};
+	if (brand) {
+		const nameEl = document.getElementById('tickerNameAndCode');
+		if (nameEl) nameEl.textContent = `${brand} (${quote.symbol})`;
+	}
+	setText('quoteClose', quote.close);
+	setText('quotePrevClose', quote.prevClose);
+	setText('quoteHigh', quote.high);
+	setText('quoteOpen', quote.open);
+	setText('quoteLow', quote.low);
+};
+
+/**
+ * 銘柄一覧の行に終値と前日比を反映する。
+ *
+ * @param {Object} quote 最新値（symbol, close, prevClose）
+ */
+const renderRowQuote = (quote) => {
+	const row = document.querySelector(`#stocksTB .clickable-row[data-ticker="${CSS.escape(quote.symbol)}"]`);
+	if (!row) return;
+
+	const change = quote.close - quote.prevClose;
+	const changePercent = quote.prevClose ? change / quote.prevClose * 100 : 0;
+	const sign = change > 0 ? '+' : '';
+
+	row.querySelector('.quote-close').textContent = Number(quote.close).toFixed(2);
+	const changeEl = row.querySelector('.quote-change');
+	changeEl.textContent = `${sign}${change.toFixed(2)} (${sign}${changePercent.toFixed(2)}%)`;
+	changeEl.classList.toggle('text-red-600', change > 0);
+	changeEl.classList.toggle('text-green-600', change < 0);
+};
+
+/**
+ * SSEで受信済みの最新値を返す（未受信ならundefined）。
+ *
+ * @param {string} symbol 銘柄コード
+ * @returns {Object|undefined} 最新値
+ */
+export const getLatestQuote = (symbol) => latestQuotes.get(symbol);
+
+/**
+ * 表示中の銘柄を購読するSSE接続を開く（既存の接続は閉じる）。
+ * ブラウザ1つにつき接続は常に1本。
+ */
+const connect = () => {
+	const symbols = getVisibleSymbols();
+	if (eventSource) {
+		eventSource.close();
+		eventSource = null;
+	}
+	if (symbols.length === 0) return;
+
+	// 一覧全体の価格を1回のリクエストで取得して表示
+	fetchQuotes(symbols)
+		.then(quotes => quotes.forEach(renderRowQuote))
+		.catch(err => console.error('最新値の一括取得失敗:', err));
+
+	eventSource = new EventSource(`/api/stocks/stream?symbols=${encodeURIComponent(symbols.join(','))}`);
+	eventSource.addEventListener('quote', (event) => {
+		const quote = JSON.parse(event.data);
+		latestQuotes.set(quote.symbol, quote);
+		renderRowQuote(quote);
+
+		// 表示中の銘柄なら当日情報を更新
+		if (quote.symbol === stockConfig.symbol) {
+			renderQuote(quote);
+		}
+	});
+	eventSource.onerror = (err) => console.warn('最新値の配信が切断されました（自動再接続します）', err);
+};
+
+document.addEventListener('DOMContentLoaded', () => {
+	const stocksTB = document.querySelector('#stocksTB');
+	if (!stocksTB) return;
+	connect();
+
+	// 「すべて/お気に入り」の切替で一覧が置き換わったら購読銘柄を張り直す
+	new MutationObserver(connect).observe(stocksTB, { childList: true });
+});
@@ -5,6 +5,7 @@ import stockConfig from './config/stock-config.js';
  *
  * 現在の設定（symbol, interval, outputsize）に基づいてAPIからデータを取得し、
  * 時系列を昇順に並べ替えた配列を返します。
+ * 本数が表示上限（maxPoints）を超える場合は、サーバー側でまとめた足を取得します。
  *
  * @returns {Promise<Object[]>} ローソク足データの配列（datetime, open, high, low, close, volume を含む）
  *
@@ -13,7 +14,10 @@ import stockConfig from './config/stock-config.js';
  * console.log(data[0].close); // 終値を出力
  */
 export const fetchStockData = async () => {
-	const url = `/api/stocks/list?symbol=${stockConfig.symbol}&interval=${stockConfig.interval}&outputsize=${stockConfig.outputsize}`;
+	let url = `/api/stocks/list?symbol=${stockConfig.symbol}&interval=${stockConfig.interval}&outputsize=${stockConfig.outputsize}`;
+	if (stockConfig.isDownsampled()) {
+		url += `&maxPoints=${stockConfig.maxPoints}`; // 長期間はまとめた足を取得
+	}
 	const res = await fetch(url);
 	const json = await res.json();
 
@@ -25,6 +29,45 @@ export const fetchStockData = async () => {
 };
 
 
+/**
+ * チャートのX軸に使う共通の日付軸を取得する非同期関数。
+ *
+ * サーバー側で取引カレンダーと取り込み済みデータから作成された軸を返すため、
+ * データ件数の少ない銘柄でも別銘柄のデータを取得せずにラベルを揃えられる。
+ *
+ * @returns {Promise<string[]>} "yyyy-MM-dd" 形式の日付の配列（昇順）
+ */
+export const fetchDateAxis = async () => {
+	const url = `/api/stocks/axis?interval=${stockConfig.interval}&outputsize=${stockConfig.outputsize}`;
+	const res = await fetch(url);
+	if (!res.ok) {
+		console.error("Axis API error:", res.status);
+		return [];
+	}
+	return res.json();
+};
+
+
+/**
+ * 複数銘柄の最新値（終値・前日比・騰落率）をまとめて取得する非同期関数。
+ *
+ * 銘柄一覧全体の価格を1回のリクエストで取得する。
+ *
+ * @param {string[]} symbols 銘柄コードの配列
+ * @returns {Promise<Object[]>} 最新値の配列（symbol, datetime, close, prevClose, change, changePercent）
+ */
+export const fetchQuotes = async (symbols) => {
+	if (symbols.length === 0) return [];
+	const url = `/api/stocks/quotes?symbols=${encodeURIComponent(symbols.join(','))}`;
+	const res = await fetch(url);
+	if (!res.ok) {
+		console.error("Quotes API error:", res.status);
+		return [];
+	}
+	return res.json();
+};
+
+
 /**
  * 指定された interval に応じた複数の SMA（単純移動平均）データを取得する。
  *
@@ -52,11 +95,15 @@ export const fetchSMAData = async (dataLength) => {
 		}
 
 		//ロウソク足データが少ない場合、それに合わせてsmaも少なめにfetchする。
-		if (dataLength < stockConfig.outputsize) {
+		//（間引いたデータは本数が少ないのが正常なので対象外）
+		if (!stockConfig.isDownsampled() && dataLength < stockConfig.outputsize) {
 			outputsize = dataLength - period + 1;
 		}
 
-		const url = `/api/stocks/technical/SMA?symbol=${stockConfig.symbol}&interval=${interval}&timeperiod=${period}&outputsize=${outputsize}`;
+		let url = `/api/stocks/technical/SMA?symbol=${stockConfig.symbol}&interval=${interval}&timeperiod=${period}&outputsize=${outputsize}`;
+		if (stockConfig.isDownsampled()) {
+			url += `&maxPoints=${stockConfig.maxPoints}`; // 長期間はLTTBで間引いた線を取得
+		}
 		const res = await fetch(url);
 		const json = await res.json();
 		if (json.status === "error") {
@@ -1,5 +1,6 @@
 import stockConfig from './config/stock-config.js';
 import { renderCharts } from './candlestick.js';
+import { getLatestQuote, renderQuote } from './quote-stream.js';
 //お気に入りボタンを押下時　TRはinnerHTMLで一部更新され、DOMがリセットされeventlistenerがなくなる
 //そのために　TRの親TBにlistenerを追加する
 document.addEventListener('DOMContentLoaded', () => {
@@ -22,6 +23,13 @@ const onRowClick = (event) => {
 	renderCharts();
 	document.getElementById("orderSymbol").value=ticker;
 
+	// SSEで最新値を受信済みなら、サーバーへ問い合わせずにその値で表示する
+	const quote = getLatestQuote(ticker);
+	if (quote) {
+		renderQuote(quote, brand);
+		return;
+	}
+
 	// 銘柄情報を非同期で取得して挿入
 	fetch(`/stock/table?symbol=${encodeURIComponent(ticker)}`)
 		.then(res => res.text())
@@ -1,8 +1,12 @@
 // trade-search.js
 
+// 「さらに表示」で続きを取得するため、直近の検索条件を保持する
+let currentFilter = { date: 'all', ticker: '' };
+
 const searchTrades = () => {
 	const date = document.getElementById('dateFilter').value;
 	const ticker = document.getElementById('tickerFilter').value;
+	currentFilter = { date, ticker };
 
 	const url = `/trade-log/search?date=${date}&ticker=${encodeURIComponent(ticker)}`;
 	fetch(url)
@@ -15,10 +19,42 @@ const searchTrades = () => {
 		});
 };
 
+// 取引履歴の続きのページを取得し、表の末尾に追加する
+const loadMoreTrades = (button) => {
+	const params = new URLSearchParams({
+		date: currentFilter.date,
+		ticker: currentFilter.ticker,
+		beforeAt: button.dataset.beforeAt,
+		beforeId: button.dataset.beforeId,
+	});
+	button.disabled = true;
+	fetch(`/trade-log/more?${params}`)
+		.then(res => res.text())
+		.then(html => {
+			document.getElementById('trade-log-more').remove();
+			document.getElementById('trade-log-rows').insertAdjacentHTML('beforeend', html);
+		})
+		.catch(err => {
+			button.disabled = false;
+			console.error('取得失敗:', err);
+		});
+};
+
 // ページロード時にイベントリスナーを登録
 document.addEventListener('DOMContentLoaded', () => {
 	const searchButton = document.getElementById('tradeSearchBtn');
 	if (searchButton) {
 		searchButton.addEventListener('click', searchTrades);
 	}
+
+	// 検索のたびに表が差し替わるため、表の外側でクリックを受け取る
+	const table = document.getElementById('trade-log-table');
+	if (table) {
+		table.addEventListener('click', (e) => {
+			const button = e.target.closest('#trade-log-more button');
+			if (button) {
+				loadMoreTrades(button);
+			}
+		});
+	}
 });
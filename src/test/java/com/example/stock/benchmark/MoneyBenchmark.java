@@ -0,0 +1,118 @@
+package com.example.stock.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.stock.money.FixedPoint;
+
+/**
+ * 注文の検証・精算で行う金額計算（値幅制限・残高比較・受渡金額の按分）を、
+ * BigDecimal と固定小数点数（{@link FixedPoint}）で比較するベンチマーク。
+ *
+ * 実行方法（-prof gc を付けると1回あたりの割り当て量も比較できる）：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.stock.benchmark.MoneyBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+	private static final BigDecimal LOWER_RATE = BigDecimal.valueOf(0.9);
+	private static final BigDecimal UPPER_RATE = BigDecimal.valueOf(1.1);
+
+	private BigDecimal closeDecimal;
+	private BigDecimal priceDecimal;
+	private BigDecimal balanceDecimal;
+	private BigDecimal totalDecimal;
+	private BigDecimal filledDecimal;
+	private BigDecimal quantityDecimal;
+
+	private long closeUnits;
+	private long priceUnits;
+	private long balanceUnits;
+	private long totalUnits;
+	private long filledUnits;
+	private long quantityUnits;
+
+	@Setup
+	public void setup() {
+		closeDecimal = new BigDecimal("187.33");
+		priceDecimal = new BigDecimal("190.00");
+		balanceDecimal = new BigDecimal("2500000.00");
+		totalDecimal = new BigDecimal("2718330.00");
+		filledDecimal = new BigDecimal("33.00");
+		quantityDecimal = new BigDecimal("100.00");
+
+		closeUnits = FixedPoint.toUnits(closeDecimal, RoundingMode.HALF_UP);
+		priceUnits = FixedPoint.toUnits(priceDecimal, RoundingMode.HALF_UP);
+		balanceUnits = FixedPoint.toUnits(balanceDecimal, RoundingMode.HALF_UP);
+		totalUnits = FixedPoint.toUnits(totalDecimal, RoundingMode.HALF_UP);
+		filledUnits = FixedPoint.toUnits(filledDecimal, RoundingMode.HALF_UP);
+		quantityUnits = FixedPoint.toUnits(quantityDecimal, RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * 値幅制限（現在値 ±10%）の計算と判定、残高の比較（BigDecimal）
+	 */
+	@Benchmark
+	public boolean validateBigDecimal() {
+		BigDecimal close = closeDecimal.setScale(2, RoundingMode.HALF_UP);
+		BigDecimal lower = close.multiply(LOWER_RATE).setScale(2, RoundingMode.HALF_UP);
+		BigDecimal upper = close.multiply(UPPER_RATE).setScale(2, RoundingMode.HALF_UP);
+		return priceDecimal.compareTo(lower) >= 0 && priceDecimal.compareTo(upper) <= 0
+				&& balanceDecimal.compareTo(totalDecimal) >= 0;
+	}
+
+	/**
+	 * 値幅制限（現在値 ±10%）の計算と判定、残高の比較（固定小数点数）
+	 */
+	@Benchmark
+	public boolean validateFixedPoint() {
+		long lower = FixedPoint.percent(closeUnits, 90, RoundingMode.HALF_UP);
+		long upper = FixedPoint.percent(closeUnits, 110, RoundingMode.HALF_UP);
+		return priceUnits >= lower && priceUnits <= upper && balanceUnits >= totalUnits;
+	}
+
+	/**
+	 * 約定数量に応じた受渡金額の按分（円、切り上げ）（BigDecimal）
+	 */
+	@Benchmark
+	public BigDecimal prorateBigDecimal() {
+		return totalDecimal.multiply(filledDecimal).divide(quantityDecimal, 0, RoundingMode.CEILING);
+	}
+
+	/**
+	 * 約定数量に応じた受渡金額の按分（円、切り上げ）（固定小数点数）
+	 */
+	@Benchmark
+	public long prorateFixedPoint() {
+		return FixedPoint.multiplyDivide(totalUnits, filledUnits, quantityUnits, 0, RoundingMode.CEILING);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(MoneyBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.stock.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.example.stock.orderbook.OrderBook;
+import com.example.stock.orderbook.RestingOrder;
+
+/**
+ * 1銘柄の板への注文追加・照合・取消のスループットを計測するベンチマーク。
+ *
+ * 実行方法：
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.stock.benchmark.OrderBookBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+	// 板に常に残っている注文数
+	@Param({ "1000", "100000" })
+	private int restingOrders;
+
+	private static final long MID_PRICE = 10_000; // 100.00ドル
+	private static final int PRICE_RANGE = 1_000; // ±5ドル
+
+	private OrderBook book;
+	private SplittableRandom random;
+	private long nextOrderId;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		book = new OrderBook("BENCH");
+		random = new SplittableRandom(42);
+		nextOrderId = 0;
+		for (int i = 0; i < restingOrders; i++) {
+			book.add(randomOrder());
+		}
+	}
+
+	private RestingOrder randomOrder() {
+		int side = random.nextInt(2);
+		// 買いは現在値より下、売りは現在値より上に並べる
+		long offset = 1 + random.nextInt(PRICE_RANGE);
+		long price = side == RestingOrder.BUY ? MID_PRICE - offset : MID_PRICE + offset;
+		return new RestingOrder(nextOrderId++, random.nextInt(1_000), side, price, 100 * (1 + random.nextInt(10)));
+	}
+
+	/**
+	 * 注文の追加（価格帯への挿入）
+	 */
+	@Benchmark
+	public boolean addOrder() {
+		RestingOrder order = randomOrder();
+		boolean added = book.add(order);
+		book.cancel(order.getOrderId());
+		return added;
+	}
+
+	/**
+	 * 注文の追加 ＋ 現在値付近の値動きでの照合（約定した分だけ新しい注文で補充される）
+	 */
+	@Benchmark
+	public int addAndMatch() {
+		book.add(randomOrder());
+		long swing = random.nextInt(20);
+		return book.match(MID_PRICE - swing, MID_PRICE + swing, 1_000).size();
+	}
+
+	/**
+	 * 注文の追加と取消
+	 */
+	@Benchmark
+	public boolean addAndCancel() {
+		RestingOrder order = randomOrder();
+		book.add(order);
+		return book.cancel(order.getOrderId());
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(OrderBookBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -26,14 +26,19 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import com.example.stock.converter.TradeConverter;
 import com.example.stock.dto.OrderPageDataDto;
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
 import com.example.stock.dto.TradeRequestDto;
 import com.example.stock.model.Tickers;
 import com.example.stock.model.Trade;
+import com.example.stock.model.UserWallet;
 import com.example.stock.model.Users;
 import com.example.stock.repository.TradeRepository;
 import com.example.stock.security.SecurityUtils;
+import com.example.stock.service.FxRateService;
 import com.example.stock.service.LogoDetectionService;
+import com.example.stock.service.OpeningQueueService;
 import com.example.stock.service.OrderPageDataService;
+import com.example.stock.service.OrderPipelineService;
 import com.example.stock.service.TickersService;
 import com.example.stock.service.TradeService;
 import com.example.stock.service.UserStockService;
@@ -50,6 +55,10 @@ public class OrderControllerTest {
 	@MockBean
 	private TradeService tradeService;
 	@MockBean
+	private OrderPipelineService orderPipelineService;
+	@MockBean
+	private OpeningQueueService openingQueueService;
+	@MockBean
 	private TickersService tickersService;
 	@MockBean
 	private TradeConverter tradeConverter;
@@ -63,6 +72,8 @@ public class OrderControllerTest {
 	private SecurityUtils securityUtils;
 	@MockBean
 	private TradeRepository tradeRepository;
+	@MockBean
+	private FxRateService fxRateService;
 
 	@Autowired
 	private MockMvc mockMvc;
@@ -93,7 +104,8 @@ public class OrderControllerTest {
 				new BigDecimal("1"),
 				"buy",
 				"LIMIT",
-				testUser.getPassword());
+				testUser.getPassword(),
+				null);
 
 	}
 
@@ -158,9 +170,11 @@ public class OrderControllerTest {
 		//入力エラー値を設定
 		testRequestDto.setUnitPrice(new BigDecimal("-1"));
 
-		when(orderPageDataService.getOrderPageData("AAPL")).thenReturn(dto);
+		TradeContext context = createContext();
 		when(tickersService.getTickerById(testTicker.getId())).thenReturn(testTicker);
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(testUser);
+		when(tradeService.loadContext(testUser, testTicker)).thenReturn(context);
+		when(orderPageDataService.getOrderPageData(context)).thenReturn(dto);
 
 		mockMvc.perform(post("/stock/order/submit")
 				.flashAttr("tradeRequestDto", testRequestDto))
@@ -177,7 +191,9 @@ public class OrderControllerTest {
 		when(tickersService.getTickerById(1L)).thenReturn(testTicker);
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(testUser);
 		when(passwordEncoder.matches(testRequestDto.getTradingPin(), testUser.getPassword())).thenReturn(false);
-		when(orderPageDataService.getOrderPageData("AAPL")).thenReturn(new OrderPageDataDto(testUser, testTicker,
+		TradeContext context = createContext();
+		when(tradeService.loadContext(testUser, testTicker)).thenReturn(context);
+		when(orderPageDataService.getOrderPageData(context)).thenReturn(new OrderPageDataDto(testUser, testTicker,
 				new StockCandleWithPrevCloseDto(), BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN));
 
 		mockMvc.perform(post("/stock/order/submit")
@@ -197,10 +213,12 @@ public class OrderControllerTest {
 		when(tickersService.getTickerById(1L)).thenReturn(testTicker);
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(testUser);
 		when(passwordEncoder.matches(testRequestDto.getTradingPin(), testUser.getPassword())).thenReturn(true);
-		when(orderPageDataService.getOrderPageData("AAPL")).thenReturn(new OrderPageDataDto(testUser, testTicker,
+		TradeContext context = createContext();
+		when(tradeService.loadContext(testUser, testTicker)).thenReturn(context);
+		when(orderPageDataService.getOrderPageData(context)).thenReturn(new OrderPageDataDto(testUser, testTicker,
 				new StockCandleWithPrevCloseDto(), BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN));
-		when(tradeConverter.toTradeEntity(testRequestDto)).thenReturn(trade);
-		doThrow(new IllegalStateException("残高不足")).when(tradeService).validateTrade(any());
+		when(tradeConverter.toTradeEntity(testRequestDto, context)).thenReturn(trade);
+		doThrow(new IllegalStateException("残高不足")).when(tradeService).validateTrade(any(), any());
 
 		mockMvc.perform(post("/stock/order/submit")
 				.flashAttr("tradeRequestDto", testRequestDto))
@@ -221,15 +239,55 @@ public class OrderControllerTest {
 		when(tickersService.getTickerById(1L)).thenReturn(testTicker);
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(testUser);
 		when(passwordEncoder.matches(testRequestDto.getTradingPin(), testUser.getPassword())).thenReturn(true);
-		when(tradeConverter.toTradeEntity(testRequestDto)).thenReturn(trade);
-		when(orderPageDataService.getOrderPageData("AAPL")).thenReturn(updatedData);
+		TradeContext context = createContext();
+		when(tradeService.loadContext(testUser, testTicker)).thenReturn(context);
+		when(tradeConverter.toTradeEntity(testRequestDto, context)).thenReturn(trade);
+		when(orderPageDataService.getOrderPageData(context)).thenReturn(updatedData);
+		when(orderPipelineService.submit(trade, context)).thenReturn(42L);
 
 		mockMvc.perform(post("/stock/order/submit")
 				.flashAttr("tradeRequestDto", testRequestDto))
 				.andExpect(status().is3xxRedirection())
-				.andExpect(view().name("redirect:/stock/order/check"));
+				.andExpect(view().name("redirect:/stock/order/check"))
+				.andExpect(request().sessionAttribute("confirmedTradeId", 42L));
+
+		verify(orderPipelineService).submit(trade, context);
+		verify(tradeService, never()).executeTrade(any(), any());
+	}
+
+	@DisplayName("T-307: 立会時間外の注文は寄付待ちとして記録し、注文パイプラインには投入しない")
+	@Test
+	void testShowOrderCheckPage_marketClosed_enqueuesForOpen() throws Exception {
+
+		Trade trade = new Trade();
+
+		OrderPageDataDto updatedData = new OrderPageDataDto(testUser, testTicker, new StockCandleWithPrevCloseDto(),
+				BigDecimal.TEN, BigDecimal.TEN, BigDecimal.TEN);
+
+		when(tickersService.getTickerById(1L)).thenReturn(testTicker);
+		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(testUser);
+		when(passwordEncoder.matches(testRequestDto.getTradingPin(), testUser.getPassword())).thenReturn(true);
+		TradeContext context = createContext();
+		when(tradeService.loadContext(testUser, testTicker)).thenReturn(context);
+		when(tradeConverter.toTradeEntity(testRequestDto, context)).thenReturn(trade);
+		when(orderPageDataService.getOrderPageData(context)).thenReturn(updatedData);
+		when(openingQueueService.isMarketClosed()).thenReturn(true);
+		when(openingQueueService.enqueue(trade)).thenReturn(43L);
+
+		mockMvc.perform(post("/stock/order/submit")
+				.flashAttr("tradeRequestDto", testRequestDto))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(view().name("redirect:/stock/order/check"))
+				.andExpect(request().sessionAttribute("confirmedTradeId", 43L));
+
+		verify(openingQueueService).enqueue(trade);
+		verify(orderPipelineService, never()).submit(any(), any());
+	}
 
-		verify(tradeService).executeTrade(trade);
+	// 注文受付時に読み込む注文コンテキスト
+	private TradeContext createContext() {
+		return new TradeContext(testUser, testTicker, new StockCandleWithPrevCloseDto(), BigDecimal.ONE,
+				BigDecimal.TEN, new UserWallet(), BigDecimal.TEN);
 	}
 
 }
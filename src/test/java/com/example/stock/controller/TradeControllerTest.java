@@ -4,6 +4,7 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 
@@ -16,12 +17,14 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
-import com.example.stock.model.Tickers;
-import com.example.stock.model.Trade;
+import com.example.stock.dto.TradeLogPageDto;
+import com.example.stock.dto.TradeLogRowDto;
 import com.example.stock.model.Users;
 import com.example.stock.security.SecurityUtils;
 import com.example.stock.service.LogoDetectionService;
+import com.example.stock.service.TaxLotService;
 import com.example.stock.service.TradeService;
+import com.example.stock.service.TradeStatsService;
 
 @WebMvcTest(TradeController.class)
 @AutoConfigureMockMvc(addFilters = false)
@@ -33,6 +36,10 @@ public class TradeControllerTest {
 	@MockBean
 	private TradeService tradeService;
 	@MockBean
+	private TaxLotService taxLotService;
+	@MockBean
+	private TradeStatsService tradeStatsService;
+	@MockBean
 	private SecurityUtils securityUtils;
 
 	@Autowired
@@ -45,14 +52,11 @@ public class TradeControllerTest {
 		return user;
 	}
 
-	private Trade mockTrade(String tickerCode) {
-		Trade trade = new Trade();
-		trade.setId(1L);
-		trade.setUser(mockUser());
-		Tickers ticker = new Tickers();
-		ticker.setTicker(tickerCode);
-		trade.setTicker(ticker);
-		return trade;
+	private TradeLogPageDto mockPage(String tickerCode) {
+		TradeLogRowDto row = new TradeLogRowDto();
+		row.setId(1L);
+		row.setSymbol(tickerCode);
+		return new TradeLogPageDto(List.of(row), null, null);
 	}
 
 	@DisplayName("T601: /trade-log に正常アクセスできること")
@@ -60,7 +64,7 @@ public class TradeControllerTest {
 	void showTradeLog_shouldReturnViewWithTrades() throws Exception {
 		Users user = mockUser();
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
-		when(tradeService.getTradesByUser(user)).thenReturn(List.of(mockTrade("AAPL")));
+		when(tradeService.searchTrades(user, "all", "")).thenReturn(mockPage("AAPL"));
 
 		mockMvc.perform(get("/trade-log"))
 				.andExpect(status().isOk())
@@ -73,7 +77,7 @@ public class TradeControllerTest {
 	void searchTrades_validTicker_shouldReturnTrades() throws Exception {
 		Users user = mockUser();
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
-		when(tradeService.searchTrades(user, "all", "AAPL")).thenReturn(List.of(mockTrade("AAPL")));
+		when(tradeService.searchTrades(user, "all", "AAPL")).thenReturn(mockPage("AAPL"));
 
 		mockMvc.perform(get("/trade-log/search").param("date", "all").param("ticker", "AAPL"))
 				.andExpect(status().isOk())
@@ -87,7 +91,8 @@ public class TradeControllerTest {
 	void searchTrades_noResult_shouldShowNoResultMessage() throws Exception {
 		Users user = mockUser();
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
-		when(tradeService.searchTrades(user, "all", "NOTFOUND")).thenReturn(Collections.emptyList());
+		when(tradeService.searchTrades(user, "all", "XYZ"))
+				.thenReturn(new TradeLogPageDto(Collections.emptyList(), null, null));
 
 		mockMvc.perform(get("/trade-log/search").param("date", "all").param("ticker", "XYZ"))
 				.andExpect(status().isOk())
@@ -112,7 +117,7 @@ public class TradeControllerTest {
 	void searchTrades_emptyTicker_shouldReturnAll() throws Exception {
 		Users user = mockUser();
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
-		when(tradeService.searchTrades(user, "all", "")).thenReturn(List.of(mockTrade("AAPL")));
+		when(tradeService.searchTrades(user, "all", "")).thenReturn(mockPage("AAPL"));
 
 		mockMvc.perform(get("/trade-log/search").param("ticker", ""))
 				.andExpect(status().isOk())
@@ -120,4 +125,19 @@ public class TradeControllerTest {
 				.andExpect(view().name("fragments/order/trade-log-show :: trade-table-fragment"));
 	}
 
+	@DisplayName("T606: 続きのページは前のページの最後の行を指定して取得し、行だけを返すこと")
+	@Test
+	void moreTrades_shouldReturnRowsFragment() throws Exception {
+		Users user = mockUser();
+		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
+		LocalDateTime beforeAt = LocalDateTime.of(2025, 6, 2, 10, 0, 30);
+		when(tradeService.searchTrades(user, "1month", "AAPL", beforeAt, 42L)).thenReturn(mockPage("AAPL"));
+
+		mockMvc.perform(get("/trade-log/more").param("date", "1month").param("ticker", "AAPL")
+				.param("beforeAt", "2025-06-02T10:00:30").param("beforeId", "42"))
+				.andExpect(status().isOk())
+				.andExpect(model().attributeExists("trades"))
+				.andExpect(view().name("fragments/order/trade-log-show :: trade-rows-fragment"));
+	}
+
 }
@@ -0,0 +1,50 @@
+package com.example.stock.export;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.stock.enums.ExportFormat;
+
+class ExportWriterTest {
+
+	private static String write(ExportFormat format, Object[]... rows) throws Exception {
+		StringWriter out = new StringWriter();
+		ExportWriter writer = ExportWriter.of(format, out);
+		writer.writeHeader(new String[] { "id", "memo", "amount", "create_at" });
+		for (Object[] row : rows) {
+			writer.writeRow(row);
+		}
+		writer.flush();
+		return out.toString();
+	}
+
+	@DisplayName("T-985: CSV はカンマ・ダブルクォート・改行を含む値だけを囲み、null は空欄にする")
+	@Test
+	void csv_quotesOnlyWhenNeeded() throws Exception {
+		String csv = write(ExportFormat.CSV,
+				new Object[] { 1L, "a,b", new BigDecimal("1E+2"), null },
+				new Object[] { 2L, "say \"hi\"\nbye", new BigDecimal("0.10"), LocalDateTime.of(2025, 6, 2, 10, 0) });
+
+		assertThat(csv).isEqualTo("id,memo,amount,create_at\r\n"
+				+ "1,\"a,b\",100,\r\n"
+				+ "2,\"say \"\"hi\"\"\nbye\",0.10,2025-06-02T10:00\r\n");
+	}
+
+	@DisplayName("T-986: JSON Lines は数値を指数表記にせず、null を null として書き出す")
+	@Test
+	void jsonLines_writesPlainNumbersAndNulls() throws Exception {
+		String jsonl = write(ExportFormat.JSONL,
+				new Object[] { 1L, "a\"b", new BigDecimal("1E+2"), null },
+				new Object[] { 2L, "x", new BigDecimal("0.10"), LocalDateTime.of(2025, 6, 2, 10, 0) });
+
+		assertThat(jsonl).isEqualTo(
+				"{\"id\":1,\"memo\":\"a\\\"b\",\"amount\":100,\"create_at\":null}\n"
+						+ "{\"id\":2,\"memo\":\"x\",\"amount\":0.10,\"create_at\":\"2025-06-02T10:00\"}\n");
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.stock.money;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.stock.util.TradeValidationUtil;
+
+class FixedPointTest {
+
+	@DisplayName("T-961: 割り算の丸めは BigDecimal の丸めと同じ結果になる")
+	@Test
+	void divide_matchesBigDecimalRounding() {
+		long[] dividends = { 25, -25, 15, -15, 14, -14, 16, -16, 20 };
+		RoundingMode[] modes = { RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+				RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN };
+		for (long dividend : dividends) {
+			for (RoundingMode mode : modes) {
+				long expected = BigDecimal.valueOf(dividend).divide(BigDecimal.TEN, 0, mode).longValueExact();
+				assertThat(FixedPoint.divide(dividend, 10, mode)).as("%d / 10 (%s)", dividend, mode)
+						.isEqualTo(expected);
+			}
+		}
+		assertThatThrownBy(() -> FixedPoint.divide(15, 10, RoundingMode.UNNECESSARY))
+				.isInstanceOf(ArithmeticException.class);
+	}
+
+	@DisplayName("T-962: DECIMAL(18,2) の範囲を超える演算は ArithmeticException になる")
+	@Test
+	void overflow_throws() {
+		assertThatThrownBy(() -> FixedPoint.add(FixedPoint.MAX_UNITS, 1)).isInstanceOf(ArithmeticException.class);
+		assertThatThrownBy(() -> FixedPoint.multiply(Long.MAX_VALUE / 2, 300, RoundingMode.HALF_UP))
+				.isInstanceOf(ArithmeticException.class);
+		assertThatThrownBy(() -> FixedPoint.toUnits(new BigDecimal("10000000000000000"), RoundingMode.HALF_UP))
+				.isInstanceOf(ArithmeticException.class);
+	}
+
+	@DisplayName("T-963: 値幅制限は BigDecimal で計算した従来の値と一致する")
+	@Test
+	void priceLimitRange_matchesBigDecimal() {
+		String[] closes = { "100", "123.456", "0.05", "187.335", "99999.99" };
+		for (String close : closes) {
+			BigDecimal closePrice = new BigDecimal(close).setScale(2, RoundingMode.HALF_UP);
+			BigDecimal[] range = TradeValidationUtil.getPriceLimitRange(new BigDecimal(close));
+			assertThat(range[0]).isEqualByComparingTo(
+					closePrice.multiply(BigDecimal.valueOf(0.9)).setScale(2, RoundingMode.HALF_UP));
+			assertThat(range[1]).isEqualByComparingTo(
+					closePrice.multiply(BigDecimal.valueOf(1.1)).setScale(2, RoundingMode.HALF_UP));
+		}
+	}
+
+	@DisplayName("T-965: double の丸めは 10進表記の値を BigDecimal で丸めた結果と一致する")
+	@Test
+	void toUnitsFromDouble_matchesBigDecimal() {
+		double[] values = { 187.335, 187.345, 0.005, 0.015, 1.005, 2.675, 123.456, 99999.995, -0.125, 100,
+				1234567890.125 };
+		RoundingMode[] modes = { RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN,
+				RoundingMode.FLOOR };
+		for (double value : values) {
+			for (RoundingMode mode : modes) {
+				assertThat(FixedPoint.toUnits(value, mode)).as("%s (%s)", value, mode)
+						.isEqualTo(FixedPoint.toUnits(BigDecimal.valueOf(value), mode));
+			}
+		}
+		for (int thousandths = 0; thousandths < 1_000_000; thousandths += 7) {
+			double value = thousandths / 1000.0;
+			assertThat(FixedPoint.toUnits(value, RoundingMode.HALF_UP)).as("%s", value)
+					.isEqualTo(FixedPoint.toUnits(BigDecimal.valueOf(value), RoundingMode.HALF_UP));
+		}
+	}
+
+	@DisplayName("T-964: 按分した金額は通貨の桁数に丸められ、通貨の異なる金額は加算できない")
+	@Test
+	void money_prorateAndCurrencyCheck() {
+		Money jpy = Money.of(new BigDecimal("1000"), "JPY");
+		// 1000円 × 1株 ÷ 3株 = 333.33… → 円は切り上げで 334円
+		assertThat(jpy.prorate(100, 300, RoundingMode.CEILING).toBigDecimal()).isEqualByComparingTo("334");
+
+		Money usd = Money.of(new BigDecimal("10.00"), "usd");
+		assertThat(usd.prorate(100, 300, RoundingMode.HALF_UP).toBigDecimal()).isEqualByComparingTo("3.33");
+		assertThat(usd.times(250, RoundingMode.HALF_UP)).isEqualTo(Money.of(new BigDecimal("25"), "USD"));
+		assertThatThrownBy(() -> jpy.plus(usd)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
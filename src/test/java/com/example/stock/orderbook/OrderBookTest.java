@@ -0,0 +1,147 @@
+package com.example.stock.orderbook;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OrderBookTest {
+
+	private OrderBook book;
+
+	@BeforeEach
+	void setup() {
+		book = new OrderBook("AAPL");
+	}
+
+	private static RestingOrder buy(long orderId, long price, long quantity) {
+		return new RestingOrder(orderId, 1L, RestingOrder.BUY, price, quantity);
+	}
+
+	private static RestingOrder sell(long orderId, long price, long quantity) {
+		return new RestingOrder(orderId, 1L, RestingOrder.SELL, price, quantity);
+	}
+
+	@DisplayName("T-901: 安値が指値より高い場合は買い注文は約定しない")
+	@Test
+	void match_priceNotReached_noFill() {
+		book.add(buy(1, 9_500, 100));
+
+		List<Fill> fills = book.match(9_600, 10_000, 0);
+
+		assertThat(fills).isEmpty();
+		assertThat(book.size()).isEqualTo(1);
+	}
+
+	@DisplayName("T-902: 買いは高い指値から、同じ指値は受付順に約定する（価格優先・時間優先）")
+	@Test
+	void match_buy_priceTimePriority() {
+		book.add(buy(1, 9_500, 100));
+		book.add(buy(2, 9_800, 100));
+		book.add(buy(3, 9_500, 100));
+		book.add(buy(4, 9_000, 100));
+
+		List<Fill> fills = book.match(9_400, 10_000, 0);
+
+		assertThat(fills).extracting(Fill::getOrderId).containsExactly(2L, 1L, 3L);
+		assertThat(book.size()).isEqualTo(1);
+		assertThat(book.contains(4)).isTrue();
+	}
+
+	@DisplayName("T-903: 売りは安い指値から約定し、高値を超える指値は残る")
+	@Test
+	void match_sell_lowestPriceFirst() {
+		book.add(sell(1, 10_500, 100));
+		book.add(sell(2, 10_200, 100));
+		book.add(sell(3, 11_000, 100));
+
+		List<Fill> fills = book.match(9_000, 10_600, 0);
+
+		assertThat(fills).extracting(Fill::getOrderId).containsExactly(2L, 1L);
+		assertThat(fills).allSatisfy(fill -> assertThat(fill.getRemainingQuantity()).isZero());
+		assertThat(book.contains(3)).isTrue();
+	}
+
+	@DisplayName("T-904: 約定可能数量を超える分は一部約定として板に残り、次の照合で続きから約定する")
+	@Test
+	void match_liquidityLimit_partialFill() {
+		book.add(buy(1, 10_000, 300));
+		book.add(buy(2, 10_000, 100));
+
+		List<Fill> first = book.match(9_900, 10_100, 200);
+
+		assertThat(first).hasSize(1);
+		assertThat(first.get(0).getQuantity()).isEqualTo(200);
+		assertThat(first.get(0).getRemainingQuantity()).isEqualTo(100);
+		assertThat(book.size()).isEqualTo(2);
+
+		List<Fill> second = book.match(9_900, 10_100, 200);
+
+		assertThat(second).extracting(Fill::getOrderId).containsExactly(1L, 2L);
+		assertThat(second).extracting(Fill::getQuantity).containsExactly(100L, 100L);
+		assertThat(book.size()).isZero();
+	}
+
+	@DisplayName("T-905: 取り消した注文は約定しない")
+	@Test
+	void cancel_removesOrder() {
+		book.add(buy(1, 10_000, 100));
+		book.add(buy(2, 10_000, 100));
+
+		assertThat(book.cancel(1)).isTrue();
+		assertThat(book.cancel(1)).isFalse();
+
+		List<Fill> fills = book.match(9_000, 11_000, 0);
+		assertThat(fills).extracting(Fill::getOrderId).containsExactly(2L);
+	}
+
+	@DisplayName("T-906: 同じ注文IDは二重に登録されない")
+	@Test
+	void add_duplicateOrderId_ignored() {
+		assertThat(book.add(buy(1, 10_000, 100))).isTrue();
+		assertThat(book.add(buy(1, 10_000, 100))).isFalse();
+		assertThat(book.size()).isEqualTo(1);
+	}
+
+	@DisplayName("T-907: 多数の価格帯に注文を追加しても、照合後に約定済みの価格帯が残らない")
+	@Test
+	void match_manyLevels_emptiedLevelsRemoved() {
+		for (int i = 0; i < 100; i++) {
+			book.add(buy(i, 10_000 - i, 10));
+			book.add(sell(1_000 + i, 10_100 + i, 10));
+		}
+
+		List<Fill> fills = book.match(9_950, 10_149, 0);
+
+		// 買い 10000〜9950（51件）、売り 10100〜10149（50件）
+		assertThat(fills).hasSize(101);
+		assertThat(book.size()).isEqualTo(99);
+		assertThat(book.match(9_950, 10_149, 0)).isEmpty();
+		assertThat(book.match(0, Long.MAX_VALUE, 0)).hasSize(99);
+		assertThat(book.size()).isZero();
+	}
+
+	@DisplayName("T-908: 精算できなかった約定を戻すと、照合前と同じ数量・順番で板に残る")
+	@Test
+	void restore_unsettledFills_keepsTimePriority() {
+		book.add(buy(1, 10_000, 100));
+		book.add(buy(2, 10_000, 100));
+		book.add(buy(3, 10_000, 100));
+
+		// 1 は全量、2 は一部だけ約定（1 は板から外れる）
+		List<Fill> fills = book.match(9_900, 10_100, 150);
+		assertThat(fills).extracting(Fill::getOrderId).containsExactly(1L, 2L);
+
+		// 照合の逆順に戻す
+		book.restore(fills.get(1));
+		book.restore(fills.get(0));
+
+		assertThat(book.size()).isEqualTo(3);
+		List<Fill> again = book.match(9_900, 10_100, 0);
+		assertThat(again).extracting(Fill::getOrderId).containsExactly(1L, 2L, 3L);
+		assertThat(again).extracting(Fill::getQuantity).containsExactly(100L, 100L, 100L);
+	}
+}
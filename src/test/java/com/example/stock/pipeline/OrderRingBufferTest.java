@@ -0,0 +1,109 @@
+package com.example.stock.pipeline;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OrderRingBufferTest {
+
+	// テスト用のスロット
+	private static class Slot {
+		private long value;
+	}
+
+	@DisplayName("T-921: 書き込んだ順に読み出され、読み出し件数の上限が守られる")
+	@Test
+	void drain_returnsItemsInPublishOrder() {
+		OrderRingBuffer<Slot> ring = new OrderRingBuffer<>(8, Slot::new);
+		for (long i = 1; i <= 5; i++) {
+			long value = i;
+			assertThat(ring.tryPublish(slot -> slot.value = value)).isTrue();
+		}
+
+		List<Long> first = new ArrayList<>();
+		assertThat(ring.drain(3, slot -> first.add(slot.value))).isEqualTo(3);
+		List<Long> rest = new ArrayList<>();
+		assertThat(ring.drain(10, slot -> rest.add(slot.value))).isEqualTo(2);
+
+		assertThat(first).containsExactly(1L, 2L, 3L);
+		assertThat(rest).containsExactly(4L, 5L);
+		assertThat(ring.size()).isZero();
+	}
+
+	@DisplayName("T-922: 満杯のときは書き込めず、読み出すとスロットが再利用される")
+	@Test
+	void tryPublish_full_returnsFalseUntilDrained() {
+		OrderRingBuffer<Slot> ring = new OrderRingBuffer<>(4, Slot::new);
+		for (int i = 0; i < 4; i++) {
+			assertThat(ring.tryPublish(slot -> slot.value = 1)).isTrue();
+		}
+
+		assertThat(ring.tryPublish(slot -> slot.value = 2)).isFalse();
+
+		ring.drain(1, slot -> {
+		});
+		assertThat(ring.tryPublish(slot -> slot.value = 2)).isTrue();
+		assertThat(ring.size()).isEqualTo(4);
+	}
+
+	@DisplayName("T-923: 容量が2のべき乗でない場合は例外")
+	@Test
+	void constructor_capacityNotPowerOfTwo_throws() {
+		assertThatThrownBy(() -> new OrderRingBuffer<>(6, Slot::new))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@DisplayName("T-924: 複数スレッドから書き込んでも、取りこぼし・重複なく、スレッドごとの順序を保って読み出される")
+	@Test
+	void tryPublish_multipleProducers_noLossNoDuplicate() throws Exception {
+		int producers = 4;
+		int perProducer = 10_000;
+		OrderRingBuffer<Slot> ring = new OrderRingBuffer<>(64, Slot::new);
+		ExecutorService executor = Executors.newFixedThreadPool(producers);
+		CountDownLatch start = new CountDownLatch(1);
+
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < perProducer; i++) {
+					long value = (long) producer * perProducer + i;
+					while (!ring.tryPublish(slot -> slot.value = value)) {
+						Thread.onSpinWait();
+					}
+				}
+				return null;
+			});
+		}
+		start.countDown();
+
+		// スレッドごとに直前に読み出した値（順序の確認用）
+		long[] lastSeen = new long[producers];
+		Arrays.fill(lastSeen, -1);
+		boolean[] seen = new boolean[producers * perProducer];
+		int total = 0;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (total < producers * perProducer && System.nanoTime() < deadline) {
+			total += ring.drain(32, slot -> {
+				int producer = (int) (slot.value / perProducer);
+				assertThat(slot.value).isGreaterThan(lastSeen[producer]);
+				lastSeen[producer] = slot.value;
+				assertThat(seen[(int) slot.value]).isFalse();
+				seen[(int) slot.value] = true;
+			});
+		}
+		executor.shutdown();
+
+		assertThat(total).isEqualTo(producers * perProducer);
+		assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+	}
+}
@@ -0,0 +1,62 @@
+package com.example.stock.risk;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class WindowCounterTest {
+
+	@DisplayName("T-951: 上限を超えない場合のみ加算し、期間が変わると0から数え直す")
+	@Test
+	void tryAdd_respectsLimitAndResetsOnNewWindow() {
+		WindowCounter counter = new WindowCounter();
+
+		assertThat(counter.tryAdd(1, 60, 100)).isTrue();
+		assertThat(counter.tryAdd(1, 50, 100)).isFalse();
+		assertThat(counter.tryAdd(1, 40, 100)).isTrue();
+		assertThat(counter.get(1)).isEqualTo(100);
+
+		assertThat(counter.tryAdd(2, 30, 100)).isTrue();
+		assertThat(counter.get(2)).isEqualTo(30);
+		assertThat(counter.get(1)).isZero();
+	}
+
+	@DisplayName("T-952: 上限0は上限なしとして扱い、古い期間の加算で新しい期間を巻き戻さない")
+	@Test
+	void tryAdd_unlimitedAndStaleWindow() {
+		WindowCounter counter = new WindowCounter();
+
+		assertThat(counter.tryAdd(5, 1_000_000, 0)).isTrue();
+		counter.add(4, 10);
+
+		assertThat(counter.get(5)).isEqualTo(1_000_000);
+	}
+
+	@DisplayName("T-953: 並行して加算しても上限を超えない")
+	@Test
+	void tryAdd_concurrent_neverExceedsLimit() throws InterruptedException {
+		WindowCounter counter = new WindowCounter();
+		AtomicInteger accepted = new AtomicInteger();
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+			for (int i = 0; i < 1_000; i++) {
+				executor.submit(() -> {
+					if (counter.tryAdd(1, 1, 100)) {
+						accepted.incrementAndGet();
+					}
+				});
+			}
+			executor.shutdown();
+			assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+		}
+
+		assertThat(accepted.get()).isEqualTo(100);
+		assertThat(counter.get(1)).isEqualTo(100);
+	}
+}
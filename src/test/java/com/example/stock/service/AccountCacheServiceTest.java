@@ -0,0 +1,156 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.stock.dto.AccountSnapshot;
+import com.example.stock.event.HoldingChangedEvent;
+import com.example.stock.event.WalletChangedEvent;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+
+@ExtendWith(MockitoExtension.class)
+class AccountCacheServiceTest {
+
+	@InjectMocks
+	private AccountCacheService accountCacheService;
+
+	@Mock
+	private UserWalletService userWalletService;
+
+	@Mock
+	private UserStockService userStockService;
+
+	@Mock
+	private StringRedisTemplate stringRedisTemplate;
+
+	private Users user;
+	private UserWallet wallet;
+
+	@BeforeEach
+	void setup() {
+		user = new Users();
+		user.setId(1L);
+
+		wallet = new UserWallet();
+		wallet.setUser(user);
+		wallet.setJpyBalance(new BigDecimal("1000"));
+		wallet.setUsdBalance(new BigDecimal("100"));
+
+		when(userWalletService.getWalletByUser(user)).thenReturn(wallet);
+		when(userStockService.getHoldingQuantities(user)).thenReturn(Map.of("AAPL", new BigDecimal("5")));
+	}
+
+	@AfterEach
+	void cleanup() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	// トランザクションの完了を再現する（登録された同期処理の afterCompletion を呼ぶ）
+	private void completeTransaction(int status) {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(status);
+		}
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	private void receive(String body) {
+		accountCacheService.onMessage(new DefaultMessage(
+				AccountCacheService.INVALIDATE_CHANNEL.getBytes(StandardCharsets.UTF_8),
+				body.getBytes(StandardCharsets.UTF_8)), null);
+	}
+
+	@DisplayName("T-941: 2回目以降の取得はキャッシュから返し、DBを読まない")
+	@Test
+	void getSnapshot_secondCall_servedFromCache() {
+		accountCacheService.getSnapshot(user);
+		AccountSnapshot snapshot = accountCacheService.getSnapshot(user);
+
+		assertThat(snapshot.getJpyBalance()).isEqualByComparingTo("1000");
+		assertThat(snapshot.getHoldingQuantity("AAPL")).isEqualByComparingTo("5");
+		assertThat(snapshot.getHoldingQuantity("MSFT")).isEqualByComparingTo("0");
+		verify(userWalletService, times(1)).getWalletByUser(user);
+		verify(userStockService, times(1)).getHoldingQuantities(user);
+	}
+
+	@DisplayName("T-942: コミットされた増減はDBを読み直さずにキャッシュへ書き込まれる")
+	@Test
+	void committedChanges_areWrittenThrough() {
+		accountCacheService.getSnapshot(user);
+
+		TransactionSynchronizationManager.initSynchronization();
+		accountCacheService.onWalletChanged(new WalletChangedEvent(1L, "USD", new BigDecimal("-30")));
+		accountCacheService.onHoldingChanged(
+				new HoldingChangedEvent(1L, "AAPL", "Apple", new BigDecimal("-5"), new BigDecimal("-400")));
+		accountCacheService.onHoldingChanged(
+				new HoldingChangedEvent(1L, "MSFT", "Microsoft", new BigDecimal("2"), new BigDecimal("600")));
+		completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+		AccountSnapshot snapshot = accountCacheService.getSnapshot(user);
+
+		assertThat(snapshot.getUsdBalance()).isEqualByComparingTo("70");
+		assertThat(snapshot.getJpyBalance()).isEqualByComparingTo("1000");
+		assertThat(snapshot.getHoldings()).containsOnlyKeys("MSFT");
+		assertThat(snapshot.getHoldingQuantity("MSFT")).isEqualByComparingTo("2");
+		verify(userWalletService, times(1)).getWalletByUser(user);
+	}
+
+	@DisplayName("T-943: 更新中はキャッシュを使わずDBから読み、ロールバックされた増減は反映しない")
+	@Test
+	void pendingTransaction_bypassesCache_andRollbackIsDiscarded() {
+		accountCacheService.getSnapshot(user);
+
+		TransactionSynchronizationManager.initSynchronization();
+		accountCacheService.onWalletChanged(new WalletChangedEvent(1L, "JPY", new BigDecimal("-500")));
+		accountCacheService.getSnapshot(user);
+		accountCacheService.getSnapshot(user);
+		completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		AccountSnapshot snapshot = accountCacheService.getSnapshot(user);
+
+		assertThat(snapshot.getJpyBalance()).isEqualByComparingTo("1000");
+		// 初回 + 更新中の2回（更新中に読んだ値はキャッシュしない）
+		verify(userWalletService, times(3)).getWalletByUser(user);
+		verify(stringRedisTemplate).convertAndSend(eq(AccountCacheService.INVALIDATE_CHANNEL), startsWith("begin:"));
+		verify(stringRedisTemplate).convertAndSend(eq(AccountCacheService.INVALIDATE_CHANNEL), startsWith("end:"));
+	}
+
+	@DisplayName("T-944: 他ノードの更新の通知を受信するとキャッシュを破棄し、終了まではDBから読む")
+	@Test
+	void remoteNotification_evictsCache() {
+		accountCacheService.getSnapshot(user);
+
+		receive("begin:other-node:1");
+		accountCacheService.getSnapshot(user);
+		receive("end:other-node:1");
+		accountCacheService.getSnapshot(user);
+		accountCacheService.getSnapshot(user);
+		// 別ユーザーの通知・解析できない通知は無視する
+		receive("end:other-node:2");
+		receive("broken");
+		accountCacheService.getSnapshot(user);
+
+		// 初回 + 更新中 + 終了後の読み込み
+		verify(userWalletService, times(3)).getWalletByUser(user);
+	}
+}
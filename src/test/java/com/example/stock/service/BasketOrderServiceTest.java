@@ -0,0 +1,228 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeRequestDto;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserStock;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+public class BasketOrderServiceTest {
+
+	@Autowired
+	private BasketOrderService basketOrderService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private UserWalletRepository walletRepository;
+	@Autowired
+	private WalletLedgerService walletLedgerService;
+	@Autowired
+	private UserStockRepository userStockRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private QuoteService quoteService;
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+	// 既定では立会時間中として扱う（isMarketClosed は false）
+	@MockBean
+	private OpeningQueueService openingQueueService;
+
+	private Users user;
+	private Tickers tickerA;
+	private Tickers tickerB;
+
+	@BeforeEach
+	void setup() {
+		user = new Users();
+		user.setUsername("一括太郎");
+		user.setEmail("basket@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		tickerA = createTicker("ZZBSKA");
+		tickerB = createTicker("ZZBSKB");
+
+		UserWallet wallet = new UserWallet();
+		wallet.setUser(user);
+		wallet.setJpyBalance(BigDecimal.ZERO);
+		wallet.setUsdBalance(new BigDecimal("1000"));
+		wallet.setCreateAt(LocalDateTime.now());
+		wallet.setUpdateAt(LocalDateTime.now());
+		walletRepository.save(wallet);
+
+		UserStock holding = new UserStock();
+		holding.setUser(user);
+		holding.setTicker(tickerA);
+		holding.setQuantity(new BigDecimal("5"));
+		holding.setCreateAt(LocalDateTime.now());
+		holding.setUpdateAt(LocalDateTime.now());
+		userStockRepository.save(holding);
+
+		when(quoteService.getLatestStocks(any())).thenReturn(Map.of(
+				"ZZBSKA", quote("ZZBSKA"),
+				"ZZBSKB", quote("ZZBSKB")));
+	}
+
+	private Tickers createTicker(String symbol) {
+		Tickers ticker = new Tickers();
+		ticker.setTicker(symbol);
+		ticker.setBrand(symbol + " Inc.");
+		return tickersRepository.save(ticker);
+	}
+
+	private static StockCandleWithPrevCloseDto quote(String symbol) {
+		StockCandleWithPrevCloseDto quote = new StockCandleWithPrevCloseDto();
+		quote.setSymbol(symbol);
+		quote.setClose(100.0);
+		quote.setPrevClose(100.0);
+		return quote;
+	}
+
+	// 1株あたり unitPrice ドルのUSD建て指値注文
+	private static TradeRequestDto leg(Tickers ticker, String side, String quantity, String unitPrice) {
+		TradeRequestDto dto = new TradeRequestDto();
+		dto.setTickerId(ticker.getId());
+		dto.setSide(side);
+		dto.setQuantity(new BigDecimal(quantity));
+		dto.setUnitPrice(new BigDecimal(unitPrice));
+		dto.setSettlementCurrency("USD");
+		dto.setExchangeRate(BigDecimal.ONE);
+		dto.setType("LIMIT");
+		return dto;
+	}
+
+	// 確定のバッチ更新は永続化コンテキストを経由しないため、DBから現在の残高を読み込む
+	private BigDecimal usdBalance() {
+		return walletLedgerService.getCurrentBalance(user).getUsd();
+	}
+
+	private int tradeCount() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trade WHERE user_id = ?", Integer.class,
+				user.getId());
+	}
+
+	private BigDecimal quantity(Tickers ticker) {
+		return userStockRepository.findByUserAndTicker(user, ticker)
+				.map(UserStock::getQuantity)
+				.orElse(BigDecimal.ZERO);
+	}
+
+	@DisplayName("T-461: 複数銘柄の買い・売りがまとめて約定し、残高・保有株・ウォレットログが注文順に反映される")
+	@Test
+	void submitBasket_validLegs_settlesAll() {
+		List<Trade> trades = basketOrderService.submitBasket(user, List.of(
+				leg(tickerA, "buy", "2", "100"),
+				leg(tickerB, "buy", "3", "100"),
+				leg(tickerA, "sell", "4", "100")));
+
+		assertThat(trades).hasSize(3).allSatisfy(t -> {
+			assertThat(t.getId()).isNotNull();
+			assertThat(t.getStatus()).isEqualTo(4);
+		});
+		assertThat(tradeCount()).isEqualTo(3);
+		assertThat(usdBalance()).isEqualByComparingTo("900"); // 1000 - 200 - 300 + 400
+		assertThat(quantity(tickerA)).isEqualByComparingTo("3"); // 5 + 2 - 4
+		assertThat(quantity(tickerB)).isEqualByComparingTo("3");
+
+		List<Map<String, Object>> logs = jdbcTemplate.queryForList(
+				"SELECT before_balance, after_balance, change_amount FROM user_wallet_log WHERE trade_id IN (?, ?, ?) "
+						+ "ORDER BY trade_id",
+				trades.get(0).getId(), trades.get(1).getId(), trades.get(2).getId());
+		assertThat(logs).hasSize(3);
+		assertThat((BigDecimal) logs.get(0).get("before_balance")).isEqualByComparingTo("1000");
+		assertThat((BigDecimal) logs.get(0).get("after_balance")).isEqualByComparingTo("800");
+		assertThat((BigDecimal) logs.get(1).get("after_balance")).isEqualByComparingTo("500");
+		assertThat((BigDecimal) logs.get(2).get("change_amount")).isEqualByComparingTo("400");
+		assertThat((BigDecimal) logs.get(2).get("after_balance")).isEqualByComparingTo("900");
+	}
+
+	@DisplayName("T-462: 1件ずつなら残高内でも、買いの合計が残高を超える場合は全体が不成立になる")
+	@Test
+	void submitBasket_totalExceedsBalance_rejectsAll() {
+		assertThatThrownBy(() -> basketOrderService.submitBasket(user, List.of(
+				leg(tickerA, "buy", "6", "100"),
+				leg(tickerB, "buy", "6", "100"))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("残高不足");
+
+		assertThat(tradeCount()).isZero();
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+	}
+
+	@DisplayName("T-463: 同じ銘柄の売りの合計が保有数を超える場合は全体が不成立になる")
+	@Test
+	void submitBasket_sellTotalExceedsHolding_rejectsAll() {
+		assertThatThrownBy(() -> basketOrderService.submitBasket(user, List.of(
+				leg(tickerB, "buy", "1", "100"),
+				leg(tickerA, "sell", "3", "100"),
+				leg(tickerA, "sell", "3", "100"))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("保有株数");
+
+		assertThat(quantity(tickerA)).isEqualByComparingTo("5");
+		assertThat(quantity(tickerB)).isEqualByComparingTo("0");
+	}
+
+	@DisplayName("T-464: 現在値で約定しない指値が含まれる場合は全体が不成立になる")
+	@Test
+	void submitBasket_restingLimitLeg_rejectsAll() {
+		assertThatThrownBy(() -> basketOrderService.submitBasket(user, List.of(
+				leg(tickerA, "buy", "1", "100"),
+				leg(tickerB, "buy", "1", "95"))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("ZZBSKB");
+
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+	}
+
+	@DisplayName("T-465: 立会時間外は受け付けず、注文・残高・保有株は変わらない")
+	@Test
+	void submitBasket_marketClosed_rejectsAll() {
+		when(openingQueueService.isMarketClosed()).thenReturn(true);
+
+		assertThatThrownBy(() -> basketOrderService.submitBasket(user, List.of(
+				leg(tickerA, "buy", "1", "100"),
+				leg(tickerA, "sell", "1", "100"))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("立会時間外");
+
+		assertThat(tradeCount()).isZero();
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+		assertThat(quantity(tickerA)).isEqualByComparingTo("5");
+	}
+}
@@ -0,0 +1,77 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.stock.exception.StockApiException;
+import com.example.stock.fx.FixedFxRateSource;
+import com.example.stock.fx.FxRateSource;
+
+class FxRateServiceTest {
+
+	private static final BigDecimal DEFAULT_RATE = new BigDecimal("143.07");
+
+	@DisplayName("T-911: 取得前は既定値を返し、取得後は取得した為替レートを返す")
+	@Test
+	void getUsdJpyRate_defaultUntilRefreshed() {
+		FxRateService service = new FxRateService(
+				new FixedFxRateSource(Map.of(FxRateService.USD_JPY, new BigDecimal("150.25"))), DEFAULT_RATE);
+
+		assertThat(service.getUsdJpyRate()).isEqualByComparingTo("143.07");
+		assertThat(service.getUsdJpyFetchedAt()).isNull();
+
+		service.refresh();
+
+		assertThat(service.getUsdJpyRate()).isEqualByComparingTo("150.25");
+		assertThat(service.getUsdJpyFetchedAt()).isNotNull();
+	}
+
+	@DisplayName("T-912: 換算では取得元を呼ばず、メモリ上の値を返す")
+	@Test
+	void getUsdJpyRate_doesNotCallSource() {
+		FxRateSource source = mock(FxRateSource.class);
+		when(source.fetchRate(FxRateService.USD_JPY)).thenReturn(new BigDecimal("151"));
+		FxRateService service = new FxRateService(source, DEFAULT_RATE);
+		service.refresh();
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(service.getSettlementRate("JPY")).isEqualByComparingTo("151");
+		}
+		verify(source, times(1)).fetchRate(FxRateService.USD_JPY);
+	}
+
+	@DisplayName("T-913: 取得に失敗した場合・不正な値の場合は直前の為替レートを使い続ける")
+	@Test
+	void refresh_failure_keepsPreviousRate() {
+		FxRateSource source = mock(FxRateSource.class);
+		when(source.fetchRate(FxRateService.USD_JPY))
+				.thenReturn(new BigDecimal("151"))
+				.thenThrow(new StockApiException("為替レートの取得に失敗しました"))
+				.thenReturn(BigDecimal.ZERO);
+		FxRateService service = new FxRateService(source, DEFAULT_RATE);
+
+		service.refresh();
+		service.refresh();
+		service.refresh();
+
+		assertThat(service.getUsdJpyRate()).isEqualByComparingTo("151");
+	}
+
+	@DisplayName("T-914: 決済通貨の為替レートは米ドルなら1、円なら米ドル/円、その他は例外")
+	@Test
+	void getSettlementRate_byCurrency() {
+		FxRateService service = new FxRateService(
+				new FixedFxRateSource(Map.of(FxRateService.USD_JPY, new BigDecimal("150"))), DEFAULT_RATE);
+		service.refresh();
+
+		assertThat(service.getSettlementRate("USD")).isEqualByComparingTo("1");
+		assertThat(service.getSettlementRate("JPY")).isEqualByComparingTo("150");
+		assertThatThrownBy(() -> service.getSettlementRate("EUR")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
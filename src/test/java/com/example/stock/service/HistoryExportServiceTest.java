@@ -0,0 +1,160 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.stock.dto.ExportFilter;
+import com.example.stock.enums.ExportFormat;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.UsersRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 取引履歴のエクスポート（CSV・JSON Lines、期間・銘柄での絞り込み）のテスト。
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+public class HistoryExportServiceTest {
+
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	@Autowired
+	private HistoryExportService historyExportService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private TradeRepository tradeRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Users user;
+	private Tickers apple;
+	private Tickers microsoft;
+
+	@BeforeEach
+	void setup() {
+		user = new Users();
+		user.setUsername("出力太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		apple = saveTicker("ZZEXA");
+		microsoft = saveTicker("ZZEXM");
+	}
+
+	private Tickers saveTicker(String symbol) {
+		Tickers ticker = new Tickers();
+		ticker.setTicker(symbol);
+		ticker.setBrand(symbol + " Inc.");
+		return tickersRepository.save(ticker);
+	}
+
+	// 指定した日時に約定した買い注文を保存する
+	private Trade saveTrade(Tickers ticker, String quantity, String unitPrice, LocalDateTime createAt) {
+		Trade trade = new Trade();
+		trade.setUser(user);
+		trade.setTicker(ticker);
+		trade.setQuantity(new BigDecimal(quantity));
+		trade.setUnitPrice(new BigDecimal(unitPrice));
+		trade.setTotalPrice(new BigDecimal(quantity).multiply(new BigDecimal(unitPrice)));
+		trade.setCurrency("USD");
+		trade.setSettlementCurrency("USD");
+		trade.setExchangeRate(BigDecimal.ONE);
+		trade.setSide(0);
+		trade.setType(0);
+		trade.setStatus(4);
+		tradeRepository.saveAndFlush(trade);
+		jdbcTemplate.update("UPDATE trade SET create_at = ? WHERE id = ?", createAt, trade.getId());
+		return trade;
+	}
+
+	private String export(ExportFilter filter, ExportFormat format) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		historyExportService.exportTrades(filter, format, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@DisplayName("T-981: CSV は見出し行のあとに取引を古い順に1行ずつ書き出す")
+	@Test
+	void exportTrades_csv_writesHeaderAndRowsOldestFirst() throws Exception {
+		Trade older = saveTrade(apple, "2", "150.25", LocalDateTime.of(2025, 6, 2, 10, 0));
+		Trade newer = saveTrade(microsoft, "1", "400", LocalDateTime.of(2025, 6, 3, 10, 0));
+
+		String csv = export(new ExportFilter(user.getId(), null, null, ""), ExportFormat.CSV);
+
+		List<String> lines = csv.lines().toList();
+		assertThat(lines).hasSize(3);
+		assertThat(lines.get(0)).startsWith("id,create_at,user_id,symbol,");
+		assertThat(lines.get(1)).startsWith(older.getId() + ",2025-06-02T10:00,").contains(",ZZEXA,", ",150.25,");
+		assertThat(lines.get(2)).startsWith(newer.getId() + ",").contains(",ZZEXM,");
+	}
+
+	@DisplayName("T-982: JSON Lines は1行に1件、列名をキーにしたオブジェクトを書き出す")
+	@Test
+	void exportTrades_jsonLines_writesOneObjectPerLine() throws Exception {
+		Trade trade = saveTrade(apple, "3", "100.50", LocalDateTime.of(2025, 6, 2, 10, 0));
+
+		String jsonl = export(new ExportFilter(user.getId(), null, null, ""), ExportFormat.JSONL);
+
+		List<String> lines = jsonl.lines().toList();
+		assertThat(lines).hasSize(1);
+		JsonNode row = new ObjectMapper().readTree(lines.get(0));
+		assertThat(row.get("id").asLong()).isEqualTo(trade.getId());
+		assertThat(row.get("symbol").asText()).isEqualTo("ZZEXA");
+		assertThat(row.get("unit_price").decimalValue()).isEqualByComparingTo("100.50");
+	}
+
+	@DisplayName("T-983: 期間（両端の日を含む）と銘柄で絞り込める")
+	@Test
+	void exportTrades_filtersByDateRangeAndTicker() throws Exception {
+		saveTrade(apple, "1", "100", LocalDateTime.of(2025, 5, 31, 23, 59));
+		Trade inRange = saveTrade(apple, "1", "100", LocalDateTime.of(2025, 6, 30, 23, 59));
+		saveTrade(microsoft, "1", "100", LocalDateTime.of(2025, 6, 15, 10, 0));
+		saveTrade(apple, "1", "100", LocalDateTime.of(2025, 7, 1, 0, 0));
+
+		String csv = export(new ExportFilter(user.getId(), LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30),
+				"zzexa"), ExportFormat.CSV);
+
+		List<String> lines = csv.lines().toList();
+		assertThat(lines).hasSize(2);
+		assertThat(lines.get(1)).startsWith(inRange.getId() + ",");
+	}
+
+	@DisplayName("T-984: 該当する取引がなくても CSV の見出し行は書き出す")
+	@Test
+	void exportTrades_noRows_writesHeaderOnly() throws Exception {
+		String csv = export(new ExportFilter(user.getId(), null, null, ""), ExportFormat.CSV);
+
+		assertThat(csv.lines().toList()).hasSize(1);
+	}
+}
@@ -0,0 +1,225 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeLogRowDto;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+
+/**
+ * 寄付待ちの注文の受付と、寄付でのまとめての執行のテスト。
+ * 執行は別トランザクションで行われるため、テストクラス全体のトランザクションは使わず、後処理で削除する。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class OpeningQueueServiceTest {
+
+	private static final String SYMBOL = "ZZOPEN";
+
+	@Autowired
+	private OpeningQueueService openingQueueService;
+	@Autowired
+	private TradeService tradeService;
+	@Autowired
+	private OrderBookService orderBookService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private UserWalletRepository walletRepository;
+	@Autowired
+	private TradeRepository tradeRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private StockService stockService;
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	private Users user;
+	private Tickers ticker;
+
+	@BeforeEach
+	void setup() {
+		ticker = new Tickers();
+		ticker.setTicker(SYMBOL);
+		ticker.setBrand("Opening Test Inc.");
+		tickersRepository.save(ticker);
+
+		user = new Users();
+		user.setUsername("寄付太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		UserWallet wallet = new UserWallet();
+		wallet.setUser(user);
+		wallet.setJpyBalance(BigDecimal.ZERO);
+		wallet.setUsdBalance(new BigDecimal("1000"));
+		wallet.setCreateAt(LocalDateTime.now());
+		wallet.setUpdateAt(LocalDateTime.now());
+		walletRepository.save(wallet);
+
+		// 立会時間外の最新値（前日終値）
+		StockCandleWithPrevCloseDto quote = new StockCandleWithPrevCloseDto();
+		quote.setSymbol(SYMBOL);
+		quote.setClose(100.0);
+		quote.setPrevClose(100.0);
+		when(stockService.getLatestStockWithPrevClose(anyString())).thenReturn(quote);
+	}
+
+	@AfterEach
+	void cleanup() {
+		for (TradeLogRowDto row : tradeService.searchTrades(user, "all", null).getRows()) {
+			if (TradeStatus.fromCode(row.getStatus()).isCancellable()) {
+				tradeService.cancelOrder(user, row.getId());
+			}
+		}
+		Long id = user.getId();
+		jdbcTemplate.update("DELETE FROM user_wallet_log WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_ledger_entry WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_snapshot WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM realized_pnl WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM tax_lot WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade_stat_monthly WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_stock WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_wallet WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+		tickersRepository.delete(ticker);
+	}
+
+	// 買い注文を寄付待ちとして受け付ける（成行の単価は受付時の前日終値 +10%）
+	private Long enqueueBuy(int type, String quantity, String unitPrice) {
+		Trade t = new Trade();
+		t.setUser(user);
+		t.setTicker(ticker);
+		t.setQuantity(new BigDecimal(quantity));
+		t.setUnitPrice(new BigDecimal(unitPrice));
+		t.setTotalPrice(new BigDecimal(quantity).multiply(new BigDecimal(unitPrice)));
+		t.setCurrency("USD");
+		t.setSettlementCurrency("USD");
+		t.setExchangeRate(BigDecimal.ONE);
+		t.setSide(0);
+		t.setType(type);
+		t.setCreateAt(LocalDateTime.now());
+		t.setUpdateAt(LocalDateTime.now());
+		return openingQueueService.enqueue(t);
+	}
+
+	// 指定した日の立会の日足（始値 open）
+	private StockCandleWithPrevCloseDto sessionBar(LocalDate session, double open) {
+		return new StockCandleWithPrevCloseDto(SYMBOL, "1day", session.toString(), open, open + 5, open - 5,
+				open + 1, 1_000, 100.0);
+	}
+
+	private Trade find(Long tradeId) {
+		return tradeRepository.findById(tradeId).orElseThrow();
+	}
+
+	private BigDecimal usdBalance() {
+		return walletRepository.findByUser(user).getCurrentUsdBalance();
+	}
+
+	@DisplayName("T-481: 寄付待ちの成行注文は残高を動かさず、寄付で始値により約定する")
+	@Test
+	void executeQueued_marketOrder_isFilledAtOpeningPrice() {
+		Long tradeId = enqueueBuy(1, "2", "110");
+
+		assertThat(find(tradeId).getStatus()).isEqualTo(TradeStatus.QUEUED.getCode());
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+
+		int executed = openingQueueService.executeQueued(SYMBOL, sessionBar(LocalDate.now().plusDays(3), 90.0));
+
+		Trade trade = find(tradeId);
+		assertThat(executed).isEqualTo(1);
+		assertThat(trade.getStatus()).isEqualTo(TradeStatus.FILLED.getCode());
+		assertThat(trade.getUnitPrice()).isEqualByComparingTo("90");
+		assertThat(trade.getTotalPrice()).isEqualByComparingTo("180");
+		assertThat(usdBalance()).isEqualByComparingTo("820");
+	}
+
+	@DisplayName("T-482: 始値で約定しない指値注文は注文中となり、板に追加される")
+	@Test
+	void executeQueued_limitOrderBelowOpen_isRegisteredToBook() {
+		Long tradeId = enqueueBuy(0, "1", "85");
+
+		openingQueueService.executeQueued(SYMBOL, sessionBar(LocalDate.now().plusDays(3), 90.0));
+
+		assertThat(find(tradeId).getStatus()).isEqualTo(TradeStatus.OPEN.getCode());
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isEqualTo(1);
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+	}
+
+	@DisplayName("T-483: 取り消した寄付待ちの注文は執行されない")
+	@Test
+	void executeQueued_cancelledOrder_isNotExecuted() {
+		Long tradeId = enqueueBuy(1, "2", "110");
+		tradeService.cancelOrder(user, tradeId);
+
+		int executed = openingQueueService.executeQueued(SYMBOL, sessionBar(LocalDate.now().plusDays(3), 90.0));
+
+		assertThat(executed).isZero();
+		assertThat(find(tradeId).getStatus()).isEqualTo(TradeStatus.CANCELLED.getCode());
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+	}
+
+	@DisplayName("T-484: 立会の寄付より後に受け付けた注文は、その立会では執行しない")
+	@Test
+	void executeQueued_orderAfterSessionOpen_waitsForNextSession() {
+		Long tradeId = enqueueBuy(1, "2", "110");
+
+		int executed = openingQueueService.executeQueued(SYMBOL, sessionBar(LocalDate.now().minusDays(3), 90.0));
+
+		assertThat(executed).isZero();
+		assertThat(find(tradeId).getStatus()).isEqualTo(TradeStatus.QUEUED.getCode());
+	}
+
+	@DisplayName("T-485: まとめて執行した注文のうち残高が足りなくなった分だけ不成立になり、他は約定する")
+	@Test
+	void executeQueued_overdrawnOrder_isRejectedAndOthersFilled() {
+		Long first = enqueueBuy(1, "6", "110");
+		Long second = enqueueBuy(1, "6", "110");
+
+		openingQueueService.executeQueued(SYMBOL, sessionBar(LocalDate.now().plusDays(3), 90.0));
+
+		assertThat(find(first).getStatus()).isEqualTo(TradeStatus.FILLED.getCode());
+		Trade rejected = find(second);
+		assertThat(rejected.getStatus()).isEqualTo(TradeStatus.REJECTED.getCode());
+		assertThat(rejected.getRejectReason()).isNotBlank();
+		assertThat(usdBalance()).isEqualByComparingTo("460");
+	}
+}
@@ -0,0 +1,282 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeLogRowDto;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.event.QuoteUpdatedEvent;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserStock;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+
+/**
+ * 指値注文の板での約定・取消・復元のテスト。
+ * 約定処理は別トランザクションで実行されるため、テストクラス全体のトランザクションは使わず、後処理で削除する。
+ * 1銘柄あたりの保有上限は3株とする（同じ足での約定が合わせて上限を超える場合の確認用）。
+ */
+@SpringBootTest(properties = "risk.max-position=3")
+@ActiveProfiles("test")
+public class OrderBookServiceTest {
+
+	private static final String SYMBOL = "ZZBOOK";
+
+	@Autowired
+	private OrderBookService orderBookService;
+	@Autowired
+	private TradeService tradeService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private UserWalletRepository walletRepository;
+	@Autowired
+	private UserStockRepository userStockRepository;
+	@Autowired
+	private TradeRepository tradeRepository;
+	@Autowired
+	private UserWalletService userWalletService;
+	@Autowired
+	private UserStockService userStockService;
+	@Autowired
+	private TradeLockService tradeLockService;
+	@Autowired
+	private TradeStatsService tradeStatsService;
+	@Autowired
+	private RiskLimitService riskLimitService;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private StockService stockService;
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	private Users user;
+	private Tickers ticker;
+
+	@BeforeEach
+	void setup() {
+		ticker = new Tickers();
+		ticker.setTicker(SYMBOL);
+		ticker.setBrand("Order Book Test Inc.");
+		tickersRepository.save(ticker);
+
+		user = new Users();
+		user.setUsername("指値太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		UserWallet wallet = new UserWallet();
+		wallet.setUser(user);
+		wallet.setJpyBalance(BigDecimal.ZERO);
+		wallet.setUsdBalance(new BigDecimal("1000"));
+		wallet.setCreateAt(LocalDateTime.now());
+		wallet.setUpdateAt(LocalDateTime.now());
+		walletRepository.save(wallet);
+
+		StockCandleWithPrevCloseDto quote = new StockCandleWithPrevCloseDto();
+		quote.setSymbol(SYMBOL);
+		quote.setClose(100.0);
+		quote.setPrevClose(100.0);
+		when(stockService.getLatestStockWithPrevClose(anyString())).thenReturn(quote);
+	}
+
+	@AfterEach
+	void cleanup() {
+		for (TradeLogRowDto row : tradeService.searchTrades(user, "all", null).getRows()) {
+			if (TradeStatus.fromCode(row.getStatus()).isResting()) {
+				orderBookService.cancel(user, row.getId());
+			}
+		}
+		Long id = user.getId();
+		jdbcTemplate.update("DELETE FROM user_wallet_log WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_ledger_entry WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_snapshot WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM realized_pnl WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM tax_lot WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade_stat_monthly WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_stock WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_wallet WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+		tickersRepository.delete(ticker);
+	}
+
+	// 1株あたり unitPrice ドルの買い指値
+	private Trade placeBuyLimit(String quantity, String unitPrice) {
+		Trade t = new Trade();
+		t.setUser(user);
+		t.setTicker(ticker);
+		t.setQuantity(new BigDecimal(quantity));
+		t.setUnitPrice(new BigDecimal(unitPrice));
+		t.setTotalPrice(new BigDecimal(quantity).multiply(new BigDecimal(unitPrice)));
+		t.setCurrency("USD");
+		t.setSettlementCurrency("USD");
+		t.setExchangeRate(BigDecimal.ONE);
+		t.setSide(0);
+		t.setType(0);
+		t.setCreateAt(LocalDateTime.now());
+		t.setUpdateAt(LocalDateTime.now());
+		tradeService.executeTrade(t);
+		return t;
+	}
+
+	private QuoteUpdatedEvent candle(double low, double high, long volume) {
+		StockCandleWithPrevCloseDto latest = new StockCandleWithPrevCloseDto(SYMBOL, "1day", "2025-04-09",
+				100.0, high, low, 100.0, volume, 100.0);
+		return new QuoteUpdatedEvent(SYMBOL, latest);
+	}
+
+	private BigDecimal usdBalance() {
+		return walletRepository.findByUser(user).getCurrentUsdBalance();
+	}
+
+	private BigDecimal quantity() {
+		return userStockRepository.findByUserAndTicker(user, ticker)
+				.map(UserStock::getQuantity)
+				.orElse(BigDecimal.ZERO);
+	}
+
+	@DisplayName("T-441: 安値が指値以下になると買い指値が全量約定し、残高と保有株が更新される")
+	@Test
+	void quoteUpdated_crossesLimit_fillsOrder() {
+		Trade order = placeBuyLimit("2", "95");
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isEqualTo(1);
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+
+		orderBookService.onQuoteUpdated(candle(94.0, 101.0, 1_000));
+
+		Trade filled = tradeRepository.findById(order.getId()).orElseThrow();
+		assertThat(filled.getStatus()).isEqualTo(TradeStatus.FILLED.getCode());
+		assertThat(filled.getFilledQuantity()).isEqualByComparingTo("2");
+		assertThat(usdBalance()).isEqualByComparingTo("810");
+		assertThat(quantity()).isEqualByComparingTo("2");
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isZero();
+	}
+
+	@DisplayName("T-442: 出来高を超える分は一部約定となり、取消すると残りは約定しない")
+	@Test
+	void quoteUpdated_lowVolume_partialFillThenCancel() {
+		Trade order = placeBuyLimit("3", "95");
+
+		orderBookService.onQuoteUpdated(candle(94.0, 101.0, 1)); // 1株分だけ約定
+
+		Trade partial = tradeRepository.findById(order.getId()).orElseThrow();
+		assertThat(partial.getStatus()).isEqualTo(TradeStatus.PARTIALLY_FILLED.getCode());
+		assertThat(partial.getFilledQuantity()).isEqualByComparingTo("1");
+		assertThat(usdBalance()).isEqualByComparingTo("905");
+
+		orderBookService.cancel(user, order.getId());
+		orderBookService.onQuoteUpdated(candle(94.0, 101.0, 1_000));
+
+		Trade cancelled = tradeRepository.findById(order.getId()).orElseThrow();
+		assertThat(cancelled.getStatus()).isEqualTo(TradeStatus.CANCELLED.getCode());
+		assertThat(cancelled.getFilledQuantity()).isEqualByComparingTo("1");
+		assertThat(usdBalance()).isEqualByComparingTo("905");
+		assertThat(quantity()).isEqualByComparingTo("1");
+	}
+
+	@DisplayName("T-443: 安値が指値より高い場合は約定せず、板に残る")
+	@Test
+	void quoteUpdated_priceNotReached_remainsOpen() {
+		Trade order = placeBuyLimit("1", "95");
+
+		orderBookService.onQuoteUpdated(candle(96.0, 101.0, 1_000));
+
+		assertThat(tradeRepository.findById(order.getId()).orElseThrow().getStatus())
+				.isEqualTo(TradeStatus.OPEN.getCode());
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isEqualTo(1);
+	}
+
+	@DisplayName("T-444: 起動時の復元で、注文中の指値注文が板に追加される（二重登録されない）")
+	@Test
+	void recover_registersOpenOrdersOnce() {
+		placeBuyLimit("1", "95");
+
+		orderBookService.recover();
+
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isEqualTo(1);
+	}
+
+	@DisplayName("T-445: 別のノードの板が同じ足で同じ約定を照合しても、精算は1回だけ行われる")
+	@Test
+	void quoteUpdated_sameFillOnTwoNodes_settledOnce() {
+		Trade order = placeBuyLimit("2", "95");
+		OrderBookService otherNode = new OrderBookService(tradeRepository, userWalletService, userStockService,
+				tradeLockService, tradeStatsService, riskLimitService, transactionManager);
+		otherNode.register(tradeRepository.findById(order.getId()).orElseThrow());
+
+		orderBookService.onQuoteUpdated(candle(94.0, 101.0, 1)); // 1株分だけ約定
+		otherNode.onQuoteUpdated(candle(94.0, 101.0, 1));
+
+		Trade partial = tradeRepository.findById(order.getId()).orElseThrow();
+		assertThat(partial.getFilledQuantity()).isEqualByComparingTo("1");
+		assertThat(usdBalance()).isEqualByComparingTo("905");
+		assertThat(quantity()).isEqualByComparingTo("1");
+
+		otherNode.onQuoteUpdated(candle(94.0, 101.0, 1));
+		orderBookService.onQuoteUpdated(candle(94.0, 101.0, 1));
+
+		Trade filled = tradeRepository.findById(order.getId()).orElseThrow();
+		assertThat(filled.getStatus()).isEqualTo(TradeStatus.FILLED.getCode());
+		assertThat(filled.getFilledQuantity()).isEqualByComparingTo("2");
+		assertThat(usdBalance()).isEqualByComparingTo("810");
+		assertThat(quantity()).isEqualByComparingTo("2");
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isZero();
+		assertThat(otherNode.getOpenOrderCount(SYMBOL)).isZero();
+	}
+
+	@DisplayName("T-446: 同じ足で約定する2件の買い指値が合わせて保有上限を超える場合、超える方は取り消される")
+	@Test
+	void quoteUpdated_fillsTogetherExceedPositionLimit_cancelsLater() {
+		Trade first = placeBuyLimit("2", "95");
+		Trade second = placeBuyLimit("2", "95"); // 1件ずつなら保有上限（3株）に収まる
+
+		orderBookService.onQuoteUpdated(candle(94.0, 101.0, 1_000));
+
+		assertThat(tradeRepository.findById(first.getId()).orElseThrow().getStatus())
+				.isEqualTo(TradeStatus.FILLED.getCode());
+		Trade cancelled = tradeRepository.findById(second.getId()).orElseThrow();
+		assertThat(cancelled.getStatus()).isEqualTo(TradeStatus.CANCELLED.getCode());
+		assertThat(cancelled.getFilledQuantity()).isEqualByComparingTo("0");
+		assertThat(usdBalance()).isEqualByComparingTo("810");
+		assertThat(quantity()).isEqualByComparingTo("2");
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isZero();
+	}
+}
@@ -5,6 +5,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,8 +18,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.example.stock.dto.AccountSnapshot;
 import com.example.stock.dto.OrderPageDataDto;
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
 import com.example.stock.model.Tickers;
 import com.example.stock.model.UserWallet;
 import com.example.stock.model.Users;
@@ -34,10 +40,7 @@ class OrderPageDataServiceTest {
 	private TickersService tickersService;
 
 	@Mock
-	private UserWalletService userWalletService;
-
-	@Mock
-	private UserStockService userStockService;
+	private AccountCacheService accountCacheService;
 
 	@Mock
 	private StockService stockService;
@@ -71,9 +74,8 @@ class OrderPageDataServiceTest {
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
 		when(tickersService.getTickersBySymbol("AAPL")).thenReturn(ticker);
 		when(stockService.getLatestStockWithPrevClose("AAPL")).thenReturn(stock);
-		when(userWalletService.getWalletByUser(user)).thenReturn(wallet);
-		when(userStockService.getStockQuantityByUserAndTicker(user, "AAPL"))
-				.thenReturn(new BigDecimal("50.25"));
+		when(accountCacheService.getSnapshot(user)).thenReturn(new AccountSnapshot(new BigDecimal("1000"),
+				new BigDecimal("100"), Map.of("AAPL", new BigDecimal("50.25"))));
 
 		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
 
@@ -93,51 +95,155 @@ class OrderPageDataServiceTest {
 		assertNull(result);
 	}
 
-	@DisplayName("T-203: tickerがnullのときnullを返す")
+	@DisplayName("T-203: tickerがnullのとき、揃っていないDTOを返す")
 	@Test
-	void testGetOrderPageData_tickerNotFound_returnsNull() {
+	void testGetOrderPageData_tickerNotFound_returnsIncomplete() {
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
 		when(tickersService.getTickersBySymbol("AAPL")).thenReturn(null);
 
 		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
-		assertNull(result);
+
+		assertThat(result.isComplete()).isFalse();
+		assertThat(result.getTicker()).isNull();
 	}
 
-	@DisplayName("T-204: stockがnullのときnullを返す")
+	@DisplayName("T-204: stockがnullのとき、揃っていないDTOを返す")
 	@Test
-	void testGetOrderPageData_stockNotFound_returnsNull() {
+	void testGetOrderPageData_stockNotFound_returnsIncomplete() {
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
-		when(tickersService.getTickersBySymbol("AAPL")).thenReturn(ticker);
+		// 失敗した時点で残りを待たずに返すため、呼ばれない場合がある
+		lenient().when(tickersService.getTickersBySymbol("AAPL")).thenReturn(ticker);
 		when(stockService.getLatestStockWithPrevClose("AAPL")).thenReturn(null);
 
 		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
-		assertNull(result);
+
+		assertThat(result.isComplete()).isFalse();
+		assertThat(result.getStock()).isNull();
 	}
 
-	@DisplayName("T-205: walletがnullのときnullを返す")
+	@DisplayName("T-205: 残高・保有株数が取得できないとき、揃っていないDTOを返す")
 	@Test
-	void testGetOrderPageData_walletNotFound_returnsNull() {
+	void testGetOrderPageData_walletNotFound_returnsIncomplete() {
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
-		when(tickersService.getTickersBySymbol("AAPL")).thenReturn(ticker);
-		when(stockService.getLatestStockWithPrevClose("AAPL")).thenReturn(stock);
-		when(userWalletService.getWalletByUser(user)).thenReturn(null);
+		lenient().when(tickersService.getTickersBySymbol("AAPL")).thenReturn(ticker);
+		lenient().when(stockService.getLatestStockWithPrevClose("AAPL")).thenReturn(stock);
+		when(accountCacheService.getSnapshot(user)).thenReturn(null);
 
 		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
-		assertNull(result);
+
+		assertThat(result.isComplete()).isFalse();
+		assertThat(result.getJpyBalance()).isNull();
+		assertThat(result.getQuantity()).isNull();
 	}
 
-	@DisplayName("T-206: quantityがnullのとき0に置き換えられる")
+	@DisplayName("T-206: 保有していない銘柄の保有数は0になる")
 	@Test
-	void testGetOrderPageData_quantityNull_shouldReturnZero() {
+	void testGetOrderPageData_notHeld_shouldReturnZero() {
 		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
 		when(tickersService.getTickersBySymbol("AAPL")).thenReturn(ticker);
 		when(stockService.getLatestStockWithPrevClose("AAPL")).thenReturn(stock);
-		when(userWalletService.getWalletByUser(user)).thenReturn(wallet);
-		when(userStockService.getStockQuantityByUserAndTicker(user, "AAPL")).thenReturn(null);
+		when(accountCacheService.getSnapshot(user)).thenReturn(new AccountSnapshot(new BigDecimal("1000"),
+				new BigDecimal("100"), Map.of("MSFT", BigDecimal.ONE)));
 
 		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
 
 		assertThat(result).isNotNull();
 		assertThat(result.getQuantity()).isEqualTo(BigDecimal.ZERO);
 	}
+
+	@DisplayName("T-207: 注文コンテキストからDTOを作成し、追加の取得を行わない")
+	@Test
+	void testGetOrderPageData_fromContext_noLookups() {
+		TradeContext context = new TradeContext(user, ticker, stock, new BigDecimal("90"), new BigDecimal("110"),
+				wallet, new BigDecimal("7"));
+
+		OrderPageDataDto result = orderPageDataService.getOrderPageData(context);
+
+		assertThat(result).isNotNull();
+		assertThat(result.getTicker()).isEqualTo(ticker);
+		assertThat(result.getJpyBalance()).isEqualTo(new BigDecimal("1000"));
+		assertThat(result.getUsdBalance()).isEqualTo(new BigDecimal("100"));
+		assertThat(result.getQuantity()).isEqualTo(new BigDecimal("7"));
+		verifyNoInteractions(securityUtils, tickersService, stockService, accountCacheService);
+	}
+
+	@DisplayName("T-208: 注文コンテキストの現在値がnullのときnullを返す")
+	@Test
+	void testGetOrderPageData_fromContext_quoteNull_returnsNull() {
+		TradeContext context = new TradeContext(user, ticker, null, null, null, wallet, BigDecimal.ZERO);
+
+		assertNull(orderPageDataService.getOrderPageData(context));
+	}
+
+	@DisplayName("T-209: 銘柄・現在値・残高の取得は同時に行われる")
+	@Test
+	void testGetOrderPageData_lookupsRunConcurrently() {
+		// 3件の取得が同時に実行されていなければ、待ち合わせが期限切れになり取得に失敗する
+		CyclicBarrier barrier = new CyclicBarrier(3);
+		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
+		when(tickersService.getTickersBySymbol("AAPL")).thenAnswer(inv -> {
+			barrier.await(2, TimeUnit.SECONDS);
+			return ticker;
+		});
+		when(stockService.getLatestStockWithPrevClose("AAPL")).thenAnswer(inv -> {
+			barrier.await(2, TimeUnit.SECONDS);
+			return stock;
+		});
+		when(accountCacheService.getSnapshot(user)).thenAnswer(inv -> {
+			barrier.await(2, TimeUnit.SECONDS);
+			return new AccountSnapshot(new BigDecimal("1000"), new BigDecimal("100"), Map.of());
+		});
+
+		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
+
+		assertThat(result.isComplete()).isTrue();
+	}
+
+	@DisplayName("T-210: いずれかの取得に失敗した時点で、遅い取得を待たずに返す")
+	@Test
+	void testGetOrderPageData_failsFastWithoutWaitingForSlowLookup() {
+		CountDownLatch release = new CountDownLatch(1);
+		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
+		when(tickersService.getTickersBySymbol("AAPL")).thenReturn(null);
+		lenient().when(stockService.getLatestStockWithPrevClose("AAPL")).thenAnswer(inv -> {
+			release.await(10, TimeUnit.SECONDS);
+			return stock;
+		});
+
+		long start = System.currentTimeMillis();
+		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
+		long elapsed = System.currentTimeMillis() - start;
+		release.countDown();
+
+		assertThat(result.isComplete()).isFalse();
+		assertThat(result.getStock()).isNull();
+		assertThat(elapsed).isLessThan(2_000L);
+	}
+
+	@DisplayName("T-211: 待ちを打ち切った後は、終わっていない取得を割り込んで止める")
+	@Test
+	void testGetOrderPageData_cancelsPendingLookupsAfterFailure() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(securityUtils.getLoggedInUserOrThrow()).thenReturn(user);
+		// 現在値の取得が始まってから銘柄の取得を失敗させる
+		when(tickersService.getTickersBySymbol("AAPL")).thenAnswer(inv -> {
+			started.await(2, TimeUnit.SECONDS);
+			return null;
+		});
+		when(stockService.getLatestStockWithPrevClose("AAPL")).thenAnswer(inv -> {
+			started.countDown();
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+			}
+			return stock;
+		});
+
+		OrderPageDataDto result = orderPageDataService.getOrderPageData("AAPL");
+
+		assertThat(result.isComplete()).isFalse();
+		assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+	}
 }
@@ -0,0 +1,233 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
+import com.example.stock.dto.TradeLogRowDto;
+import com.example.stock.enums.TradeStatus;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+
+/**
+ * 注文パイプライン（受付 → まとめて確定）のテスト。
+ * 確定は別スレッド・別トランザクションで行われるため、テストクラス全体のトランザクションは使わず、後処理で削除する。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class OrderPipelineServiceTest {
+
+	private static final String SYMBOL = "ZZPIPE";
+	private static final long TIMEOUT_MILLIS = 10_000;
+
+	@Autowired
+	private OrderPipelineService orderPipelineService;
+	@Autowired
+	private TradeService tradeService;
+	@Autowired
+	private OrderBookService orderBookService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private UserWalletRepository walletRepository;
+	@Autowired
+	private UserStockRepository userStockRepository;
+	@Autowired
+	private TradeRepository tradeRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private StockService stockService;
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	private Users user;
+	private Tickers ticker;
+
+	@BeforeEach
+	void setup() {
+		ticker = new Tickers();
+		ticker.setTicker(SYMBOL);
+		ticker.setBrand("Pipeline Test Inc.");
+		tickersRepository.save(ticker);
+
+		user = new Users();
+		user.setUsername("受付太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		UserWallet wallet = new UserWallet();
+		wallet.setUser(user);
+		wallet.setJpyBalance(BigDecimal.ZERO);
+		wallet.setUsdBalance(new BigDecimal("1000"));
+		wallet.setCreateAt(LocalDateTime.now());
+		wallet.setUpdateAt(LocalDateTime.now());
+		walletRepository.save(wallet);
+
+		StockCandleWithPrevCloseDto quote = new StockCandleWithPrevCloseDto();
+		quote.setSymbol(SYMBOL);
+		quote.setClose(100.0);
+		quote.setPrevClose(100.0);
+		when(stockService.getLatestStockWithPrevClose(anyString())).thenReturn(quote);
+	}
+
+	@AfterEach
+	void cleanup() {
+		for (TradeLogRowDto row : tradeService.searchTrades(user, "all", null).getRows()) {
+			if (TradeStatus.fromCode(row.getStatus()).isResting()) {
+				orderBookService.cancel(user, row.getId());
+			}
+		}
+		Long id = user.getId();
+		jdbcTemplate.update("DELETE FROM user_wallet_log WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_ledger_entry WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_snapshot WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM realized_pnl WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM tax_lot WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade_stat_monthly WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_stock WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_wallet WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+		tickersRepository.delete(ticker);
+	}
+
+	// 1株あたり unitPrice ドルの買い注文を受け付ける
+	private Long submitBuy(String quantity, String unitPrice) {
+		TradeContext context = tradeService.loadContext(user, ticker);
+		Trade t = new Trade();
+		t.setUser(user);
+		t.setTicker(ticker);
+		t.setQuantity(new BigDecimal(quantity));
+		t.setUnitPrice(new BigDecimal(unitPrice));
+		t.setTotalPrice(new BigDecimal(quantity).multiply(new BigDecimal(unitPrice)));
+		t.setCurrency("USD");
+		t.setSettlementCurrency("USD");
+		t.setExchangeRate(BigDecimal.ONE);
+		t.setSide(0);
+		t.setType(0);
+		t.setCreateAt(LocalDateTime.now());
+		t.setUpdateAt(LocalDateTime.now());
+		return orderPipelineService.submit(t, context);
+	}
+
+	// 受付中でなくなるまで待ってから注文を取得する
+	private Trade awaitSettled(Long tradeId) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+		while (System.currentTimeMillis() < deadline) {
+			Trade trade = tradeRepository.findById(tradeId).orElseThrow();
+			if (trade.getStatus() != TradeStatus.PENDING.getCode()) {
+				return trade;
+			}
+			TimeUnit.MILLISECONDS.sleep(20);
+		}
+		throw new AssertionError("注文が確定しませんでした: " + tradeId);
+	}
+
+	private BigDecimal usdBalance() {
+		return walletRepository.findByUser(user).getCurrentUsdBalance();
+	}
+
+	@DisplayName("T-451: 受付直後は受付中として記録され、確定スレッドで約定する")
+	@Test
+	void submit_marketableOrder_isFilledAsynchronously() throws Exception {
+		Long tradeId = submitBuy("2", "100");
+		assertThat(tradeId).isNotNull();
+
+		Trade settled = awaitSettled(tradeId);
+
+		assertThat(settled.getStatus()).isEqualTo(TradeStatus.FILLED.getCode());
+		assertThat(settled.getFilledQuantity()).isEqualByComparingTo("2");
+		assertThat(usdBalance()).isEqualByComparingTo("800");
+		assertThat(userStockRepository.findByUserAndTicker(user, ticker).orElseThrow().getQuantity())
+				.isEqualByComparingTo("2");
+		assertThat(tradeService.getOrderStatus(user, tradeId).getStatusLabel()).isEqualTo("約定");
+	}
+
+	@DisplayName("T-452: 現在値で約定しない指値注文は注文中となり、板に追加される")
+	@Test
+	void submit_restingLimitOrder_isRegisteredToBook() throws Exception {
+		Long tradeId = submitBuy("1", "95");
+
+		Trade settled = awaitSettled(tradeId);
+
+		assertThat(settled.getStatus()).isEqualTo(TradeStatus.OPEN.getCode());
+		assertThat(usdBalance()).isEqualByComparingTo("1000");
+		assertThat(orderBookService.getOpenOrderCount(SYMBOL)).isEqualTo(1);
+	}
+
+	@DisplayName("T-453: まとめて受け付けた注文のうち残高が足りなくなった分だけ不成立になり、他は約定する")
+	@Test
+	void submit_manyOrders_onlyOverdrawnOnesAreRejected() throws Exception {
+		// 1件300ドル × 4件（残高1000ドルでは3件まで）
+		List<Long> tradeIds = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			tradeIds.add(submitBuy("3", "100"));
+		}
+
+		int filled = 0;
+		int rejected = 0;
+		for (Long tradeId : tradeIds) {
+			Trade settled = awaitSettled(tradeId);
+			if (settled.getStatus() == TradeStatus.FILLED.getCode()) {
+				filled++;
+			} else {
+				assertThat(settled.getStatus()).isEqualTo(TradeStatus.REJECTED.getCode());
+				assertThat(settled.getRejectReason()).isNotBlank();
+				rejected++;
+			}
+		}
+
+		assertThat(filled).isEqualTo(3);
+		assertThat(rejected).isEqualTo(1);
+		assertThat(usdBalance()).isEqualByComparingTo("100");
+	}
+
+	@DisplayName("T-454: 他人の注文の処理状況は取得できない")
+	@Test
+	void getOrderStatus_otherUsersOrder_returnsNull() throws Exception {
+		Long tradeId = submitBuy("1", "100");
+		awaitSettled(tradeId);
+
+		Users other = new Users();
+		other.setId(-1L);
+
+		assertThat(tradeService.getOrderStatus(other, tradeId)).isNull();
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.stock.dto.PortfolioDto;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.event.HoldingChangedEvent;
+import com.example.stock.event.QuoteUpdatedEvent;
+import com.example.stock.fx.FixedFxRateSource;
+import com.example.stock.model.Users;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UserStockRepository.HoldingRow;
+
+@ExtendWith(MockitoExtension.class)
+class PortfolioServiceTest {
+
+	@Mock
+	private UserStockRepository userStockRepository;
+
+	@Mock
+	private QuoteService quoteService;
+
+	private PortfolioService portfolioService;
+	private Users user;
+
+	@BeforeEach
+	void setup() {
+		FxRateService fxRateService = new FxRateService(
+				new FixedFxRateSource(Map.of(FxRateService.USD_JPY, new BigDecimal("150"))), new BigDecimal("150"));
+		portfolioService = new PortfolioService(userStockRepository, quoteService, fxRateService);
+		user = new Users();
+		user.setId(1L);
+	}
+
+	private static StockCandleWithPrevCloseDto quote(String symbol, double close, double prevClose) {
+		return new StockCandleWithPrevCloseDto(symbol, "1day", "2025-04-17", close, close, close, close, 100L,
+				prevClose);
+	}
+
+	private static HoldingRow holding(Long userId, String symbol, String quantity) {
+		return holding(userId, symbol, quantity, "0");
+	}
+
+	private static HoldingRow holding(Long userId, String symbol, String quantity, String costBasis) {
+		HoldingRow row = mock(HoldingRow.class);
+		when(row.getUserId()).thenReturn(userId);
+		when(row.getSymbol()).thenReturn(symbol);
+		when(row.getBrand()).thenReturn(symbol + " Inc.");
+		when(row.getQuantity()).thenReturn(new BigDecimal(quantity));
+		when(row.getCostBasis()).thenReturn(new BigDecimal(costBasis));
+		return row;
+	}
+
+	@DisplayName("T-931: 起動時に保有株と最新値をまとめて読み込み、評価額・前日比を計算する")
+	@Test
+	void load_valuesHoldingsWithLatestQuotes() {
+		List<HoldingRow> holdings = List.of(
+				holding(1L, "AAPL", "10"), holding(1L, "MSFT", "2"), holding(2L, "AAPL", "1"));
+		when(userStockRepository.findAllHoldings()).thenReturn(holdings);
+		when(quoteService.getLatestStocks(anyCollection())).thenReturn(Map.of(
+				"AAPL", quote("AAPL", 110.0, 100.0),
+				"MSFT", quote("MSFT", 50.0, 50.0)));
+
+		portfolioService.load();
+		PortfolioDto portfolio = portfolioService.getPortfolio(user);
+
+		verify(quoteService, times(1)).getLatestStocks(anyCollection());
+		assertThat(portfolio.getPositions()).extracting("symbol").containsExactly("AAPL", "MSFT");
+		assertThat(portfolio.getMarketValueUsd()).isEqualByComparingTo("1200"); // 10×110 + 2×50
+		assertThat(portfolio.getMarketValueJpy()).isEqualByComparingTo("180000");
+		assertThat(portfolio.getDayChangeUsd()).isEqualByComparingTo("100"); // 10×(110−100)
+		assertThat(portfolio.getDayChangeRate()).isEqualByComparingTo("9.09"); // 100 ÷ 1100
+	}
+
+	@DisplayName("T-932: 約定で保有数が増減すると評価額が更新され、全株売却した銘柄は取り除かれる")
+	@Test
+	void onHoldingChanged_updatesQuantityAndRemovesSoldOutPosition() {
+		List<HoldingRow> holdings = List.of(holding(1L, "AAPL", "10"));
+		when(userStockRepository.findAllHoldings()).thenReturn(holdings);
+		when(quoteService.getLatestStocks(anyCollection())).thenReturn(Map.of("AAPL", quote("AAPL", 110.0, 100.0)));
+		portfolioService.load();
+
+		portfolioService.onHoldingChanged(new HoldingChangedEvent(1L, "AAPL", "AAPL Inc.", new BigDecimal("5"), new BigDecimal("550")));
+		assertThat(portfolioService.getPortfolio(user).getMarketValueUsd()).isEqualByComparingTo("1650");
+
+		portfolioService.onHoldingChanged(new HoldingChangedEvent(1L, "AAPL", "AAPL Inc.", new BigDecimal("-15"), new BigDecimal("-1550")));
+		PortfolioDto portfolio = portfolioService.getPortfolio(user);
+		assertThat(portfolio.getPositions()).isEmpty();
+		assertThat(portfolio.getMarketValueUsd()).isEqualByComparingTo("0");
+		// 既に最新値を持っている銘柄は取得し直さない
+		verify(quoteService, times(1)).getLatestStocks(anyCollection());
+	}
+
+	@DisplayName("T-933: 初めて保有した銘柄は最新値を1回だけ取得して評価する")
+	@Test
+	void onHoldingChanged_newSymbol_fetchesQuoteOnce() {
+		when(quoteService.getLatestStocks(List.of("NVDA"))).thenReturn(Map.of("NVDA", quote("NVDA", 20.0, 25.0)));
+
+		portfolioService.onHoldingChanged(new HoldingChangedEvent(1L, "NVDA", "NVIDIA", new BigDecimal("3"), new BigDecimal("75")));
+		portfolioService.onHoldingChanged(new HoldingChangedEvent(1L, "NVDA", "NVIDIA", new BigDecimal("1"), new BigDecimal("25")));
+
+		PortfolioDto portfolio = portfolioService.getPortfolio(user);
+		assertThat(portfolio.getMarketValueUsd()).isEqualByComparingTo("80");
+		assertThat(portfolio.getDayChangeUsd()).isEqualByComparingTo("-20");
+		verify(quoteService, times(1)).getLatestStocks(List.of("NVDA"));
+	}
+
+	@DisplayName("T-934: 最新値の更新は、その銘柄を保有しているユーザーの評価額だけに反映される")
+	@Test
+	void onQuoteUpdated_revaluesHoldersOnly() {
+		List<HoldingRow> holdings = List.of(holding(1L, "AAPL", "10"), holding(2L, "MSFT", "4"));
+		when(userStockRepository.findAllHoldings()).thenReturn(holdings);
+		when(quoteService.getLatestStocks(anyCollection())).thenReturn(Map.of(
+				"AAPL", quote("AAPL", 100.0, 100.0),
+				"MSFT", quote("MSFT", 50.0, 50.0)));
+		portfolioService.load();
+
+		portfolioService.onQuoteUpdated(new QuoteUpdatedEvent("AAPL", quote("AAPL", 120.0, 100.0)));
+
+		PortfolioDto portfolio = portfolioService.getPortfolio(user);
+		assertThat(portfolio.getMarketValueUsd()).isEqualByComparingTo("1200");
+		assertThat(portfolio.getDayChangeUsd()).isEqualByComparingTo("200");
+		Users other = new Users();
+		other.setId(2L);
+		assertThat(portfolioService.getPortfolio(other).getMarketValueUsd()).isEqualByComparingTo("200");
+	}
+
+	@DisplayName("T-935: 取得原価から平均取得単価と評価損益を求め、売却分の取得原価を差し引く")
+	@Test
+	void getPortfolio_reportsAverageCostAndUnrealizedPnl() {
+		List<HoldingRow> holdings = List.of(holding(1L, "AAPL", "10", "1000"));
+		when(userStockRepository.findAllHoldings()).thenReturn(holdings);
+		when(quoteService.getLatestStocks(anyCollection())).thenReturn(Map.of("AAPL", quote("AAPL", 110.0, 100.0)));
+		portfolioService.load();
+
+		PortfolioDto portfolio = portfolioService.getPortfolio(user);
+		assertThat(portfolio.getPositions().get(0).getAverageCost()).isEqualByComparingTo("100");
+		assertThat(portfolio.getPositions().get(0).getUnrealizedPnlUsd()).isEqualByComparingTo("100"); // 1100 − 1000
+		assertThat(portfolio.getCostBasisUsd()).isEqualByComparingTo("1000");
+
+		portfolioService.onHoldingChanged(new HoldingChangedEvent(1L, "AAPL", "AAPL Inc.", new BigDecimal("-4"),
+				new BigDecimal("-400")));
+		portfolio = portfolioService.getPortfolio(user);
+		assertThat(portfolio.getCostBasisUsd()).isEqualByComparingTo("600");
+		assertThat(portfolio.getUnrealizedPnlUsd()).isEqualByComparingTo("60"); // 6×110 − 600
+	}
+}
@@ -0,0 +1,138 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import com.example.stock.dto.QuoteDto;
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.exception.StockApiException;
+import com.example.stock.model.StockCandle;
+import com.example.stock.repository.StockCandleRepository;
+
+@ExtendWith(MockitoExtension.class)
+class QuoteServiceTest {
+
+	@InjectMocks
+	private QuoteService quoteService;
+
+	@Mock
+	private RedisTemplate<String, Object> redisTemplate;
+
+	@Mock
+	private ValueOperations<String, Object> valueOperations;
+
+	@Mock
+	private CacheManager cacheManager;
+
+	@Mock
+	private Cache cache;
+
+	@Mock
+	private StockCandleRepository stockCandleRepository;
+
+	@Mock
+	private StockService stockService;
+
+	@BeforeEach
+	void setup() {
+		when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+	}
+
+	private StockCandleWithPrevCloseDto dto(String symbol, double close, double prevClose) {
+		return new StockCandleWithPrevCloseDto(symbol, "1day", "2025-04-17", close, close, close, close, 100L,
+				prevClose);
+	}
+
+	private StockCandle candle(String symbol, double close, double prevClose) {
+		StockCandle candle = new StockCandle();
+		candle.setSymbol(symbol);
+		candle.setInterval("1day");
+		candle.setDatetime(LocalDate.of(2025, 4, 17).atStartOfDay());
+		candle.setClose(close);
+		candle.setPreviousClose(prevClose);
+		return candle;
+	}
+
+	@DisplayName("T-801: 全銘柄がキャッシュにある場合、MGET 1回で取得しDBは参照しない")
+	@Test
+	void getQuotes_allCached_usesSingleMultiGet() {
+		when(valueOperations.multiGet(List.of("symbolCache::AAPL", "symbolCache::MSFT")))
+				.thenReturn(List.of(dto("AAPL", 110, 100), dto("MSFT", 95, 100)));
+
+		List<QuoteDto> quotes = quoteService.getQuotes(List.of("AAPL", "MSFT"));
+
+		assertThat(quotes).extracting(QuoteDto::getSymbol).containsExactly("AAPL", "MSFT");
+		assertThat(quotes.get(0).getChange()).isEqualTo(10.0);
+		assertThat(quotes.get(0).getChangePercent()).isEqualTo(10.0);
+		assertThat(quotes.get(1).getChange()).isEqualTo(-5.0);
+		verify(valueOperations, times(1)).multiGet(anyList());
+		verifyNoInteractions(stockCandleRepository, stockService);
+	}
+
+	@DisplayName("T-802: キャッシュに無い銘柄はIN句1回でDBから取得し、キャッシュへ格納する")
+	@Test
+	void getQuotes_cacheMiss_fetchesFromDatabaseInOneQuery() {
+		when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(dto("AAPL", 110, 100), null, null));
+		when(stockCandleRepository.findAllBySymbolInAndIntervalAndDatetime(eq(List.of("MSFT", "GOOG")), eq("1day"),
+				any()))
+				.thenReturn(List.of(candle("GOOG", 50, 40), candle("MSFT", 200, 200)));
+		when(cacheManager.getCache("symbolCache")).thenReturn(cache);
+
+		List<QuoteDto> quotes = quoteService.getQuotes(List.of("AAPL", "MSFT", "GOOG"));
+
+		assertThat(quotes).extracting(QuoteDto::getSymbol).containsExactly("AAPL", "MSFT", "GOOG");
+		assertThat(quotes.get(2).getChangePercent()).isEqualTo(25.0);
+		verify(stockCandleRepository, times(1)).findAllBySymbolInAndIntervalAndDatetime(anyCollection(), any(),
+				any());
+		verify(cache).put(eq("MSFT"), any(StockCandleWithPrevCloseDto.class));
+		verify(cache).put(eq("GOOG"), any(StockCandleWithPrevCloseDto.class));
+		verifyNoInteractions(stockService);
+	}
+
+	@DisplayName("T-803: DBにも無い銘柄のみAPIから取得し、取得できない銘柄は結果から除外する")
+	@Test
+	void getQuotes_databaseMiss_fallsBackToApiAndSkipsFailures() {
+		when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+		when(stockCandleRepository.findAllBySymbolInAndIntervalAndDatetime(anyCollection(), any(), any()))
+				.thenReturn(List.of());
+		when(cacheManager.getCache("symbolCache")).thenReturn(cache);
+		when(stockService.getLatestStockWithPrevClose("AAPL")).thenReturn(dto("AAPL", 100, 0));
+		when(stockService.getLatestStockWithPrevClose("XXXX")).thenThrow(new StockApiException("データなし"));
+
+		List<QuoteDto> quotes = quoteService.getQuotes(List.of("AAPL", "XXXX"));
+
+		assertThat(quotes).hasSize(1);
+		assertThat(quotes.get(0).getSymbol()).isEqualTo("AAPL");
+		assertThat(quotes.get(0).getChangePercent()).isEqualTo(0.0); // 前日終値なし
+	}
+
+	@DisplayName("T-804: Redisに接続できない場合もDBから取得できる")
+	@Test
+	void getQuotes_redisFailure_fallsBackToDatabase() {
+		when(valueOperations.multiGet(anyList())).thenThrow(new RuntimeException("connection refused"));
+		when(stockCandleRepository.findAllBySymbolInAndIntervalAndDatetime(anyCollection(), any(), any()))
+				.thenReturn(List.of(candle("AAPL", 110, 100)));
+		when(cacheManager.getCache("symbolCache")).thenReturn(cache);
+
+		List<QuoteDto> quotes = quoteService.getQuotes(List.of("AAPL"));
+
+		assertThat(quotes).extracting(QuoteDto::getSymbol).containsExactly("AAPL");
+	}
+}
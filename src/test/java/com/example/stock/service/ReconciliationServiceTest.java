@@ -0,0 +1,129 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.stock.dto.ReconciliationProgressDto;
+import com.example.stock.enums.DiscrepancyType;
+import com.example.stock.repository.ReconciliationRepository;
+import com.example.stock.repository.ReconciliationRepository.Amount;
+import com.example.stock.repository.ReconciliationRepository.Discrepancy;
+import com.example.stock.repository.ReconciliationRepository.IdRange;
+
+class ReconciliationServiceTest {
+
+	private ReconciliationRepository repository;
+	private ReconciliationService service;
+
+	@BeforeEach
+	void setup() {
+		repository = mock(ReconciliationRepository.class);
+		service = new ReconciliationService(repository, mock(PlatformTransactionManager.class), 10, 4);
+		when(repository.findWalletBalances(anyLong(), anyLong())).thenReturn(List.of());
+		when(repository.sumWalletLogs(anyLong(), anyLong())).thenReturn(List.of());
+		when(repository.findHoldings(anyLong(), anyLong())).thenReturn(List.of());
+		when(repository.sumPositions(anyLong(), anyLong())).thenReturn(List.of());
+	}
+
+	private static Amount amount(long userId, String item, String value) {
+		return new Amount(userId, item, new BigDecimal(value));
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Discrepancy> savedDiscrepancies() {
+		ArgumentCaptor<List<Discrepancy>> captor = ArgumentCaptor.forClass(List.class);
+		verify(repository, atLeastOnce()).insertDiscrepancies(anyString(), captor.capture(), any());
+		List<Discrepancy> all = new ArrayList<>();
+		captor.getAllValues().forEach(all::addAll);
+		return all;
+	}
+
+	@DisplayName("T-945: ウォレット残高がログの変化額の合計と異なる通貨だけ、不一致として記録する")
+	@Test
+	void reconcile_walletBalanceMismatch_isRecorded() {
+		when(repository.findUserIdRange()).thenReturn(new IdRange(1, 5));
+		when(repository.findWalletBalances(1, 5)).thenReturn(List.of(
+				amount(1, "JPY", "0"), amount(1, "USD", "800"),
+				amount(2, "JPY", "0"), amount(2, "USD", "120")));
+		when(repository.sumWalletLogs(1, 5)).thenReturn(List.of(
+				amount(1, "USD", "800"),
+				amount(2, "USD", "100")));
+
+		service.reconcile();
+
+		List<Discrepancy> saved = savedDiscrepancies();
+		assertThat(saved).hasSize(1);
+		Discrepancy d = saved.get(0);
+		assertThat(d.getUserId()).isEqualTo(2);
+		assertThat(d.getType()).isEqualTo(DiscrepancyType.WALLET_BALANCE);
+		assertThat(d.getItem()).isEqualTo("USD");
+		assertThat(d.getExpected()).isEqualByComparingTo("100");
+		assertThat(d.getActual()).isEqualByComparingTo("120");
+	}
+
+	@DisplayName("T-946: 保有株数と約定数量が異なる銘柄・片方にしか無い銘柄を不一致として記録する")
+	@Test
+	void reconcile_holdingMismatch_isRecorded() {
+		when(repository.findUserIdRange()).thenReturn(new IdRange(1, 5));
+		when(repository.findHoldings(1, 5)).thenReturn(List.of(
+				amount(1, "AAPL", "10"), amount(1, "MSFT", "3"), amount(3, "TSLA", "0")));
+		when(repository.sumPositions(1, 5)).thenReturn(List.of(
+				amount(1, "AAPL", "10"), amount(1, "NVDA", "2"), amount(3, "TSLA", "0")));
+
+		service.reconcile();
+
+		assertThat(savedDiscrepancies())
+				.extracting(Discrepancy::getItem, d -> d.getActual().toPlainString(),
+						d -> d.getExpected().toPlainString())
+				.containsExactlyInAnyOrder(tuple("MSFT", "3", "0"), tuple("NVDA", "0", "2"));
+	}
+
+	@DisplayName("T-947: ユーザーIDの範囲をチャンクに分け、すべてのIDを1回ずつ突き合わせる")
+	@Test
+	void reconcile_splitsUserIdsIntoChunks() {
+		when(repository.findUserIdRange()).thenReturn(new IdRange(1, 35));
+		List<long[]> chunks = Collections.synchronizedList(new ArrayList<>());
+		when(repository.findWalletBalances(anyLong(), anyLong())).thenAnswer(inv -> {
+			chunks.add(new long[] { inv.getArgument(0), inv.getArgument(1) });
+			return List.of();
+		});
+
+		ReconciliationProgressDto progress = service.reconcile();
+
+		assertThat(chunks).extracting(c -> c[0] + "-" + c[1])
+				.containsExactlyInAnyOrder("1-10", "11-20", "21-30", "31-35");
+		assertThat(progress.getStatus()).isEqualTo("COMPLETED");
+		assertThat(progress.getTotalChunks()).isEqualTo(4);
+		assertThat(progress.getProcessedChunks()).isEqualTo(4);
+		assertThat(progress.getDiscrepancies()).isZero();
+		verify(repository, never()).insertDiscrepancies(anyString(), any(), any());
+	}
+
+	@DisplayName("T-948: 失敗したチャンクは飛ばして残りを突き合わせ、進捗に失敗として数える")
+	@Test
+	void reconcile_failedChunk_isSkipped() {
+		when(repository.findUserIdRange()).thenReturn(new IdRange(1, 30));
+		when(repository.findHoldings(11, 20)).thenThrow(new IllegalStateException("DB error"));
+		when(repository.findHoldings(21, 30)).thenReturn(List.of(amount(25, "AAPL", "1")));
+
+		ReconciliationProgressDto progress = service.reconcile();
+
+		assertThat(progress.getStatus()).isEqualTo("FAILED");
+		assertThat(progress.getProcessedChunks()).isEqualTo(3);
+		assertThat(progress.getFailedChunks()).isEqualTo(1);
+		assertThat(progress.getDiscrepancies()).isEqualTo(1);
+		assertThat(savedDiscrepancies()).extracting(Discrepancy::getUserId).containsExactly(25L);
+	}
+}
@@ -0,0 +1,234 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.stock.event.TradeFilledEvent;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.TradeRepository.PositionRow;
+import com.example.stock.repository.TradeRepository.UserAmountRow;
+
+class RiskLimitServiceTest {
+
+	private TradeRepository tradeRepository;
+	private RiskLimitService riskLimitService;
+	private Users user;
+	private Tickers ticker;
+
+	@BeforeEach
+	void setup() {
+		tradeRepository = mock(TradeRepository.class);
+		// 1回の注文 1,000ドル、1日 1,500ドル、1銘柄 10株、1分 2回まで（全体の上限なし）
+		riskLimitService = new RiskLimitService(tradeRepository, new BigDecimal("1000"), new BigDecimal("1500"),
+				new BigDecimal("10"), 2, BigDecimal.ZERO, 0);
+
+		user = new Users();
+		user.setId(1L);
+		ticker = new Tickers();
+		ticker.setTicker("AAPL");
+	}
+
+	private Trade order(int side, String quantity, String unitPrice) {
+		Trade trade = new Trade();
+		trade.setUser(user);
+		trade.setTicker(ticker);
+		trade.setSide(side);
+		trade.setQuantity(new BigDecimal(quantity));
+		trade.setUnitPrice(new BigDecimal(unitPrice));
+		return trade;
+	}
+
+	private void fill(int side, String quantity, String unitPrice) {
+		BigDecimal qty = new BigDecimal(quantity);
+		riskLimitService.onTradeFilled(
+				new TradeFilledEvent(1L, "AAPL", side, qty, qty.multiply(new BigDecimal(unitPrice))));
+	}
+
+	// トランザクション内で予約する（complete が null の場合は完了させずに予約を残す）
+	private boolean reserveInTransaction(Trade trade, Integer complete) {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			riskLimitService.reserve(trade);
+			if (complete != null) {
+				TransactionSynchronizationManager.getSynchronizations().forEach(s -> s.afterCompletion(complete));
+			}
+			return true;
+		} catch (IllegalStateException e) {
+			return false;
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@DisplayName("T-954: 1回の注文金額が上限を超える注文は受け付けない")
+	@Test
+	void check_orderNotionalOverLimit_throws() {
+		assertThatCode(() -> riskLimitService.check(order(0, "10", "100"))).doesNotThrowAnyException();
+
+		assertThatThrownBy(() -> riskLimitService.check(order(0, "10", "100.01")))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("1回の注文金額");
+	}
+
+	@DisplayName("T-955: 約定を売買代金・建玉に積み上げ、上限を超える注文を受け付けない（売りは建玉の上限を確認しない）")
+	@Test
+	void check_afterFills_enforcesTurnoverAndPosition() {
+		fill(0, "8", "100");
+
+		// 建玉 8株 + 3株 > 10株
+		assertThatThrownBy(() -> riskLimitService.check(order(0, "3", "10")))
+				.hasMessageContaining("保有上限");
+		// 売買代金 800ドル + 800ドル > 1,500ドル
+		assertThatThrownBy(() -> riskLimitService.check(order(1, "8", "100")))
+				.hasMessageContaining("本日の売買代金");
+
+		fill(1, "5", "100");
+
+		// 建玉 3株 + 3株 ≦ 10株、売買代金 1,300ドル + 30ドル ≦ 1,500ドル
+		assertThatCode(() -> riskLimitService.check(order(0, "3", "10"))).doesNotThrowAnyException();
+		verifyNoInteractions(tradeRepository);
+	}
+
+	@DisplayName("T-956: 1分あたりの注文回数の上限を超える受付は数えずに例外とする")
+	@Test
+	void acquireOrders_overLimit_throws() {
+		riskLimitService.acquireOrders(user, 1);
+		riskLimitService.acquireOrders(user, 1);
+
+		assertThatThrownBy(() -> riskLimitService.acquireOrders(user, 1))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("注文回数");
+
+		Users other = new Users();
+		other.setId(2L);
+		assertThatCode(() -> riskLimitService.acquireOrders(other, 2)).doesNotThrowAnyException();
+	}
+
+	@DisplayName("T-957: 突き合わせでは trade テーブルの集計でカウンターを置き換える")
+	@Test
+	void reconcile_replacesCountersWithTradeTable() {
+		fill(0, "9", "100");
+
+		UserAmountRow turnover = mock(UserAmountRow.class);
+		when(turnover.getUserId()).thenReturn(1L);
+		when(turnover.getAmount()).thenReturn(new BigDecimal("200"));
+		PositionRow position = mock(PositionRow.class);
+		when(position.getUserId()).thenReturn(1L);
+		when(position.getSymbol()).thenReturn("AAPL");
+		when(position.getQuantity()).thenReturn(new BigDecimal("2"));
+		when(tradeRepository.sumFilledNotionalSince(any())).thenReturn(List.of(turnover));
+		when(tradeRepository.countOrdersSince(any())).thenReturn(List.of());
+		when(tradeRepository.sumPositions()).thenReturn(List.of(position));
+
+		riskLimitService.reconcile();
+
+		// 建玉 2株 + 8株 ≦ 10株、売買代金 200ドル + 800ドル ≦ 1,500ドル
+		assertThatCode(() -> riskLimitService.check(order(0, "8", "100"))).doesNotThrowAnyException();
+	}
+
+	@DisplayName("T-958: 取り消した注文回数は数え直され、次の受付に使える")
+	@Test
+	void releaseOrders_givesBackSlot() {
+		riskLimitService.acquireOrders(user, 2);
+		assertThatThrownBy(() -> riskLimitService.acquireOrders(user, 1)).hasMessageContaining("注文回数");
+
+		riskLimitService.releaseOrders(user, 1);
+
+		assertThatCode(() -> riskLimitService.acquireOrders(user, 1)).doesNotThrowAnyException();
+		assertThatThrownBy(() -> riskLimitService.acquireOrders(user, 1)).hasMessageContaining("注文回数");
+	}
+
+	@DisplayName("T-959: 並行して予約しても、売買代金・建玉の合計は上限を超えない")
+	@Test
+	void reserve_concurrent_neverExceedsLimits() throws Exception {
+		Users seller = new Users();
+		seller.setId(2L);
+		int threads = 32;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Boolean>> buys = new ArrayList<>();
+			List<Future<Boolean>> sells = new ArrayList<>();
+			for (int i = 0; i < threads / 2; i++) {
+				// 買い 1株 × 1ドル（建玉の上限 10株）
+				buys.add(executor.submit(() -> {
+					start.await();
+					return reserveInTransaction(order(0, "1", "1"), null);
+				}));
+				// 別ユーザーの売り 1株 × 100ドル（売買代金の上限 1,500ドル）
+				Trade sell = order(1, "1", "100");
+				sell.setUser(seller);
+				sells.add(executor.submit(() -> {
+					start.await();
+					return reserveInTransaction(sell, null);
+				}));
+			}
+			start.countDown();
+
+			assertThat(succeeded(buys)).isEqualTo(10);
+			assertThat(succeeded(sells)).isEqualTo(15);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static int succeeded(List<Future<Boolean>> results) throws Exception {
+		int count = 0;
+		for (Future<Boolean> result : results) {
+			count += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+		}
+		return count;
+	}
+
+	@DisplayName("T-960: 予約はロールバックで戻り、コミットした場合は約定の反映に置き換わる")
+	@Test
+	void reserve_releasedOnCompletion() {
+		assertThatThrownBy(() -> riskLimitService.reserve(order(0, "8", "100")))
+				.hasMessageContaining("トランザクション");
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			riskLimitService.reserve(order(0, "8", "100"));
+			// 予約中の分は他の注文の確認にも含まれる
+			assertThatThrownBy(() -> riskLimitService.check(order(0, "3", "10"))).hasMessageContaining("保有上限");
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThatCode(() -> riskLimitService.check(order(0, "8", "100"))).doesNotThrowAnyException();
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			riskLimitService.reserve(order(0, "8", "100"));
+			// コミット後に約定が反映されてから予約が戻る
+			fill(0, "8", "100");
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		// 建玉 8株 + 2株 ≦ 10株 < 8株 + 3株（約定は1回だけ数える）
+		assertThatCode(() -> riskLimitService.check(order(0, "2", "10"))).doesNotThrowAnyException();
+		assertThatThrownBy(() -> riskLimitService.check(order(0, "3", "10"))).hasMessageContaining("保有上限");
+	}
+}
@@ -0,0 +1,236 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.stock.enums.CostBasisMethod;
+import com.example.stock.model.RealizedPnl;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserStock;
+import com.example.stock.model.Users;
+import com.example.stock.repository.RealizedPnlRepository;
+import com.example.stock.repository.TaxLotRepository;
+import com.example.stock.repository.TaxLotRepository.OpenLot;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UsersRepository;
+
+/**
+ * ロットの追加・売却と、計算方法ごとの実現損益のテスト。
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+public class TaxLotServiceTest {
+
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	@Autowired
+	private TaxLotService taxLotService;
+
+	@Autowired
+	private UserStockService userStockService;
+
+	@Autowired
+	private TaxLotRepository taxLotRepository;
+
+	@Autowired
+	private RealizedPnlRepository realizedPnlRepository;
+
+	@Autowired
+	private UserStockRepository userStockRepository;
+
+	@Autowired
+	private UsersRepository usersRepository;
+
+	@Autowired
+	private TickersRepository tickersRepository;
+
+	@Autowired
+	private TradeRepository tradeRepository;
+
+	@Autowired
+	private TradeService tradeService;
+
+	private Users user;
+	private Tickers ticker;
+
+	@BeforeEach
+	void setup() {
+		user = new Users();
+		user.setUsername("ロット太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		ticker = new Tickers();
+		ticker.setTicker("ZZLOT");
+		ticker.setBrand("Lot Test Inc.");
+		tickersRepository.save(ticker);
+	}
+
+	// side 0:買い / 1:売り、単価 unitPrice（米ドル）で quantity 株の約定を保有株に反映する
+	private Trade applyTrade(int side, String quantity, String unitPrice, Long lotId) {
+		Trade trade = new Trade();
+		trade.setUser(user);
+		trade.setTicker(ticker);
+		trade.setQuantity(new BigDecimal(quantity));
+		trade.setUnitPrice(new BigDecimal(unitPrice));
+		trade.setTotalPrice(new BigDecimal(quantity).multiply(new BigDecimal(unitPrice)));
+		trade.setCurrency("USD");
+		trade.setSettlementCurrency("USD");
+		trade.setExchangeRate(BigDecimal.ONE);
+		trade.setSide(side);
+		trade.setType(1);
+		trade.setStatus(4);
+		trade.setLotId(lotId);
+		trade.setCreateAt(LocalDateTime.now());
+		trade.setUpdateAt(LocalDateTime.now());
+		tradeRepository.save(trade);
+		userStockService.applyTradeToUserStock(trade);
+		return trade;
+	}
+
+	private RealizedPnl pnlOf(Trade trade) {
+		return realizedPnlRepository.findAll().stream()
+				.filter(p -> p.getTrade().getId().equals(trade.getId()))
+				.findFirst()
+				.orElseThrow();
+	}
+
+	private UserStock holding() {
+		return userStockRepository.findByUserAndTicker(user, ticker).orElseThrow();
+	}
+
+	@DisplayName("T-471: 先入先出法では古いロットから売却し、実現損益と保有株の取得原価を更新する")
+	@Test
+	void consumeLots_fifo_sellsOldestLotsFirst() {
+		applyTrade(0, "2", "100", null);
+		applyTrade(0, "2", "120", null);
+
+		Trade sell = applyTrade(1, "3", "150", null);
+
+		RealizedPnl pnl = pnlOf(sell);
+		assertThat(pnl.getCostBasis()).isEqualByComparingTo("320"); // 2×100 + 1×120
+		assertThat(pnl.getRealizedPnl()).isEqualByComparingTo("130"); // 450 − 320
+		assertThat(pnl.getCostBasisMethod()).isEqualTo(CostBasisMethod.FIFO.getCode());
+		List<OpenLot> open = taxLotRepository.findOpenLots(user, ticker);
+		assertThat(open).hasSize(1);
+		assertThat(open.get(0).getOpenQuantity()).isEqualByComparingTo("1");
+		assertThat(holding().getCostBasis()).isEqualByComparingTo("120");
+		assertThat(taxLotService.getRealizedPnlTotal(user)).isEqualByComparingTo("130");
+	}
+
+	@DisplayName("T-472: 移動平均法では全ロットを同じ割合で減らし、平均取得単価で取得原価を求める")
+	@Test
+	void consumeLots_average_usesAverageCost() {
+		taxLotService.changeCostBasisMethod(user, CostBasisMethod.AVERAGE);
+		applyTrade(0, "2", "100", null);
+		applyTrade(0, "2", "120", null);
+
+		Trade sell = applyTrade(1, "3", "150", null);
+
+		RealizedPnl pnl = pnlOf(sell);
+		assertThat(pnl.getCostBasis()).isEqualByComparingTo("330"); // 3 × 110
+		assertThat(pnl.getRealizedPnl()).isEqualByComparingTo("120");
+		assertThat(holding().getCostBasis()).isEqualByComparingTo("110");
+		List<OpenLot> open = taxLotRepository.findOpenLots(user, ticker);
+		assertThat(open).extracting(OpenLot::getOpenQuantity)
+				.usingElementComparator(BigDecimal::compareTo)
+				.containsExactly(new BigDecimal("0.5"), new BigDecimal("0.5"));
+	}
+
+	@DisplayName("T-473: 個別法では指定したロットから売却する")
+	@Test
+	void consumeLots_specific_sellsChosenLot() {
+		taxLotService.changeCostBasisMethod(user, CostBasisMethod.SPECIFIC);
+		applyTrade(0, "2", "100", null);
+		applyTrade(0, "2", "120", null);
+		Long newest = taxLotRepository.findOpenLots(user, ticker).get(1).getId();
+
+		Trade sell = applyTrade(1, "1", "150", newest);
+
+		assertThat(pnlOf(sell).getRealizedPnl()).isEqualByComparingTo("30"); // 150 − 120
+		Map<Long, BigDecimal> pnls = taxLotService
+				.getRealizedPnlsForRows(tradeService.searchTrades(user, "all", null).getRows());
+		assertThat(pnls).containsOnlyKeys(sell.getId());
+	}
+
+	@DisplayName("T-474: ロットが無い保有を売却した場合は売却代金を取得原価とし、損益0で記録する")
+	@Test
+	void consumeLots_withoutLots_recordsZeroPnl() {
+		UserStock legacy = new UserStock();
+		legacy.setUser(user);
+		legacy.setTicker(ticker);
+		legacy.setQuantity(new BigDecimal("5"));
+		legacy.setCreateAt(LocalDateTime.now());
+		legacy.setUpdateAt(LocalDateTime.now());
+		userStockRepository.save(legacy);
+
+		Trade sell = applyTrade(1, "2", "150", null);
+
+		assertThat(pnlOf(sell).getRealizedPnl()).isEqualByComparingTo("0");
+		assertThat(holding().getQuantity()).isEqualByComparingTo("3");
+		assertThat(holding().getCostBasis()).isEqualByComparingTo("0");
+	}
+
+	@DisplayName("T-475: 移動平均法で売却した後に先入先出法へ変更しても、ロットと保有株の取得原価が一致する")
+	@Test
+	void consumeLots_averageThenFifo_keepsLotsConsistent() {
+		taxLotService.changeCostBasisMethod(user, CostBasisMethod.AVERAGE);
+		applyTrade(0, "1", "100", null);
+		applyTrade(0, "1", "200", null);
+		Trade averaged = applyTrade(1, "1", "150", null);
+		assertThat(pnlOf(averaged).getCostBasis()).isEqualByComparingTo("150"); // 0.5×100 + 0.5×200
+
+		taxLotService.changeCostBasisMethod(user, CostBasisMethod.FIFO);
+		Trade fifo = applyTrade(1, "1", "150", null);
+
+		assertThat(pnlOf(fifo).getCostBasis()).isEqualByComparingTo("150");
+		assertThat(pnlOf(fifo).getRealizedPnl()).isEqualByComparingTo("0");
+		assertThat(holding().getQuantity()).isEqualByComparingTo("0");
+		assertThat(holding().getCostBasis()).isEqualByComparingTo("0");
+		assertThat(taxLotRepository.findOpenLots(user, ticker)).isEmpty();
+	}
+
+	@DisplayName("T-476: 移動平均法でもロットが無い保有は平均に含めず、ロットの分から先に売却する")
+	@Test
+	void consumeLots_average_excludesSharesWithoutLots() {
+		UserStock legacy = new UserStock();
+		legacy.setUser(user);
+		legacy.setTicker(ticker);
+		legacy.setQuantity(new BigDecimal("2"));
+		legacy.setCreateAt(LocalDateTime.now());
+		legacy.setUpdateAt(LocalDateTime.now());
+		userStockRepository.save(legacy);
+		taxLotService.changeCostBasisMethod(user, CostBasisMethod.AVERAGE);
+		applyTrade(0, "2", "100", null);
+
+		Trade sell = applyTrade(1, "3", "150", null);
+
+		RealizedPnl pnl = pnlOf(sell);
+		assertThat(pnl.getCostBasis()).isEqualByComparingTo("350"); // ロット 2×100 + ロット無し 1×150
+		assertThat(holding().getQuantity()).isEqualByComparingTo("1");
+		assertThat(holding().getCostBasis()).isEqualByComparingTo("0");
+	}
+}
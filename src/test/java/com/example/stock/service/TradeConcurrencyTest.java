@@ -0,0 +1,237 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserStock;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+
+/**
+ * 注文の並行実行テスト。
+ * 各スレッドのコミット結果を検証するため、テストクラス全体のトランザクションは使わず、後処理で削除する。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class TradeConcurrencyTest {
+
+	private static final String SYMBOL = "ZZCONC";
+
+	@Autowired
+	private TradeService tradeService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private UserWalletRepository walletRepository;
+	@Autowired
+	private UserStockRepository userStockRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private StockService stockService;
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	private Tickers ticker;
+	private final List<Users> users = new ArrayList<>();
+
+	@BeforeEach
+	void setup() {
+		ticker = new Tickers();
+		ticker.setTicker(SYMBOL);
+		ticker.setBrand("Concurrency Test Inc.");
+		tickersRepository.save(ticker);
+
+		StockCandleWithPrevCloseDto quote = new StockCandleWithPrevCloseDto();
+		quote.setSymbol(SYMBOL);
+		quote.setClose(10.0);
+		quote.setPrevClose(10.0);
+		when(stockService.getLatestStockWithPrevClose(anyString())).thenReturn(quote);
+	}
+
+	@AfterEach
+	void cleanup() {
+		for (Users user : users) {
+			Long id = user.getId();
+			jdbcTemplate.update("DELETE FROM user_wallet_log WHERE user_wallet_id IN "
+					+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+			jdbcTemplate.update("DELETE FROM wallet_ledger_entry WHERE user_wallet_id IN "
+					+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+			jdbcTemplate.update("DELETE FROM wallet_snapshot WHERE user_wallet_id IN "
+					+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+			jdbcTemplate.update("DELETE FROM realized_pnl WHERE user_id = ?", id);
+			jdbcTemplate.update("DELETE FROM tax_lot WHERE user_id = ?", id);
+			jdbcTemplate.update("DELETE FROM trade_stat_monthly WHERE user_id = ?", id);
+			jdbcTemplate.update("DELETE FROM trade WHERE user_id = ?", id);
+			jdbcTemplate.update("DELETE FROM user_stock WHERE user_id = ?", id);
+			jdbcTemplate.update("DELETE FROM user_wallet WHERE user_id = ?", id);
+			jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+		}
+		users.clear();
+		tickersRepository.delete(ticker);
+	}
+
+	private Users createUserWithWallet(String usdBalance) {
+		Users user = new Users();
+		user.setUsername("並行太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+		users.add(user);
+
+		UserWallet wallet = new UserWallet();
+		wallet.setUser(user);
+		wallet.setJpyBalance(BigDecimal.ZERO);
+		wallet.setUsdBalance(new BigDecimal(usdBalance));
+		wallet.setCreateAt(LocalDateTime.now());
+		wallet.setUpdateAt(LocalDateTime.now());
+		walletRepository.save(wallet);
+		return user;
+	}
+
+	// 1株10ドルの買い注文
+	private Trade buyOneShare(Users user) {
+		Trade t = new Trade();
+		t.setUser(user);
+		t.setTicker(ticker);
+		t.setQuantity(BigDecimal.ONE);
+		t.setUnitPrice(BigDecimal.TEN);
+		t.setTotalPrice(BigDecimal.TEN);
+		t.setCurrency("USD");
+		t.setSettlementCurrency("USD");
+		t.setExchangeRate(BigDecimal.ONE);
+		t.setSide(0);
+		t.setType(0);
+		t.setCreateAt(LocalDateTime.now());
+		t.setUpdateAt(LocalDateTime.now());
+		return t;
+	}
+
+	/**
+	 * 指定ユーザーの注文を仮想スレッドで一斉に実行し、成功件数を返す。
+	 */
+	private int runConcurrently(List<Users> orderUsers) throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger succeeded = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (Users user : orderUsers) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					try {
+						tradeService.executeTrade(buyOneShare(user));
+						succeeded.incrementAndGet();
+					} catch (IllegalStateException e) {
+						// 残高不足などの業務エラーは失敗として数える
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(60, TimeUnit.SECONDS);
+			}
+		}
+		return succeeded.get();
+	}
+
+	private BigDecimal usdBalanceOf(Users user) {
+		return walletRepository.findByUser(user).getCurrentUsdBalance();
+	}
+
+	private BigDecimal quantityOf(Users user) {
+		return userStockRepository.findByUserAndTicker(user, ticker)
+				.map(UserStock::getQuantity)
+				.orElse(BigDecimal.ZERO);
+	}
+
+	private int tradeCountOf(Users user) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trade WHERE user_id = ?", Integer.class,
+				user.getId());
+	}
+
+	@DisplayName("T-421: 同一ユーザーの注文を並行実行しても更新が失われない")
+	@Test
+	void sameUser_concurrentOrders_noLostUpdates() throws Exception {
+		Users user = createUserWithWallet("10000");
+		int orders = 100;
+
+		int succeeded = runConcurrently(Collections.nCopies(orders, user));
+
+		assertThat(succeeded).isEqualTo(orders);
+		assertThat(usdBalanceOf(user)).isEqualByComparingTo("9000");
+		assertThat(quantityOf(user)).isEqualByComparingTo(String.valueOf(orders));
+		assertThat(tradeCountOf(user)).isEqualTo(orders);
+	}
+
+	@DisplayName("T-422: 複数ユーザーの注文を並行実行しても、ユーザーごとに正しく反映される")
+	@Test
+	void multipleUsers_concurrentOrders_appliedPerUser() throws Exception {
+		Users alice = createUserWithWallet("1000");
+		Users bob = createUserWithWallet("1000");
+		List<Users> orderUsers = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			orderUsers.add(alice);
+			orderUsers.add(bob);
+		}
+
+		int succeeded = runConcurrently(orderUsers);
+
+		assertThat(succeeded).isEqualTo(100);
+		assertThat(usdBalanceOf(alice)).isEqualByComparingTo("500");
+		assertThat(usdBalanceOf(bob)).isEqualByComparingTo("500");
+		assertThat(quantityOf(alice)).isEqualByComparingTo("50");
+		assertThat(quantityOf(bob)).isEqualByComparingTo("50");
+	}
+
+	@DisplayName("T-423: 残高を超える並行注文は残高分だけ約定し、残高がマイナスにならない")
+	@Test
+	void sameUser_concurrentOrders_neverOverspend() throws Exception {
+		Users user = createUserWithWallet("100");
+
+		int succeeded = runConcurrently(Collections.nCopies(30, user));
+
+		assertThat(succeeded).isEqualTo(10);
+		assertThat(usdBalanceOf(user)).isEqualByComparingTo("0");
+		assertThat(quantityOf(user)).isEqualByComparingTo("10");
+		assertThat(tradeCountOf(user)).isEqualTo(10);
+	}
+}
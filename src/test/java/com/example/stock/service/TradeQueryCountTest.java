@@ -0,0 +1,161 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeContext;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserStock;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.UserStockRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+
+/**
+ * 1件の注文（コンテキスト読み込み → 検証 → 実行）で発行されるSQLの本数を検証する。
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+@ActiveProfiles("test")
+public class TradeQueryCountTest {
+
+	// 読み込み（ウォレット・保有株）＋ 実行（取引保存・残高の読み込み・台帳記帳・ログ保存・保有株更新）
+	// ＋ ロット（買い：追加、売り：残ロットの読み込みと実現損益の記録）
+	private static final long MAX_STATEMENTS_PER_ORDER = 9;
+
+	@Autowired
+	private TradeService tradeService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private UserWalletRepository walletRepository;
+	@Autowired
+	private UserStockRepository userStockRepository;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@MockBean
+	private StockService stockService;
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	private Users testUser;
+	private Tickers testTicker;
+	private Statistics statistics;
+
+	@BeforeEach
+	void setup() {
+		testUser = new Users();
+		testUser.setUsername("株式太郎");
+		testUser.setEmail("querycount@example.com");
+		testUser.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		testUser.setCreateAt(LocalDateTime.now());
+		testUser.setUpdateAt(LocalDateTime.now());
+		testUser.setEnabled(true);
+		usersRepository.save(testUser);
+
+		testTicker = new Tickers();
+		testTicker.setTicker("AAPL");
+		testTicker.setBrand("Apple Inc.");
+		tickersRepository.save(testTicker);
+
+		UserWallet wallet = new UserWallet();
+		wallet.setUser(testUser);
+		wallet.setJpyBalance(BigDecimal.ZERO);
+		wallet.setUsdBalance(new BigDecimal("1000"));
+		wallet.setCreateAt(LocalDateTime.now());
+		wallet.setUpdateAt(LocalDateTime.now());
+		walletRepository.save(wallet);
+
+		StockCandleWithPrevCloseDto quote = new StockCandleWithPrevCloseDto();
+		quote.setSymbol("AAPL");
+		quote.setClose(100.0);
+		quote.setPrevClose(100.0);
+		when(stockService.getLatestStockWithPrevClose(anyString())).thenReturn(quote);
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	private Trade createTrade(TradeContext context, int side) {
+		Trade t = new Trade();
+		t.setUser(context.getUser());
+		t.setTicker(context.getTicker());
+		t.setQuantity(BigDecimal.ONE);
+		t.setUnitPrice(new BigDecimal("100"));
+		t.setTotalPrice(new BigDecimal("100"));
+		t.setCurrency("USD");
+		t.setSettlementCurrency("USD");
+		t.setExchangeRate(BigDecimal.ONE);
+		t.setSide(side);
+		t.setType(0);
+		t.setStatus(4);
+		t.setCreateAt(LocalDateTime.now());
+		t.setUpdateAt(LocalDateTime.now());
+		return t;
+	}
+
+	// 注文受付から確定までの流れ（OrderController と同じ呼び出し順）を実行し、発行したSQLの本数を返す
+	private long submitOrder(int side) {
+		statistics.clear();
+
+		TradeContext context = tradeService.loadContext(testUser, testTicker);
+		Trade trade = createTrade(context, side);
+		tradeService.validateTrade(trade, context);
+		tradeService.executeTrade(trade, context);
+
+		return statistics.getPrepareStatementCount();
+	}
+
+	@DisplayName("T-431: 買い注文1件のSQL発行数が一定数以下で、現在値の取得は1回だけ")
+	@Test
+	void buyOrder_statementCountIsBounded() {
+		long statements = submitOrder(0);
+
+		assertThat(statements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_ORDER);
+		verify(stockService, times(1)).getLatestStockWithPrevClose(anyString());
+		assertThat(walletRepository.findByUser(testUser).getCurrentUsdBalance()).isEqualByComparingTo("900");
+	}
+
+	@DisplayName("T-432: 売り注文1件のSQL発行数が一定数以下で、現在値の取得は1回だけ")
+	@Test
+	void sellOrder_statementCountIsBounded() {
+		UserStock holding = new UserStock();
+		holding.setUser(testUser);
+		holding.setTicker(testTicker);
+		holding.setQuantity(new BigDecimal("5"));
+		holding.setCreateAt(LocalDateTime.now());
+		holding.setUpdateAt(LocalDateTime.now());
+		userStockRepository.save(holding);
+
+		long statements = submitOrder(1);
+
+		assertThat(statements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_ORDER);
+		verify(stockService, times(1)).getLatestStockWithPrevClose(anyString());
+		assertThat(userStockRepository.findByUserAndTicker(testUser, testTicker).orElseThrow().getQuantity())
+				.isEqualByComparingTo("4");
+	}
+}
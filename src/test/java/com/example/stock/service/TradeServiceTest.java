@@ -9,6 +9,7 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -24,6 +25,9 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeLogPageDto;
+import com.example.stock.dto.TradeLogRowDto;
+import com.example.stock.enums.TradeStatus;
 import com.example.stock.model.Tickers;
 import com.example.stock.model.Trade;
 import com.example.stock.model.UserWallet;
@@ -261,7 +265,7 @@ public class TradeServiceTest {
 		Trade trade = createTrade(new BigDecimal("10"), new BigDecimal("100"), "USD");
 		trade.setSide(1); // 売り注文
 
-		when(userStockService.getStockQuantityByUserAndTicker(eq(testUser), eq("AAPL")))
+		when(userStockService.getStockQuantity(eq(testUser), eq(testTicker)))
 				.thenReturn(new BigDecimal("100"));
 
 		assertThatCode(() -> tradeService.executeTrade(trade)).doesNotThrowAnyException();
@@ -273,7 +277,7 @@ public class TradeServiceTest {
 		Trade trade = createTrade(new BigDecimal("100"), new BigDecimal("100"), "USD");
 		trade.setSide(1); // 売り注文
 
-		when(userStockService.getStockQuantityByUserAndTicker(eq(testUser), eq("AAPL")))
+		when(userStockService.getStockQuantity(eq(testUser), eq(testTicker)))
 				.thenReturn(BigDecimal.ZERO);
 
 		assertThatThrownBy(() -> tradeService.executeTrade(trade))
@@ -281,6 +285,20 @@ public class TradeServiceTest {
 				.hasMessageContaining("保有株数が不足");
 	}
 
+	@DisplayName("T-420: 現在値で約定しない指値注文は注文中として保存され、精算されない")
+	@Test
+	void executeTrade_restingLimitOrder_savedAsOpen() {
+		Trade trade = createTrade(new BigDecimal("1"), new BigDecimal("95"), "USD"); // 現在値100未満の買い指値
+
+		tradeService.executeTrade(trade);
+
+		Trade saved = tradeRepository.findById(trade.getId()).orElseThrow();
+		assertThat(saved.getStatus()).isEqualTo(TradeStatus.OPEN.getCode());
+		assertThat(saved.getFilledQuantity()).isEqualByComparingTo("0");
+		verify(userWalletService, never()).applyTradeToWallet(any());
+		verify(userStockService, never()).applyTradeToUserStock(any());
+	}
+
 	@DisplayName("T-413: 'all' 指定で全ての取引を取得できる")
 	@Test
 	void searchTrades_all_shouldReturnAll() {
@@ -290,7 +308,7 @@ public class TradeServiceTest {
 		tradeRepository.save(trade1);
 		tradeRepository.save(trade2);
 
-		List<Trade> results = tradeService.searchTrades(testUser, "all", "");
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "all", "").getRows();
 
 		// 取引が2件取得できていることを確認
 		assertThat(results).hasSize(2);
@@ -305,7 +323,7 @@ public class TradeServiceTest {
 		insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("1"), new BigDecimal("100"), "USD", now);
 		insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("2"), new BigDecimal("200"), "USD", yesterday);
 
-		List<Trade> results = tradeService.searchTrades(testUser, "today", "");
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "today", "").getRows();
 		assertThat(results).hasSize(1);
 	}
 
@@ -318,7 +336,7 @@ public class TradeServiceTest {
 		insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("1"), new BigDecimal("100"), "USD", monday);
 		insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("2"), new BigDecimal("200"), "USD", beforeWeek);
 
-		List<Trade> results = tradeService.searchTrades(testUser, "1week", "");
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "1week", "").getRows();
 		assertThat(results).hasSize(1);
 	}
 
@@ -331,7 +349,7 @@ public class TradeServiceTest {
 		insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("1"), new BigDecimal("100"), "USD", monthStart);
 		insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("2"), new BigDecimal("200"), "USD", lastMonth);
 
-		List<Trade> results = tradeService.searchTrades(testUser, "1month", "");
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "1month", "").getRows();
 		assertThat(results).hasSize(1);
 	}
 
@@ -350,9 +368,9 @@ public class TradeServiceTest {
 		msftTrade.setTicker(msft);
 		tradeRepository.save(msftTrade);
 
-		List<Trade> results = tradeService.searchTrades(testUser, "all", "AAP");
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "all", "AAP").getRows();
 		assertThat(results).hasSize(1);
-		assertThat(results.get(0).getTicker().getTicker()).isEqualTo("AAPL");
+		assertThat(results.get(0).getSymbol()).isEqualTo("AAPL");
 	}
 
 	@DisplayName("T-418: ティッカーがマッチしない場合は空のリストを返す")
@@ -360,18 +378,84 @@ public class TradeServiceTest {
 	void searchTrades_noMatch_shouldReturnEmpty() {
 		tradeRepository.save(createTrade(new BigDecimal("1"), new BigDecimal("100"), "USD")); // AAPL
 
-		List<Trade> results = tradeService.searchTrades(testUser, "all", "XYZ");
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "all", "XYZ").getRows();
 		assertThat(results).isEmpty();
 	}
 
+	@DisplayName("T-426: キーワードの _ や % は任意の文字ではなく、その文字として検索される")
+	@Test
+	void searchTrades_keywordWithWildcardChars_matchesLiterally() {
+		Tickers underscore = new Tickers();
+		underscore.setTicker("BRK_B");
+		underscore.setBrand("Berkshire Hathaway B");
+		tickersRepository.save(underscore);
+		Trade underscoreTrade = createTrade(new BigDecimal("1"), new BigDecimal("100"), "USD");
+		underscoreTrade.setTicker(underscore);
+		tradeRepository.save(underscoreTrade);
+
+		Tickers plain = new Tickers();
+		plain.setTicker("BRKXB");
+		plain.setBrand("Wildcard Test");
+		tickersRepository.save(plain);
+		Trade plainTrade = createTrade(new BigDecimal("1"), new BigDecimal("100"), "USD");
+		plainTrade.setTicker(plain);
+		tradeRepository.save(plainTrade);
+
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "all", "k_b").getRows();
+		assertThat(results).hasSize(1);
+		assertThat(results.get(0).getSymbol()).isEqualTo("BRK_B");
+		assertThat(tradeService.searchTrades(testUser, "all", "%").getRows()).isEmpty();
+	}
+
 	@DisplayName("T-419: ティッカーキーワードが null の場合はフィルターしない")
 	@Test
 	void searchTrades_nullTicker_shouldReturnAll() {
 		tradeRepository.save(createTrade(new BigDecimal("1"), new BigDecimal("100"), "USD"));
 		tradeRepository.save(createTrade(new BigDecimal("2"), new BigDecimal("200"), "USD"));
 
-		List<Trade> results = tradeService.searchTrades(testUser, "all", null);
+		List<TradeLogRowDto> results = tradeService.searchTrades(testUser, "all", null).getRows();
 		assertThat(results).hasSize(2);
 	}
 
+	@DisplayName("T-424: 取引履歴は同じ日時の取引も含め、ページ間で重複・欠落なく取得できる")
+	@Test
+	void searchTrades_keysetPages_haveNoOverlapOrGap() {
+		int total = TradeService.TRADE_LOG_PAGE_SIZE + 5;
+		LocalDateTime sameTime = LocalDateTime.now().withNano(0).minusHours(1);
+		for (int i = 0; i < total; i++) {
+			// 2件ずつ同じ日時にして、日時だけでは順序が決まらないようにする
+			insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("1"), new BigDecimal("100"), "USD",
+					sameTime.minusMinutes(i / 2));
+		}
+
+		TradeLogPageDto first = tradeService.searchTrades(testUser, "all", "");
+		assertThat(first.getRows()).hasSize(TradeService.TRADE_LOG_PAGE_SIZE);
+		assertThat(first.hasNext()).isTrue();
+
+		TradeLogPageDto second = tradeService.searchTrades(testUser, "all", "", first.getNextBeforeAt(),
+				first.getNextBeforeId());
+		assertThat(second.getRows()).hasSize(5);
+		assertThat(second.hasNext()).isFalse();
+
+		List<Long> ids = Stream.concat(first.getRows().stream(), second.getRows().stream())
+				.map(TradeLogRowDto::getId)
+				.toList();
+		assertThat(ids).doesNotHaveDuplicates().hasSize(total);
+	}
+
+	@DisplayName("T-425: 件数がちょうど1ページ分の場合は次のページがない")
+	@Test
+	void searchTrades_exactlyOnePage_hasNoNextCursor() {
+		for (int i = 0; i < TradeService.TRADE_LOG_PAGE_SIZE; i++) {
+			insertTradeWithTimestamp(testUser, testTicker, new BigDecimal("1"), new BigDecimal("100"), "USD",
+					LocalDateTime.now().minusMinutes(i));
+		}
+
+		TradeLogPageDto page = tradeService.searchTrades(testUser, "all", "aap");
+
+		assertThat(page.getRows()).hasSize(TradeService.TRADE_LOG_PAGE_SIZE);
+		assertThat(page.hasNext()).isFalse();
+		assertThat(page.getNextBeforeId()).isNull();
+	}
+
 }
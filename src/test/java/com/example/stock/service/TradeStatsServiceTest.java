@@ -0,0 +1,188 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+import com.example.stock.dto.TradeStatsDto;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+
+/**
+ * 約定時の取引統計の加算と、既存の注文からの作り直しのテスト。
+ * 作り直しは別トランザクションで行われるため、テストクラス全体のトランザクションは使わず、後処理で削除する。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class TradeStatsServiceTest {
+
+	private static final String SYMBOL = "ZZSTAT";
+
+	@Autowired
+	private TradeStatsService tradeStatsService;
+	@Autowired
+	private TradeService tradeService;
+	@Autowired
+	private UsersRepository usersRepository;
+	@Autowired
+	private TickersRepository tickersRepository;
+	@Autowired
+	private UserWalletRepository walletRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockBean
+	private StockService stockService;
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	private Users user;
+	private Tickers ticker;
+
+	@BeforeEach
+	void setup() {
+		ticker = new Tickers();
+		ticker.setTicker(SYMBOL);
+		ticker.setBrand("Stats Test Inc.");
+		tickersRepository.save(ticker);
+
+		user = new Users();
+		user.setUsername("統計太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		UserWallet wallet = new UserWallet();
+		wallet.setUser(user);
+		wallet.setJpyBalance(BigDecimal.ZERO);
+		wallet.setUsdBalance(new BigDecimal("1000"));
+		wallet.setCreateAt(LocalDateTime.now());
+		wallet.setUpdateAt(LocalDateTime.now());
+		walletRepository.save(wallet);
+
+		StockCandleWithPrevCloseDto quote = new StockCandleWithPrevCloseDto();
+		quote.setSymbol(SYMBOL);
+		quote.setClose(100.0);
+		quote.setPrevClose(100.0);
+		when(stockService.getLatestStockWithPrevClose(anyString())).thenReturn(quote);
+	}
+
+	@AfterEach
+	void cleanup() {
+		Long id = user.getId();
+		jdbcTemplate.update("DELETE FROM user_wallet_log WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_ledger_entry WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM wallet_snapshot WHERE user_wallet_id IN "
+				+ "(SELECT id FROM user_wallet WHERE user_id = ?)", id);
+		jdbcTemplate.update("DELETE FROM realized_pnl WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM tax_lot WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade_stat_monthly WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM trade WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_stock WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM user_wallet WHERE user_id = ?", id);
+		jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+		tickersRepository.delete(ticker);
+	}
+
+	// 成行注文を実行する（買いは現在値 +10%、売りは -10% の単価）
+	private void executeMarket(int side, String quantity) {
+		BigDecimal unitPrice = side == 0 ? new BigDecimal("110") : new BigDecimal("90");
+		Trade t = new Trade();
+		t.setUser(user);
+		t.setTicker(ticker);
+		t.setQuantity(new BigDecimal(quantity));
+		t.setUnitPrice(unitPrice);
+		t.setTotalPrice(new BigDecimal(quantity).multiply(unitPrice));
+		t.setCurrency("USD");
+		t.setSettlementCurrency("USD");
+		t.setExchangeRate(BigDecimal.ONE);
+		t.setSide(side);
+		t.setType(1);
+		t.setCreateAt(LocalDateTime.now());
+		t.setUpdateAt(LocalDateTime.now());
+		tradeService.executeTrade(t);
+	}
+
+	// 集計テーブルの行（比較用）
+	private List<String> statRows() {
+		return jdbcTemplate.query("""
+				SELECT month, ticker_id, currency, buy_count, sell_count, buy_quantity, sell_quantity,
+					buy_amount, sell_amount
+				FROM trade_stat_monthly WHERE user_id = ? ORDER BY month, ticker_id, currency
+				""", (rs, i) -> String.join(",", rs.getString(1), rs.getString(2), rs.getString(3),
+				rs.getString(4), rs.getString(5), rs.getBigDecimal(6).stripTrailingZeros().toPlainString(),
+				rs.getBigDecimal(7).stripTrailingZeros().toPlainString(),
+				rs.getBigDecimal(8).stripTrailingZeros().toPlainString(),
+				rs.getBigDecimal(9).stripTrailingZeros().toPlainString()), user.getId());
+	}
+
+	@DisplayName("T-991: 約定した注文は同じトランザクションで取引統計に加算される")
+	@Test
+	void executeTrade_addsFillToStats() {
+		executeMarket(0, "2");
+		executeMarket(0, "1");
+		executeMarket(1, "1");
+
+		TradeStatsDto stats = tradeStatsService.getStats(user, 12);
+
+		assertThat(stats.getTradeCount()).isEqualTo(3);
+		assertThat(stats.getBuyCount()).isEqualTo(2);
+		assertThat(stats.getSellCount()).isEqualTo(1);
+		assertThat(stats.getBuyAmounts().get("USD")).isEqualByComparingTo("330");
+		assertThat(stats.getSellAmounts().get("USD")).isEqualByComparingTo("90");
+		assertThat(stats.getTopTickers()).containsEntry(SYMBOL, 3L);
+		assertThat(stats.getMonthlyCounts()).containsEntry(LocalDate.now().withDayOfMonth(1), 3L);
+	}
+
+	@DisplayName("T-992: 既存の注文から作り直した取引統計は、約定時に加算した取引統計と一致する")
+	@Test
+	void backfill_matchesIncrementalStats() {
+		executeMarket(0, "3");
+		executeMarket(1, "2");
+		List<String> incremental = statRows();
+
+		jdbcTemplate.update("DELETE FROM trade_stat_monthly WHERE user_id = ?", user.getId());
+		tradeStatsService.backfill(user.getId(), user.getId());
+
+		assertThat(statRows()).isNotEmpty().isEqualTo(incremental);
+	}
+
+	@DisplayName("T-993: 取引統計の作り直しを繰り返しても二重に加算されない")
+	@Test
+	void backfill_isIdempotent() {
+		executeMarket(0, "1");
+		List<String> incremental = statRows();
+
+		tradeStatsService.backfill(user.getId(), user.getId());
+		tradeStatsService.backfill(user.getId(), user.getId());
+
+		assertThat(statRows()).isEqualTo(incremental);
+	}
+}
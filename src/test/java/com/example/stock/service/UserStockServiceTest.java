@@ -23,12 +23,16 @@ import com.example.stock.model.Trade;
 import com.example.stock.model.UserStock;
 import com.example.stock.model.UserWallet;
 import com.example.stock.model.Users;
+import com.example.stock.repository.RealizedPnlRepository;
+import com.example.stock.repository.TaxLotRepository;
 import com.example.stock.repository.TickersRepository;
 import com.example.stock.repository.TradeRepository;
 import com.example.stock.repository.UserStockRepository;
 import com.example.stock.repository.UserWalletLogRepository;
 import com.example.stock.repository.UserWalletRepository;
 import com.example.stock.repository.UsersRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository;
+import com.example.stock.repository.WalletSnapshotRepository;
 
 @ExtendWith(OutputCaptureExtension.class)
 @SpringBootTest
@@ -60,9 +64,21 @@ public class UserStockServiceTest {
 	@Autowired
 	private TradeRepository tradeRepository;
 
+	@Autowired
+	private RealizedPnlRepository realizedPnlRepository;
+
+	@Autowired
+	private TaxLotRepository taxLotRepository;
+
 	@Autowired
 	private UserWalletLogRepository userWalletLogRepository;
 
+	@Autowired
+	private WalletLedgerEntryRepository walletLedgerEntryRepository;
+
+	@Autowired
+	private WalletSnapshotRepository walletSnapshotRepository;
+
 	@Autowired
 	private UserWalletRepository userWalletRepository;
 
@@ -75,6 +91,10 @@ public class UserStockServiceTest {
 	@BeforeEach
 	void setup() {
 		userWalletLogRepository.deleteAll(); // 最子级：引用了 trade 和 wallet
+		walletLedgerEntryRepository.deleteAll();
+		walletSnapshotRepository.deleteAll();
+		realizedPnlRepository.deleteAll();
+		taxLotRepository.deleteAll();
 		tradeRepository.deleteAll(); // 引用了 ticker 和 user
 		userWalletRepository.deleteAll(); // 引用了 user
 		tickersRepository.deleteAll(); // 引用了无
@@ -247,7 +267,7 @@ public class UserStockServiceTest {
 
 		UserStock result = userStockRepository.findByUserAndTicker(testUser, testTicker).orElse(null);
 		assertThat(result).isNotNull();
-		assertThat(result.getQuantity()).isEqualTo(new BigDecimal("3"));
+		assertThat(result.getQuantity()).isEqualByComparingTo("3");
 	}
 
 	@Test
@@ -274,7 +294,7 @@ public class UserStockServiceTest {
 		userStockService.applyTradeToUserStock(trade);
 
 		UserStock updated = userStockRepository.findByUserAndTicker(testUser, testTicker).orElseThrow();
-		assertThat(updated.getQuantity()).isEqualTo(new BigDecimal("3"));
+		assertThat(updated.getQuantity()).isEqualByComparingTo("3");
 	}
 
 	@Test
@@ -288,7 +308,7 @@ public class UserStockServiceTest {
 		userStockService.applyTradeToUserStock(trade);
 
 		UserStock updated = userStockRepository.findByUserAndTicker(testUser, testTicker).orElseThrow();
-		assertThat(updated.getQuantity()).isEqualTo(BigDecimal.ZERO);
+		assertThat(updated.getQuantity()).isEqualByComparingTo("0");
 	}
 
 	private Trade createTrade(Users user, Tickers ticker, String currency, BigDecimal total, int side) {
@@ -19,11 +19,15 @@ import com.example.stock.model.Trade;
 import com.example.stock.model.UserWallet;
 import com.example.stock.model.UserWalletLog;
 import com.example.stock.model.Users;
+import com.example.stock.repository.RealizedPnlRepository;
+import com.example.stock.repository.TaxLotRepository;
 import com.example.stock.repository.TickersRepository;
 import com.example.stock.repository.TradeRepository;
 import com.example.stock.repository.UserWalletLogRepository;
 import com.example.stock.repository.UserWalletRepository;
 import com.example.stock.repository.UsersRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository;
+import com.example.stock.repository.WalletSnapshotRepository;
 
 @SpringBootTest
 @Transactional
@@ -38,6 +42,10 @@ public class UserWalletLogServiceTest {
 
 	@Autowired
 	private UserWalletLogRepository userWalletLogRepository;
+	@Autowired
+	private WalletLedgerEntryRepository walletLedgerEntryRepository;
+	@Autowired
+	private WalletSnapshotRepository walletSnapshotRepository;
 
 	@Autowired
 	private UserWalletRepository userWalletRepository;
@@ -45,6 +53,12 @@ public class UserWalletLogServiceTest {
 	@Autowired
 	private TradeRepository tradeRepository;
 
+	@Autowired
+	private RealizedPnlRepository realizedPnlRepository;
+
+	@Autowired
+	private TaxLotRepository taxLotRepository;
+
 	@Autowired
 	private UsersRepository usersRepository;
 
@@ -64,6 +78,10 @@ public class UserWalletLogServiceTest {
 	@BeforeEach
 	void setup() {
 		userWalletLogRepository.deleteAll();
+		walletLedgerEntryRepository.deleteAll();
+		walletSnapshotRepository.deleteAll();
+		realizedPnlRepository.deleteAll();
+		taxLotRepository.deleteAll();
 		tradeRepository.deleteAll();
 		userWalletRepository.deleteAll();
 		usersRepository.deleteAll();
@@ -172,4 +190,30 @@ public class UserWalletLogServiceTest {
 				.isInstanceOf(IllegalArgumentException.class)
 				.hasMessageContaining("所有者が一致しません");
 	}
+
+	@Test
+	@DisplayName("T-505: 買い注文の残高更新で、更新前後の残高がログに記録される")
+	void testApplyTradeToWallet_buy_logsBeforeAndAfterBalance() {
+		Trade trade = createTrade(0, "JPY", new BigDecimal("1000"));
+		userWalletService.applyTradeToWallet(trade);
+
+		testLog = userWalletLogRepository.findAll().get(0);
+		assertThat(testLog.getCurrency()).isEqualTo("JPY");
+		assertThat(testLog.getBeforeBalance()).isEqualByComparingTo("5000");
+		assertThat(testLog.getChangeAmount()).isEqualByComparingTo("-1000");
+		assertThat(testLog.getAfterBalance()).isEqualByComparingTo("4000");
+	}
+
+	@Test
+	@DisplayName("T-506: 売り注文の残高更新で、更新前後の残高がログに記録される")
+	void testApplyTradeToWallet_sell_logsBeforeAndAfterBalance() {
+		Trade trade = createTrade(1, "USD", new BigDecimal("25"));
+		userWalletService.applyTradeToWallet(trade);
+
+		testLog = userWalletLogRepository.findAll().get(0);
+		assertThat(testLog.getCurrency()).isEqualTo("USD");
+		assertThat(testLog.getBeforeBalance()).isEqualByComparingTo("100");
+		assertThat(testLog.getChangeAmount()).isEqualByComparingTo("25");
+		assertThat(testLog.getAfterBalance()).isEqualByComparingTo("125");
+	}
 }
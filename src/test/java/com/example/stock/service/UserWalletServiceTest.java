@@ -24,11 +24,15 @@ import com.example.stock.model.Tickers;
 import com.example.stock.model.Trade;
 import com.example.stock.model.UserWallet;
 import com.example.stock.model.Users;
+import com.example.stock.repository.RealizedPnlRepository;
+import com.example.stock.repository.TaxLotRepository;
 import com.example.stock.repository.TickersRepository;
 import com.example.stock.repository.TradeRepository;
 import com.example.stock.repository.UserWalletLogRepository;
 import com.example.stock.repository.UserWalletRepository;
 import com.example.stock.repository.UsersRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository;
+import com.example.stock.repository.WalletSnapshotRepository;
 
 @SpringBootTest
 @Transactional
@@ -54,9 +58,19 @@ public class UserWalletServiceTest {
 	@Autowired
 	private TradeRepository tradeRepository;
 
+	@Autowired
+	private RealizedPnlRepository realizedPnlRepository;
+
+	@Autowired
+	private TaxLotRepository taxLotRepository;
+
 	@Autowired
 	private UserWalletLogRepository userWalletLogRepository;
 	@Autowired
+	private WalletLedgerEntryRepository walletLedgerEntryRepository;
+	@Autowired
+	private WalletSnapshotRepository walletSnapshotRepository;
+	@Autowired
 	private EntityManager entityManager;
 
 	@MockBean
@@ -73,6 +87,10 @@ public class UserWalletServiceTest {
 	void setup() {
 
 		userWalletLogRepository.deleteAll();
+		walletLedgerEntryRepository.deleteAll();
+		walletSnapshotRepository.deleteAll();
+		realizedPnlRepository.deleteAll();
+		taxLotRepository.deleteAll();
 		tradeRepository.deleteAll();
 		userWalletRepository.deleteAll();
 		tickersRepository.deleteAll();
@@ -271,7 +289,7 @@ public class UserWalletServiceTest {
 		userWalletService.applyTradeToWallet(testTrade);
 
 		UserWallet updatedWallet = userWalletRepository.findByUser(testUser);
-		assertThat(updatedWallet.getJpyBalance()).isEqualByComparingTo("4900");
+		assertThat(updatedWallet.getCurrentJpyBalance()).isEqualByComparingTo("4900");
 	}
 
 	@DisplayName("T-014: 残高不足なら例外が発生する（更新されない）")
@@ -284,7 +302,7 @@ public class UserWalletServiceTest {
 				.hasMessageContaining("残高不足");
 
 		UserWallet updatedWallet = userWalletRepository.findByUser(testUser);
-		assertThat(updatedWallet.getJpyBalance()).isEqualByComparingTo("5000"); // 初期残高不变
+		assertThat(updatedWallet.getCurrentJpyBalance()).isEqualByComparingTo("5000"); // 初期残高不变
 	}
 
 	@DisplayName("T-015: サポートされていない通貨なら例外が発生する（更新されない）")
@@ -297,7 +315,7 @@ public class UserWalletServiceTest {
 				.hasMessageContaining("未対応の通貨");
 
 		UserWallet updatedWallet = userWalletRepository.findByUser(testUser);
-		assertThat(updatedWallet.getJpyBalance()).isEqualByComparingTo("5000"); // 初期残高不变
+		assertThat(updatedWallet.getCurrentJpyBalance()).isEqualByComparingTo("5000"); // 初期残高不变
 	}
 
 	@DisplayName("T-016: 日本円の売り注文により残高が正常に増加すること")
@@ -307,7 +325,7 @@ public class UserWalletServiceTest {
 		userWalletService.applyTradeToWallet(testTrade);
 
 		UserWallet updatedWallet = userWalletRepository.findByUser(testUser);
-		assertThat(updatedWallet.getJpyBalance()).isEqualByComparingTo("5200"); // 初期5000 + 200
+		assertThat(updatedWallet.getCurrentJpyBalance()).isEqualByComparingTo("5200"); // 初期5000 + 200
 	}
 
 	@DisplayName("T-017: 米ドルの売り注文により残高が正常に増加すること")
@@ -320,7 +338,7 @@ public class UserWalletServiceTest {
 		userWalletService.applyTradeToWallet(testTrade);
 
 		UserWallet updatedWallet = userWalletRepository.findByUser(testUser);
-		assertThat(updatedWallet.getUsdBalance()).isEqualByComparingTo("150"); // 100 + 50
+		assertThat(updatedWallet.getCurrentUsdBalance()).isEqualByComparingTo("150"); // 100 + 50
 	}
 
 	// テスト用の取引データ生成ヘルパーメソッド
@@ -0,0 +1,241 @@
+package com.example.stock.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.stock.dto.WalletBalanceDto;
+import com.example.stock.enums.LedgerEntryType;
+import com.example.stock.model.Tickers;
+import com.example.stock.model.Trade;
+import com.example.stock.model.UserWallet;
+import com.example.stock.model.Users;
+import com.example.stock.model.WalletLedgerEntry;
+import com.example.stock.model.WalletSnapshot;
+import com.example.stock.repository.TickersRepository;
+import com.example.stock.repository.TradeRepository;
+import com.example.stock.repository.UserWalletRepository;
+import com.example.stock.repository.UsersRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository;
+import com.example.stock.repository.WalletLedgerEntryRepository.LedgerBalance;
+import com.example.stock.repository.WalletSnapshotRepository;
+
+/**
+ * ウォレット台帳の記帳と、任意時点の残高の復元のテスト。
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles("test")
+public class WalletLedgerServiceTest {
+
+	@MockBean
+	private LogoDetectionService mockLogoDetectionService;
+
+	@Autowired
+	private WalletLedgerService walletLedgerService;
+
+	@Autowired
+	private UserWalletService userWalletService;
+
+	@Autowired
+	private UserWalletRepository userWalletRepository;
+
+	@Autowired
+	private WalletLedgerEntryRepository walletLedgerEntryRepository;
+
+	@Autowired
+	private WalletSnapshotRepository walletSnapshotRepository;
+
+	@Autowired
+	private UsersRepository usersRepository;
+
+	@Autowired
+	private TickersRepository tickersRepository;
+
+	@Autowired
+	private TradeRepository tradeRepository;
+
+	private Users user;
+	private Tickers ticker;
+
+	@BeforeEach
+	void setup() {
+		user = new Users();
+		user.setUsername("台帳太郎");
+		user.setEmail(UUID.randomUUID() + "@example.com");
+		user.setPassword("$2a$10$hBrJiyk7dArR3hGR7bvu5.oYKlK6O506lRvqdl8WTIvu1bxV22EJy");
+		user.setCreateAt(LocalDateTime.now());
+		user.setUpdateAt(LocalDateTime.now());
+		user.setEnabled(true);
+		usersRepository.save(user);
+
+		// 台帳の記録が無い開始残高（台帳導入前からのウォレットと同じ状態）
+		UserWallet wallet = userWalletService.getWalletByUser(user);
+		wallet.setJpyBalance(new BigDecimal("5000"));
+		wallet.setUsdBalance(new BigDecimal("100"));
+		userWalletRepository.save(wallet);
+
+		ticker = new Tickers();
+		ticker.setTicker("ZZLEDG");
+		ticker.setBrand("Ledger Test Inc.");
+		tickersRepository.save(ticker);
+	}
+
+	// side 0:買い / 1:売り、settlementCurrency の合計金額 totalPrice の取引を残高に反映する
+	private Trade applyTrade(int side, String settlementCurrency, String totalPrice) {
+		Trade trade = new Trade();
+		trade.setUser(user);
+		trade.setTicker(ticker);
+		trade.setQuantity(BigDecimal.ONE);
+		trade.setUnitPrice(new BigDecimal(totalPrice));
+		trade.setTotalPrice(new BigDecimal(totalPrice));
+		trade.setCurrency(settlementCurrency);
+		trade.setSettlementCurrency(settlementCurrency);
+		trade.setExchangeRate(BigDecimal.ONE);
+		trade.setSide(side);
+		trade.setType(1);
+		trade.setStatus(4);
+		trade.setCreateAt(LocalDateTime.now());
+		trade.setUpdateAt(LocalDateTime.now());
+		tradeRepository.save(trade);
+		userWalletService.applyTradeToWallet(trade);
+		return trade;
+	}
+
+	private List<WalletLedgerEntry> entries() {
+		Long walletId = userWalletRepository.findByUser(user).getId();
+		return walletLedgerEntryRepository.findAll().stream()
+				.filter(e -> e.getUserWallet().getId().equals(walletId))
+				.sorted(Comparator.comparingLong(WalletLedgerEntry::getSeq))
+				.toList();
+	}
+
+	@DisplayName("T-511: 取引ごとに台帳へ連番で記帳され、ウォレットの行は更新しない")
+	@Test
+	void applyTradeToWallet_appendsEntriesInSequence() {
+		Trade buy = applyTrade(0, "JPY", "1000");
+		Trade sell = applyTrade(1, "USD", "30");
+
+		List<WalletLedgerEntry> entries = entries();
+		assertThat(entries).hasSize(2);
+		assertThat(entries.get(0).getSeq()).isEqualTo(1);
+		assertThat(entries.get(0).getEntryType()).isEqualTo(LedgerEntryType.TRADE_DEBIT.getCode());
+		assertThat(entries.get(0).getCurrency()).isEqualTo("JPY");
+		assertThat(entries.get(0).getAmount()).isEqualByComparingTo("-1000");
+		assertThat(entries.get(0).getTrade().getId()).isEqualTo(buy.getId());
+		assertThat(entries.get(1).getSeq()).isEqualTo(2);
+		assertThat(entries.get(1).getEntryType()).isEqualTo(LedgerEntryType.TRADE_CREDIT.getCode());
+		assertThat(entries.get(1).getAmount()).isEqualByComparingTo("30");
+		assertThat(entries.get(1).getTrade().getId()).isEqualTo(sell.getId());
+
+		// 残高列・反映済みの連番はそのままで、現在の残高は残高列に記帳を足して求める
+		UserWallet wallet = userWalletRepository.findByUser(user);
+		assertThat(wallet.getLedgerSeq()).isZero();
+		assertThat(wallet.getJpyBalance()).isEqualByComparingTo("5000");
+		assertThat(wallet.getCurrentJpyBalance()).isEqualByComparingTo("4000");
+		assertThat(wallet.getCurrentUsdBalance()).isEqualByComparingTo("130");
+		assertThat(walletLedgerService.getCurrentBalance(user).getLastSeq()).isEqualTo(2);
+	}
+
+	@DisplayName("T-512: スナップショットが無い場合は、現在の残高から記帳を遡って過去の残高を求める")
+	@Test
+	void getBalanceAsOf_withoutSnapshot_replaysBackward() {
+		LocalDateTime before = LocalDateTime.now().minusMinutes(1);
+		applyTrade(0, "JPY", "1000");
+		applyTrade(1, "USD", "30");
+		LocalDateTime after = LocalDateTime.now().plusMinutes(1);
+
+		WalletBalanceDto past = walletLedgerService.getBalanceAsOf(user, before);
+		assertThat(past.getJpyBalance()).isEqualByComparingTo("5000");
+		assertThat(past.getUsdBalance()).isEqualByComparingTo("100");
+
+		WalletBalanceDto current = walletLedgerService.getBalanceAsOf(user, after);
+		assertThat(current.getJpyBalance()).isEqualByComparingTo("4000");
+		assertThat(current.getUsdBalance()).isEqualByComparingTo("130");
+	}
+
+	@DisplayName("T-513: 指定時点以前のスナップショットがあれば、そこから後の記帳だけを足し込む")
+	@Test
+	void getBalanceAsOf_withSnapshot_replaysForward() {
+		applyTrade(0, "JPY", "1000");
+		UserWallet wallet = userWalletRepository.findByUser(user);
+		LedgerBalance current = walletLedgerService.getCurrentBalance(user);
+
+		WalletSnapshot snapshot = new WalletSnapshot();
+		snapshot.setUserWallet(wallet);
+		snapshot.setSeq(current.getLastSeq());
+		snapshot.setJpyBalance(current.getJpy());
+		snapshot.setUsdBalance(current.getUsd());
+		snapshot.setCreateAt(LocalDateTime.now().plusMinutes(1));
+		walletSnapshotRepository.save(snapshot);
+
+		applyTrade(0, "USD", "40");
+
+		// 記帳日時はスナップショットより前だが、連番がスナップショットより後のため足し込まれる
+		WalletBalanceDto balance = walletLedgerService.getBalanceAsOf(user, LocalDateTime.now().plusMinutes(2));
+		assertThat(balance.getJpyBalance()).isEqualByComparingTo("4000");
+		assertThat(balance.getUsdBalance()).isEqualByComparingTo("60");
+	}
+
+	@DisplayName("T-514: 記帳件数が間隔未満のウォレットはスナップショットを取らない")
+	@Test
+	void takeSnapshots_belowInterval_skipsWallet() {
+		applyTrade(0, "JPY", "1000");
+		UserWallet wallet = userWalletRepository.findByUser(user);
+
+		walletLedgerService.takeSnapshots();
+
+		assertThat(walletSnapshotRepository.findTopByUserWalletAndCreateAtGreaterThanOrderBySeqAsc(
+				wallet, LocalDateTime.now().minusDays(1))).isEmpty();
+	}
+
+	@DisplayName("T-515: 間隔以上記帳されたウォレットは、記帳を残高列へ反映してからスナップショットを取る")
+	@Test
+	void takeSnapshots_atInterval_foldsEntriesAndTakesSnapshot() {
+		for (int i = 0; i < WalletLedgerService.SNAPSHOT_INTERVAL; i++) {
+			applyTrade(0, "JPY", "10");
+		}
+
+		walletLedgerService.takeSnapshots();
+
+		UserWallet wallet = userWalletRepository.findByUser(user);
+		assertThat(wallet.getLedgerSeq()).isEqualTo(WalletLedgerService.SNAPSHOT_INTERVAL);
+		assertThat(wallet.getJpyBalance()).isEqualByComparingTo("4000");
+		assertThat(wallet.getCurrentJpyBalance()).isEqualByComparingTo("4000");
+		WalletSnapshot snapshot = walletSnapshotRepository.findTopByUserWalletAndCreateAtLessThanEqualOrderBySeqDesc(
+				wallet, LocalDateTime.now().plusMinutes(1)).orElseThrow();
+		assertThat(snapshot.getSeq()).isEqualTo(WalletLedgerService.SNAPSHOT_INTERVAL);
+		assertThat(snapshot.getJpyBalance()).isEqualByComparingTo("4000");
+
+		// 反映後の記帳は、反映済みの残高列に足し込まれる
+		applyTrade(1, "JPY", "500");
+		LedgerBalance current = walletLedgerService.getCurrentBalance(user);
+		assertThat(current.getJpy()).isEqualByComparingTo("4500");
+		assertThat(current.getLastSeq()).isEqualTo(WalletLedgerService.SNAPSHOT_INTERVAL + 1);
+	}
+
+	@DisplayName("T-516: 残高を読み込んだ後に同じウォレットへ記帳されていた場合は、連番の競合として例外になる")
+	@Test
+	void appendTradeEntry_staleBalance_throwsConflict() {
+		LedgerBalance stale = walletLedgerService.getCurrentBalance(user);
+		Trade trade = applyTrade(0, "JPY", "1000"); // 連番1を記帳
+
+		assertThatThrownBy(() -> walletLedgerService.appendTradeEntry(stale, trade, new BigDecimal("-500"),
+				LocalDateTime.now()))
+				.isInstanceOf(OptimisticLockingFailureException.class);
+	}
+}
@@ -0,0 +1,118 @@
+package com.example.stock.trigger;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TriggerIndexTest {
+
+	private TriggerIndex index;
+
+	@BeforeEach
+	void setup() {
+		index = new TriggerIndex("AAPL");
+	}
+
+	private static TriggerOrder onFall(long orderId, long triggerPrice) {
+		return TriggerOrder.fixed(orderId, 1L, true, triggerPrice);
+	}
+
+	private static TriggerOrder onRise(long orderId, long triggerPrice) {
+		return TriggerOrder.fixed(orderId, 1L, false, triggerPrice);
+	}
+
+	@DisplayName("T-971: 安値が発動価格以下になった注文だけが発動する（発動価格の高い順）")
+	@Test
+	void onPrice_fall_firesOnlyCrossedTriggers() {
+		index.add(onFall(1, 9_500));
+		index.add(onFall(2, 9_000));
+		index.add(onFall(3, 9_800));
+
+		List<TriggerOrder> fired = index.onPrice(9_200, 10_000);
+
+		assertThat(fired).extracting(TriggerOrder::getOrderId).containsExactly(3L, 1L);
+		assertThat(index.size()).isEqualTo(1);
+		assertThat(index.contains(2)).isTrue();
+	}
+
+	@DisplayName("T-972: 高値が発動価格以上になった注文だけが発動する（発動価格の安い順）")
+	@Test
+	void onPrice_rise_firesOnlyCrossedTriggers() {
+		index.add(onRise(1, 11_000));
+		index.add(onRise(2, 10_500));
+		index.add(onFall(3, 9_000));
+
+		List<TriggerOrder> fired = index.onPrice(9_900, 10_600);
+
+		assertThat(fired).extracting(TriggerOrder::getOrderId).containsExactly(2L);
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	@DisplayName("T-973: 売りのトレーリングストップは高値に追従し、追従後の発動価格で発動する")
+	@Test
+	void onPrice_trailingSell_followsHighThenFires() {
+		index.add(TriggerOrder.trailing(1, 1L, true, 10_000, 500));
+
+		assertThat(index.onPrice(9_600, 10_400)).isEmpty();
+		assertThat(index.get(1).getTriggerPrice()).isEqualTo(9_900);
+		assertThat(index.get(1).getAnchor()).isEqualTo(10_400);
+
+		// 高値が基準値を下回っても発動価格は下がらない
+		assertThat(index.onPrice(9_950, 10_200)).isEmpty();
+		assertThat(index.get(1).getTriggerPrice()).isEqualTo(9_900);
+
+		List<TriggerOrder> fired = index.onPrice(9_900, 10_100);
+
+		assertThat(fired).extracting(TriggerOrder::getOrderId).containsExactly(1L);
+		assertThat(fired.get(0).getTriggerPrice()).isEqualTo(9_900);
+		assertThat(index.size()).isZero();
+	}
+
+	@DisplayName("T-974: 買いのトレーリングストップは安値に追従し、追従後の発動価格で発動する")
+	@Test
+	void onPrice_trailingBuy_followsLowThenFires() {
+		index.add(TriggerOrder.trailing(1, 1L, false, 10_000, 500));
+
+		assertThat(index.onPrice(9_600, 10_200)).isEmpty();
+		assertThat(index.get(1).getTriggerPrice()).isEqualTo(10_100);
+
+		List<TriggerOrder> fired = index.onPrice(9_700, 10_100);
+
+		assertThat(fired).extracting(TriggerOrder::getOrderId).containsExactly(1L);
+		assertThat(fired.get(0).getTriggerPrice()).isEqualTo(10_100);
+	}
+
+	@DisplayName("T-975: 基準値のまとまりを統合しても、注文ごとの値幅で発動価格が決まる")
+	@Test
+	void onPrice_mergedBuckets_keepPerOrderTriggerPrice() {
+		index.add(TriggerOrder.trailing(1, 1L, true, 10_000, 500));
+		index.add(TriggerOrder.trailing(2, 1L, true, 10_200, 300));
+
+		assertThat(index.onPrice(10_000, 10_500)).isEmpty();
+		assertThat(index.get(1).getTriggerPrice()).isEqualTo(10_000);
+		assertThat(index.get(2).getTriggerPrice()).isEqualTo(10_200);
+
+		List<TriggerOrder> fired = index.onPrice(10_100, 10_400);
+
+		assertThat(fired).extracting(TriggerOrder::getOrderId).containsExactly(2L);
+		assertThat(index.get(1).getTriggerPrice()).isEqualTo(10_000);
+	}
+
+	@DisplayName("T-976: 取り消した注文は発動せず、二重に取り消すことはできない")
+	@Test
+	void cancel_removesOrderFromIndex() {
+		index.add(onFall(1, 9_500));
+		index.add(TriggerOrder.trailing(2, 1L, true, 10_000, 500));
+
+		assertThat(index.cancel(1)).isTrue();
+		assertThat(index.cancel(2)).isTrue();
+		assertThat(index.cancel(2)).isFalse();
+
+		assertThat(index.onPrice(9_000, 10_000)).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+}
@@ -0,0 +1,92 @@
+package com.example.stock.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.example.stock.dto.StockCandleWithPrevCloseDto;
+
+class DownsamplingUtilTest {
+
+	// 新しい順のローソク足（i=0が最新）。終値は古いほど小さい
+	private List<StockCandleWithPrevCloseDto> candles(int size) {
+		List<StockCandleWithPrevCloseDto> list = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			double close = size - i;
+			list.add(new StockCandleWithPrevCloseDto("AAPL", "1day", String.format("d%04d", size - i),
+					close - 0.5, close + 1, close - 1, close, 10L, close - 1));
+		}
+		return list;
+	}
+
+	@DisplayName("T-711: ローソク足をまとめても始値・高値・安値・終値・出来高が保たれる")
+	@Test
+	void aggregateCandles_preservesOhlcv() {
+		List<StockCandleWithPrevCloseDto> result = DownsamplingUtil.aggregateCandles(candles(10), 5);
+
+		assertThat(result).hasSize(5);
+		StockCandleWithPrevCloseDto newest = result.get(0); // 終値10と9の2本
+		assertThat(newest.getDatetime()).isEqualTo("d0010");
+		assertThat(newest.getOpen()).isEqualTo(8.5);
+		assertThat(newest.getHigh()).isEqualTo(11.0);
+		assertThat(newest.getLow()).isEqualTo(8.0);
+		assertThat(newest.getClose()).isEqualTo(10.0);
+		assertThat(newest.getVolume()).isEqualTo(20L);
+		// 前日終値は1つ前の区間の終値
+		assertThat(newest.getPrevClose()).isEqualTo(result.get(1).getClose());
+	}
+
+	@DisplayName("T-712: 割り切れない場合は最も古い区間が短くなり、本数はmaxPoints以下になる")
+	@Test
+	void aggregateCandles_unevenBuckets() {
+		List<StockCandleWithPrevCloseDto> result = DownsamplingUtil.aggregateCandles(candles(10), 4);
+
+		assertThat(result).hasSizeLessThanOrEqualTo(4);
+		assertThat(result.get(0).getDatetime()).isEqualTo("d0010");
+		assertThat(result.get(result.size() - 1).getOpen()).isEqualTo(0.5); // 最も古い足の始値
+		assertThat(result.stream().mapToLong(StockCandleWithPrevCloseDto::getVolume).sum()).isEqualTo(100L);
+	}
+
+	@DisplayName("T-713: 本数がmaxPoints以下なら間引かない")
+	@Test
+	void aggregateCandles_noOpWhenSmall() {
+		List<StockCandleWithPrevCloseDto> source = candles(3);
+		assertThat(DownsamplingUtil.aggregateCandles(source, 5)).containsExactlyElementsOf(source);
+	}
+
+	@DisplayName("T-714: LTTBは最初と最後の点を残し、指定点数に減らす")
+	@Test
+	void lttb_keepsEndpointsAndThreshold() {
+		List<Double> points = IntStream.range(0, 1000).mapToObj(i -> Math.sin(i / 50.0)).toList();
+
+		List<Double> result = DownsamplingUtil.lttb(points, 100, Double::doubleValue);
+
+		assertThat(result).hasSize(100);
+		assertThat(result.get(0)).isEqualTo(points.get(0));
+		assertThat(result.get(99)).isEqualTo(points.get(999));
+	}
+
+	@DisplayName("T-715: LTTBは突出した値（スパイク）を残す")
+	@Test
+	void lttb_keepsSpike() {
+		List<Double> points = new ArrayList<>(IntStream.range(0, 500).mapToObj(i -> 1.0).toList());
+		points.set(250, 100.0);
+
+		List<Double> result = DownsamplingUtil.lttb(points, 20, Double::doubleValue);
+
+		assertThat(result).contains(100.0);
+	}
+
+	@DisplayName("T-716: LTTBは閾値が3未満または点数以下なら間引かない")
+	@Test
+	void lttb_noOpForSmallInput() {
+		List<Double> points = List.of(1.0, 2.0, 3.0, 4.0);
+		assertThat(DownsamplingUtil.lttb(points, 2, Double::doubleValue)).containsExactlyElementsOf(points);
+		assertThat(DownsamplingUtil.lttb(points, 10, Double::doubleValue)).containsExactlyElementsOf(points);
+	}
+}
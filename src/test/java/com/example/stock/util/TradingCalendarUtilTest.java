@@ -0,0 +1,102 @@
+package com.example.stock.util;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class TradingCalendarUtilTest {
+
+	@DisplayName("T-701: 土日は取引日ではない")
+	@Test
+	void weekend_isNotTradingDay() {
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2025, 4, 5))).isFalse(); // 土
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2025, 4, 6))).isFalse(); // 日
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2025, 4, 7))).isTrue(); // 月
+	}
+
+	@DisplayName("T-702: NYSEの休場日（聖金曜日・感謝祭・振替休日）は取引日ではない")
+	@Test
+	void exchangeHolidays_areNotTradingDays() {
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2025, 4, 18))).isFalse(); // 聖金曜日
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2025, 11, 27))).isFalse(); // 感謝祭
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2026, 7, 3))).isFalse(); // 独立記念日（土曜の振替）
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2022, 12, 26))).isFalse(); // クリスマス（日曜の振替）
+	}
+
+	@DisplayName("T-703: 元日が土曜日の場合、前年12/31は休場にならない")
+	@Test
+	void newYearOnSaturday_isNotObservedOnFriday() {
+		assertThat(TradingCalendarUtil.isTradingDay(LocalDate.of(2021, 12, 31))).isTrue();
+	}
+
+	@DisplayName("T-704: 前営業日は週末と休場日を飛ばす")
+	@Test
+	void previousTradingDay_skipsWeekendAndHolidays() {
+		// 2025/4/21(月)の前営業日は聖金曜日を飛ばして4/17(木)
+		assertThat(TradingCalendarUtil.previousTradingDay(LocalDate.of(2025, 4, 21)))
+				.isEqualTo(LocalDate.of(2025, 4, 17));
+		// 平日なら前日
+		assertThat(TradingCalendarUtil.previousTradingDay(LocalDate.of(2025, 4, 9)))
+				.isEqualTo(LocalDate.of(2025, 4, 8));
+	}
+
+	@DisplayName("T-705: 週足・月足の軸は週／月ごとに1件生成される")
+	@Test
+	void buildBuckets_weeklyAndMonthly() {
+		List<LocalDate> weeks = TradingCalendarUtil.buildBuckets("1week", LocalDate.of(2025, 4, 10), 3);
+		assertThat(weeks).containsExactly(
+				LocalDate.of(2025, 4, 7), LocalDate.of(2025, 3, 31), LocalDate.of(2025, 3, 24));
+
+		List<LocalDate> months = TradingCalendarUtil.buildBuckets("1month", LocalDate.of(2025, 4, 10), 2);
+		assertThat(months).containsExactly(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 3, 1));
+	}
+
+	@DisplayName("T-706: 日足の軸は終端が休日なら直前の取引日から始まる")
+	@Test
+	void buildBuckets_dailyStartsFromTradingDay() {
+		List<LocalDate> days = TradingCalendarUtil.buildBuckets("1day", LocalDate.of(2025, 4, 19), 3);
+		assertThat(days).containsExactly(
+				LocalDate.of(2025, 4, 17), LocalDate.of(2025, 4, 16), LocalDate.of(2025, 4, 15));
+	}
+
+	private static ZonedDateTime newYork(int year, int month, int day, int hour, int minute) {
+		return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, TradingCalendarUtil.MARKET_ZONE);
+	}
+
+	@DisplayName("T-707: 取引日の 9:30 ～ 16:00（ET）だけが立会時間中になる")
+	@Test
+	void isMarketOpen_regularSessionOnly() {
+		// 2025/06/02 は月曜日
+		assertThat(TradingCalendarUtil.isMarketOpen(newYork(2025, 6, 2, 9, 29))).isFalse();
+		assertThat(TradingCalendarUtil.isMarketOpen(newYork(2025, 6, 2, 9, 30))).isTrue();
+		assertThat(TradingCalendarUtil.isMarketOpen(newYork(2025, 6, 2, 15, 59))).isTrue();
+		assertThat(TradingCalendarUtil.isMarketOpen(newYork(2025, 6, 2, 16, 0))).isFalse();
+	}
+
+	@DisplayName("T-708: 土日・休場日は立会時間中にならず、他のタイムゾーンの時刻も現地時刻で判定する")
+	@Test
+	void isMarketOpen_weekendHolidayAndTimeZone() {
+		assertThat(TradingCalendarUtil.isMarketOpen(newYork(2025, 6, 7, 10, 0))).isFalse(); // 土曜日
+		assertThat(TradingCalendarUtil.isMarketOpen(newYork(2025, 7, 4, 10, 0))).isFalse(); // 独立記念日
+
+		// 2025/06/02 23:00 JST = 10:00 EDT
+		ZonedDateTime tokyo = ZonedDateTime.of(2025, 6, 2, 23, 0, 0, 0, ZoneId.of("Asia/Tokyo"));
+		assertThat(TradingCalendarUtil.isMarketOpen(tokyo)).isTrue();
+	}
+
+	@DisplayName("T-709: 寄付の日時はサーバーのタイムゾーンに変換して返す")
+	@Test
+	void sessionOpen_convertsToSystemZone() {
+		LocalDateTime open = TradingCalendarUtil.sessionOpen(LocalDate.of(2025, 6, 2));
+
+		assertThat(open.atZone(ZoneId.systemDefault()).toInstant())
+				.isEqualTo(newYork(2025, 6, 2, 9, 30).toInstant());
+	}
+}